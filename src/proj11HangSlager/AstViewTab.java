@@ -0,0 +1,637 @@
+/*
+ * File: AstViewTab.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS 361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
+import javafx.geometry.Orientation;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tab;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import proj11HangSlager.bantam.ast.ASTNode;
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.index.PositionIndex;
+import proj11HangSlager.bantam.treedrawer.CollapsibleLayoutVisitor;
+import proj11HangSlager.bantam.treedrawer.DrawingIndex;
+import proj11HangSlager.bantam.treedrawer.DrawingTree;
+import proj11HangSlager.bantam.treedrawer.TextMeasurer;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is the AstViewTab class, which shows the AST of the program of a
+ * JavaTab on a JavaFX Canvas, next to the code.
+ *
+ * The tree is laid out by CollapsibleLayoutVisitor on a background thread,
+ * measuring the captions with a JavaFX font. Only the top levels are shown
+ * at first: clicking a collapsed node shows its children, shift-clicking
+ * it its whole subtree, and right-clicking a node hides its children
+ * again, laying out only the part of the tree that changed. That layout,
+ * and the DrawingIndex of the tree positioned again, are made on a
+ * background thread too, while the canvas keeps showing the drawing as
+ * it was; the new index is swapped in on the FX thread, and only the AST
+ * nodes of the subtree shown or hidden are added to or removed from the
+ * drawings found for them.
+ *
+ * The canvas is only as large as the visible part of the tab, and scroll
+ * bars choose which part of the tree it shows, so painting touches only
+ * the nodes a DrawingIndex finds in the area painted. Changes mark a rectangle of the canvas dirty, and the
+ * dirty rectangles are repainted together once per pulse: scrolling
+ * repaints the canvas, growing it only the part uncovered, and a change
+ * of selection only the nodes whose color changes.
+ *
+ * Scrolling with the control key held zooms around the mouse. Below full
+ * scale the DrawingIndex chooses the level of detail: captions too small
+ * to read are left out, and subtrees too small to tell apart are painted
+ * as one box.
+ *
+ * Clicking a node moves the caret of the code to the start of its AST
+ * node, and moving the caret highlights the innermost node under it,
+ * which a PositionIndex of the program finds without walking the tree,
+ * or the collapsed node hiding it.
+ *
+ * @author Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since 3-3-19
+ */
+public class AstViewTab extends Tab {
+
+    private static final int MARGIN = 10;
+    private static final int FIXED_FONT_HEIGHT = 10;
+    private static final Font FONT = Font.font("SansSerif", 12);
+    private static final Color BACKGROUND = Color.rgb(238, 238, 238);
+    private static final Color NODE_COLOR = Color.rgb(250, 220, 100);
+    private static final Color SELECTED_COLOR = Color.rgb(140, 200, 250);
+    private static final Color SUMMARY_COLOR = Color.rgb(200, 160, 60);
+    private static final double MIN_SCALE = 0.01;
+    private static final double MAX_SCALE = 4;
+    private static final double ZOOM_STEP = 1.25;
+
+    // shared by every tab, so that a caption is measured once
+    private static final FxTextMeasurer MEASURER = new FxTextMeasurer(FONT);
+
+    private final JavaTab sourceTab;
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar hBar = new ScrollBar();
+    private final ScrollBar vBar = new ScrollBar();
+    private final ChangeListener<Integer> caretListener;
+
+    private CollapsibleLayoutVisitor layout;
+    private DrawingTree drawing;
+    private DrawingIndex index;
+    private Rectangle bounds = new Rectangle();
+    private double scale = 1;
+    private PositionIndex positions;
+    private final Map<ASTNode, DrawingTree> drawings = new IdentityHashMap<>();
+    private Set<DrawingTree> selected = new HashSet<>();
+
+    // the tree is being laid out and indexed again on a background thread,
+    // so its positions must not be read
+    private boolean relayoutRunning;
+
+    private Rectangle dirty;
+    private boolean repaintScheduled;
+
+    /**
+     * Constructor for an AstViewTab, which starts laying out the AST
+     *
+     * @param title     the name of the file parsed
+     * @param sourceTab the tab holding the code of the program
+     * @param program   the AST of the program
+     */
+    public AstViewTab(String title, JavaTab sourceTab, Program program) {
+        super("AST: " + title);
+        this.sourceTab = sourceTab;
+
+        Pane canvasPane = new Pane(canvas);
+        canvasPane.setMinSize(0, 0);
+        canvas.setManaged(false);
+        canvasPane.widthProperty().addListener((obs, oldWidth, newWidth) ->
+                resizeCanvas(newWidth.doubleValue(), canvas.getHeight()));
+        canvasPane.heightProperty().addListener((obs, oldHeight, newHeight) ->
+                resizeCanvas(canvas.getWidth(), newHeight.doubleValue()));
+
+        vBar.setOrientation(Orientation.VERTICAL);
+        hBar.valueProperty().addListener((obs, oldValue, newValue) -> invalidateAll());
+        vBar.valueProperty().addListener((obs, oldValue, newValue) -> invalidateAll());
+        canvas.setOnScroll(event -> {
+            if (event.isControlDown()) {
+                zoom(scale * Math.pow(ZOOM_STEP, Math.signum(event.getDeltaY())),
+                        event.getX(), event.getY());
+            }
+            else {
+                scrollBy(hBar, -event.getDeltaX());
+                scrollBy(vBar, -event.getDeltaY());
+            }
+        });
+        canvas.setOnMouseClicked(event -> this.handleClick(event.getX(), event.getY(),
+                event.getButton(), event.isShiftDown()));
+
+        BorderPane pane = new BorderPane(canvasPane);
+        pane.setRight(vBar);
+        pane.setBottom(hBar);
+        this.setContent(pane);
+
+        JavaCodeArea codeArea = sourceTab.getCodeArea();
+        this.caretListener = (obs, oldPosition, newPosition) -> selectAt(newPosition);
+        codeArea.caretPositionProperty().addListener(caretListener);
+        this.setOnClosed(event ->
+                codeArea.caretPositionProperty().removeListener(caretListener));
+
+        Task<Relayout> layoutTask = new Task<Relayout>() {
+            @Override
+            protected Relayout call() {
+                positions = new PositionIndex(program);
+                layout = new CollapsibleLayoutVisitor(MEASURER,
+                        CollapsibleLayoutVisitor.DEFAULT_DEPTH);
+                DrawingTree root = layout.layoutTree(program);
+                root.position(new Point(0, 0));
+                Relayout relayout = new Relayout(root);
+                collectSubtree(root, relayout.added);
+                return relayout;
+            }
+        };
+        layoutTask.setOnSucceeded(event -> {
+            this.swapIn(layoutTask.getValue());
+            this.invalidateAll();
+            this.selectAt(sourceTab.getCodeArea().getCaretPosition());
+        });
+        startThread(layoutTask);
+    }
+
+    /**
+     * The result of laying out and indexing the tree on a background
+     * thread: the positioned tree, its index, and the nodes of the
+     * drawing added and removed
+     */
+    private static class Relayout {
+        final DrawingTree root;
+        final DrawingIndex index;
+        final List<DrawingTree> added = new ArrayList<>();
+        final List<DrawingTree> removed = new ArrayList<>();
+
+        Relayout(DrawingTree root) {
+            this.root = root;
+            this.index = new DrawingIndex(root);
+        }
+    }
+
+    /**
+     * Uses the index of the tree laid out again, and updates the drawings
+     * of only the AST nodes added or removed
+     */
+    private void swapIn(Relayout relayout) {
+        this.drawing = relayout.root;
+        this.index = relayout.index;
+        this.bounds = index.getBounds();
+        for (DrawingTree node : relayout.removed) {
+            if (node.getNode() != null) {
+                drawings.remove(node.getNode(), node);
+            }
+        }
+        for (DrawingTree node : relayout.added) {
+            if (node.getNode() != null) {
+                drawings.put(node.getNode(), node);
+            }
+        }
+        selected.removeAll(relayout.removed);
+        updateScrollBars();
+    }
+
+    /**
+     * Expands or collapses a node, and positions and indexes the tree again,
+     * on a background thread. The result is swapped in on the FX thread,
+     * keeping the node where it is on the canvas.
+     *
+     * @param anchor   the node to expand or collapse
+     * @param collapse whether to collapse the node, or expand it
+     * @param whole    whether to expand the whole subtree of the node
+     * @param then     what to do on the FX thread once the result is shown
+     */
+    private void relayout(DrawingTree anchor, boolean collapse, boolean whole, Runnable then) {
+        double beforeX = (anchor.getX() - originX()) * scale;
+        double beforeY = (anchor.getY() - originY()) * scale;
+        Task<Relayout> relayoutTask = new Task<Relayout>() {
+            @Override
+            protected Relayout call() {
+                List<DrawingTree> removed = new ArrayList<>();
+                if (collapse) {
+                    for (DrawingTree child : anchor.getChildren()) {
+                        collectSubtree(child, removed);
+                    }
+                    layout.collapse(anchor);
+                }
+                else {
+                    layout.expand(anchor, whole);
+                }
+                drawing.position(new Point(0, 0));
+                Relayout relayout = new Relayout(drawing);
+                relayout.removed.addAll(removed);
+                for (DrawingTree child : anchor.getChildren()) {
+                    collectSubtree(child, relayout.added);
+                }
+                return relayout;
+            }
+        };
+        relayoutTask.setOnSucceeded(event -> {
+            relayoutRunning = false;
+            swapIn(relayoutTask.getValue());
+            scrollTo(hBar, hBar.getValue() + (anchor.getX() - originX()) * scale - beforeX);
+            scrollTo(vBar, vBar.getValue() + (anchor.getY() - originY()) * scale - beforeY);
+            invalidateAll();
+            then.run();
+        });
+        relayoutTask.setOnFailed(event -> {
+            relayoutRunning = false;
+            invalidateAll();
+        });
+        relayoutRunning = true;
+        startThread(relayoutTask);
+    }
+
+    /**
+     * Hides the children of the node right-clicked. Otherwise shows the
+     * children of the node clicked if they are hidden, or its whole subtree
+     * if shift is held, and moves the caret of the code to the start of
+     * the node, or to its line if the node has no offsets
+     */
+    private void handleClick(double x, double y, MouseButton button, boolean shift) {
+        if (relayoutRunning) {
+            return;
+        }
+        DrawingTree node = nodeAt(x, y);
+        if (node == null) {
+            return;
+        }
+        if (button == MouseButton.SECONDARY) {
+            if (node.getChildren().length > 0) {
+                relayout(node, true, false, () -> {});
+            }
+            return;
+        }
+        if (layout.isCollapsed(node)) {
+            relayout(node, false, shift, () -> showInCode(node));
+        }
+        else {
+            showInCode(node);
+        }
+    }
+
+    /**
+     * Moves the caret of the code to the start of the AST node of a node,
+     * or to its line if the node has no offsets, and highlights the node
+     */
+    private void showInCode(DrawingTree node) {
+        if (node.getNode() == null) {
+            return;
+        }
+        JavaCodeArea codeArea = sourceTab.getCodeArea();
+        sourceTab.getTabPane().getSelectionModel().select(sourceTab);
+        int offset = node.getNode().getStartOffset();
+        if (offset >= 0 && offset <= codeArea.getLength()) {
+            codeArea.moveTo(offset);
+        }
+        else {
+            codeArea.moveTo(Math.max(0, Math.min(node.getNode().getLineNum() - 1,
+                    codeArea.getParagraphs().size() - 1)), 0);
+        }
+        codeArea.requestFollowCaret();
+        codeArea.requestFocus();
+        // the caret highlights the innermost node there, the click this one
+        select(Collections.singletonList(node));
+    }
+
+    /**
+     * Highlights the innermost node drawn under an offset of the code and
+     * scrolls to it
+     *
+     * @param offset a character offset of the code
+     */
+    private void selectAt(int offset) {
+        // the positions are only read once the layout has succeeded
+        if (index == null || relayoutRunning) {
+            return;
+        }
+        for (ASTNode node : positions.nodesAt(offset)) {
+            DrawingTree drawing = drawings.get(node);
+            if (drawing != null) {
+                select(Collections.singletonList(drawing));
+                scrollTo(drawing);
+                return;
+            }
+        }
+        select(Collections.emptyList());
+    }
+
+    private void select(List<DrawingTree> nodes) {
+        for (DrawingTree node : selected) {
+            invalidate(canvasBox(node));
+        }
+        selected = new HashSet<>(nodes);
+        for (DrawingTree node : selected) {
+            invalidate(canvasBox(node));
+        }
+    }
+
+    /**
+     * Scales the drawing, keeping the point of the drawing under a point
+     * of the canvas where it is
+     *
+     * @param newScale the new scale, kept between MIN_SCALE and MAX_SCALE
+     * @param x        the x coordinate of the point of the canvas
+     * @param y        the y coordinate of the point of the canvas
+     */
+    private void zoom(double newScale, double x, double y) {
+        newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, newScale));
+        if (index == null || relayoutRunning || newScale == scale) {
+            return;
+        }
+        double anchorX = originX() + x / scale, anchorY = originY() + y / scale;
+        scale = newScale;
+        updateScrollBars();
+        scrollTo(hBar, (anchorX - bounds.x + MARGIN) * scale - x);
+        scrollTo(vBar, (anchorY - bounds.y + MARGIN) * scale - y);
+        invalidateAll();
+    }
+
+    //-------- painting ---------
+
+    /**
+     * Marks a rectangle of the canvas to be repainted in the next pulse
+     */
+    private void invalidate(Rectangle rect) {
+        Rectangle visible = rect.intersection(new Rectangle(0, 0,
+                (int) Math.ceil(canvas.getWidth()), (int) Math.ceil(canvas.getHeight())));
+        if (visible.isEmpty()) {
+            return;
+        }
+        if (dirty == null) {
+            dirty = visible;
+        } else {
+            dirty.add(visible);
+        }
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            Platform.runLater(this::repaint);
+        }
+    }
+
+    private void invalidateAll() {
+        invalidate(new Rectangle(0, 0, (int) Math.ceil(canvas.getWidth()),
+                (int) Math.ceil(canvas.getHeight())));
+    }
+
+    /**
+     * Repaints the dirty rectangle of the canvas, and only the nodes in it
+     */
+    private void repaint() {
+        // the dirty rectangle is repainted once the relayout is swapped in
+        if (relayoutRunning) {
+            repaintScheduled = false;
+            return;
+        }
+        Rectangle rect = dirty;
+        dirty = null;
+        repaintScheduled = false;
+        if (rect == null) {
+            return;
+        }
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.save();
+        gc.beginPath();
+        gc.rect(rect.x, rect.y, rect.width, rect.height);
+        gc.clip();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(rect.x, rect.y, rect.width, rect.height);
+
+        if (index != null) {
+            double originX = originX(), originY = originY();
+            Rectangle area = new Rectangle((int) Math.floor(originX + rect.x / scale),
+                    (int) Math.floor(originY + rect.y / scale),
+                    (int) Math.ceil(rect.width / scale) + 1,
+                    (int) Math.ceil(rect.height / scale) + 1);
+            gc.scale(scale, scale);
+            gc.translate(-originX, -originY);
+            gc.setStroke(Color.BLACK);
+            gc.setLineWidth(1);
+            gc.setFont(FONT);
+            index.paint(new FxPainter(gc), area, scale);
+        }
+        gc.restore();
+    }
+
+    /**
+     * Resizes the canvas to the tab, repainting only what it uncovers
+     */
+    private void resizeCanvas(double width, double height) {
+        double oldWidth = canvas.getWidth(), oldHeight = canvas.getHeight();
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+        updateScrollBars();
+        invalidate(new Rectangle((int) oldWidth, 0, (int) Math.ceil(width - oldWidth),
+                (int) Math.ceil(height)));
+        invalidate(new Rectangle(0, (int) oldHeight, (int) Math.ceil(width),
+                (int) Math.ceil(height - oldHeight)));
+    }
+
+    //-------- auxiliary methods ---------
+
+    private static void startThread(Task<?> task) {
+        Thread thread = new Thread(task, "AST layout");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds the nodes of a subtree of the drawing to a list
+     */
+    private static void collectSubtree(DrawingTree root, List<DrawingTree> nodes) {
+        Deque<DrawingTree> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DrawingTree node = stack.pop();
+            nodes.add(node);
+            for (DrawingTree child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+    }
+
+    private void updateScrollBars() {
+        double width = (bounds.width + 2 * MARGIN) * scale;
+        double height = (bounds.height + 2 * MARGIN) * scale;
+        hBar.setMax(Math.max(0, width - canvas.getWidth()));
+        hBar.setVisibleAmount(hBar.getMax() * canvas.getWidth() / width);
+        hBar.setBlockIncrement(canvas.getWidth() * 0.9);
+        hBar.setUnitIncrement(20);
+        vBar.setMax(Math.max(0, height - canvas.getHeight()));
+        vBar.setVisibleAmount(vBar.getMax() * canvas.getHeight() / height);
+        vBar.setBlockIncrement(canvas.getHeight() * 0.9);
+        vBar.setUnitIncrement(20);
+        scrollTo(hBar, hBar.getValue());
+        scrollTo(vBar, vBar.getValue());
+    }
+
+    private static void scrollBy(ScrollBar bar, double delta) {
+        scrollTo(bar, bar.getValue() + delta);
+    }
+
+    private static void scrollTo(ScrollBar bar, double value) {
+        bar.setValue(Math.max(bar.getMin(), Math.min(bar.getMax(), value)));
+    }
+
+    /**
+     * Scrolls the node to the center of the canvas if it is not visible
+     */
+    private void scrollTo(DrawingTree node) {
+        Rectangle box = canvasBox(node);
+        if (box.x < 0 || box.x + box.width > canvas.getWidth()) {
+            scrollTo(hBar, hBar.getValue() + box.x + box.width / 2 - canvas.getWidth() / 2);
+        }
+        if (box.y < 0 || box.y + box.height > canvas.getHeight()) {
+            scrollTo(vBar, vBar.getValue() + box.y + box.height / 2 - canvas.getHeight() / 2);
+        }
+    }
+
+    /**
+     * @return the node whose box contains a point of the canvas, or null
+     */
+    private DrawingTree nodeAt(double x, double y) {
+        if (index == null) {
+            return null;
+        }
+        int px = (int) Math.floor(originX() + x / scale);
+        int py = (int) Math.floor(originY() + y / scale);
+        for (DrawingTree node : index.query(new Rectangle(px, py, 1, 1))) {
+            if (new Rectangle(node.getX(), node.getY(), node.getWidth(), node.getHeight())
+                    .contains(px, py)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the box of a node on the canvas, with its border
+     */
+    private Rectangle canvasBox(DrawingTree node) {
+        int left = (int) Math.floor((node.getX() - originX()) * scale);
+        int top = (int) Math.floor((node.getY() - originY()) * scale);
+        int right = (int) Math.ceil((node.getX() + node.getWidth() + 1 - originX()) * scale);
+        int bottom = (int) Math.ceil((node.getY() + node.getHeight() + 1 - originY()) * scale);
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * @return the x coordinate of the drawing at the left of the canvas
+     */
+    private double originX() {
+        return bounds.x - MARGIN + Math.round(hBar.getValue()) / scale;
+    }
+
+    /**
+     * @return the y coordinate of the drawing at the top of the canvas
+     */
+    private double originY() {
+        return bounds.y - MARGIN + Math.round(vBar.getValue()) / scale;
+    }
+
+    /**
+     * Paints the parts of the drawing the DrawingIndex chooses on the
+     * canvas, in the coordinates of the drawing
+     */
+    private class FxPainter implements DrawingIndex.Painter {
+        private final GraphicsContext gc;
+
+        FxPainter(GraphicsContext gc) {
+            this.gc = gc;
+        }
+
+        @Override
+        public void paintEdge(DrawingTree node) {
+            DrawingTree parent = node.getParent();
+            if (parent != null) {
+                gc.strokeLine(node.getX() + node.getWidth() / 2 + 0.5, node.getY() + 0.5,
+                        parent.getX() + parent.getWidth() / 2 + 0.5,
+                        parent.getY() + parent.getHeight() + 0.5);
+            }
+        }
+
+        @Override
+        public void paintNode(DrawingTree node, boolean caption) {
+            gc.setFill(selected.contains(node) ? SELECTED_COLOR : NODE_COLOR);
+            gc.fillRect(node.getX(), node.getY(), node.getWidth(), node.getHeight());
+            gc.strokeRect(node.getX() + 0.5, node.getY() + 0.5,
+                    node.getWidth() - 1, node.getHeight() - 1);
+            if (caption) {
+                gc.setFill(Color.BLACK);
+                gc.fillText(node.getCaption(), node.getX() + 2,
+                        node.getY() + (node.getHeight() + FIXED_FONT_HEIGHT) / 2);
+            }
+        }
+
+        @Override
+        public void paintSummary(Rectangle subtree) {
+            gc.setFill(SUMMARY_COLOR);
+            gc.fillRect(subtree.x, subtree.y, subtree.width, subtree.height);
+            gc.strokeRect(subtree.x + 0.5, subtree.y + 0.5, subtree.width - 1, subtree.height - 1);
+        }
+    }
+
+    /**
+     * Measures captions with a JavaFX font, on any thread, remembering
+     * the width of each caption
+     */
+    private static class FxTextMeasurer implements TextMeasurer {
+        private final Text text = new Text();
+        private final Map<String, Integer> widths = new ConcurrentHashMap<>();
+        private final int height;
+
+        FxTextMeasurer(Font font) {
+            text.setFont(font);
+            text.setText("Xg");
+            this.height = (int) Math.ceil(text.getLayoutBounds().getHeight());
+        }
+
+        @Override
+        public int stringWidth(String caption) {
+            return widths.computeIfAbsent(caption, this::measure);
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        private synchronized int measure(String caption) {
+            text.setText(caption);
+            return (int) Math.ceil(text.getLayoutBounds().getWidth());
+        }
+    }
+}
@@ -17,11 +17,14 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import org.fxmisc.richtext.StyleClassedTextArea;
 
+import java.util.function.Consumer;
+
 /**
  * This class is used to support console functionality.
  * It can be used to write new lines of text to the console.
  * It can also be used to check whether user input been given,
- * and what the command string was.
+ * and what the command string was. Each line entered is passed to the
+ * input handler, such as the standard input of a running program.
  *
  * @author  Zena Abulhab, Paige Hanssen, Kyle Slager Kevin Zhou (Project 5)
  * @author  Kevin Ahn, Lucas DeGraw, Jackie Hang, Kyle Slager
@@ -34,6 +37,7 @@ public class Console extends StyleClassedTextArea {
     private int commandStartIndex;
 
     private String command;
+    private Consumer<String> inputHandler;
     // Whether or not a user-input command has been received
     // Constructor, using StyleClassedTextArea default
     public Console(){
@@ -51,6 +55,25 @@ public class Console extends StyleClassedTextArea {
 
 
 
+    /**
+     * Sets what is done with each line entered from now on, and starts a
+     * new line of input.
+     * @param inputHandler takes each line entered, without its line break,
+     *                     or null to keep the lines in the console only
+     */
+    public void setInputHandler(Consumer<String> inputHandler) {
+        this.inputHandler = inputHandler;
+        this.commandStartIndex = -1;
+        this.command = "";
+    }
+
+    /**
+     * @return what is done with each line entered, or null
+     */
+    public Consumer<String> getInputHandler() {
+        return this.inputHandler;
+    }
+
     /**
      * Adds a new, separate line of text to this console.
      * Used in ToolbarController when printing to the console.
@@ -113,6 +136,12 @@ public class Console extends StyleClassedTextArea {
             if (this.getCaretPosition() >= commandStartIndex) {
                 this.appendText("\n");
                 this.requestFollowCaret();
+                if (this.inputHandler != null) {
+                    this.inputHandler.accept(this.getText().substring(commandStartIndex,
+                            this.getText().length() - 1));
+                    this.commandStartIndex = -1;
+                    this.command = "";
+                }
             }
         }
 
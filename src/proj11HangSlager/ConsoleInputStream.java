@@ -0,0 +1,100 @@
+/*
+ * File: ConsoleInputStream.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An InputStream that a program running on a background thread reads
+ * the lines typed into the Console from. A read waits until a line is
+ * entered, or until the stream is closed or the reading thread is
+ * interrupted.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+public class ConsoleInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Deque<byte[]> lines = new ArrayDeque<>();
+    private byte[] line = EMPTY;
+    private int position = 0;
+    private boolean closed = false;
+
+    /**
+     * Adds a line entered in the console, for the program to read.
+     * Lines entered once the stream is closed are dropped.
+     *
+     * @param text the text of the line, without its line break
+     */
+    public synchronized void addLine(String text) {
+        if (!closed) {
+            lines.add((text + "\n").getBytes(StandardCharsets.UTF_8));
+            notifyAll();
+        }
+    }
+
+    public synchronized int read() throws InterruptedIOException {
+        while (position == line.length) {
+            if (!lines.isEmpty()) {
+                line = lines.remove();
+                position = 0;
+            }
+            else if (closed) {
+                return -1;
+            }
+            else {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("The program was stopped.");
+                }
+            }
+        }
+        return line[position++] & 0xff;
+    }
+
+    /**
+     * Waits for a line only if nothing of the current one is left.
+     */
+    public synchronized int read(byte[] bytes, int offset, int length)
+            throws InterruptedIOException {
+        if (length == 0) {
+            return 0;
+        }
+        int first = read();
+        if (first < 0) {
+            return -1;
+        }
+        bytes[offset] = (byte) first;
+        int count = Math.min(length - 1, line.length - position);
+        System.arraycopy(line, position, bytes, offset + 1, count);
+        position += count;
+        return count + 1;
+    }
+
+    public synchronized int available() {
+        return line.length - position;
+    }
+
+    /**
+     * Ends the input; reads waiting for a line return the end of the stream.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
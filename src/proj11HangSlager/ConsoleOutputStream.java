@@ -0,0 +1,103 @@
+/*
+ * File: ConsoleOutputStream.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager;
+
+import javafx.application.Platform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An OutputStream that streams text written by a background thread
+ * into the Console. Text is collected and handed to the FX thread at
+ * most every few milliseconds, so a program printing in a tight loop
+ * neither floods the FX thread nor waits on it. Text flushed too soon
+ * after an update is passed on once the interval is over, so it shows
+ * even if the program then computes for a long time without printing.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+public class ConsoleOutputStream extends OutputStream {
+
+    /**
+     * The least time between two updates of the console, in nanoseconds
+     */
+    private static final long UPDATE_INTERVAL = 30_000_000L;
+
+    // one thread passes on the text held back by every stream
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Console updates");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Console console;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private long lastUpdate = 0;
+    private boolean updateScheduled = false;
+
+    /**
+     * @param console the console the text is written to
+     */
+    public ConsoleOutputStream(Console console) {
+        this.console = console;
+    }
+
+    public synchronized void write(int b) {
+        buffer.write(b);
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        buffer.write(bytes, offset, length);
+    }
+
+    /**
+     * Passes the collected text on, or, if the console was updated only
+     * a moment ago, schedules it to be passed on when the interval is over.
+     */
+    public synchronized void flush() {
+        long delay = lastUpdate + UPDATE_INTERVAL - System.nanoTime();
+        if (delay <= 0) {
+            update();
+        }
+        else if (!updateScheduled && buffer.size() > 0) {
+            updateScheduled = true;
+            SCHEDULER.schedule(this::scheduledUpdate, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Passes any remaining text on.
+     */
+    public synchronized void close() {
+        update();
+    }
+
+    private synchronized void scheduledUpdate() {
+        updateScheduled = false;
+        update();
+    }
+
+    private void update() {
+        lastUpdate = System.nanoTime();
+        if (buffer.size() == 0) {
+            return;
+        }
+        String text = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        buffer.reset();
+        Platform.runLater(() -> console.writeLine(text, "CONS"));
+    }
+}
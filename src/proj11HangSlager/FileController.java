@@ -14,6 +14,7 @@
 
 package proj11HangSlager;
 
+import javafx.collections.ListChangeListener;
 import javafx.event.Event;
 
 import java.util.List;
@@ -24,6 +25,8 @@ import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.HashMap;
 
 import javafx.application.Platform;
@@ -31,20 +34,25 @@ import javafx.scene.control.Tab;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TabPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 
 import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CodeArea;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.opt.ConstantFoldingVisitor;
 import proj11HangSlager.bantam.semant.MainMainVisitor;
 import proj11HangSlager.bantam.semant.NumLocalVarsVisitor;
 import proj11HangSlager.bantam.semant.StringConstantsVisitor;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
 import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.cache.AstCache;
 import proj11HangSlager.bantam.lexer.Scanner;
 import proj11HangSlager.bantam.lexer.Token;
-import proj11HangSlager.bantam.parser.Parser;
-import proj11HangSlager.bantam.treedrawer.Drawer;
 import proj11HangSlager.bantam.util.CompilationException;
 import proj11HangSlager.bantam.util.Error;
 import proj11HangSlager.bantam.util.ErrorHandler;
@@ -66,6 +74,13 @@ public class FileController {
     private HashMap<Tab, String> tabFilepathMap;
     private VBox vBox;
 
+    /**
+     * The split pane holding the javaTabPane, and the astTabPane beside it
+     * while any AST is shown
+     */
+    private SplitPane editorSplitPane;
+    private TabPane astTabPane;
+
     /**
      * ContextMenuController handling context menu actions
      */
@@ -73,17 +88,28 @@ public class FileController {
 
 
     private Scanner scanner;
-    private Parser parser;
+    // unchanged files are read back from the cache instead of parsed again
+    private AstCache astCache = new AstCache();
     private ErrorHandler errorHandler;
+    private Program checkedProgram;
+    private SymbolTable checkedSymbolTable;
 
     /**
      * Constructor for the class. Intializes the save status
      * and the tabFilepathMap in a HashMap
      */
-    public FileController(VBox vBox, JavaTabPane javaTabPane) {
+    public FileController(VBox vBox, JavaTabPane javaTabPane, SplitPane editorSplitPane) {
         this.vBox = vBox;
         this.javaTabPane = javaTabPane;
+        this.editorSplitPane = editorSplitPane;
         this.tabFilepathMap = new HashMap<>();
+
+        this.astTabPane = new TabPane();
+        this.astTabPane.getTabs().addListener((ListChangeListener<Tab>) change -> {
+            if (this.astTabPane.getTabs().isEmpty()) {
+                this.editorSplitPane.getItems().remove(this.astTabPane);
+            }
+        });
     }
 
     /**
@@ -104,6 +130,15 @@ public class FileController {
         return tabFilepathMap.get(curTab);
     }
 
+    /**
+     * Returns the name of the file open in a tab.
+     * @param tab a tab of the tab pane
+     * @return The name of the file, or null if the tab was never saved
+     */
+    public String getFilePath(Tab tab){
+        return tabFilepathMap.get(tab);
+    }
+
     /**
      * Handler for the "About" menu item in the "File" menu.
      * Creates an Information alert dialog to display author and information of this program
@@ -373,10 +408,6 @@ public class FileController {
                 if(scanOrParse.equals("SCAN_ONLY")) {
                     this.scanner = new Scanner(filename, this.errorHandler);
                 }
-                else{
-                    this.parser = new Parser(this.errorHandler);
-                }
-
             }
             catch(CompilationException e){
                 throw e;
@@ -393,10 +424,9 @@ public class FileController {
             }
 
             else{
-                Program root = this.parser.parse(filename);
+                Program root = this.astCache.parse(filename, this.errorHandler);
                 if(scanOrParse.equals("SCAN_AND_PARSE")) {
-                    Drawer drawer = new Drawer();
-                    drawer.draw(filename, root);
+                    this.showAst(curTab, filename, root);
                 }
                 return root;
             }
@@ -414,11 +444,28 @@ public class FileController {
             }
         }
         else if (saveStatus == "yes"){
-            scanOrParseHelper(event, scanOrParse);
+            return scanOrParseHelper(event, scanOrParse);
         }
         return null;
     }
 
+    /**
+     * Shows the AST of the program of a tab in a new tab beside the code,
+     * opening the astTabPane if no AST is shown yet
+     * @param sourceTab the tab holding the code parsed
+     * @param filename the name of the file parsed
+     * @param root the root of the AST
+     */
+    private void showAst(JavaTab sourceTab, String filename, Program root) {
+        if (!this.editorSplitPane.getItems().contains(this.astTabPane)) {
+            this.editorSplitPane.getItems().add(this.astTabPane);
+            this.editorSplitPane.setDividerPositions(0.55);
+        }
+        AstViewTab astTab = new AstViewTab(new File(filename).getName(), sourceTab, root);
+        this.astTabPane.getTabs().add(astTab);
+        this.astTabPane.getSelectionModel().select(astTab);
+    }
+
     /**
      * Parses the program and checks if there is a
      * main method and a Main class
@@ -462,11 +509,11 @@ public class FileController {
      *
      * Parses the program and returns a map of the
      * number of local variables in every method in the
-     * program
+     * program, along with the most locals live at once
      * @param event
      * @return
      */
-    public Map<String,Integer> handleNumLocVarCheck(Event event){
+    public Map<String,NumLocalVarsVisitor.LocalVars> handleNumLocVarCheck(Event event){
         Program program;
         try {
             program = scanOrParseHelper(event, "PARSE_NO_TREE_DRAWN");
@@ -476,7 +523,50 @@ public class FileController {
         }
 
         NumLocalVarsVisitor numLocalVarsVisitor = new NumLocalVarsVisitor();
-        return numLocalVarsVisitor.getNumLocalVars(program);
+        return numLocalVarsVisitor.getLocalVars(program);
+    }
+
+    /**
+     *
+     * Parses the program and checks its names and types,
+     * method bodies in parallel
+     * @param event
+     * @return the semantic errors found, in program order, or null if
+     * the file was not parsed, because it was not saved
+     */
+    public List<Error> handleTypeCheck(Event event){
+        Program program;
+        this.checkedProgram = null;
+        try {
+            program = scanOrParseHelper(event, "PARSE_NO_TREE_DRAWN");
+        }
+        catch(CompilationException e){
+            throw e;
+        }
+
+        if (program == null) {
+            return null;
+        }
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor();
+        this.checkedSymbolTable = typeCheckerVisitor.check(program, this.errorHandler);
+        if (!this.errorHandler.errorsFound()) {
+            new ConstantFoldingVisitor().fold(program);
+            this.checkedProgram = program;
+        }
+        return this.errorHandler.getErrorList();
+    }
+
+    /**
+     * Prepares the program last checked by handleTypeCheck for running
+     * @param out the stream the program writes to
+     * @param in  the stream the program reads standard input from
+     * @return the interpreter, or null if no program passed the check
+     */
+    public Interpreter handleRun(PrintStream out, InputStream in){
+        if (this.checkedProgram == null) {
+            return null;
+        }
+        return new Interpreter(this.checkedProgram, this.checkedSymbolTable, out, in);
     }
 
 
@@ -7,17 +7,29 @@ package proj11HangSlager;
  * Date: November 20, 2018
  */
 
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
 import org.reactfx.Subscription;
+import proj11HangSlager.bantam.index.CompletionIndex;
+import proj11HangSlager.bantam.semant.Symbol;
 
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,6 +46,23 @@ public class JavaCodeArea extends CodeArea {
 
     private ContextMenuController contextMenuController;
 
+    // the most completions shown at once
+    private static final int MAX_COMPLETIONS = 50;
+
+    // finds completions off the JavaFX thread, for every code area
+    private static final ExecutorService COMPLETION_EXECUTOR =
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Code completion");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // built from the last version of the text that parsed
+    private volatile CompletionIndex completionIndex;
+    private final ContextMenu completionMenu = new ContextMenu();
+    // the number of completions asked for, so only the latest is shown
+    private int completionRequests;
+
     //ContextMenuController contextMenuController
     public JavaCodeArea(ContextMenuController contextMenuController) {
         super();
@@ -41,6 +70,7 @@ public class JavaCodeArea extends CodeArea {
         this.setParagraphGraphicFactory(LineNumberFactory.get(this));
         this.contextMenuController = contextMenuController;
         this.contextMenuController.setupJavaCodeAreaContextMenuHandler(this);
+        this.setupCompletion();
         /**
          * Obtained from Douglas-Hanssen-MacDonald-Zhang
          * Used for closing braces and parentheses at the end of a code area
@@ -84,6 +114,133 @@ public class JavaCodeArea extends CodeArea {
                 .subscribe(ignore -> this.setStyleSpans(0, computeHighlighting(this.getText())));
     }
 
+    /**
+     * Sets the index completions are found in. It may be set from any thread.
+     *
+     * @param completionIndex an index built from the text of this code area
+     */
+    public void setCompletionIndex(CompletionIndex completionIndex) {
+        this.completionIndex = completionIndex;
+    }
+
+    /**
+     * Shows the names that can complete the word at the caret, once they
+     * are found on a background thread.
+     */
+    public void requestCompletion() {
+        this.requestCompletion(this.getCaretPosition());
+    }
+
+    /**
+     * Completions are offered on Ctrl+Space and after a "." is typed.
+     * While they are shown, typing or deleting letters of the word at the
+     * caret narrows or widens them; any other edit hides them.
+     */
+    private void setupCompletion() {
+        KeyCombination complete = new KeyCodeCombination(KeyCode.SPACE, KeyCombination.CONTROL_DOWN);
+        this.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (complete.match(event)) {
+                this.requestCompletion();
+                event.consume();
+            }
+        });
+        this.plainTextChanges().subscribe(change -> {
+            if (change.getInserted().equals(".")) {
+                this.requestCompletion(change.getInsertionEnd());
+            }
+            else if (this.completionMenu.isShowing()
+                    && isIdentifierPart(change.getInserted())
+                    && isIdentifierPart(change.getRemoved())) {
+                this.requestCompletion(change.getInsertionEnd());
+            }
+            else {
+                this.completionMenu.hide();
+            }
+        });
+
+        // the shown menu may get the keys typed; the word is still edited
+        this.completionMenu.addEventFilter(KeyEvent.KEY_TYPED, event -> {
+            if (isIdentifierPart(event.getCharacter())) {
+                this.replaceSelection(event.getCharacter());
+                event.consume();
+            }
+        });
+        this.completionMenu.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.BACK_SPACE) {
+                this.deletePreviousChar();
+                event.consume();
+            }
+        });
+    }
+
+    /**
+     * @return whether every character of a string can be part of a name
+     */
+    private static boolean isIdentifierPart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the completions at an offset on the completion thread, and
+     * shows them if the caret is still there and no later completion was
+     * asked for.
+     */
+    private void requestCompletion(int caret) {
+        CompletionIndex index = this.completionIndex;
+        if (index == null) {
+            return;
+        }
+        String text = this.getText();
+        int request = ++this.completionRequests;
+        COMPLETION_EXECUTOR.execute(() -> {
+            List<Symbol> found = index.complete(text, caret);
+            Platform.runLater(() -> {
+                if (request == this.completionRequests && this.getCaretPosition() == caret) {
+                    this.showCompletions(found, caret);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows completions below the caret, replacing the ones shown; choosing
+     * one replaces the word before the caret with it.
+     */
+    private void showCompletions(List<Symbol> found, int caret) {
+        if (found.isEmpty()) {
+            this.completionMenu.hide();
+            return;
+        }
+        String text = this.getText();
+        int start = caret;
+        while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1)))
+            start--;
+        int wordStart = start;
+
+        this.completionMenu.getItems().clear();
+        for (Symbol symbol : found.subList(0, Math.min(found.size(), MAX_COMPLETIONS))) {
+            String label = symbol.getName();
+            if (symbol.getKind() == Symbol.Kind.METHOD) {
+                label += "(" + String.join(", ", symbol.getParamTypes()) + ")";
+            }
+            if (symbol.getKind() != Symbol.Kind.CLASS && symbol.getType() != null) {
+                label += " : " + symbol.getType();
+            }
+            MenuItem item = new MenuItem(label);
+            item.setOnAction(event -> this.replaceText(wordStart, caret, symbol.getName()));
+            this.completionMenu.getItems().add(item);
+        }
+        if (!this.completionMenu.isShowing()) {
+            this.getCaretBounds().ifPresent(bounds ->
+                    this.completionMenu.show(this, bounds.getMinX(), bounds.getMaxY()));
+        }
+    }
+
     // a list of strings that contain the keywords for the IDE to identify.
     private static final String[] KEYWORDS = new String[]{
             "abstract", "assert", "boolean", "break", "byte",
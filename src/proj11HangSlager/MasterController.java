@@ -14,19 +14,28 @@
 package proj11HangSlager;
 
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.event.Event;
+import javafx.stage.DirectoryChooser;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.awt.Desktop;
+import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import proj11HangSlager.bantam.index.Occurrence;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.interp.InterpreterException;
+import proj11HangSlager.bantam.semant.NumLocalVarsVisitor;
 import proj11HangSlager.bantam.util.CompilationException;
 import proj11HangSlager.bantam.util.Error;
 
@@ -48,6 +57,7 @@ import proj11HangSlager.bantam.util.Error;
 public class MasterController {
     @FXML private Menu editMenu;
     @FXML private JavaTabPane javaTabPane;
+    @FXML private SplitPane editorSplitPane;
     @FXML private VBox vBox;
     @FXML private MenuItem saveMenuItem;
     @FXML private MenuItem saveAsMenuItem;
@@ -67,12 +77,18 @@ public class MasterController {
     @FXML private Button checkMainBtn;
     @FXML private Button checkStringBtn;
     @FXML private Button checkLocalVarBtn;
+    @FXML private Button checkTypesBtn;
+    @FXML private Button runBtn;
+    @FXML private MenuItem goToDefinitionMenuItem;
+    @FXML private MenuItem findUsagesMenuItem;
 
 
 
 
     private EditController editController;
     private FileController fileController;
+    private WorkspaceIndexer workspaceIndexer;
+    private Thread programThread;
 
 
     // this line from JianQuanMarcello project 6
@@ -82,7 +98,8 @@ public class MasterController {
     public void initialize(){
 
         editController = new EditController(javaTabPane, findTextEntry, findPrevBtn, findNextBtn, replaceTextEntry);
-        this.fileController = new FileController(vBox,javaTabPane);
+        this.fileController = new FileController(vBox,javaTabPane,editorSplitPane);
+        this.workspaceIndexer = new WorkspaceIndexer(javaTabPane, fileController);
 
         SimpleListProperty<Tab> listProperty = new SimpleListProperty<Tab> (javaTabPane.getTabs());
         editMenu.disableProperty().bind(listProperty.emptyProperty());
@@ -94,6 +111,10 @@ public class MasterController {
         checkMainBtn.disableProperty().bind(listProperty.emptyProperty());
         checkStringBtn.disableProperty().bind(listProperty.emptyProperty());
         checkLocalVarBtn.disableProperty().bind(listProperty.emptyProperty());
+        checkTypesBtn.disableProperty().bind(listProperty.emptyProperty());
+        runBtn.disableProperty().bind(listProperty.emptyProperty());
+        goToDefinitionMenuItem.disableProperty().bind(listProperty.emptyProperty());
+        findUsagesMenuItem.disableProperty().bind(listProperty.emptyProperty());
 
 
         // this line from JianQuanMarcello project 6
@@ -261,7 +282,7 @@ public class MasterController {
      */
 
     @FXML public void handleNumLocVarCheck(Event event) throws InterruptedException {
-        Map<String,Integer> localVar;
+        Map<String,NumLocalVarsVisitor.LocalVars> localVar;
         this.console.clear();
         try {
               localVar =  this.fileController.handleNumLocVarCheck(event);
@@ -270,10 +291,95 @@ public class MasterController {
             return;
         }
 
-        this.console.writeLine("These are the number of variables in each method: \n", "CONS");
+        this.console.writeLine("These are the number of variables in each method " +
+                "(and the most that are live at once): \n", "CONS");
         this.console.writeLine(localVar.toString(), "CONS");
     }
 
+    /**
+     * Scans and parses the file of the current tab
+     * and writes to console the semantic errors in it
+     * @param event
+     * @throws InterruptedException
+     */
+
+    @FXML public void handleTypeCheck(Event event) throws InterruptedException {
+        List<Error> semanticErrors;
+        this.console.clear();
+        try {
+            semanticErrors = this.fileController.handleTypeCheck(event);
+        } catch (CompilationException e) {
+            this.console.writeLine(e.toString() + "\n", "ERROR");
+            return;
+        }
+
+        // the file was not saved, so nothing was checked
+        if (semanticErrors == null) {
+            return;
+        }
+        if (semanticErrors.isEmpty()) {
+            this.console.writeLine("This file is well typed.", "CONS");
+            return;
+        }
+        for (Error e : semanticErrors)
+            this.console.writeLine(e.toString() + "\n", "ERROR");
+        this.console.writeLine(semanticErrors.size() + " semantic errors were found.", "ERROR");
+    }
+
+    /**
+     * Checks the file of the current tab and, if it has no errors, runs it
+     * on a background thread, streaming its output to the console and
+     * feeding it the lines entered there as its standard input.
+     * A program that is still running is stopped first.
+     * @param event
+     * @throws InterruptedException
+     */
+
+    @FXML public void handleRun(Event event) throws InterruptedException {
+        if (this.programThread != null) {
+            this.programThread.interrupt();
+        }
+        this.handleTypeCheck(event);
+        ConsoleOutputStream output = new ConsoleOutputStream(this.console);
+        ConsoleInputStream input = new ConsoleInputStream();
+        Interpreter interpreter = this.fileController.handleRun(new PrintStream(output, true),
+                input);
+        if (interpreter == null) {
+            return;
+        }
+        this.console.clear();
+        Consumer<String> inputHandler = input::addLine;
+        this.console.setInputHandler(inputHandler);
+
+        // a large stack lets recursive programs run deep
+        this.programThread = new Thread(null, () -> {
+            String message;
+            String type = "ERROR";
+            try {
+                message = "\nThe program exited with status " + interpreter.run() + ".\n";
+                type = "CONS";
+            } catch (InterpreterException e) {
+                message = "\n" + e.getMessage() + "\n";
+            } catch (RuntimeException e) {
+                message = "\nThe program failed: " + e + "\n";
+            } finally {
+                // the output still buffered goes before the exit message
+                output.close();
+                input.close();
+            }
+            String finalMessage = message;
+            String finalType = type;
+            Platform.runLater(() -> {
+                this.console.writeLine(finalMessage, finalType);
+                if (this.console.getInputHandler() == inputHandler) {
+                    this.console.setInputHandler(null);
+                }
+            });
+        }, "Bantam program", 1 << 26);
+        this.programThread.setDaemon(true);
+        this.programThread.start();
+    }
+
 
 
     /**
@@ -474,6 +580,67 @@ public class MasterController {
     }
 
 
+    /**
+     * Handler for the "Go To Definition" menu item in the "Navigate" menu.
+     * Moves the caret to the definition of the class, method or field
+     * named at the caret, as found by the workspace index.
+     */
+    @FXML
+    public void handleGoToDefinition() {
+        JavaTab tab = (JavaTab) javaTabPane.getSelectionModel().getSelectedItem();
+        long start = System.nanoTime();
+        Occurrence definition = workspaceIndexer.goToDefinition(tab);
+        long elapsed = System.nanoTime() - start;
+        if (definition == null) {
+            this.console.writeLine("No definition found.\n", "ERROR");
+        }
+        else {
+            this.console.writeLine("Definition at " + workspaceIndexer.describe(definition)
+                    + " (" + elapsed / 1000 + " us)\n", "CONS");
+        }
+    }
+
+    /**
+     * Handler for the "Find Usages" menu item in the "Navigate" menu.
+     * Lists in the console the sites using the class, method or field
+     * named at the caret, as found by the workspace index.
+     */
+    @FXML
+    public void handleFindUsages() {
+        JavaTab tab = (JavaTab) javaTabPane.getSelectionModel().getSelectedItem();
+        long start = System.nanoTime();
+        List<Occurrence> usages = workspaceIndexer.findUsages(tab);
+        long elapsed = System.nanoTime() - start;
+        this.console.clear();
+        for (Occurrence usage : usages)
+            this.console.writeLine(workspaceIndexer.describe(usage) + "\n", "CONS");
+        this.console.writeLine(usages.size() + " usages of "
+                + workspaceIndexer.nameAtCaret(tab) + " found (" + elapsed / 1000 + " us)\n", "CONS");
+    }
+
+    /**
+     * Handler for the "Index Folder..." menu item in the "Navigate" menu.
+     * Adds the Bantam Java files of a folder to the workspace index, so
+     * definitions and usages are found in them without opening them.
+     */
+    @FXML
+    public void handleIndexFolder() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Index Folder");
+        File folder = directoryChooser.showDialog(vBox.getScene().getWindow());
+        if (folder == null) {
+            return;
+        }
+        workspaceIndexer.indexFolder(folder, indexed -> {
+            if (indexed < 0) {
+                this.console.writeLine("Cannot read " + folder + ".\n", "ERROR");
+            }
+            else {
+                this.console.writeLine("Indexed " + indexed + " files of " + folder + ".\n", "CONS");
+            }
+        });
+    }
+
     /**
      * Calls handleMatchBracketOrParen() of the editController
      */
@@ -0,0 +1,283 @@
+/*
+ * File: WorkspaceIndexer.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS 361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.Tab;
+import org.reactfx.Subscription;
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.index.CompletionIndex;
+import proj11HangSlager.bantam.index.Occurrence;
+import proj11HangSlager.bantam.index.SymbolIndex;
+import proj11HangSlager.bantam.lexer.Token;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a SymbolIndex of the tabs open in the editor, and of the folders
+ * the user chose to index, up to date in the background, and answers go
+ * to definition and find usages from it.
+ *
+ * A tab is indexed when it opens and again half a second after its text
+ * stops changing, from its unsaved text. The parsing is done by a single
+ * background thread; edits that arrive while it is busy replace each
+ * other, so only the latest text of a tab is parsed. Lookups are made on
+ * the JavaFX thread, as they only read the index. Each parse also gives
+ * the code area of its tab a new CompletionIndex.
+ *
+ * @author Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since 3-3-19
+ */
+public class WorkspaceIndexer {
+
+    private final JavaTabPane javaTabPane;
+    private final FileController fileController;
+    private final SymbolIndex index = new SymbolIndex();
+    private final ExecutorService executor;
+
+    // the key each open tab is indexed under, and the tab open under each key
+    private final Map<JavaTab, String> tabKeys = new HashMap<>();
+    private final Map<String, JavaTab> keyTabs = new HashMap<>();
+    private final Map<JavaTab, Subscription> subscriptions = new HashMap<>();
+    // the latest text of each file waiting to be indexed
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    // the folders indexed, whose files are indexed from disk when closed
+    private final Set<Path> folders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param javaTabPane    the tab pane of the editor
+     * @param fileController the controller that knows the files of the tabs
+     */
+    public WorkspaceIndexer(JavaTabPane javaTabPane, FileController fileController) {
+        this.javaTabPane = javaTabPane;
+        this.fileController = fileController;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Workspace indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        javaTabPane.getTabs().addListener((ListChangeListener<Tab>) change -> {
+            while (change.next()) {
+                for (Tab tab : change.getRemoved())
+                    if (tab instanceof JavaTab) untrack((JavaTab) tab);
+                for (Tab tab : change.getAddedSubList())
+                    if (tab instanceof JavaTab) track((JavaTab) tab);
+            }
+        });
+    }
+
+    /**
+     * Moves the caret to the definition of the class, method or field named
+     * at the caret of a tab, opening its file if it is not open. A definition
+     * in the same file is preferred.
+     *
+     * @param tab the tab
+     * @return the definition, or null if the name has none or the caret is
+     * not on a name
+     */
+    public Occurrence goToDefinition(JavaTab tab) {
+        String name = nameAtCaret(tab);
+        if (name == null) {
+            return null;
+        }
+        List<Occurrence> definitions = index.getDefinitions(name);
+        if (definitions.isEmpty()) {
+            return null;
+        }
+        Occurrence definition = definitions.get(0);
+        for (Occurrence occurrence : definitions) {
+            if (occurrence.getFile().equals(tabKeys.get(tab))) {
+                definition = occurrence;
+                break;
+            }
+        }
+
+        JavaTab target = keyTabs.get(definition.getFile());
+        if (target == null) {
+            fileController.handleNew(new File(definition.getFile()));
+            target = (JavaTab) javaTabPane.getSelectionModel().getSelectedItem();
+        }
+        javaTabPane.getSelectionModel().select(target);
+        target.getCodeArea().moveTo(Math.min(definition.getStartOffset(),
+                target.getCodeArea().getLength()));
+        target.getCodeArea().requestFollowCaret();
+        target.getCodeArea().requestFocus();
+        return definition;
+    }
+
+    /**
+     * Finds the sites using the class, method or field named at the caret
+     * of a tab.
+     *
+     * @param tab the tab
+     * @return the usages, or an empty list if the caret is not on a name
+     */
+    public List<Occurrence> findUsages(JavaTab tab) {
+        String name = nameAtCaret(tab);
+        return name == null ? Collections.emptyList() : index.getUsages(name);
+    }
+
+    /**
+     * Returns the name at the caret of a tab.
+     *
+     * @param tab the tab
+     * @return the name, or null if the caret is not on a name
+     */
+    public String nameAtCaret(JavaTab tab) {
+        String text = tab.getCodeArea().getText();
+        int caret = tab.getCodeArea().getCaretPosition();
+        int start = caret, end = caret;
+        while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1)))
+            start--;
+        while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end)))
+            end++;
+        if (start == end || !Character.isJavaIdentifierStart(text.charAt(start))) {
+            return null;
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * Describes where an occurrence is, naming its tab if it is open.
+     *
+     * @param occurrence an occurrence found by the index
+     * @return the tab or file and the line of the occurrence
+     */
+    public String describe(Occurrence occurrence) {
+        JavaTab tab = keyTabs.get(occurrence.getFile());
+        String where = tab == null ? occurrence.getFile() : tab.getText();
+        return where + ":" + occurrence.getLineNum() + ": "
+                + occurrence.getKind().name().toLowerCase() + " " + occurrence.getName();
+    }
+
+    /**
+     * Indexes the Bantam Java files of a folder in the background, but the
+     * ones open, which are indexed from their tabs.
+     *
+     * @param folder the folder
+     * @param done   called on the JavaFX thread with the number of files
+     *               indexed, or -1 if the folder could not be read
+     */
+    public void indexFolder(File folder, Consumer<Integer> done) {
+        Path dir = folder.toPath();
+        Set<String> open = new HashSet<>(keyTabs.keySet());
+        folders.add(dir);
+        executor.execute(() -> {
+            int indexed;
+            try {
+                indexed = index.updateDirectory(dir, open);
+            }
+            catch (IOException e) {
+                indexed = -1;
+            }
+            int finalIndexed = indexed;
+            Platform.runLater(() -> done.accept(finalIndexed));
+        });
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Starts indexing a tab. The file controller learns the file of a tab
+     * only after adding it, so the first indexing waits until then.
+     */
+    private void track(JavaTab tab) {
+        subscriptions.put(tab, tab.getCodeArea()
+                .multiPlainChanges()
+                .successionEnds(Duration.ofMillis(500))
+                .subscribe(ignore -> reindex(tab)));
+        Platform.runLater(() -> {
+            if (subscriptions.containsKey(tab)) reindex(tab);
+        });
+    }
+
+    /**
+     * Stops indexing a closed tab. Its file is dropped from the index
+     * unless it is in an indexed folder, where it is indexed as saved.
+     */
+    private void untrack(JavaTab tab) {
+        Subscription subscription = subscriptions.remove(tab);
+        if (subscription != null) subscription.unsubscribe();
+        String key = tabKeys.remove(tab);
+        if (key == null) {
+            return;
+        }
+        keyTabs.remove(key);
+        pending.remove(key);
+        boolean inFolder = fileController.getFilePath(tab) != null
+                && folders.stream().anyMatch(dir -> new File(key).toPath().startsWith(dir));
+        executor.execute(() -> {
+            if (!inFolder || !index.update(key)) index.remove(key);
+        });
+    }
+
+    /**
+     * Queues the text of a tab to be indexed under its file, or a name of
+     * its own if it was never saved, dropping its old name if it was saved
+     * under a new one.
+     */
+    private void reindex(JavaTab tab) {
+        String path = fileController.getFilePath(tab);
+        String key = path != null ? path : "Untitled@" + System.identityHashCode(tab);
+        String oldKey = tabKeys.put(tab, key);
+        if (oldKey != null && !oldKey.equals(key)) {
+            keyTabs.remove(oldKey);
+            pending.remove(oldKey);
+            executor.execute(() -> index.remove(oldKey));
+        }
+        keyTabs.put(key, tab);
+
+        if (pending.put(key, tab.getCodeArea().getText()) == null) {
+            executor.execute(() -> {
+                String text = pending.remove(key);
+                if (text != null) index(tab, key, text);
+            });
+        }
+    }
+
+    /**
+     * Parses the text of a tab and indexes it, on the indexing thread. Text
+     * that does not parse leaves the indexes of its last version that did.
+     */
+    private void index(JavaTab tab, String key, String text) {
+        Parser parser = new Parser(new ErrorHandler());
+        List<Token> tokens = new ArrayList<>();
+        parser.setTokenLog(tokens);
+        Program program;
+        try {
+            program = parser.parse(key, new StringReader(text));
+        }
+        catch (CompilationException e) {
+            return;
+        }
+        index.update(key, program, tokens);
+        tab.getCodeArea().setCompletionIndex(new CompletionIndex(program, text));
+    }
+}
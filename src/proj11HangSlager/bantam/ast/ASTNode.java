@@ -31,7 +31,8 @@ import proj11HangSlager.bantam.visitor.Visitor;
 
 /**
  * The abstract <tt>ASTNode</tt> class represents a generic AST node.
- * It contains a line number (<tt>lineNumber</tt>).
+ * It contains a line number (<tt>lineNumber</tt>) and the character offsets
+ * of its source code (<tt>startOffset</tt>, <tt>endOffset</tt>).
  * <p/>
  * <p/>
  * <p/>
@@ -257,6 +258,13 @@ public abstract class ASTNode {
      */
     protected int lineNum;
 
+    /**
+     * The offsets of the first character of the source code of this AST node
+     * and just past its last character, or -1 if the node was not parsed
+     */
+    protected int startOffset = -1;
+    protected int endOffset = -1;
+
     /**
      * ASTNode constructor
      *
@@ -275,6 +283,35 @@ public abstract class ASTNode {
         return lineNum;
     }
 
+    /**
+     * Get the offset of the first character of the source code of this AST node
+     *
+     * @return start offset, or -1 if unknown
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Get the offset just past the last character of the source code of this AST node
+     *
+     * @return end offset, or -1 if unknown
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Set the character offsets of the source code of this AST node
+     *
+     * @param startOffset offset of the first character
+     * @param endOffset   offset just past the last character
+     */
+    public void setOffsets(int startOffset, int endOffset) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
     /**
      * Visitor method
      *
@@ -61,6 +61,11 @@ public class ArrayAssignExpr extends Expr {
      */
     protected Expr expr;
 
+    /**
+     * The id of the symbol the assigned array variable resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
     /**
      * ArrayAssignExpr constructor
      *
@@ -105,6 +110,15 @@ public class ArrayAssignExpr extends Expr {
         return index;
     }
 
+    /**
+     * Set the index expression
+     *
+     * @param index the new index expression
+     */
+    public void setIndex(Expr index) {
+        this.index = index;
+    }
+
     /**
      * Get the righthand expression of the assignment
      *
@@ -114,6 +128,33 @@ public class ArrayAssignExpr extends Expr {
         return expr;
     }
 
+    /**
+     * Set the right-hand expression
+     *
+     * @param expr the new right-hand expression
+     */
+    public void setExpr(Expr expr) {
+        this.expr = expr;
+    }
+
+    /**
+     * Get the id of the symbol the assigned array variable resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the assigned array variable resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
     /**
      * Visitor method
      *
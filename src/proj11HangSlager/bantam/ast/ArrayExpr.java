@@ -55,6 +55,11 @@ public class ArrayExpr extends Expr {
      */
     protected Expr index;
 
+    /**
+     * The id of the symbol the array variable resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
     /**
      * ArrayExpr constructor
      *
@@ -98,6 +103,33 @@ public class ArrayExpr extends Expr {
         return index;
     }
 
+    /**
+     * Set the index expression
+     *
+     * @param index the new index expression
+     */
+    public void setIndex(Expr index) {
+        this.index = index;
+    }
+
+    /**
+     * Get the id of the symbol the array variable resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the array variable resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
     /**
      * Visitor method
      *
@@ -55,6 +55,11 @@ public class AssignExpr extends Expr {
      */
     protected Expr expr;
 
+    /**
+     * The id of the symbol the assigned variable resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
     /**
      * AssignExpr constructor
      *
@@ -97,6 +102,33 @@ public class AssignExpr extends Expr {
         return expr;
     }
 
+    /**
+     * Set the right-hand expression
+     *
+     * @param expr the new right-hand expression
+     */
+    public void setExpr(Expr expr) {
+        this.expr = expr;
+    }
+
+    /**
+     * Get the id of the symbol the assigned variable resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the assigned variable resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
     /**
      * Visitor method
      *
@@ -75,6 +75,15 @@ public abstract class BinaryExpr extends Expr {
         return leftExpr;
     }
 
+    /**
+     * Set the left expression
+     *
+     * @param leftExpr the new left expression
+     */
+    public void setLeftExpr(Expr leftExpr) {
+        this.leftExpr = leftExpr;
+    }
+
     /**
      * Get the righthand expression
      *
@@ -84,6 +93,15 @@ public abstract class BinaryExpr extends Expr {
         return rightExpr;
     }
 
+    /**
+     * Set the right expression
+     *
+     * @param rightExpr the new right expression
+     */
+    public void setRightExpr(Expr rightExpr) {
+        this.rightExpr = rightExpr;
+    }
+
     /**
      * Get the operation name (e.g., "+")
      * (must be defined by each subclass)
@@ -54,6 +54,11 @@ public class DeclStmt extends Stmt {
      */
     protected Expr init;
 
+    /**
+     * The id of the symbol the declared variable resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
     /**
      * DeclStmt constructor
      *
@@ -96,6 +101,33 @@ public class DeclStmt extends Stmt {
         return init;
     }
 
+    /**
+     * Set the initialization expression
+     *
+     * @param init the new initialization expression
+     */
+    public void setInit(Expr init) {
+        this.init = init;
+    }
+
+    /**
+     * Get the id of the symbol the declared variable resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the declared variable resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
     /**
      * Visitor method
      *
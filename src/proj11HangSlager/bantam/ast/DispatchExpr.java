@@ -53,6 +53,16 @@ public class DispatchExpr extends Expr {
      */
     protected ExprList actualList;
 
+    /**
+     * The id of the symbol the method resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
+    /**
+     * State an execution engine keeps for this call site (e.g. an inline cache)
+     */
+    private Object callSiteCache;
+
     /**
      * DispatchExpr constructor
      *
@@ -78,6 +88,15 @@ public class DispatchExpr extends Expr {
         return refExpr;
     }
 
+    /**
+     * Set the reference expression
+     *
+     * @param refExpr the new reference expression
+     */
+    public void setRefExpr(Expr refExpr) {
+        this.refExpr = refExpr;
+    }
+
     /**
      * Get the method name
      *
@@ -96,6 +115,42 @@ public class DispatchExpr extends Expr {
         return actualList;
     }
 
+    /**
+     * Get the id of the symbol the method resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the method resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
+    /**
+     * Get the state an execution engine keeps for this call site
+     *
+     * @return the call site state, or null if there is none yet
+     */
+    public Object getCallSiteCache() {
+        return callSiteCache;
+    }
+
+    /**
+     * Set the state an execution engine keeps for this call site
+     *
+     * @param callSiteCache the call site state
+     */
+    public void setCallSiteCache(Object callSiteCache) {
+        this.callSiteCache = callSiteCache;
+    }
+
     /**
      * Visitor method
      *
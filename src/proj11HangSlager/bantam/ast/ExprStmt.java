@@ -62,6 +62,15 @@ public class ExprStmt extends Stmt {
         return expr;
     }
 
+    /**
+     * Set the expression
+     *
+     * @param expr the new expression
+     */
+    public void setExpr(Expr expr) {
+        this.expr = expr;
+    }
+
     /**
      * Visitor method
      *
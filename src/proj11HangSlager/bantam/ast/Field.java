@@ -94,6 +94,15 @@ public class Field extends Member {
         return init;
     }
 
+    /**
+     * Set the initialization expression
+     *
+     * @param init the new initialization expression
+     */
+    public void setInit(Expr init) {
+        this.init = init;
+    }
+
     /**
      * Visitor method
      *
@@ -76,6 +76,15 @@ public class InstanceofExpr extends Expr {
         return expr;
     }
 
+    /**
+     * Set the expression
+     *
+     * @param expr the new expression
+     */
+    public void setExpr(Expr expr) {
+        this.expr = expr;
+    }
+
     /**
      * Get the righthand type
      *
@@ -103,6 +103,29 @@ public abstract class ListNode extends ASTNode
         return listElements.get(index);
     }
 
+    /**
+     * Replace the index-th element
+     *
+     * @param index the index of the element to replace
+     * @param node  the new element
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the index is
+     *         too large or too small
+     */
+    public void set(int index, ASTNode node) {
+        listElements.set(index, node);
+    }
+
+    /**
+     * Remove the index-th element
+     *
+     * @param index the index of the element to remove
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the index is
+     *         too large or too small
+     */
+    public void remove(int index) {
+        listElements.remove(index);
+    }
+
     /**
      * Visitor method
      *
@@ -79,6 +79,15 @@ public class NewArrayExpr extends Expr {
         return size;
     }
 
+    /**
+     * Set the size expression
+     *
+     * @param size the new size expression
+     */
+    public void setSize(Expr size) {
+        this.size = size;
+    }
+
     /**
      * Visitor method
      *
@@ -63,6 +63,15 @@ public class ReturnStmt extends Stmt {
         return expr;
     }
 
+    /**
+     * Set the return expression
+     *
+     * @param expr the new return expression
+     */
+    public void setExpr(Expr expr) {
+        this.expr = expr;
+    }
+
     /**
      * Visitor method
      *
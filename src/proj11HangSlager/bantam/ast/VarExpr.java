@@ -52,6 +52,11 @@ public class VarExpr extends Expr {
      */
     protected String name;
 
+    /**
+     * The id of the symbol the variable resolves to (-1 until resolved)
+     */
+    private int symbolId = -1;
+
     /**
      * VarExpr constructor
      *
@@ -85,6 +90,24 @@ public class VarExpr extends Expr {
         return name;
     }
 
+    /**
+     * Get the id of the symbol the variable resolves to
+     *
+     * @return symbol id, or -1 if not resolved
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * Set the id of the symbol the variable resolves to
+     *
+     * @param symbolId the id of the resolved symbol
+     */
+    public void setSymbolId(int symbolId) {
+        this.symbolId = symbolId;
+    }
+
     /**
      * Visitor method
      *
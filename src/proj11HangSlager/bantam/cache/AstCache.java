@@ -0,0 +1,231 @@
+/*
+ * File: AstCache.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 20, 2019
+ */
+
+package proj11HangSlager.bantam.cache;
+
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.lexer.Token;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A persistent on-disk cache of parsed compilation units.
+ *
+ * The first time a file is parsed its token stream and AST are written to
+ * the cache directory in the binary format described in AstFormat, tagged
+ * with a SHA-256 hash of the source text. Later parses of an unchanged file
+ * memory-map the cache file and rebuild the AST directly from it, skipping
+ * scanning and parsing altogether. Files that fail to scan or parse are
+ * never cached, so their errors are reported again on every run.
+ *
+ * The interpreter, the JVM runner, the BytecodeCache and the IDE all parse
+ * saved files through a cache, so a file is parsed again only once it
+ * changes.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-20-19
+ */
+public class AstCache {
+
+    /**
+     * The directory used when no cache directory is given
+     */
+    public static final String DEFAULT_CACHE_DIR = ".bantam-cache";
+
+    private CacheFiles cacheFiles;
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Creates a cache that stores its files in DEFAULT_CACHE_DIR, the
+     * directory shared by the compile drivers and the IDE.
+     */
+    public AstCache() {
+        this(Paths.get(DEFAULT_CACHE_DIR));
+    }
+
+    /**
+     * Creates a cache that stores its files in the given directory,
+     * creating the directory on the first write if necessary.
+     *
+     * @param cacheDir the directory holding the cache files
+     */
+    public AstCache(Path cacheDir) {
+        this.cacheFiles = new CacheFiles(cacheDir, "bast");
+    }
+
+    /**
+     * Returns the AST of the given file, from the cache if the file is
+     * unchanged since it was cached and by scanning and parsing it otherwise.
+     *
+     * @param filename     the name of the Bantam Java file
+     * @param errorHandler the handler that scanning and parsing errors are reported to
+     * @return the root of the AST
+     * @throws CompilationException if the file cannot be read or parsed
+     */
+    public Program parse(String filename, ErrorHandler errorHandler) {
+        byte[] hash = CacheFiles.hashSource(filename);
+        ByteBuffer image = mapCacheFile(filename, hash);
+        if (image != null) {
+            hits++;
+            return new AstReader(image).readProgram();
+        }
+        misses++;
+        return parseAndStore(filename, hash, errorHandler, null);
+    }
+
+    /**
+     * Returns the token stream of the given file (comments included), from
+     * the cache if possible and by parsing it otherwise.
+     *
+     * @param filename     the name of the Bantam Java file
+     * @param errorHandler the handler that scanning and parsing errors are reported to
+     * @return the tokens of the file, excluding the final EOF token
+     * @throws CompilationException if the file cannot be read or parsed
+     */
+    public List<Token> getTokens(String filename, ErrorHandler errorHandler) {
+        byte[] hash = CacheFiles.hashSource(filename);
+        ByteBuffer image = mapCacheFile(filename, hash);
+        if (image != null) {
+            hits++;
+            return new AstReader(image).readTokens();
+        }
+        misses++;
+        List<Token> tokens = new ArrayList<>();
+        parseAndStore(filename, hash, errorHandler, tokens);
+        return tokens;
+    }
+
+    /**
+     * @return the number of requests answered from the cache
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of requests that had to scan and parse the source
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private Program parseAndStore(String filename, byte[] hash,
+                                  ErrorHandler errorHandler, List<Token> tokens) {
+        if (tokens == null) {
+            tokens = new ArrayList<>();
+        }
+        Parser parser = new Parser(errorHandler);
+        parser.setTokenLog(tokens);
+        Program program = parser.parse(filename);
+
+        // the EOF token is only an end marker, not part of the stream
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).kind == Token.Kind.EOF) {
+            tokens.remove(tokens.size() - 1);
+        }
+        if (!errorHandler.errorsFound()) {
+            byte[] image = new AstWriter().write(hash, tokens, program);
+            cacheFiles.store(filename, out -> out.write(image));
+        }
+        return program;
+    }
+
+    /**
+     * Maps the cache file of the given source, if there is one whose header
+     * matches the current format version and source hash.
+     *
+     * @return the mapped cache file, or null on a cache miss
+     */
+    private ByteBuffer mapCacheFile(String filename, byte[] hash) {
+        Path cacheFile = cacheFiles.fileFor(filename);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            if (channel.size() < AstFormat.HEADER_LENGTH) {
+                return null;
+            }
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (image.getInt() != AstFormat.MAGIC || image.getShort() != AstFormat.VERSION) {
+                return null;
+            }
+            byte[] cachedHash = new byte[AstFormat.HASH_LENGTH];
+            image.get(cachedHash);
+            return Arrays.equals(hash, cachedHash) ? image : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates every Bantam Java file given on the command line (directories
+     * are searched recursively for .btm files), using the cache for all
+     * unchanged files.
+     *
+     * Usage: AstCache [-cache dir] file-or-directory...
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        Path cacheDir = Paths.get(DEFAULT_CACHE_DIR);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-cache") && i + 1 < args.length) {
+                cacheDir = Paths.get(args[++i]);
+            }
+            else if (Files.isDirectory(Paths.get(args[i]))) {
+                try (Stream<Path> walk = Files.walk(Paths.get(args[i]))) {
+                    files.addAll(walk.filter(p -> p.toString().endsWith(".btm"))
+                            .collect(Collectors.toList()));
+                }
+            }
+            else {
+                files.add(Paths.get(args[i]));
+            }
+        }
+
+        AstCache cache = new AstCache(cacheDir);
+        int failed = 0;
+        long start = System.nanoTime();
+        for (Path file : files) {
+            ErrorHandler errorHandler = new ErrorHandler();
+            try {
+                cache.parse(file.toString(), errorHandler);
+            } catch (CompilationException e) {
+                System.out.println(file + ": " + e.getMessage());
+            }
+            if (errorHandler.errorsFound()) {
+                failed++;
+                errorHandler.getErrorList().forEach(System.out::println);
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println(files.size() + " files validated in " + millis + " ms ("
+                + cache.getHits() + " cached, " + cache.getMisses() + " parsed, "
+                + failed + " with errors).");
+    }
+}
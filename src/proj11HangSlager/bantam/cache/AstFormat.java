@@ -0,0 +1,94 @@
+/*
+ * File: AstFormat.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 20, 2019
+ */
+
+package proj11HangSlager.bantam.cache;
+
+/**
+ * Constants describing the on-disk layout of a cached compilation unit.
+ *
+ * A cache file is laid out as follows (all integers big-endian unless
+ * written as varints):
+ * <pre>
+ *   int     MAGIC
+ *   short   VERSION
+ *   byte[]  source hash (HASH_LENGTH bytes)
+ *   int     offset of the token section
+ *   int     offset of the AST section
+ *   string table (varint count, then varint length + UTF-8 bytes per entry)
+ *   token section (varint count, then kind, spelling index, position,
+ *                  start offset and length per token)
+ *   AST section (pre-order node records of tag, line number, start offset
+ *                and length, then the fields; see the tags below)
+ * </pre>
+ * Bump VERSION whenever the layout or the set of tags changes so that stale
+ * cache files are ignored rather than misread.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-20-19
+ */
+final class AstFormat {
+
+    static final int MAGIC = 0x42415354; // "BAST"
+    static final short VERSION = 2;
+    static final int HASH_LENGTH = 32;   // SHA-256
+    static final int HEADER_LENGTH = 4 + 2 + HASH_LENGTH + 4 + 4;
+
+    // node tags -- 0 is reserved for an absent (null) child
+    static final byte NULL = 0;
+    static final byte PROGRAM = 1;
+    static final byte CLASS_LIST = 2;
+    static final byte CLASS = 3;
+    static final byte MEMBER_LIST = 4;
+    static final byte FIELD = 5;
+    static final byte METHOD = 6;
+    static final byte FORMAL_LIST = 7;
+    static final byte FORMAL = 8;
+    static final byte STMT_LIST = 9;
+    static final byte DECL_STMT = 10;
+    static final byte EXPR_STMT = 11;
+    static final byte IF_STMT = 12;
+    static final byte WHILE_STMT = 13;
+    static final byte FOR_STMT = 14;
+    static final byte BREAK_STMT = 15;
+    static final byte BLOCK_STMT = 16;
+    static final byte RETURN_STMT = 17;
+    static final byte EXPR_LIST = 18;
+    static final byte DISPATCH_EXPR = 19;
+    static final byte NEW_EXPR = 20;
+    static final byte NEW_ARRAY_EXPR = 21;
+    static final byte INSTANCEOF_EXPR = 22;
+    static final byte CAST_EXPR = 23;
+    static final byte ASSIGN_EXPR = 24;
+    static final byte ARRAY_ASSIGN_EXPR = 25;
+    static final byte COMP_EQ = 26;
+    static final byte COMP_NE = 27;
+    static final byte COMP_LT = 28;
+    static final byte COMP_LEQ = 29;
+    static final byte COMP_GT = 30;
+    static final byte COMP_GEQ = 31;
+    static final byte ARITH_PLUS = 32;
+    static final byte ARITH_MINUS = 33;
+    static final byte ARITH_TIMES = 34;
+    static final byte ARITH_DIVIDE = 35;
+    static final byte ARITH_MODULUS = 36;
+    static final byte LOGIC_AND = 37;
+    static final byte LOGIC_OR = 38;
+    static final byte UNARY_NEG = 39;
+    static final byte UNARY_NOT = 40;
+    static final byte UNARY_INCR = 41;
+    static final byte UNARY_DECR = 42;
+    static final byte VAR_EXPR = 43;
+    static final byte ARRAY_EXPR = 44;
+    static final byte CONST_INT = 45;
+    static final byte CONST_BOOLEAN = 46;
+    static final byte CONST_STRING = 47;
+
+    private AstFormat() {
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * File: AstReader.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 20, 2019
+ */
+
+package proj11HangSlager.bantam.cache;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.lexer.Token;
+import proj11HangSlager.bantam.util.CompilationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebuilds a Program AST and its token stream from a cache file image
+ * written by AstWriter. The image is normally a memory-mapped file, so
+ * only the sections that are actually requested are paged in.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-20-19
+ */
+class AstReader {
+
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+
+    private ByteBuffer in;
+    private String[] strings;
+    private int tokenOffset;
+    private int astOffset;
+
+    /**
+     * Creates a reader over a cache image whose header has already been
+     * validated by AstCache.
+     *
+     * @param image the complete cache file contents
+     */
+    AstReader(ByteBuffer image) {
+        this.in = image;
+        in.position(AstFormat.HEADER_LENGTH - 8);
+        tokenOffset = in.getInt();
+        astOffset = in.getInt();
+        readStringTable();
+    }
+
+    /**
+     * @return the tokens recorded when the unit was first scanned
+     */
+    List<Token> readTokens() {
+        in.position(tokenOffset);
+        int count = readVarInt();
+        List<Token> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Token.Kind kind = KINDS[readVarInt()];
+            String spelling = readString();
+            Token token = new Token(kind, spelling, readVarInt());
+            token.startOffset = readVarInt();
+            token.endOffset = token.startOffset + readVarInt();
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the root of the cached AST
+     */
+    Program readProgram() {
+        in.position(astOffset);
+        return (Program) readNode();
+    }
+
+    private void readStringTable() {
+        int count = readVarInt();
+        strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = readVarInt();
+            strings[i] = new String(bytesAt(length), StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] bytesAt(int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads one node record (and, recursively, its children).
+     *
+     * @return the node, or null for an absent optional child
+     */
+    private ASTNode readNode() {
+        byte tag = in.get();
+        if (tag == AstFormat.NULL)
+            return null;
+        int lineNum = readVarInt();
+        int startOffset = readVarInt();
+        int endOffset = startOffset + readVarInt();
+        ASTNode node = readFields(tag, lineNum);
+        node.setOffsets(startOffset, endOffset);
+        return node;
+    }
+
+    /**
+     * Reads the fields and children of a node record.
+     *
+     * @return the node
+     */
+    private ASTNode readFields(byte tag, int lineNum) {
+        switch (tag) {
+            case AstFormat.PROGRAM:
+                return new Program(lineNum, (ClassList) readNode());
+            case AstFormat.CLASS_LIST:
+                return readElements(new ClassList(lineNum));
+            case AstFormat.CLASS: {
+                String filename = readString();
+                String name = readString();
+                String parent = readString();
+                return new Class_(lineNum, filename, name, parent, (MemberList) readNode());
+            }
+            case AstFormat.MEMBER_LIST:
+                return readElements(new MemberList(lineNum));
+            case AstFormat.FIELD: {
+                String type = readString();
+                String name = readString();
+                return new Field(lineNum, type, name, readExpr());
+            }
+            case AstFormat.METHOD: {
+                String returnType = readString();
+                String name = readString();
+                FormalList formals = (FormalList) readNode();
+                return new Method(lineNum, returnType, name, formals, (StmtList) readNode());
+            }
+            case AstFormat.FORMAL_LIST:
+                return readElements(new FormalList(lineNum));
+            case AstFormat.FORMAL: {
+                String type = readString();
+                return new Formal(lineNum, type, readString());
+            }
+            case AstFormat.STMT_LIST:
+                return readElements(new StmtList(lineNum));
+            case AstFormat.DECL_STMT: {
+                String name = readString();
+                return new DeclStmt(lineNum, name, readExpr());
+            }
+            case AstFormat.EXPR_STMT:
+                return new ExprStmt(lineNum, readExpr());
+            case AstFormat.IF_STMT: {
+                Expr pred = readExpr();
+                Stmt thenStmt = (Stmt) readNode();
+                return new IfStmt(lineNum, pred, thenStmt, (Stmt) readNode());
+            }
+            case AstFormat.WHILE_STMT: {
+                Expr pred = readExpr();
+                return new WhileStmt(lineNum, pred, (Stmt) readNode());
+            }
+            case AstFormat.FOR_STMT: {
+                Expr init = readExpr();
+                Expr pred = readExpr();
+                Expr update = readExpr();
+                return new ForStmt(lineNum, init, pred, update, (Stmt) readNode());
+            }
+            case AstFormat.BREAK_STMT:
+                return new BreakStmt(lineNum);
+            case AstFormat.BLOCK_STMT:
+                return new BlockStmt(lineNum, (StmtList) readNode());
+            case AstFormat.RETURN_STMT:
+                return new ReturnStmt(lineNum, readExpr());
+            case AstFormat.EXPR_LIST:
+                return readElements(new ExprList(lineNum));
+            case AstFormat.DISPATCH_EXPR: {
+                Expr ref = readExpr();
+                String methodName = readString();
+                return new DispatchExpr(lineNum, ref, methodName, (ExprList) readNode());
+            }
+            case AstFormat.NEW_EXPR:
+                return new NewExpr(lineNum, readString());
+            case AstFormat.NEW_ARRAY_EXPR: {
+                String type = readString();
+                return new NewArrayExpr(lineNum, type, readExpr());
+            }
+            case AstFormat.INSTANCEOF_EXPR: {
+                Expr expr = readExpr();
+                return new InstanceofExpr(lineNum, expr, readString());
+            }
+            case AstFormat.CAST_EXPR: {
+                String type = readString();
+                return new CastExpr(lineNum, type, readExpr());
+            }
+            case AstFormat.ASSIGN_EXPR: {
+                String refName = readString();
+                String name = readString();
+                return new AssignExpr(lineNum, refName, name, readExpr());
+            }
+            case AstFormat.ARRAY_ASSIGN_EXPR: {
+                String refName = readString();
+                String name = readString();
+                Expr index = readExpr();
+                return new ArrayAssignExpr(lineNum, refName, name, index, readExpr());
+            }
+            case AstFormat.COMP_EQ:
+                return new BinaryCompEqExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.COMP_NE:
+                return new BinaryCompNeExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.COMP_LT:
+                return new BinaryCompLtExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.COMP_LEQ:
+                return new BinaryCompLeqExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.COMP_GT:
+                return new BinaryCompGtExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.COMP_GEQ:
+                return new BinaryCompGeqExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.ARITH_PLUS:
+                return new BinaryArithPlusExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.ARITH_MINUS:
+                return new BinaryArithMinusExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.ARITH_TIMES:
+                return new BinaryArithTimesExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.ARITH_DIVIDE:
+                return new BinaryArithDivideExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.ARITH_MODULUS:
+                return new BinaryArithModulusExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.LOGIC_AND:
+                return new BinaryLogicAndExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.LOGIC_OR:
+                return new BinaryLogicOrExpr(lineNum, readExpr(), readExpr());
+            case AstFormat.UNARY_NEG:
+                return new UnaryNegExpr(lineNum, readExpr());
+            case AstFormat.UNARY_NOT:
+                return new UnaryNotExpr(lineNum, readExpr());
+            case AstFormat.UNARY_INCR: {
+                boolean postfix = in.get() != 0;
+                return new UnaryIncrExpr(lineNum, readExpr(), postfix);
+            }
+            case AstFormat.UNARY_DECR: {
+                boolean postfix = in.get() != 0;
+                return new UnaryDecrExpr(lineNum, readExpr(), postfix);
+            }
+            case AstFormat.VAR_EXPR: {
+                Expr ref = readExpr();
+                return new VarExpr(lineNum, ref, readString());
+            }
+            case AstFormat.ARRAY_EXPR: {
+                Expr ref = readExpr();
+                String name = readString();
+                return new ArrayExpr(lineNum, ref, name, readExpr());
+            }
+            case AstFormat.CONST_INT:
+                return new ConstIntExpr(lineNum, readString());
+            case AstFormat.CONST_BOOLEAN:
+                return new ConstBooleanExpr(lineNum, readString());
+            case AstFormat.CONST_STRING:
+                return new ConstStringExpr(lineNum, readString());
+            default:
+                throw new CompilationException("Corrupt AST cache: unknown node tag " + tag);
+        }
+    }
+
+    private Expr readExpr() {
+        return (Expr) readNode();
+    }
+
+    private ListNode readElements(ListNode list) {
+        int size = readVarInt();
+        for (int i = 0; i < size; i++)
+            list.addElement(readNode());
+        return list;
+    }
+
+    private String readString() {
+        int ref = readVarInt();
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    private int readVarInt() {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * File: AstWriter.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 20, 2019
+ */
+
+package proj11HangSlager.bantam.cache;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.lexer.Token;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This Visitor class uses the Visitor pattern to write a Program AST
+ * (and optionally the token stream it was parsed from) into the compact
+ * binary format described in AstFormat.
+ *
+ * Every node is written in pre-order as a one byte tag followed by its
+ * line number and its fields. Names, types and constants are stored once
+ * in a shared string table and referenced by index, so repeated identifiers
+ * cost a single varint each.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-20-19
+ */
+class AstWriter extends Visitor {
+
+    private ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private Map<String, Integer> stringIndex = new HashMap<>();
+    private List<String> strings = new ArrayList<>();
+
+    /**
+     * Builds the complete cache file image for the given unit.
+     *
+     * @param sourceHash the hash of the source text the unit was built from
+     * @param tokens     the tokens scanned from the source (may be empty)
+     * @param ast        the root of the parsed AST
+     * @return the bytes of the cache file
+     */
+    byte[] write(byte[] sourceHash, List<Token> tokens, Program ast) {
+        // the token and AST sections reference the string table, so they are
+        // written first into their own buffers and the table is emitted afterwards
+        writeTokens(tokens);
+        byte[] tokenSection = takeBytes();
+        ast.accept(this);
+        byte[] astSection = takeBytes();
+        writeStringTable();
+        byte[] stringSection = takeBytes();
+
+        int tokenOffset = AstFormat.HEADER_LENGTH + stringSection.length;
+        int astOffset = tokenOffset + tokenSection.length;
+
+        writeInt(AstFormat.MAGIC);
+        out.write(AstFormat.VERSION >>> 8);
+        out.write(AstFormat.VERSION);
+        out.write(sourceHash, 0, AstFormat.HASH_LENGTH);
+        writeInt(tokenOffset);
+        writeInt(astOffset);
+        out.write(stringSection, 0, stringSection.length);
+        out.write(tokenSection, 0, tokenSection.length);
+        out.write(astSection, 0, astSection.length);
+        return takeBytes();
+    }
+
+    // ---------- programs, classes, members ----------
+
+    public Object visit(Program node) {
+        writeNode(AstFormat.PROGRAM, node);
+        node.getClassList().accept(this);
+        return null;
+    }
+
+    public Object visit(ClassList node) {
+        writeList(AstFormat.CLASS_LIST, node);
+        return null;
+    }
+
+    public Object visit(Class_ node) {
+        writeNode(AstFormat.CLASS, node);
+        writeString(node.getFilename());
+        writeString(node.getName());
+        writeString(node.getParent());
+        node.getMemberList().accept(this);
+        return null;
+    }
+
+    public Object visit(MemberList node) {
+        writeList(AstFormat.MEMBER_LIST, node);
+        return null;
+    }
+
+    public Object visit(Field node) {
+        writeNode(AstFormat.FIELD, node);
+        writeString(node.getType());
+        writeString(node.getName());
+        writeOptional(node.getInit());
+        return null;
+    }
+
+    public Object visit(Method node) {
+        writeNode(AstFormat.METHOD, node);
+        writeString(node.getReturnType());
+        writeString(node.getName());
+        node.getFormalList().accept(this);
+        node.getStmtList().accept(this);
+        return null;
+    }
+
+    public Object visit(FormalList node) {
+        writeList(AstFormat.FORMAL_LIST, node);
+        return null;
+    }
+
+    public Object visit(Formal node) {
+        writeNode(AstFormat.FORMAL, node);
+        writeString(node.getType());
+        writeString(node.getName());
+        return null;
+    }
+
+    // ---------- statements ----------
+
+    public Object visit(StmtList node) {
+        writeList(AstFormat.STMT_LIST, node);
+        return null;
+    }
+
+    public Object visit(DeclStmt node) {
+        writeNode(AstFormat.DECL_STMT, node);
+        writeString(node.getName());
+        node.getInit().accept(this);
+        return null;
+    }
+
+    public Object visit(ExprStmt node) {
+        writeNode(AstFormat.EXPR_STMT, node);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(IfStmt node) {
+        writeNode(AstFormat.IF_STMT, node);
+        node.getPredExpr().accept(this);
+        node.getThenStmt().accept(this);
+        writeOptional(node.getElseStmt());
+        return null;
+    }
+
+    public Object visit(WhileStmt node) {
+        writeNode(AstFormat.WHILE_STMT, node);
+        node.getPredExpr().accept(this);
+        node.getBodyStmt().accept(this);
+        return null;
+    }
+
+    public Object visit(ForStmt node) {
+        writeNode(AstFormat.FOR_STMT, node);
+        writeOptional(node.getInitExpr());
+        writeOptional(node.getPredExpr());
+        writeOptional(node.getUpdateExpr());
+        node.getBodyStmt().accept(this);
+        return null;
+    }
+
+    public Object visit(BreakStmt node) {
+        writeNode(AstFormat.BREAK_STMT, node);
+        return null;
+    }
+
+    public Object visit(BlockStmt node) {
+        writeNode(AstFormat.BLOCK_STMT, node);
+        node.getStmtList().accept(this);
+        return null;
+    }
+
+    public Object visit(ReturnStmt node) {
+        writeNode(AstFormat.RETURN_STMT, node);
+        writeOptional(node.getExpr());
+        return null;
+    }
+
+    // ---------- expressions ----------
+
+    public Object visit(ExprList node) {
+        writeList(AstFormat.EXPR_LIST, node);
+        return null;
+    }
+
+    public Object visit(DispatchExpr node) {
+        writeNode(AstFormat.DISPATCH_EXPR, node);
+        writeOptional(node.getRefExpr());
+        writeString(node.getMethodName());
+        node.getActualList().accept(this);
+        return null;
+    }
+
+    public Object visit(NewExpr node) {
+        writeNode(AstFormat.NEW_EXPR, node);
+        writeString(node.getType());
+        return null;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        writeNode(AstFormat.NEW_ARRAY_EXPR, node);
+        writeString(node.getType());
+        node.getSize().accept(this);
+        return null;
+    }
+
+    public Object visit(InstanceofExpr node) {
+        writeNode(AstFormat.INSTANCEOF_EXPR, node);
+        node.getExpr().accept(this);
+        writeString(node.getType());
+        return null;
+    }
+
+    public Object visit(CastExpr node) {
+        writeNode(AstFormat.CAST_EXPR, node);
+        writeString(node.getType());
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(AssignExpr node) {
+        writeNode(AstFormat.ASSIGN_EXPR, node);
+        writeString(node.getRefName());
+        writeString(node.getName());
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        writeNode(AstFormat.ARRAY_ASSIGN_EXPR, node);
+        writeString(node.getRefName());
+        writeString(node.getName());
+        node.getIndex().accept(this);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(BinaryCompEqExpr node) {
+        return writeBinary(AstFormat.COMP_EQ, node);
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        return writeBinary(AstFormat.COMP_NE, node);
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        return writeBinary(AstFormat.COMP_LT, node);
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        return writeBinary(AstFormat.COMP_LEQ, node);
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        return writeBinary(AstFormat.COMP_GT, node);
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        return writeBinary(AstFormat.COMP_GEQ, node);
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        return writeBinary(AstFormat.ARITH_PLUS, node);
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        return writeBinary(AstFormat.ARITH_MINUS, node);
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        return writeBinary(AstFormat.ARITH_TIMES, node);
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        return writeBinary(AstFormat.ARITH_DIVIDE, node);
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        return writeBinary(AstFormat.ARITH_MODULUS, node);
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return writeBinary(AstFormat.LOGIC_AND, node);
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return writeBinary(AstFormat.LOGIC_OR, node);
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        writeNode(AstFormat.UNARY_NEG, node);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        writeNode(AstFormat.UNARY_NOT, node);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        writeNode(AstFormat.UNARY_INCR, node);
+        out.write(node.isPostfix() ? 1 : 0);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        writeNode(AstFormat.UNARY_DECR, node);
+        out.write(node.isPostfix() ? 1 : 0);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(VarExpr node) {
+        writeNode(AstFormat.VAR_EXPR, node);
+        writeOptional(node.getRef());
+        writeString(node.getName());
+        return null;
+    }
+
+    public Object visit(ArrayExpr node) {
+        writeNode(AstFormat.ARRAY_EXPR, node);
+        writeOptional(node.getRef());
+        writeString(node.getName());
+        node.getIndex().accept(this);
+        return null;
+    }
+
+    public Object visit(ConstIntExpr node) {
+        writeNode(AstFormat.CONST_INT, node);
+        writeString(node.getConstant());
+        return null;
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        writeNode(AstFormat.CONST_BOOLEAN, node);
+        writeString(node.getConstant());
+        return null;
+    }
+
+    public Object visit(ConstStringExpr node) {
+        writeNode(AstFormat.CONST_STRING, node);
+        writeString(node.getConstant());
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private Object writeBinary(byte tag, BinaryExpr node) {
+        writeNode(tag, node);
+        node.getLeftExpr().accept(this);
+        node.getRightExpr().accept(this);
+        return null;
+    }
+
+    private void writeList(byte tag, ListNode node) {
+        writeNode(tag, node);
+        writeVarInt(node.getSize());
+        for (ASTNode child : node)
+            child.accept(this);
+    }
+
+    private void writeOptional(ASTNode node) {
+        if (node == null)
+            out.write(AstFormat.NULL);
+        else
+            node.accept(this);
+    }
+
+    private void writeNode(byte tag, ASTNode node) {
+        out.write(tag);
+        writeVarInt(node.getLineNum());
+        writeVarInt(node.getStartOffset());
+        writeVarInt(node.getEndOffset() - node.getStartOffset());
+    }
+
+    private void writeTokens(List<Token> tokens) {
+        writeVarInt(tokens.size());
+        for (Token token : tokens) {
+            writeVarInt(token.kind.ordinal());
+            writeString(token.spelling);
+            writeVarInt(token.position);
+            writeVarInt(token.startOffset);
+            writeVarInt(token.endOffset - token.startOffset);
+        }
+    }
+
+    private void writeStringTable() {
+        writeVarInt(strings.size());
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Writes a reference into the string table; 0 encodes null and any
+     * other value is one more than the index of the string.
+     */
+    private void writeString(String s) {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = stringIndex.get(s);
+        if (index == null) {
+            index = strings.size();
+            strings.add(s);
+            stringIndex.put(s, index);
+        }
+        writeVarInt(index + 1);
+    }
+
+    /**
+     * Writes a zigzag-encoded LEB128 varint, so small values of either sign
+     * take a single byte.
+     */
+    private void writeVarInt(int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private void writeInt(int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private byte[] takeBytes() {
+        byte[] bytes = out.toByteArray();
+        out.reset();
+        return bytes;
+    }
+}
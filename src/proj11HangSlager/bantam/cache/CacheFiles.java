@@ -0,0 +1,122 @@
+/*
+ * File: CacheFiles.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.cache;
+
+import proj11HangSlager.bantam.util.CompilationException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The files of an on-disk cache keyed by source file, shared by the caches
+ * of ASTs and of compiled programs: how a cache file is named, how it is
+ * written so readers never see it half done, and the hash of the source
+ * that tells whether it is still current.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class CacheFiles {
+
+    /**
+     * The length of a source hash, a SHA-256
+     */
+    public static final int HASH_LENGTH = 32;
+
+    /**
+     * Writes the contents of a cache file.
+     */
+    public interface Contents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path cacheDir;
+    private final String extension;
+
+    /**
+     * @param cacheDir  the directory holding the cache files, created on the
+     *                  first write if necessary
+     * @param extension the extension of the cache files, without the dot
+     */
+    public CacheFiles(Path cacheDir, String extension) {
+        this.cacheDir = cacheDir;
+        this.extension = extension;
+    }
+
+    /**
+     * Cache files are named after the source file plus a hash of its
+     * absolute path, so equally named files in different directories
+     * do not evict each other.
+     *
+     * @param filename the name of the source file
+     * @return the cache file of the source file
+     */
+    public Path fileFor(String filename) {
+        Path source = Paths.get(filename).toAbsolutePath().normalize();
+        return cacheDir.resolve(source.getFileName() + "-" +
+                Integer.toHexString(source.toString().hashCode()) + "." + extension);
+    }
+
+    /**
+     * Writes a cache file via a temporary file and an atomic rename, so that
+     * concurrent readers never see a partially written file. Failing to
+     * write the cache is not an error; the next run simply does the work
+     * again. The temporary file is deleted however the write ends.
+     *
+     * @param filename the name of the source file
+     * @param contents writes the contents of the cache file
+     */
+    public void store(String filename, Contents contents) {
+        Path temp = null;
+        try {
+            Files.createDirectories(cacheDir);
+            Path target = fileFor(filename);
+            temp = Files.createTempFile(cacheDir, extension, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                contents.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // leave the source uncached
+        } finally {
+            // after the move the temporary file is already gone
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // a stray temporary file is only wasted space
+                }
+            }
+        }
+    }
+
+    /**
+     * @param filename the name of a source file
+     * @return the SHA-256 hash of its contents
+     * @throws CompilationException if the file cannot be read
+     */
+    public static byte[] hashSource(String filename) {
+        try {
+            byte[] source = Files.readAllBytes(Paths.get(filename));
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
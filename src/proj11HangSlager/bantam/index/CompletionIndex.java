@@ -0,0 +1,340 @@
+/*
+ * File: CompletionIndex.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.index;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The names that can complete the word at the caret of a program: the
+ * locals and formals in scope there, the fields and methods of the class
+ * the caret is in, inherited ones included, and the classes, built-in ones
+ * included. After "x." the names are the fields and methods of the type
+ * of x.
+ *
+ * The names come from the SymbolTable of the program, so they are the
+ * symbols the compiler resolves. The table is made by the type checker,
+ * which gives each local declared with var the type of its initializer;
+ * a local whose initializer has no type is completed as if its type
+ * were unknown. The symbols of each class and each method
+ * are kept in arrays sorted by name, and the names starting with a prefix
+ * are found by binary search, so a completion takes time logarithmic in
+ * the number of symbols plus the number of names found. The node of the
+ * caret is found by a PositionIndex.
+ *
+ * An index is built from the last version of a file that parsed, while
+ * the text being completed may have changed since. The parts of the two
+ * the edit did not touch are matched up, and an offset in the edited part
+ * is taken to be at its start.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class CompletionIndex {
+
+    /**
+     * Orders symbols by name, then classes and variables before fields
+     * before methods
+     */
+    private static final Comparator<Symbol> BY_NAME = Comparator
+            .comparing(Symbol::getName).thenComparing(Symbol::getKind);
+
+    private final String source;
+    private final PositionIndex positions;
+    private final SymbolTable symbolTable;
+    private final Symbols classes;
+    // the members of each class, inherited ones included
+    private final Map<String, Symbols> members = new HashMap<>();
+    // the members of all classes, for a reference whose type is unknown
+    private final Symbols allMembers;
+    // the formals and locals of each method, by its declaring node
+    private final Map<ASTNode, Symbols> variables = new IdentityHashMap<>();
+
+    /**
+     * @param program a program parsed from source code
+     * @param source  the source code
+     */
+    public CompletionIndex(Program program, String source) {
+        this.source = source;
+        this.positions = new PositionIndex(program);
+        // the program may have semantic errors while it is being edited,
+        // which do not matter here
+        this.symbolTable = new TypeCheckerVisitor().check(program, new ErrorHandler());
+
+        List<Symbol> classSymbols = new ArrayList<>();
+        for (String className : symbolTable.getClassNames())
+            classSymbols.add(symbolTable.getClassSymbol(className));
+        classes = new Symbols(classSymbols);
+
+        Set<Symbol> every = new HashSet<>();
+        for (String className : symbolTable.getClassNames()) {
+            Symbols classMembers = new Symbols(collectMembers(className));
+            members.put(className, classMembers);
+            every.addAll(Arrays.asList(classMembers.symbols));
+        }
+        allMembers = new Symbols(new ArrayList<>(every));
+
+        Map<Symbol, List<Symbol>> methodVariables = new HashMap<>();
+        for (int id = 0; id < symbolTable.getNumSymbols(); id++) {
+            Symbol symbol = symbolTable.getSymbol(id);
+            if (symbol.getKind() == Symbol.Kind.FORMAL || symbol.getKind() == Symbol.Kind.LOCAL)
+                methodVariables.computeIfAbsent(symbol.getOwner(), owner -> new ArrayList<>())
+                        .add(symbol);
+        }
+        for (Map.Entry<Symbol, List<Symbol>> entry : methodVariables.entrySet())
+            variables.put(entry.getKey().getDecl(), new Symbols(entry.getValue()));
+    }
+
+    /**
+     * Finds the names that can complete the word ending at the caret.
+     *
+     * @param text  the text being edited, which may differ from the source
+     *              the index was built from
+     * @param caret the offset of the caret in the text
+     * @return the symbols, the ones nearest in scope first and each
+     * group in order of name; a name hidden by one nearer is left out
+     */
+    public List<Symbol> complete(String text, int caret) {
+        int start = caret;
+        while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1)))
+            start--;
+        String prefix = text.substring(start, caret);
+        int offset = toSourceOffset(text, start);
+
+        List<Symbol> found = new ArrayList<>();
+        if (start > 0 && text.charAt(start - 1) == '.') {
+            int end = start - 1;
+            int qualifierStart = end;
+            while (qualifierStart > 0
+                    && Character.isJavaIdentifierPart(text.charAt(qualifierStart - 1)))
+                qualifierStart--;
+            String type = qualifierStart == end ? null
+                    : typeOf(text.substring(qualifierStart, end), offset);
+            Symbols candidates = type == null ? allMembers : members.get(type);
+            if (candidates != null)
+                candidates.addStartingWith(prefix, offset, found);
+            return withoutHidden(found);
+        }
+
+        Method method = positions.enclosing(offset, Method.class);
+        Class_ currentClass = positions.enclosing(offset, Class_.class);
+        if (method != null && variables.containsKey(method))
+            variables.get(method).addStartingWith(prefix, offset, found);
+        if (currentClass != null && members.containsKey(currentClass.getName()))
+            members.get(currentClass.getName()).addStartingWith(prefix, offset, found);
+        classes.addStartingWith(prefix, offset, found);
+        return withoutHidden(found);
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * @return the fields and methods of a class and of its ancestors, the
+     * ones of the class itself hiding inherited ones of the same name
+     */
+    private List<Symbol> collectMembers(String className) {
+        List<Symbol> found = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        for (String name = className; name != null && visited.add(name);
+             name = symbolTable.getParent(name)) {
+            for (Symbol field : symbolTable.getFields(name))
+                if (names.add("field " + field.getName()))
+                    found.add(field);
+            for (Symbol method : symbolTable.getMethods(name))
+                if (names.add("method " + method.getName()))
+                    found.add(method);
+        }
+        return found;
+    }
+
+    /**
+     * @return the type of the name before a dot, or null if it is unknown
+     */
+    private String typeOf(String name, int offset) {
+        Class_ currentClass = positions.enclosing(offset, Class_.class);
+        if (currentClass == null) {
+            return null;
+        }
+        if (name.equals("this")) {
+            return currentClass.getName();
+        }
+        if (name.equals("super")) {
+            return symbolTable.getParent(currentClass.getName());
+        }
+        Method method = positions.enclosing(offset, Method.class);
+        if (method != null && variables.containsKey(method)) {
+            List<Symbol> local = new ArrayList<>();
+            variables.get(method).addStartingWith(name, offset, local);
+            for (Symbol symbol : local)
+                if (symbol.getName().equals(name))
+                    return symbol.getType();
+        }
+        Symbol field = symbolTable.lookupField(currentClass.getName(), name);
+        return field == null ? null : field.getType();
+    }
+
+    /**
+     * @return the symbols but the ones with the name and kind of one before
+     */
+    private static List<Symbol> withoutHidden(List<Symbol> found) {
+        Set<String> names = new HashSet<>();
+        List<Symbol> visible = new ArrayList<>();
+        for (Symbol symbol : found) {
+            String key = (symbol.getKind() == Symbol.Kind.METHOD ? "method " : "variable ")
+                    + symbol.getName();
+            if (names.add(key))
+                visible.add(symbol);
+        }
+        return visible;
+    }
+
+    /**
+     * Maps an offset of the text being edited to the source the index was
+     * built from, by skipping the start and end the two have in common.
+     */
+    private int toSourceOffset(String text, int offset) {
+        int shortest = Math.min(text.length(), source.length());
+        int commonStart = 0;
+        while (commonStart < shortest && text.charAt(commonStart) == source.charAt(commonStart))
+            commonStart++;
+        if (offset <= commonStart) {
+            return offset;
+        }
+        int commonEnd = 0;
+        while (commonEnd < shortest - commonStart
+                && text.charAt(text.length() - 1 - commonEnd)
+                == source.charAt(source.length() - 1 - commonEnd))
+            commonEnd++;
+        if (offset >= text.length() - commonEnd) {
+            return offset - text.length() + source.length();
+        }
+        return commonStart;
+    }
+
+    /**
+     * Whether a local is in scope at an offset: declared before it, within
+     * the innermost statement or method around its declaration.
+     */
+    private boolean inScope(Symbol symbol, int offset) {
+        if (symbol.getKind() != Symbol.Kind.LOCAL) {
+            return true;
+        }
+        ASTNode decl = symbol.getDecl();
+        if (decl.getEndOffset() > offset) {
+            return false;
+        }
+        List<ASTNode> enclosing = positions.nodesAt(decl.getStartOffset());
+        for (ASTNode node : enclosing) {
+            if (node != decl && (node instanceof Method || node instanceof BlockStmt
+                    || node instanceof IfStmt || node instanceof WhileStmt
+                    || node instanceof ForStmt))
+                return node.getStartOffset() <= offset && offset < node.getEndOffset();
+        }
+        return true;
+    }
+
+    /**
+     * Symbols sorted by name, searched by prefix.
+     */
+    private class Symbols {
+        private final Symbol[] symbols;
+        private final String[] names;
+
+        Symbols(List<Symbol> unsorted) {
+            symbols = unsorted.toArray(new Symbol[0]);
+            Arrays.sort(symbols, BY_NAME);
+            names = new String[symbols.length];
+            for (int i = 0; i < symbols.length; i++)
+                names[i] = symbols[i].getName();
+        }
+
+        /**
+         * Adds the symbols whose names start with a prefix and that are in
+         * scope at an offset, in order of name.
+         */
+        void addStartingWith(String prefix, int offset, List<Symbol> found) {
+            int first = Arrays.binarySearch(names, prefix);
+            if (first < 0) {
+                first = -first - 1;
+            }
+            else {
+                while (first > 0 && names[first - 1].equals(prefix))
+                    first--;
+            }
+            for (int i = first; i < names.length && names[i].startsWith(prefix); i++)
+                if (inScope(symbols[i], offset))
+                    found.add(symbols[i]);
+        }
+    }
+
+    /**
+     * Prints the completions at offsets of a Bantam Java file, and how long
+     * finding them took.
+     *
+     * @param args the file and the offsets
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java proj11HangSlager.bantam.index.CompletionIndex"
+                    + " file.btm offset...");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            String source = new String(Files.readAllBytes(Paths.get(args[0])));
+            Program program = new Parser(errorHandler).parse(args[0], new StringReader(source));
+            CompletionIndex index = new CompletionIndex(program, source);
+            for (int i = 1; i < args.length; i++) {
+                int offset = Integer.parseInt(args[i]);
+                long start = System.nanoTime();
+                List<Symbol> found = index.complete(source, offset);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("Offset %d: %d names in %.1f us%n", offset, found.size(),
+                        elapsed / 1e3);
+                for (Symbol symbol : found)
+                    System.out.println("    " + symbol.getKind().name().toLowerCase() + " "
+                            + symbol.getName() + (symbol.getType() == null ? ""
+                            : " : " + symbol.getType()));
+            }
+        }
+        catch (IOException e) {
+            System.out.println("Cannot read " + args[0] + ": " + e.getMessage());
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        catch (NumberFormatException e) {
+            System.out.println("Not an offset: " + e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList())
+            System.out.println(error);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * File: Occurrence.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.index;
+
+import proj11HangSlager.bantam.ast.ASTNode;
+
+/**
+ * An occurrence of the name of a class, method or field in a file: where
+ * it is defined, or a site where it is used.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class Occurrence {
+
+    /**
+     * What the name names
+     */
+    public enum Kind {
+        CLASS, METHOD, FIELD
+    }
+
+    private final String file;
+    private final String name;
+    private final Kind kind;
+    private final boolean definition;
+    private final ASTNode node;
+    private final int startOffset;
+    private final int endOffset;
+
+    /**
+     * @param file        the file the name occurs in
+     * @param name        the name
+     * @param kind        what the name names
+     * @param definition  whether this is the definition, or else a use
+     * @param node        the AST node the name occurs in
+     * @param startOffset the offset of the name in the file
+     * @param endOffset   the offset just past the name
+     */
+    public Occurrence(String file, String name, Kind kind, boolean definition,
+                      ASTNode node, int startOffset, int endOffset) {
+        this.file = file;
+        this.name = name;
+        this.kind = kind;
+        this.definition = definition;
+        this.node = node;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isDefinition() {
+        return definition;
+    }
+
+    /**
+     * @return the Class_, Method or Field defining the name, or the node
+     * using it
+     */
+    public ASTNode getNode() {
+        return node;
+    }
+
+    public int getLineNum() {
+        return node.getLineNum();
+    }
+
+    /**
+     * @return the offset of the name in the file, or -1 if unknown
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return the offset just past the name in the file, or -1 if unknown
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public String toString() {
+        return file + ":" + getLineNum() + ": " + (definition ? "definition" : "use")
+                + " of " + kind.name().toLowerCase() + " " + name;
+    }
+}
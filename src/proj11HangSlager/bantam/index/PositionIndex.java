@@ -0,0 +1,456 @@
+/*
+ * File: PositionIndex.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.index;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An index from the character offsets of the source code of a program to
+ * the AST nodes parsed from it, which finds the node under the caret in
+ * time logarithmic in the number of nodes.
+ *
+ * The parser gives each node the offsets of its first and last tokens, so
+ * the source of a node lies within the source of its parent, and the
+ * sources of two siblings do not overlap. The offsets where the nodes
+ * start and end then cut the source into at most 2n + 1 runs, in each of
+ * which the innermost node is the same. The index keeps the starts of the
+ * runs in a sorted array, with the innermost node of each, and finds the
+ * run of an offset by binary search. The nodes enclosing the offset are
+ * that node and its ancestors, whose indices are kept too.
+ *
+ * Nodes without offsets, such as the ones the optimizer makes, and empty
+ * lists are left out.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class PositionIndex {
+
+    private final ASTNode[] nodes;
+    private final int[] parents;
+    private final int[] runStarts;
+    private final int[] runNodes;
+    private int runCount;
+
+    /**
+     * @param program a program parsed from source code
+     */
+    public PositionIndex(Program program) {
+        List<ASTNode> found = new ArrayList<>();
+        program.accept(new Collector(found));
+        // the sort is stable, so a parent stays before a child with the
+        // same offsets
+        found.sort(Comparator.comparingInt(ASTNode::getStartOffset)
+                .thenComparing(Comparator.comparingInt(ASTNode::getEndOffset).reversed()));
+
+        nodes = found.toArray(new ASTNode[0]);
+        parents = new int[nodes.length];
+        runStarts = new int[2 * nodes.length + 1];
+        runNodes = new int[2 * nodes.length + 1];
+
+        int[] ends = new int[nodes.length];
+        int[] open = new int[nodes.length];
+        int depth = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            int start = nodes[i].getStartOffset();
+            while (depth > 0 && ends[open[depth - 1]] <= start) {
+                depth--;
+                addRun(ends[open[depth]], depth > 0 ? open[depth - 1] : -1);
+            }
+            parents[i] = depth > 0 ? open[depth - 1] : -1;
+            // a node never reaches past its parent, even if it was given
+            // offsets that do
+            ends[i] = parents[i] < 0 ? nodes[i].getEndOffset()
+                    : Math.min(nodes[i].getEndOffset(), ends[parents[i]]);
+            addRun(start, i);
+            open[depth++] = i;
+        }
+        while (depth > 0) {
+            depth--;
+            addRun(ends[open[depth]], depth > 0 ? open[depth - 1] : -1);
+        }
+    }
+
+    /**
+     * @return the number of nodes indexed
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Finds the innermost node whose source contains the character at an
+     * offset.
+     *
+     * @param offset a character offset of the source
+     * @return the node, or null if the offset is outside every class
+     */
+    public ASTNode nodeAt(int offset) {
+        int node = innermost(offset);
+        return node < 0 ? null : nodes[node];
+    }
+
+    /**
+     * Finds the nodes whose source contains the character at an offset.
+     *
+     * @param offset a character offset of the source
+     * @return the nodes, from the innermost out to the Program
+     */
+    public List<ASTNode> nodesAt(int offset) {
+        List<ASTNode> enclosing = new ArrayList<>();
+        for (int node = innermost(offset); node >= 0; node = parents[node])
+            enclosing.add(nodes[node]);
+        return enclosing;
+    }
+
+    /**
+     * Finds the innermost node of a kind whose source contains the
+     * character at an offset, such as the Method or the Class_ the caret
+     * is in.
+     *
+     * @param offset a character offset of the source
+     * @param kind   the class of the node wanted
+     * @return the node, or null if no node of that kind contains the offset
+     */
+    public <T extends ASTNode> T enclosing(int offset, Class<T> kind) {
+        for (int node = innermost(offset); node >= 0; node = parents[node])
+            if (kind.isInstance(nodes[node]))
+                return kind.cast(nodes[node]);
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Starts a run at an offset, replacing a run starting at the same
+     * offset, and merging it into the run before if they have the same node.
+     */
+    private void addRun(int offset, int node) {
+        if (runCount > 0 && runStarts[runCount - 1] == offset)
+            runCount--;
+        if (runCount > 0 && runNodes[runCount - 1] == node)
+            return;
+        runStarts[runCount] = offset;
+        runNodes[runCount] = node;
+        runCount++;
+    }
+
+    /**
+     * @return the index of the innermost node containing an offset, or -1
+     */
+    private int innermost(int offset) {
+        int low = 0, high = runCount - 1, run = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (runStarts[mid] <= offset) {
+                run = mid;
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return run < 0 ? -1 : runNodes[run];
+    }
+
+    /**
+     * Collects every node of the AST that has offsets and is not empty.
+     */
+    private static class Collector extends Visitor {
+        private final List<ASTNode> found;
+
+        Collector(List<ASTNode> found) {
+            this.found = found;
+        }
+
+        private void add(ASTNode node) {
+            if (node.getStartOffset() >= 0 && node.getEndOffset() > node.getStartOffset())
+                found.add(node);
+        }
+
+        public Object visit(Program node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ClassList node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(Class_ node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(MemberList node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(Field node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(Method node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(FormalList node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(Formal node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(StmtList node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(DeclStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ExprStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(IfStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(WhileStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ForStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BreakStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BlockStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ReturnStmt node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ExprList node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(DispatchExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(NewExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(NewArrayExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(InstanceofExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(CastExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(AssignExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ArrayAssignExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompEqExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompNeExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompLtExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompLeqExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompGtExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryCompGeqExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryArithPlusExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryArithMinusExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryArithTimesExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryArithDivideExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryArithModulusExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryLogicAndExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(BinaryLogicOrExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(UnaryNegExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(UnaryNotExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(UnaryIncrExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(UnaryDecrExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(VarExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ArrayExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ConstIntExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ConstBooleanExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+
+        public Object visit(ConstStringExpr node) {
+            add(node);
+            return super.visit(node);
+        }
+    }
+
+    /**
+     * Prints the nodes enclosing offsets of a Bantam Java file.
+     *
+     * @param args the file and the offsets
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java proj11HangSlager.bantam.index.PositionIndex"
+                    + " file.btm offset...");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[0]);
+            PositionIndex index = new PositionIndex(program);
+            for (int i = 1; i < args.length; i++) {
+                int offset = Integer.parseInt(args[i]);
+                System.out.println("Offset " + offset + ":");
+                for (ASTNode node : index.nodesAt(offset))
+                    System.out.println("    " + node.getClass().getSimpleName() + " ["
+                            + node.getStartOffset() + ", " + node.getEndOffset()
+                            + ") line " + node.getLineNum());
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        catch (NumberFormatException e) {
+            System.out.println("Not an offset: " + e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList())
+            System.out.println(error);
+    }
+}
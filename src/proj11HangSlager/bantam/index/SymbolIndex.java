@@ -0,0 +1,445 @@
+/*
+ * File: SymbolIndex.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.index;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.lexer.Token;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An inverted index over the files of a workspace, from each name to the
+ * classes, methods and fields defined with it and the sites using it, so
+ * that going to a definition or finding the usages of a name is a lookup
+ * instead of a scan of the text.
+ *
+ * The occurrences of a name are kept per file, and the index remembers
+ * which names occur in each file. Updating a file parses only that file
+ * and replaces only its occurrences, so the cost of an edit does not
+ * depend on the size of the workspace. A file that no longer parses keeps
+ * the occurrences of its last version that did.
+ *
+ * The occurrences are found by name, not resolved: a use of x may be of
+ * any field named x, or of a local variable named x. The offsets of an
+ * occurrence are those of the name itself, found among the tokens of the
+ * node it occurs in.
+ *
+ * Updates may run on one thread while lookups run on others.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class SymbolIndex {
+
+    /**
+     * The names of types that are not classes
+     */
+    private static final Set<String> PRIMITIVES = Set.of("int", "boolean", "void");
+
+    // name -> file -> the occurrences of the name in the file
+    private final Map<String, Map<String, Occurrence[]>> postings = new ConcurrentHashMap<>();
+    // file -> the names occurring in it
+    private final Map<String, Set<String>> fileNames = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes a file as saved.
+     *
+     * @param file the name of the file
+     * @return whether the file parsed, and so was indexed again
+     */
+    public boolean update(String file) {
+        try {
+            String source = new String(Files.readAllBytes(Paths.get(file)));
+            return update(file, source);
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Indexes the contents of a file, such as the unsaved text of an editor.
+     *
+     * @param file   the name of the file
+     * @param source the contents of the file
+     * @return whether the contents parsed, and so were indexed
+     */
+    public boolean update(String file, String source) {
+        Parser parser = new Parser(new ErrorHandler());
+        List<Token> tokens = new ArrayList<>();
+        parser.setTokenLog(tokens);
+        Program program;
+        try {
+            program = parser.parse(file, new StringReader(source));
+        }
+        catch (CompilationException e) {
+            return false;
+        }
+        update(file, program, tokens);
+        return true;
+    }
+
+    /**
+     * Replaces the occurrences of a file by those of a program parsed from it.
+     *
+     * @param file    the name of the file
+     * @param program the AST of the file
+     * @param tokens  the tokens of the file, which give the offsets of the names
+     */
+    public synchronized void update(String file, Program program, List<Token> tokens) {
+        Map<String, List<Occurrence>> found = new Collector(file, tokens).collect(program);
+        for (String name : fileNames.getOrDefault(file, Collections.emptySet())) {
+            if (!found.containsKey(name)) {
+                removePosting(name, file);
+            }
+        }
+        for (Map.Entry<String, List<Occurrence>> entry : found.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), name -> new ConcurrentHashMap<>())
+                    .put(file, entry.getValue().toArray(new Occurrence[0]));
+        }
+        fileNames.put(file, Collections.unmodifiableSet(found.keySet()));
+    }
+
+    /**
+     * Drops the occurrences of a file, such as one closed or deleted.
+     *
+     * @param file the name of the file
+     */
+    public synchronized void remove(String file) {
+        Set<String> names = fileNames.remove(file);
+        if (names != null) {
+            for (String name : names) {
+                removePosting(name, file);
+            }
+        }
+    }
+
+    /**
+     * Indexes every Bantam Java file under a directory.
+     *
+     * @param dir the directory
+     * @return the number of files that parsed
+     * @throws IOException if the directory cannot be walked
+     */
+    public int updateDirectory(Path dir) throws IOException {
+        return updateDirectory(dir, Collections.emptySet());
+    }
+
+    /**
+     * Indexes the Bantam Java files under a directory but the ones given,
+     * such as the files open in an editor, which are indexed from their text.
+     *
+     * @param dir     the directory
+     * @param skipped the names of the files to leave as they are
+     * @return the number of files that parsed
+     * @throws IOException if the directory cannot be walked
+     */
+    public int updateDirectory(Path dir, Set<String> skipped) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(path -> path.toString().endsWith(".btm"))
+                    .filter(path -> !skipped.contains(path.toString()))
+                    .collect(Collectors.toList());
+        }
+        int indexed = 0;
+        for (Path file : files) {
+            if (update(file.toString())) {
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * @return the files indexed
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(fileNames.keySet());
+    }
+
+    /**
+     * @param name a name
+     * @return the classes, methods and fields defined with the name
+     */
+    public List<Occurrence> getDefinitions(String name) {
+        return getOccurrences(name, true);
+    }
+
+    /**
+     * @param name a name
+     * @return the sites using the name
+     */
+    public List<Occurrence> getUsages(String name) {
+        return getOccurrences(name, false);
+    }
+
+    //-------- auxiliary methods ---------
+
+    private List<Occurrence> getOccurrences(String name, boolean definitions) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        Map<String, Occurrence[]> files = postings.get(name);
+        if (files != null) {
+            for (Occurrence[] inFile : files.values()) {
+                for (Occurrence occurrence : inFile) {
+                    if (occurrence.isDefinition() == definitions) {
+                        occurrences.add(occurrence);
+                    }
+                }
+            }
+        }
+        return occurrences;
+    }
+
+    private void removePosting(String name, String file) {
+        postings.computeIfPresent(name, (key, files) -> {
+            files.remove(file);
+            return files.isEmpty() ? null : files;
+        });
+    }
+
+    /**
+     * Finds the occurrences of the names in the AST of one file.
+     */
+    private static class Collector extends Visitor {
+        private final String file;
+        private final Map<String, List<Occurrence>> found = new HashMap<>();
+        // the identifier tokens of the file, in order
+        private final int[] starts;
+        private final int[] ends;
+        private final String[] spellings;
+
+        Collector(String file, List<Token> tokens) {
+            this.file = file;
+            List<Token> identifiers = tokens.stream()
+                    .filter(token -> token.kind == Token.Kind.IDENTIFIER)
+                    .collect(Collectors.toList());
+            starts = new int[identifiers.size()];
+            ends = new int[identifiers.size()];
+            spellings = new String[identifiers.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = identifiers.get(i).startOffset;
+                ends[i] = identifiers.get(i).endOffset;
+                spellings[i] = identifiers.get(i).spelling;
+            }
+        }
+
+        Map<String, List<Occurrence>> collect(Program program) {
+            program.accept(this);
+            return found;
+        }
+
+        public Object visit(Class_ node) {
+            int at = add(node.getName(), Occurrence.Kind.CLASS, true, node,
+                    node.getStartOffset());
+            // a class without an extends clause still has the parent Object,
+            // which is not a use of it
+            if (find(node.getParent(), node, at) >= 0) {
+                add(node.getParent(), Occurrence.Kind.CLASS, false, node, at);
+            }
+            return super.visit(node);
+        }
+
+        public Object visit(Field node) {
+            int at = addType(node.getType(), node, node.getStartOffset());
+            add(node.getName(), Occurrence.Kind.FIELD, true, node, at);
+            return super.visit(node);
+        }
+
+        public Object visit(Method node) {
+            int at = addType(node.getReturnType(), node, node.getStartOffset());
+            add(node.getName(), Occurrence.Kind.METHOD, true, node, at);
+            return super.visit(node);
+        }
+
+        public Object visit(Formal node) {
+            addType(node.getType(), node, node.getStartOffset());
+            return super.visit(node);
+        }
+
+        public Object visit(DispatchExpr node) {
+            int from = node.getRefExpr() == null ? node.getStartOffset()
+                    : node.getRefExpr().getEndOffset();
+            add(node.getMethodName(), Occurrence.Kind.METHOD, false, node, from);
+            return super.visit(node);
+        }
+
+        public Object visit(NewExpr node) {
+            addType(node.getType(), node, node.getStartOffset());
+            return super.visit(node);
+        }
+
+        public Object visit(NewArrayExpr node) {
+            addType(node.getType(), node, node.getStartOffset());
+            return super.visit(node);
+        }
+
+        public Object visit(CastExpr node) {
+            addType(node.getType(), node, node.getStartOffset());
+            return super.visit(node);
+        }
+
+        public Object visit(InstanceofExpr node) {
+            addType(node.getType(), node, node.getExpr().getEndOffset());
+            return super.visit(node);
+        }
+
+        public Object visit(VarExpr node) {
+            int from = node.getRef() == null ? node.getStartOffset()
+                    : node.getRef().getEndOffset();
+            addField(node.getName(), node, from);
+            return super.visit(node);
+        }
+
+        public Object visit(ArrayExpr node) {
+            int from = node.getRef() == null ? node.getStartOffset()
+                    : node.getRef().getEndOffset();
+            addField(node.getName(), node, from);
+            return super.visit(node);
+        }
+
+        public Object visit(AssignExpr node) {
+            addField(node.getName(), node, skip(node.getRefName(), node));
+            return super.visit(node);
+        }
+
+        public Object visit(ArrayAssignExpr node) {
+            addField(node.getName(), node, skip(node.getRefName(), node));
+            return super.visit(node);
+        }
+
+        /**
+         * Adds a use of a class named by a type, unless it is primitive.
+         *
+         * @return the offset just past the name, or from if it is not found
+         */
+        private int addType(String type, ASTNode node, int from) {
+            String name = type.endsWith("[]") ? type.substring(0, type.length() - 2) : type;
+            if (PRIMITIVES.contains(name)) {
+                int token = find(name, node, from);
+                return token < 0 ? from : ends[token];
+            }
+            return add(name, Occurrence.Kind.CLASS, false, node, from);
+        }
+
+        private void addField(String name, ASTNode node, int from) {
+            if (!name.equals("this") && !name.equals("super") && !name.equals("null")) {
+                add(name, Occurrence.Kind.FIELD, false, node, from);
+            }
+        }
+
+        /**
+         * Adds an occurrence of a name, at the first token spelling it in
+         * the node from an offset on.
+         *
+         * @return the offset just past the name, or from if it is not found
+         */
+        private int add(String name, Occurrence.Kind kind, boolean definition,
+                        ASTNode node, int from) {
+            int token = find(name, node, from);
+            Occurrence occurrence = token < 0
+                    ? new Occurrence(file, name, kind, definition, node,
+                            node.getStartOffset(), node.getEndOffset())
+                    : new Occurrence(file, name, kind, definition, node,
+                            starts[token], ends[token]);
+            found.computeIfAbsent(name, key -> new ArrayList<>()).add(occurrence);
+            return token < 0 ? from : ends[token];
+        }
+
+        /**
+         * @return the offset just past the reference name before the name
+         * assigned, or the start of the node if there is none
+         */
+        private int skip(String refName, ASTNode node) {
+            if (refName == null) {
+                return node.getStartOffset();
+            }
+            int token = find(refName, node, node.getStartOffset());
+            return token < 0 ? node.getStartOffset() : ends[token];
+        }
+
+        /**
+         * @return the index of the first identifier token spelling a name
+         * in a node from an offset on, or -1
+         */
+        private int find(String name, ASTNode node, int from) {
+            if (from < 0) {
+                return -1;
+            }
+            int token = Arrays.binarySearch(starts, from);
+            if (token < 0) {
+                token = -token - 1;
+            }
+            for (; token < starts.length && starts[token] < node.getEndOffset(); token++) {
+                if (spellings[token].equals(name)) {
+                    return token;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Indexes Bantam Java files and directories and prints the definitions
+     * and usages of a name, and how long finding them took.
+     *
+     * @param args the name, then the files and directories
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java proj11HangSlager.bantam.index.SymbolIndex"
+                    + " name file-or-directory...");
+            return;
+        }
+        SymbolIndex index = new SymbolIndex();
+        long start = System.nanoTime();
+        for (int i = 1; i < args.length; i++) {
+            try {
+                if (Files.isDirectory(Paths.get(args[i]))) {
+                    index.updateDirectory(Paths.get(args[i]));
+                }
+                else if (!index.update(args[i])) {
+                    System.out.println(args[i] + " does not parse.");
+                }
+            }
+            catch (IOException e) {
+                System.out.println("Cannot read " + args[i] + ": " + e.getMessage());
+            }
+        }
+        System.out.printf("Indexed %d files in %.1f ms.%n", index.getFiles().size(),
+                (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        List<Occurrence> definitions = index.getDefinitions(args[0]);
+        List<Occurrence> usages = index.getUsages(args[0]);
+        long elapsed = System.nanoTime() - start;
+        definitions.forEach(System.out::println);
+        usages.forEach(System.out::println);
+        System.out.printf("%d definitions and %d usages found in %.1f us.%n",
+                definitions.size(), usages.size(), elapsed / 1e3);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * File: InlineCache.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+/**
+ * A monomorphic inline cache: the method a call site invoked the last
+ * time, and the receiver class it was found for. A call whose receiver
+ * has the same class skips the method lookup.
+ *
+ * Caches are immutable and replaced on a miss, so a call site shared by
+ * interpreters on different threads never sees a half-updated pair.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+final class InlineCache {
+
+    final RuntimeClass receiverClass;
+    final RuntimeMethod method;
+
+    InlineCache(RuntimeClass receiverClass, RuntimeMethod method) {
+        this.receiverClass = receiverClass;
+        this.method = method;
+    }
+}
@@ -0,0 +1,947 @@
+/*
+ * File: Interpreter.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.cache.AstCache;
+import proj11HangSlager.bantam.opt.ConstantFoldingVisitor;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * run a type checked Bantam Java program, starting with
+ * the main method of class Main.
+ *
+ * Expressions leave their value in one of two accumulators instead of
+ * returning it: ints and booleans (as 0 or 1) in an int, references in
+ * an Object, so int and boolean arithmetic never boxes. Locals live in
+ * an int array and an Object array per call, indexed by the frame slots
+ * the NameResolutionVisitor assigned, and fields in the same kind of
+ * arrays per object, indexed by the field slots of the SymbolTable.
+ *
+ * Each DispatchExpr keeps a monomorphic inline cache, so a call whose
+ * receiver has the same class as last time skips the method lookup.
+ * break and return are signalled by a completion flag rather than by
+ * exceptions.
+ *
+ * A running program can be stopped by interrupting its thread.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+public class Interpreter extends Visitor {
+
+    private static final int NORMAL = 0;
+    private static final int BREAK = 1;
+    private static final int RETURN = 2;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final Object[] NO_REFS = new Object[0];
+
+    private final ClassHierarchy hierarchy;
+    private final Symbol[] symbols;
+    private final boolean[] refSymbols;
+    private final Map<String, RuntimeClass> classes = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private final PrintStream out;
+    private final InputStream in;
+    private final Random random = new Random();
+
+    // the current frame
+    private RuntimeClass currentClass;
+    private RuntimeObject self;
+    private int[] localInts = NO_INTS;
+    private Object[] localRefs = NO_REFS;
+
+    // the value of the last expression
+    private int acc;
+    private Object ref;
+
+    private int completion = NORMAL;
+
+    /**
+     * Prepares a program for running.
+     *
+     * @param program     a program without semantic errors
+     * @param symbolTable the symbol table the TypeCheckerVisitor built for it
+     * @param out         the stream the program writes to
+     * @param in          the stream the program reads standard input from
+     */
+    public Interpreter(Program program, SymbolTable symbolTable, PrintStream out, InputStream in) {
+        this.hierarchy = symbolTable.getHierarchy();
+        this.out = out;
+        this.in = in;
+        symbols = new Symbol[symbolTable.getNumSymbols()];
+        refSymbols = new boolean[symbols.length];
+        for (int id = 0; id < symbols.length; id++) {
+            symbols[id] = symbolTable.getSymbol(id);
+            refSymbols[id] = isReference(symbols[id].getType());
+        }
+        for (String className : hierarchy.getClassNames()) {
+            RuntimeClass runtimeClass = new RuntimeClass(className,
+                    classes.get(hierarchy.getParent(className)));
+            runtimeClass.numFields = symbolTable.getNumFields(className);
+            runtimeClass.fields.addAll(symbolTable.getFields(className));
+            for (Symbol method : symbolTable.getMethods(className)) {
+                runtimeClass.methods.put(method.getName(),
+                        new RuntimeMethod(method, (Method) method.getDecl(), runtimeClass));
+            }
+            classes.put(className, runtimeClass);
+        }
+    }
+
+    /**
+     * Runs the program: creates a Main object and calls its main method.
+     * Output is flushed when the program ends.
+     *
+     * @return the exit status, 0 unless the program called Sys.exit
+     * @throws InterpreterException if the program fails or is interrupted
+     */
+    public int run() {
+        RuntimeClass mainClass = classes.get("Main");
+        RuntimeMethod mainMethod = mainClass == null ? null : mainClass.methods.get("main");
+        if (mainMethod == null || mainMethod.node == null || mainMethod.refFormals.length > 0) {
+            throw new InterpreterException(0, RuntimeErrors.NO_MAIN);
+        }
+        try {
+            RuntimeObject main = instantiate(mainClass);
+            invoke(mainMethod, main, new int[mainMethod.symbol.getFrameSize()],
+                    new Object[mainMethod.symbol.getFrameSize()]);
+            return 0;
+        }
+        catch (ExitException e) {
+            return e.status;
+        }
+        catch (StackOverflowError e) {
+            throw new InterpreterException(0, RuntimeErrors.STACK_OVERFLOW);
+        }
+        finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Whether values of a type are references rather than ints or booleans
+     */
+    public static boolean isReference(String type) {
+        return type != null && !type.equals("int") && !type.equals("boolean")
+                && !type.equals("void");
+    }
+
+    //-------- statements ---------
+
+    /**
+     * Runs the statements of a list until one of them breaks or returns.
+     * @param node the statement list node
+     * @return
+     */
+    public Object visit(StmtList node) {
+        for (ASTNode stmt : node) {
+            stmt.accept(this);
+            if (completion != NORMAL) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the initial value in the slot of the new local.
+     * @param node the declaration statement node
+     * @return
+     */
+    public Object visit(DeclStmt node) {
+        node.getInit().accept(this);
+        int slot = symbols[node.getSymbolId()].getSlot();
+        if (refSymbols[node.getSymbolId()]) {
+            localRefs[slot] = ref;
+        }
+        else {
+            localInts[slot] = acc;
+        }
+        return null;
+    }
+
+    public Object visit(IfStmt node) {
+        node.getPredExpr().accept(this);
+        if (acc != 0) {
+            node.getThenStmt().accept(this);
+        }
+        else if (node.getElseStmt() != null) {
+            node.getElseStmt().accept(this);
+        }
+        return null;
+    }
+
+    public Object visit(WhileStmt node) {
+        while (true) {
+            node.getPredExpr().accept(this);
+            if (acc == 0 || !runLoopBody(node.getBodyStmt())) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    public Object visit(ForStmt node) {
+        if (node.getInitExpr() != null) {
+            node.getInitExpr().accept(this);
+        }
+        while (true) {
+            if (node.getPredExpr() != null) {
+                node.getPredExpr().accept(this);
+                if (acc == 0) {
+                    break;
+                }
+            }
+            if (!runLoopBody(node.getBodyStmt())) {
+                break;
+            }
+            if (node.getUpdateExpr() != null) {
+                node.getUpdateExpr().accept(this);
+            }
+        }
+        return null;
+    }
+
+    public Object visit(BreakStmt node) {
+        completion = BREAK;
+        return null;
+    }
+
+    /**
+     * Leaves the return value in the accumulators.
+     * @param node the return statement node
+     * @return
+     */
+    public Object visit(ReturnStmt node) {
+        if (node.getExpr() != null) {
+            node.getExpr().accept(this);
+        }
+        completion = RETURN;
+        return null;
+    }
+
+    //-------- objects and calls ---------
+
+    /**
+     * Calls a method on the receiver, using the inline cache of the
+     * call site when the receiver has the same class as the last time.
+     * Calls through super are bound statically.
+     * @param node the dispatch expression node
+     * @return
+     */
+    public Object visit(DispatchExpr node) {
+        Expr refExpr = node.getRefExpr();
+        Object receiver;
+        boolean isSuper = false;
+        if (refExpr == null) {
+            receiver = self;
+        }
+        else {
+            refExpr.accept(this);
+            receiver = ref;
+            isSuper = refExpr instanceof VarExpr && ((VarExpr) refExpr).getRef() == null
+                    && ((VarExpr) refExpr).getName().equals("super");
+        }
+        if (receiver == null) {
+            throw new InterpreterException(node.getLineNum(),
+                    RuntimeErrors.nullCall(node.getMethodName()));
+        }
+
+        RuntimeMethod method;
+        RuntimeClass receiverClass = isSuper ? currentClass.parent : classOf(receiver);
+        InlineCache cache = (InlineCache) node.getCallSiteCache();
+        if (isSuper) {
+            // bound to the parent of the class declaring the running method
+            method = receiverClass.methods.get(node.getMethodName());
+        }
+        else if (cache != null && cache.receiverClass == receiverClass) {
+            method = cache.method;
+        }
+        else {
+            method = receiverClass.methods.get(node.getMethodName());
+            if (method != null) {
+                node.setCallSiteCache(new InlineCache(receiverClass, method));
+            }
+        }
+        if (method == null) {
+            // only a receiver that passed a wrong check could lack the method
+            throw new InterpreterException(node.getLineNum(),
+                    RuntimeErrors.undefinedMethod(node.getMethodName(), receiverClass.name));
+        }
+
+        // evaluate the arguments straight into the callee's frame
+        int frameSize = method.node == null ? method.refFormals.length
+                : method.symbol.getFrameSize();
+        int[] ints = frameSize == 0 ? NO_INTS : new int[frameSize];
+        Object[] refs = frameSize == 0 ? NO_REFS : new Object[frameSize];
+        int slot = 0;
+        for (ASTNode actual : node.getActualList()) {
+            actual.accept(this);
+            if (method.refFormals[slot]) {
+                refs[slot] = ref;
+            }
+            else {
+                ints[slot] = acc;
+            }
+            slot++;
+        }
+
+        if (method.node == null) {
+            invokeBuiltIn(method, receiver, ints, refs, node.getLineNum());
+        }
+        else {
+            invoke(method, (RuntimeObject) receiver, ints, refs);
+        }
+        return null;
+    }
+
+    public Object visit(NewExpr node) {
+        ref = instantiate(classes.get(node.getType()));
+        return null;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        node.getSize().accept(this);
+        if (acc < 0) {
+            throw new InterpreterException(node.getLineNum(),
+                    RuntimeErrors.negativeArraySize(acc));
+        }
+        ref = isReference(node.getType()) ? new RuntimeArray(node.getType(), acc) : new int[acc];
+        return null;
+    }
+
+    public Object visit(InstanceofExpr node) {
+        node.getExpr().accept(this);
+        acc = ref != null && (node.getUpCheck() || isInstance(ref, node.getType())) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(CastExpr node) {
+        node.getExpr().accept(this);
+        if (!node.getUpCast() && ref != null && !isInstance(ref, node.getType())) {
+            throw new InterpreterException(node.getLineNum(),
+                    RuntimeErrors.badCast(typeOf(ref), node.getType()));
+        }
+        return null;
+    }
+
+    //-------- variables ---------
+
+    public Object visit(VarExpr node) {
+        Expr refExpr = node.getRef();
+        if (node.getSymbolId() >= 0) {
+            load(node.getSymbolId());
+        }
+        else if (refExpr == null) {
+            // this, super or null
+            ref = node.getName().equals("null") ? null : self;
+        }
+        else {
+            refExpr.accept(this);
+            if (ref == null) {
+                throw new InterpreterException(node.getLineNum(),
+                        RuntimeErrors.NULL_ARRAY_LENGTH);
+            }
+            acc = length(ref);
+        }
+        return null;
+    }
+
+    public Object visit(AssignExpr node) {
+        node.getExpr().accept(this);
+        store(node.getSymbolId());
+        return null;
+    }
+
+    public Object visit(ArrayExpr node) {
+        Object array = loadArray(node.getSymbolId(), node.getLineNum());
+        node.getIndex().accept(this);
+        int index = checkIndex(array, acc, node.getLineNum());
+        if (array instanceof int[]) {
+            acc = ((int[]) array)[index];
+        }
+        else {
+            ref = ((RuntimeArray) array).elements[index];
+        }
+        return null;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        Object array = loadArray(node.getSymbolId(), node.getLineNum());
+        node.getIndex().accept(this);
+        int index = checkIndex(array, acc, node.getLineNum());
+        node.getExpr().accept(this);
+        if (array instanceof int[]) {
+            ((int[]) array)[index] = acc;
+        }
+        else {
+            RuntimeArray elements = (RuntimeArray) array;
+            if (ref != null && !isInstance(ref, elements.elementType)) {
+                throw new InterpreterException(node.getLineNum(),
+                        RuntimeErrors.badArrayStore(typeOf(ref), elements.elementType));
+            }
+            elements.elements[index] = ref;
+        }
+        return null;
+    }
+
+    //-------- operators ---------
+
+    public Object visit(BinaryCompEqExpr node) {
+        acc = equal(node) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        acc = equal(node) ? 0 : 1;
+        return null;
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left < evalInt(node.getRightExpr()) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left <= evalInt(node.getRightExpr()) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left > evalInt(node.getRightExpr()) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left >= evalInt(node.getRightExpr()) ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left + evalInt(node.getRightExpr());
+        return null;
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left - evalInt(node.getRightExpr());
+        return null;
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left * evalInt(node.getRightExpr());
+        return null;
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left / checkDivisor(evalInt(node.getRightExpr()), node.getLineNum());
+        return null;
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        int left = evalInt(node.getLeftExpr());
+        acc = left % checkDivisor(evalInt(node.getRightExpr()), node.getLineNum());
+        return null;
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        if (evalInt(node.getLeftExpr()) != 0) {
+            node.getRightExpr().accept(this);
+        }
+        return null;
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        if (evalInt(node.getLeftExpr()) == 0) {
+            node.getRightExpr().accept(this);
+        }
+        return null;
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        acc = -evalInt(node.getExpr());
+        return null;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        acc = 1 - evalInt(node.getExpr());
+        return null;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        step(node, 1);
+        return null;
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        step(node, -1);
+        return null;
+    }
+
+    public Object visit(ConstIntExpr node) {
+        acc = node.getIntConstant();
+        return null;
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        acc = node.getConstant().equals("true") ? 1 : 0;
+        return null;
+    }
+
+    public Object visit(ConstStringExpr node) {
+        ref = strings.computeIfAbsent(node.getConstant(), Interpreter::unescape);
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Runs the body of a loop and checks for interruption.
+     * @return whether the loop should go on
+     */
+    private boolean runLoopBody(Stmt body) {
+        body.accept(this);
+        if (completion == BREAK) {
+            completion = NORMAL;
+            return false;
+        }
+        if (Thread.interrupted()) {
+            throw new InterpreterException(body.getLineNum(), RuntimeErrors.STOPPED);
+        }
+        return completion == NORMAL;
+    }
+
+    /**
+     * Runs a method body in a new frame and leaves its result in the accumulators.
+     */
+    private void invoke(RuntimeMethod method, RuntimeObject receiver,
+                        int[] ints, Object[] refs) {
+        RuntimeClass callerClass = currentClass;
+        RuntimeObject callerSelf = self;
+        int[] callerInts = localInts;
+        Object[] callerRefs = localRefs;
+        currentClass = method.owner;
+        self = receiver;
+        localInts = ints;
+        localRefs = refs;
+        // a body that ends without a return leaves 0, false or null
+        acc = 0;
+        ref = null;
+        try {
+            method.node.getStmtList().accept(this);
+        }
+        finally {
+            completion = NORMAL;
+            currentClass = callerClass;
+            self = callerSelf;
+            localInts = callerInts;
+            localRefs = callerRefs;
+        }
+    }
+
+    /**
+     * Creates an object and runs the field initializers, those of the
+     * ancestors first.
+     */
+    private RuntimeObject instantiate(RuntimeClass runtimeClass) {
+        RuntimeObject object = new RuntimeObject(runtimeClass);
+        if (runtimeClass.name.equals("TextIO")) {
+            object.peer = new TextIOPeer(in, out);
+        }
+        initializeFields(runtimeClass, object);
+        return object;
+    }
+
+    private void initializeFields(RuntimeClass runtimeClass, RuntimeObject object) {
+        if (runtimeClass.parent != null) {
+            initializeFields(runtimeClass.parent, object);
+        }
+        for (Symbol field : runtimeClass.fields) {
+            Expr init = ((Field) field.getDecl()).getInit();
+            if (init == null) {
+                continue;
+            }
+            RuntimeClass callerClass = currentClass;
+            RuntimeObject callerSelf = self;
+            int[] callerInts = localInts;
+            Object[] callerRefs = localRefs;
+            currentClass = runtimeClass;
+            self = object;
+            localInts = NO_INTS;
+            localRefs = NO_REFS;
+            try {
+                init.accept(this);
+            }
+            finally {
+                currentClass = callerClass;
+                self = callerSelf;
+                localInts = callerInts;
+                localRefs = callerRefs;
+            }
+            if (refSymbols[field.getId()]) {
+                object.refs[field.getSlot()] = ref;
+            }
+            else {
+                object.ints[field.getSlot()] = acc;
+            }
+        }
+    }
+
+    private RuntimeClass classOf(Object value) {
+        if (value instanceof RuntimeObject) {
+            return ((RuntimeObject) value).runtimeClass;
+        }
+        return classes.get(value instanceof String ? "String" : "Object");
+    }
+
+    /**
+     * Whether a value has a type. A reference array is an instance of the
+     * array types of the superclasses of its element type, and of Object.
+     */
+    private boolean isInstance(Object value, String type) {
+        if (type.endsWith("[]")) {
+            String elementType = type.substring(0, type.length() - 2);
+            if (!isReference(elementType)) {
+                return value instanceof int[];
+            }
+            return value instanceof RuntimeArray
+                    && hierarchy.isSubclass(((RuntimeArray) value).elementType, elementType);
+        }
+        return hierarchy.isSubclass(classOf(value).name, type);
+    }
+
+    /**
+     * @return the name of the type of a value, for messages
+     */
+    private String typeOf(Object value) {
+        if (value instanceof RuntimeArray) {
+            return ((RuntimeArray) value).elementType + "[]";
+        }
+        return value instanceof int[] ? "int[]" : classOf(value).name;
+    }
+
+    private static int length(Object array) {
+        return array instanceof int[] ? ((int[]) array).length
+                : ((RuntimeArray) array).elements.length;
+    }
+
+    private void load(int symbolId) {
+        Symbol symbol = symbols[symbolId];
+        int slot = symbol.getSlot();
+        boolean isField = symbol.getKind() == Symbol.Kind.FIELD;
+        if (refSymbols[symbolId]) {
+            ref = isField ? self.refs[slot] : localRefs[slot];
+        }
+        else {
+            acc = isField ? self.ints[slot] : localInts[slot];
+        }
+    }
+
+    private void store(int symbolId) {
+        Symbol symbol = symbols[symbolId];
+        int slot = symbol.getSlot();
+        boolean isField = symbol.getKind() == Symbol.Kind.FIELD;
+        if (refSymbols[symbolId]) {
+            if (isField) {
+                self.refs[slot] = ref;
+            }
+            else {
+                localRefs[slot] = ref;
+            }
+        }
+        else {
+            if (isField) {
+                self.ints[slot] = acc;
+            }
+            else {
+                localInts[slot] = acc;
+            }
+        }
+    }
+
+    private Object loadArray(int symbolId, int lineNum) {
+        load(symbolId);
+        if (ref == null) {
+            throw new InterpreterException(lineNum, RuntimeErrors.NULL_ARRAY_ELEMENT);
+        }
+        return ref;
+    }
+
+    private static int checkIndex(Object array, int index, int lineNum) {
+        int length = length(array);
+        if (index < 0 || index >= length) {
+            throw new InterpreterException(lineNum,
+                    RuntimeErrors.indexOutOfBounds(index, length));
+        }
+        return index;
+    }
+
+    private static int checkDivisor(int divisor, int lineNum) {
+        if (divisor == 0) {
+            throw new InterpreterException(lineNum, RuntimeErrors.DIVISION_BY_ZERO);
+        }
+        return divisor;
+    }
+
+    private int evalInt(Expr expr) {
+        expr.accept(this);
+        return acc;
+    }
+
+    private boolean equal(BinaryExpr node) {
+        if (isReference(node.getLeftExpr().getExprType())) {
+            node.getLeftExpr().accept(this);
+            Object left = ref;
+            node.getRightExpr().accept(this);
+            return left == ref;
+        }
+        int left = evalInt(node.getLeftExpr());
+        return left == evalInt(node.getRightExpr());
+    }
+
+    /**
+     * Increments or decrements a variable or array element by delta.
+     */
+    private void step(UnaryExpr node, int delta) {
+        Expr operand = node.getExpr();
+        if (operand instanceof ArrayExpr) {
+            ArrayExpr arrayExpr = (ArrayExpr) operand;
+            int[] array = (int[]) loadArray(arrayExpr.getSymbolId(), node.getLineNum());
+            int index = checkIndex(array, evalInt(arrayExpr.getIndex()), node.getLineNum());
+            int old = array[index];
+            array[index] = old + delta;
+            acc = node.isPostfix() ? old : old + delta;
+        }
+        else {
+            int symbolId = ((VarExpr) operand).getSymbolId();
+            load(symbolId);
+            int old = acc;
+            acc = old + delta;
+            store(symbolId);
+            acc = node.isPostfix() ? old : old + delta;
+        }
+    }
+
+    /**
+     * Runs a method of a built-in class.
+     */
+    private void invokeBuiltIn(RuntimeMethod method, Object receiver,
+                               int[] ints, Object[] refs, int lineNum) {
+        switch (method.builtIn) {
+            case "Object.clone":
+                ref = receiver instanceof RuntimeObject
+                        ? new RuntimeObject((RuntimeObject) receiver) : cloneArray(receiver);
+                break;
+            case "Object.equals":
+                acc = receiver == refs[0] ? 1 : 0;
+                break;
+            case "Object.toString":
+                ref = receiver instanceof String ? receiver
+                        : classOf(receiver).name + "@" + Integer.toHexString(
+                        System.identityHashCode(receiver));
+                break;
+            case "String.length":
+                acc = ((String) receiver).length();
+                break;
+            case "String.equals":
+                acc = receiver.equals(refs[0]) ? 1 : 0;
+                break;
+            case "String.toString":
+                ref = receiver;
+                break;
+            case "String.substring":
+                String string = (String) receiver;
+                if (ints[0] < 0 || ints[0] > ints[1] || ints[1] > string.length()) {
+                    throw new InterpreterException(lineNum,
+                            RuntimeErrors.substringOutOfBounds(ints[0], ints[1], string.length()));
+                }
+                ref = string.substring(ints[0], ints[1]);
+                break;
+            case "String.concat":
+                ref = receiver + String.valueOf(refs[0]);
+                break;
+            case "Sys.exit":
+                throw new ExitException(ints[0]);
+            case "Sys.time":
+                acc = (int) (System.currentTimeMillis() / 1000);
+                break;
+            case "Sys.random":
+                acc = random.nextInt(Integer.MAX_VALUE);
+                break;
+            default:
+                invokeTextIO(method.symbol.getName(), (RuntimeObject) receiver, ints, refs,
+                        lineNum);
+        }
+    }
+
+    private void invokeTextIO(String methodName, RuntimeObject textIO,
+                              int[] ints, Object[] refs, int lineNum) {
+        TextIOPeer peer = (TextIOPeer) textIO.peer;
+        try {
+            switch (methodName) {
+                case "readStdin":
+                    peer.reader = new BufferedReader(new InputStreamReader(in));
+                    break;
+                case "readFile":
+                    peer.reader = new BufferedReader(new FileReader((String) refs[0]));
+                    break;
+                case "writeStdout":
+                    peer.writer = new PrintWriter(out, true);
+                    break;
+                case "writeStderr":
+                    peer.writer = new PrintWriter(System.err, true);
+                    break;
+                case "writeFile":
+                    peer.writer = new PrintWriter(new FileWriter((String) refs[0]), true);
+                    break;
+                case "getString":
+                    ref = peer.reader.readLine();
+                    break;
+                case "getInt":
+                    String line = peer.reader.readLine();
+                    acc = line == null ? 0 : Integer.parseInt(line.trim());
+                    break;
+                case "putString":
+                    peer.writer.print(refs[0]);
+                    peer.writer.flush();
+                    ref = textIO;
+                    break;
+                case "putInt":
+                    peer.writer.print(ints[0]);
+                    peer.writer.flush();
+                    ref = textIO;
+                    break;
+                default:
+                    throw new InterpreterException(lineNum, "Unknown method " + methodName + ".");
+            }
+        }
+        catch (IOException e) {
+            throw new InterpreterException(lineNum, "TextIO." + methodName + " failed: "
+                    + e.getMessage());
+        }
+        catch (NumberFormatException e) {
+            throw new InterpreterException(lineNum, RuntimeErrors.NOT_AN_INT);
+        }
+    }
+
+    private static Object cloneArray(Object array) {
+        return array instanceof int[] ? ((int[]) array).clone()
+                : new RuntimeArray((RuntimeArray) array);
+    }
+
+    /**
+     * Turns a string constant as written in the source into its value.
+     */
+    public static String unescape(String constant) {
+        StringBuilder value = new StringBuilder(constant.length());
+        for (int i = 1; i < constant.length() - 1; i++) {
+            char c = constant.charAt(i);
+            if (c == '\\' && i + 1 < constant.length() - 1) {
+                c = constant.charAt(++i);
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'f': c = '\f'; break;
+                    default: break;
+                }
+            }
+            value.append(c);
+        }
+        return value.toString();
+    }
+
+    /**
+     * The streams of a TextIO object; it reads standard input and writes
+     * standard output until told otherwise
+     */
+    private static class TextIOPeer {
+        BufferedReader reader;
+        PrintWriter writer;
+
+        TextIOPeer(InputStream in, PrintStream out) {
+            reader = new BufferedReader(new InputStreamReader(in));
+            writer = new PrintWriter(out, true);
+        }
+    }
+
+    /**
+     * Thrown by Sys.exit to unwind the running program
+     */
+    private static class ExitException extends RuntimeException {
+        final int status;
+
+        ExitException(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Runs a Bantam Java program from the command line.
+     *
+     * @param args the file to run
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.interp.Interpreter file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new AstCache().parse(args[0], errorHandler);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (errorHandler.errorsFound()) {
+                for (Error error : errorHandler.getErrorList()) {
+                    System.out.println(error);
+                }
+                return;
+            }
+            new ConstantFoldingVisitor().fold(program);
+            Interpreter interpreter = new Interpreter(program, symbolTable, System.out, System.in);
+            System.exit(interpreter.run());
+        }
+        catch (CompilationException | InterpreterException e) {
+            System.out.flush();
+            for (Error error : errorHandler.getErrorList()) {
+                System.out.println(error);
+            }
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * File: InterpreterException.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+/**
+ * This class represents an error that stops a running Bantam Java
+ * program, such as a division by zero, a call on null or an
+ * array index out of bounds.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+public class InterpreterException extends RuntimeException {
+
+    private final int lineNum;
+
+    /**
+     * creates an exception with a message
+     * @param lineNum the line of the program where the error occurred
+     * @param message The message telling the reason the exception was thrown
+     */
+    public InterpreterException(int lineNum, String message) {
+        super("Runtime error at line " + lineNum + ": " + message);
+        this.lineNum = lineNum;
+    }
+
+    /**
+     * @return the line of the program where the error occurred
+     */
+    public int getLineNum() {
+        return lineNum;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * File: RuntimeArray.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+/**
+ * An array of references, which keeps the type of its elements. Arrays
+ * are covariant, so an array made as a Dog[] may be used as an Animal[];
+ * the element type tells whether it may be cast back to a Dog[], and
+ * that only Dogs may be stored in it. Arrays of ints and booleans are
+ * plain int[], which never need such checks.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+class RuntimeArray {
+
+    final String elementType;
+    final Object[] elements;
+
+    RuntimeArray(String elementType, int length) {
+        this.elementType = elementType;
+        this.elements = new Object[length];
+    }
+
+    RuntimeArray(RuntimeArray original) {
+        this.elementType = original.elementType;
+        this.elements = original.elements.clone();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * File: RuntimeClass.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+import proj11HangSlager.bantam.semant.Symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class as the interpreter sees it: its method table, with inherited
+ * methods already copied in, and the number and initializers of its fields.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+class RuntimeClass {
+
+    final String name;
+    final RuntimeClass parent;
+
+    /**
+     * Every method an object of the class responds to, by name
+     */
+    final Map<String, RuntimeMethod> methods = new HashMap<>();
+
+    /**
+     * The fields declared by the class itself, in declaration order
+     */
+    final List<Symbol> fields = new ArrayList<>();
+
+    /**
+     * The number of field slots, inherited fields included
+     */
+    int numFields;
+
+    RuntimeClass(String name, RuntimeClass parent) {
+        this.name = name;
+        this.parent = parent;
+        if (parent != null) {
+            methods.putAll(parent.methods);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * File: RuntimeErrors.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+/**
+ * The messages of the runtime errors of Bantam Java programs. The
+ * interpreter, the virtual machine and the JVM runtime all take their
+ * messages from here, so that a failing program reports the same error
+ * whichever of them runs it.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public final class RuntimeErrors {
+
+    public static final String NO_MAIN = "There is no Main class with a main() method.";
+    public static final String STACK_OVERFLOW = "Stack overflow (too deep a recursion).";
+    public static final String STOPPED = "The program was stopped.";
+    public static final String DIVISION_BY_ZERO = "Division by zero.";
+    public static final String NULL_ARRAY_LENGTH = "The length of a null array was read.";
+    public static final String NULL_ARRAY_ELEMENT = "An element of a null array was used.";
+    public static final String NOT_AN_INT = "TextIO.getInt did not read an int.";
+
+    private RuntimeErrors() {
+    }
+
+    /**
+     * @param methodName the name of the method called
+     * @return the message for a call on null
+     */
+    public static String nullCall(String methodName) {
+        return "Method " + methodName + " was called on null.";
+    }
+
+    /**
+     * @param methodName the name of the method called
+     * @param className  the class of the receiver
+     * @return the message for a receiver whose class lacks the method
+     */
+    public static String undefinedMethod(String methodName, String className) {
+        return "Method " + methodName + " is not defined in class " + className + ".";
+    }
+
+    /**
+     * @param size the size asked for
+     * @return the message for an array created with a negative size
+     */
+    public static String negativeArraySize(int size) {
+        return "An array cannot have a negative size (" + size + ").";
+    }
+
+    /**
+     * @param index  the index used
+     * @param length the length of the array
+     * @return the message for an array index out of bounds
+     */
+    public static String indexOutOfBounds(int index, int length) {
+        return "Array index " + index + " is out of bounds for length " + length + ".";
+    }
+
+    /**
+     * @param valueType the type of the value, such as Animal or Animal[]
+     * @param castType  the type it was cast to
+     * @return the message for a failed cast
+     */
+    public static String badCast(String valueType, String castType) {
+        return "A " + valueType + " cannot be cast to " + castType + ".";
+    }
+
+    /**
+     * @param valueType   the type of the value
+     * @param elementType the element type of the array
+     * @return the message for a value stored in an array of an unrelated type
+     */
+    public static String badArrayStore(String valueType, String elementType) {
+        return "A " + valueType + " cannot be stored in an array of " + elementType + ".";
+    }
+
+    /**
+     * @return the message for String.substring with bounds outside the string
+     */
+    public static String substringOutOfBounds(int begin, int end, int length) {
+        return "substring(" + begin + ", " + end + ") is out of bounds for length "
+                + length + ".";
+    }
+}
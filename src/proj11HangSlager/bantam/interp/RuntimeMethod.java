@@ -0,0 +1,47 @@
+/*
+ * File: RuntimeMethod.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+import proj11HangSlager.bantam.ast.Method;
+import proj11HangSlager.bantam.semant.Symbol;
+
+/**
+ * A method as the interpreter sees it. Methods of the built-in classes
+ * have no body and are identified by their owner and name instead.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+class RuntimeMethod {
+
+    final Symbol symbol;
+    final Method node;
+    final RuntimeClass owner;
+    final String builtIn;
+
+    /**
+     * Whether each formal holds a reference rather than an int or boolean
+     */
+    final boolean[] refFormals;
+
+    final boolean returnsRef;
+
+    RuntimeMethod(Symbol symbol, Method node, RuntimeClass owner) {
+        this.symbol = symbol;
+        this.node = node;
+        this.owner = owner;
+        this.builtIn = node == null ? symbol.getOwner().getName() + "." + symbol.getName() : null;
+        refFormals = new boolean[symbol.getParamTypes().size()];
+        for (int i = 0; i < refFormals.length; i++) {
+            refFormals[i] = Interpreter.isReference(symbol.getParamTypes().get(i));
+        }
+        returnsRef = Interpreter.isReference(symbol.getType());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * File: RuntimeObject.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 28, 2019
+ */
+
+package proj11HangSlager.bantam.interp;
+
+/**
+ * An object of a Bantam class. Fields are stored by slot, ints and
+ * booleans (as 0 or 1) unboxed in one array and references in another.
+ * Strings are plain Java Strings and arrays plain int[] or
+ * RuntimeArrays, so neither is a RuntimeObject.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-28-19
+ */
+class RuntimeObject {
+
+    final RuntimeClass runtimeClass;
+    final int[] ints;
+    final Object[] refs;
+
+    /**
+     * The Java state behind a built-in object, such as the streams of a TextIO
+     */
+    Object peer;
+
+    RuntimeObject(RuntimeClass runtimeClass) {
+        this.runtimeClass = runtimeClass;
+        this.ints = new int[runtimeClass.numFields];
+        this.refs = new Object[runtimeClass.numFields];
+    }
+
+    RuntimeObject(RuntimeObject original) {
+        this.runtimeClass = original.runtimeClass;
+        this.ints = original.ints.clone();
+        this.refs = original.refs.clone();
+        this.peer = original.peer;
+    }
+}
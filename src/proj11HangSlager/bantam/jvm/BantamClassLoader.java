@@ -0,0 +1,43 @@
+/*
+ * File: BantamClassLoader.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import java.util.Map;
+
+/**
+ * Loads the classes generated for one Bantam Java program. Each run gets
+ * its own loader, so the classes of programs with the same class names
+ * never clash and are unloaded once the run is over.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+final class BantamClassLoader extends ClassLoader {
+
+    private final Map<String, byte[]> classFiles;
+
+    /**
+     * @param classFiles the generated class files, by binary class name
+     * @param parent     the loader of the runtime support classes
+     */
+    BantamClassLoader(Map<String, byte[]> classFiles, ClassLoader parent) {
+        super(parent);
+        this.classFiles = classFiles;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] classFile = classFiles.get(name);
+        if (classFile == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, classFile, 0, classFile.length);
+    }
+}
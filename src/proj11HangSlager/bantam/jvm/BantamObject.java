@@ -0,0 +1,52 @@
+/*
+ * File: BantamObject.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+/**
+ * The JVM superclass of the Bantam Java classes that extend Object,
+ * holding the built-in methods of Object.
+ *
+ * Bantam Java methods are named "m_" plus their Bantam name in the
+ * generated classes, so they never clash with the methods of
+ * java.lang.Object, and a Bantam class overriding toString overrides
+ * m_toString here.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public class BantamObject implements Cloneable {
+
+    /**
+     * @return a shallow copy of this object
+     */
+    public Object m_clone() {
+        try {
+            return super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param other an object
+     * @return whether the other object is this object
+     */
+    public boolean m_equals(Object other) {
+        return this == other;
+    }
+
+    /**
+     * @return the class name and identity hash of this object
+     */
+    public String m_toString() {
+        return getClass().getSimpleName() + "@"
+                + Integer.toHexString(System.identityHashCode(this));
+    }
+}
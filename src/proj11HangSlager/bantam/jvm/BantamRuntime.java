@@ -0,0 +1,183 @@
+/*
+ * File: BantamRuntime.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.interp.RuntimeErrors;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+
+/**
+ * Static support code for generated classes: the built-in methods of
+ * Object and String for receivers that are not BantamObjects (strings,
+ * arrays, or anything whose static type is Object), the streams of the
+ * running program, the check for interruption made by every loop and
+ * the stores into arrays of references.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public final class BantamRuntime {
+
+    private static final ThreadLocal<PrintStream> out = new ThreadLocal<>();
+    private static final ThreadLocal<InputStream> in = new ThreadLocal<>();
+
+    private BantamRuntime() {
+    }
+
+    /**
+     * Sets the streams of the program run by the current thread.
+     *
+     * @param programOut the stream the program writes to
+     * @param programIn  the stream the program reads standard input from
+     */
+    static void setStreams(PrintStream programOut, InputStream programIn) {
+        out.set(programOut);
+        in.set(programIn);
+    }
+
+    static void clearStreams() {
+        out.remove();
+        in.remove();
+    }
+
+    static PrintStream getOut() {
+        return out.get();
+    }
+
+    static InputStream getIn() {
+        return in.get();
+    }
+
+    /**
+     * Called on every backward jump, so that any loop can be stopped.
+     */
+    public static void checkInterrupt() {
+        if (Thread.interrupted()) {
+            throw new RuntimeError(RuntimeErrors.STOPPED);
+        }
+    }
+
+    /**
+     * Stores a reference into an array, reporting a value of the wrong
+     * class with the element type of the array.
+     */
+    public static void arrayStore(Object[] array, int index, Object value) {
+        try {
+            array[index] = value;
+        } catch (ArrayStoreException e) {
+            throw new RuntimeError(RuntimeErrors.badArrayStore(
+                    bantamName(value.getClass().getName()),
+                    bantamName(array.getClass().getComponentType().getName())));
+        }
+    }
+
+    public static Object m_clone(Object receiver) {
+        checkReceiver(receiver, "clone");
+        if (receiver instanceof BantamObject) {
+            return ((BantamObject) receiver).m_clone();
+        }
+        if (receiver instanceof int[]) {
+            return ((int[]) receiver).clone();
+        }
+        if (receiver instanceof Object[]) {
+            return ((Object[]) receiver).clone();
+        }
+        return receiver;
+    }
+
+    public static boolean m_equals(Object receiver, Object other) {
+        checkReceiver(receiver, "equals");
+        if (receiver instanceof BantamObject) {
+            return ((BantamObject) receiver).m_equals(other);
+        }
+        return receiver instanceof String ? receiver.equals(other) : receiver == other;
+    }
+
+    public static String m_toString(Object receiver) {
+        checkReceiver(receiver, "toString");
+        if (receiver instanceof BantamObject) {
+            return ((BantamObject) receiver).m_toString();
+        }
+        return receiver instanceof String ? (String) receiver : "Object@"
+                + Integer.toHexString(System.identityHashCode(receiver));
+    }
+
+    public static int m_length(String receiver) {
+        checkReceiver(receiver, "length");
+        return receiver.length();
+    }
+
+    public static boolean m_equals(String receiver, Object other) {
+        checkReceiver(receiver, "equals");
+        return receiver.equals(other);
+    }
+
+    public static String m_toString(String receiver) {
+        checkReceiver(receiver, "toString");
+        return receiver.toString();
+    }
+
+    public static String m_substring(String receiver, int begin, int end) {
+        checkReceiver(receiver, "substring");
+        if (begin < 0 || begin > end || end > receiver.length()) {
+            throw new RuntimeError(
+                    RuntimeErrors.substringOutOfBounds(begin, end, receiver.length()));
+        }
+        return receiver.substring(begin, end);
+    }
+
+    public static String m_concat(String receiver, String other) {
+        checkReceiver(receiver, "concat");
+        return receiver + other;
+    }
+
+    /**
+     * Turns the name of a JVM class, as Class.getName gives it, into the
+     * Bantam type it stands for.
+     */
+    static String bantamName(String className) {
+        if (className.startsWith("[")) {
+            return className.equals("[I") ? "int[]"
+                    : bantamName(className.substring(2, className.length() - 1)) + "[]";
+        }
+        if (className.equals(BantamObject.class.getName())) {
+            return "Object";
+        }
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static void checkReceiver(Object receiver, String methodName) {
+        if (receiver == null) {
+            throw new RuntimeError(RuntimeErrors.nullCall(methodName));
+        }
+    }
+
+    /**
+     * An error detected by the runtime support code rather than the JVM
+     */
+    public static class RuntimeError extends RuntimeException {
+        RuntimeError(String message) {
+            super(message, null, false, true);
+        }
+    }
+
+    /**
+     * Thrown by Sys.exit to unwind the running program
+     */
+    public static class ExitException extends RuntimeException {
+        final int status;
+
+        ExitException(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+}
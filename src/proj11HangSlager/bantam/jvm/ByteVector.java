@@ -0,0 +1,99 @@
+/*
+ * File: ByteVector.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte array holding big-endian values, as class files do.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+final class ByteVector {
+
+    private byte[] data = new byte[64];
+    private int length;
+
+    int length() {
+        return length;
+    }
+
+    ByteVector putByte(int value) {
+        ensureCapacity(1);
+        data[length++] = (byte) value;
+        return this;
+    }
+
+    ByteVector putShort(int value) {
+        ensureCapacity(2);
+        data[length++] = (byte) (value >>> 8);
+        data[length++] = (byte) value;
+        return this;
+    }
+
+    ByteVector putInt(int value) {
+        ensureCapacity(4);
+        data[length++] = (byte) (value >>> 24);
+        data[length++] = (byte) (value >>> 16);
+        data[length++] = (byte) (value >>> 8);
+        data[length++] = (byte) value;
+        return this;
+    }
+
+    ByteVector putBytes(ByteVector other) {
+        ensureCapacity(other.length);
+        System.arraycopy(other.data, 0, data, length, other.length);
+        length += other.length;
+        return this;
+    }
+
+    /**
+     * Writes a string in the modified UTF-8 of class files, preceded by
+     * its length in bytes.
+     */
+    ByteVector putUTF(String string) {
+        int start = length;
+        putShort(0);
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= 1 && c <= 0x7F) {
+                putByte(c);
+            }
+            else if (c <= 0x7FF) {
+                putByte(0xC0 | (c >> 6)).putByte(0x80 | (c & 0x3F));
+            }
+            else {
+                putByte(0xE0 | (c >> 12)).putByte(0x80 | ((c >> 6) & 0x3F))
+                        .putByte(0x80 | (c & 0x3F));
+            }
+        }
+        setShort(start, length - start - 2);
+        return this;
+    }
+
+    /**
+     * Overwrites two bytes written earlier.
+     */
+    void setShort(int position, int value) {
+        data[position] = (byte) (value >>> 8);
+        data[position + 1] = (byte) value;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, length);
+    }
+
+    private void ensureCapacity(int size) {
+        if (length + size > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + size));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * File: ClassWriter.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.util.CompilationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a JVM class file: the constant pool, the fields and the methods
+ * of one class.
+ *
+ * Class files are written in version 49 (Java 5), the last version that
+ * does not require StackMapTable frames, so the JVM verifies the
+ * generated code by type inference and the generator need not compute
+ * frames at every branch target.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+final class ClassWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAJOR_VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteVector pool = new ByteVector();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final ByteVector fields = new ByteVector();
+    private int fieldCount;
+    private final ByteVector methods = new ByteVector();
+    private int methodCount;
+    private int sourceFile;
+
+    /**
+     * @param name      the internal name of the class, such as "bantam/Main"
+     * @param superName the internal name of its superclass
+     */
+    ClassWriter(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    /**
+     * Records the name of the source file in the class, for stack traces.
+     */
+    void setSourceFile(String filename) {
+        utf8("SourceFile");
+        sourceFile = utf8(filename);
+    }
+
+    void addField(int access, String name, String descriptor) {
+        fields.putShort(access).putShort(utf8(name)).putShort(utf8(descriptor)).putShort(0);
+        fieldCount++;
+    }
+
+    /**
+     * Adds a method whose code is complete.
+     */
+    void addMethod(int access, String name, String descriptor, CodeWriter code, int maxLocals) {
+        ByteVector body = code.getCode();
+        ByteVector lines = code.getLineNumbers();
+        int numLines = lines.length() / 4;
+        methods.putShort(access).putShort(utf8(name)).putShort(utf8(descriptor));
+        methods.putShort(1).putShort(utf8("Code"));
+        methods.putInt(12 + body.length() + (numLines > 0 ? 8 + lines.length() : 0));
+        methods.putShort(code.getMaxStack()).putShort(maxLocals);
+        methods.putInt(body.length()).putBytes(body);
+        methods.putShort(0);
+        if (numLines > 0) {
+            methods.putShort(1).putShort(utf8("LineNumberTable"));
+            methods.putInt(2 + lines.length()).putShort(numLines).putBytes(lines);
+        }
+        else {
+            methods.putShort(0);
+        }
+        methodCount++;
+    }
+
+    /**
+     * @return the class file
+     */
+    byte[] toByteArray() {
+        if (poolCount > 0xFFFF) {
+            throw new CompilationException("Too many constants in one class.");
+        }
+        ByteVector out = new ByteVector();
+        out.putInt(0xCAFEBABE).putShort(0).putShort(MAJOR_VERSION);
+        out.putShort(poolCount).putBytes(pool);
+        out.putShort(ACC_PUBLIC | ACC_SUPER).putShort(thisClass).putShort(superClass);
+        out.putShort(0);
+        out.putShort(fieldCount).putBytes(fields);
+        out.putShort(methodCount).putBytes(methods);
+        if (sourceFile > 0) {
+            out.putShort(1).putShort(utf8("SourceFile")).putInt(2).putShort(sourceFile);
+        }
+        else {
+            out.putShort(0);
+        }
+        return out.toByteArray();
+    }
+
+    //-------- constant pool ---------
+
+    int utf8(String value) {
+        Integer index = constants.get("U" + value);
+        if (index == null) {
+            pool.putByte(CONSTANT_UTF8).putUTF(value);
+            index = add("U" + value);
+        }
+        return index;
+    }
+
+    /**
+     * @param name an internal class name, or an array descriptor
+     */
+    int classRef(String name) {
+        return reference(CONSTANT_CLASS, "C" + name, utf8(name), -1);
+    }
+
+    int string(String value) {
+        return reference(CONSTANT_STRING, "S" + value, utf8(value), -1);
+    }
+
+    int integer(int value) {
+        Integer index = constants.get("I" + value);
+        if (index == null) {
+            pool.putByte(CONSTANT_INTEGER).putInt(value);
+            index = add("I" + value);
+        }
+        return index;
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, "F", owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, "M", owner, name, descriptor);
+    }
+
+    //-------- auxiliary methods ---------
+
+    private int memberRef(int tag, String kind, String owner, String name, String descriptor) {
+        int nameAndType = reference(CONSTANT_NAME_AND_TYPE, "N" + name + " " + descriptor,
+                utf8(name), utf8(descriptor));
+        return reference(tag, kind + owner + "." + name + " " + descriptor,
+                classRef(owner), nameAndType);
+    }
+
+    /**
+     * Adds a constant made of one or two indexes of other constants.
+     */
+    private int reference(int tag, String key, int first, int second) {
+        Integer index = constants.get(key);
+        if (index == null) {
+            pool.putByte(tag).putShort(first);
+            if (second >= 0) {
+                pool.putShort(second);
+            }
+            index = add(key);
+        }
+        return index;
+    }
+
+    private int add(String key) {
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * File: CodeWriter.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.util.CompilationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the code of one JVM method, keeping track of the operand stack
+ * depth, of which code is reachable, and of the source lines.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+final class CodeWriter {
+
+    static final int ACONST_NULL = 1;
+    static final int ICONST_0 = 3;
+    static final int ICONST_1 = 4;
+    static final int BIPUSH = 16;
+    static final int SIPUSH = 17;
+    static final int LDC = 18;
+    static final int LDC_W = 19;
+    static final int ILOAD = 21;
+    static final int ALOAD = 25;
+    static final int IALOAD = 46;
+    static final int AALOAD = 50;
+    static final int ISTORE = 54;
+    static final int ASTORE = 58;
+    static final int IASTORE = 79;
+    static final int AASTORE = 83;
+    static final int POP = 87;
+    static final int DUP = 89;
+    static final int DUP_X1 = 90;
+    static final int DUP_X2 = 91;
+    static final int DUP2 = 92;
+    static final int IADD = 96;
+    static final int ISUB = 100;
+    static final int IMUL = 104;
+    static final int IDIV = 108;
+    static final int IREM = 112;
+    static final int INEG = 116;
+    static final int IXOR = 130;
+    static final int IINC = 132;
+    static final int IFEQ = 153;
+    static final int IFNE = 154;
+    static final int IF_ICMPEQ = 159;
+    static final int IF_ICMPNE = 160;
+    static final int IF_ICMPLT = 161;
+    static final int IF_ICMPGE = 162;
+    static final int IF_ICMPGT = 163;
+    static final int IF_ICMPLE = 164;
+    static final int IF_ACMPEQ = 165;
+    static final int IF_ACMPNE = 166;
+    static final int GOTO = 167;
+    static final int IRETURN = 172;
+    static final int ARETURN = 176;
+    static final int RETURN = 177;
+    static final int GETFIELD = 180;
+    static final int PUTFIELD = 181;
+    static final int INVOKEVIRTUAL = 182;
+    static final int INVOKESPECIAL = 183;
+    static final int INVOKESTATIC = 184;
+    static final int NEW = 187;
+    static final int NEWARRAY = 188;
+    static final int ANEWARRAY = 189;
+    static final int ARRAYLENGTH = 190;
+    static final int CHECKCAST = 192;
+    static final int INSTANCEOF = 193;
+    static final int WIDE = 196;
+
+    static final int T_INT = 10;
+
+    /**
+     * A position in the code that jumps can target before it is known
+     */
+    static final class Label {
+        private int position = -1;
+        private int stackDepth = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    private final ClassWriter classWriter;
+    private final ByteVector code = new ByteVector();
+    private final ByteVector lineNumbers = new ByteVector();
+    private int lastLine = -1;
+    private int stack;
+    private int maxStack;
+    private boolean reachable = true;
+
+    /**
+     * @param classWriter the class whose constant pool the code refers to
+     */
+    CodeWriter(ClassWriter classWriter) {
+        this.classWriter = classWriter;
+    }
+
+    ByteVector getCode() {
+        return code;
+    }
+
+    ByteVector getLineNumbers() {
+        return lineNumbers;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    /**
+     * @return whether the next instruction can be reached; code ending
+     * in a return, a goto or an infinite loop cannot fall through
+     */
+    boolean isReachable() {
+        return reachable;
+    }
+
+    /**
+     * Attributes the following instructions to a source line.
+     */
+    void line(int lineNum) {
+        if (lineNum != lastLine && lineNum > 0) {
+            lineNumbers.putShort(code.length()).putShort(lineNum);
+            lastLine = lineNum;
+        }
+    }
+
+    /**
+     * Emits an instruction without operands.
+     */
+    void op(int opcode) {
+        code.putByte(opcode);
+        switch (opcode) {
+            case ACONST_NULL: case ICONST_0: case ICONST_1: case DUP: case DUP_X1: case DUP_X2:
+                push(1);
+                break;
+            case DUP2:
+                push(2);
+                break;
+            case IALOAD: case AALOAD: case POP: case IADD: case ISUB: case IMUL: case IDIV:
+            case IREM: case IXOR: case IRETURN: case ARETURN:
+                push(-1);
+                break;
+            case IASTORE: case AASTORE:
+                push(-3);
+                break;
+            default:
+                break;
+        }
+        if (opcode == IRETURN || opcode == ARETURN || opcode == RETURN) {
+            reachable = false;
+        }
+    }
+
+    void intConstant(int value) {
+        if (value >= -1 && value <= 5) {
+            code.putByte(ICONST_0 + value);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.putByte(BIPUSH).putByte(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.putByte(SIPUSH).putShort(value);
+        }
+        else {
+            constant(classWriter.integer(value));
+            return;
+        }
+        push(1);
+    }
+
+    void stringConstant(String value) {
+        constant(classWriter.string(value));
+    }
+
+    /**
+     * Emits iload, aload, istore or astore.
+     */
+    void local(int opcode, int index) {
+        if (index > 0xFF) {
+            code.putByte(WIDE).putByte(opcode).putShort(index);
+        }
+        else {
+            code.putByte(opcode).putByte(index);
+        }
+        push(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+    }
+
+    void increment(int index, int delta) {
+        if (index > 0xFF || delta < Byte.MIN_VALUE || delta > Byte.MAX_VALUE) {
+            code.putByte(WIDE).putByte(IINC).putShort(index).putShort(delta);
+        }
+        else {
+            code.putByte(IINC).putByte(index).putByte(delta);
+        }
+    }
+
+    /**
+     * Emits new, anewarray, checkcast or instanceof.
+     *
+     * @param type an internal class name, or an array descriptor
+     */
+    void type(int opcode, String type) {
+        code.putByte(opcode).putShort(classWriter.classRef(type));
+        if (opcode == NEW) {
+            push(1);
+        }
+    }
+
+    void newIntArray() {
+        code.putByte(NEWARRAY).putByte(T_INT);
+    }
+
+    void arrayLength() {
+        code.putByte(ARRAYLENGTH);
+    }
+
+    void field(int opcode, String owner, String name, String descriptor) {
+        code.putByte(opcode).putShort(classWriter.fieldRef(owner, name, descriptor));
+        push(opcode == GETFIELD ? 0 : -2);
+    }
+
+    void invoke(int opcode, String owner, String name, String descriptor) {
+        code.putByte(opcode).putShort(classWriter.methodRef(owner, name, descriptor));
+        int arguments = 0;
+        int end = descriptor.indexOf(')');
+        for (int i = 1; i < end; i++) {
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            arguments++;
+        }
+        push((opcode == INVOKESTATIC ? 0 : -1) - arguments
+                + (descriptor.charAt(end + 1) == 'V' ? 0 : 1));
+    }
+
+    /**
+     * Emits a conditional jump or a goto to a label.
+     */
+    void jump(int opcode, Label label) {
+        int position = code.length();
+        code.putByte(opcode).putShort(0);
+        if (opcode == IF_ICMPEQ || opcode == IF_ICMPNE || opcode == IF_ICMPLT
+                || opcode == IF_ICMPGE || opcode == IF_ICMPGT || opcode == IF_ICMPLE
+                || opcode == IF_ACMPEQ || opcode == IF_ACMPNE) {
+            push(-2);
+        }
+        else if (opcode != GOTO) {
+            push(-1);
+        }
+        if (label.stackDepth < 0) {
+            label.stackDepth = stack;
+        }
+        if (label.position >= 0) {
+            patch(position, label.position);
+        }
+        else {
+            label.jumps.add(position);
+        }
+        if (opcode == GOTO) {
+            reachable = false;
+        }
+    }
+
+    /**
+     * Places a label at the current position; code following a label
+     * that is jumped to is reachable again.
+     */
+    void place(Label label) {
+        label.position = code.length();
+        for (int position : label.jumps) {
+            patch(position, label.position);
+        }
+        if (!label.jumps.isEmpty()) {
+            if (!reachable) {
+                stack = label.stackDepth;
+            }
+            reachable = true;
+        }
+        else if (reachable) {
+            label.stackDepth = stack;
+        }
+    }
+
+    //-------- auxiliary methods ---------
+
+    private void constant(int index) {
+        if (index <= 0xFF) {
+            code.putByte(LDC).putByte(index);
+        }
+        else {
+            code.putByte(LDC_W).putShort(index);
+        }
+        push(1);
+    }
+
+    private void patch(int position, int target) {
+        int offset = target - position;
+        if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            throw new CompilationException("A method is too large for the JVM backend.");
+        }
+        code.setShort(position + 1, offset);
+    }
+
+    private void push(int delta) {
+        stack += delta;
+        maxStack = Math.max(maxStack, stack);
+    }
+}
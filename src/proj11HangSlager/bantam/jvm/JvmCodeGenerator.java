@@ -0,0 +1,675 @@
+/*
+ * File: JvmCodeGenerator.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * turn each class of a type checked program into a JVM class file.
+ *
+ * A Bantam class C becomes the public class bantam.C, extending the
+ * class its Bantam parent becomes, or BantamObject for classes extending
+ * Object. Fields become public fields of the same name, and a method m
+ * becomes the public method m_m, so that dispatch is a plain invokevirtual
+ * and HotSpot can inline and compile Bantam code like any Java code.
+ * Methods of Object and String called on strings, arrays or receivers of
+ * static type Object go through static methods of BantamRuntime.
+ *
+ * ints and booleans are JVM ints and booleans, strings are Java strings,
+ * int and boolean arrays are int arrays, and an array of a class is a JVM
+ * array of the class it becomes, so that casts and instanceof check the
+ * element type, as in the interpreter.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public class JvmCodeGenerator extends Visitor {
+
+    /**
+     * The package of the generated classes
+     */
+    public static final String PACKAGE = "bantam";
+
+    private static final String RUNTIME_PACKAGE = "proj11HangSlager/bantam/jvm/";
+    private static final String RUNTIME = RUNTIME_PACKAGE + "BantamRuntime";
+
+    private SymbolTable symbolTable;
+    private ClassHierarchy hierarchy;
+    private ClassWriter classWriter;
+    private CodeWriter code;
+    private String currentClass;
+    private Symbol currentMethod;
+    private CodeWriter.Label breakLabel;
+
+    /**
+     * Generates the class files of a program.
+     *
+     * @param program     a program without semantic errors
+     * @param symbolTable the symbol table the TypeCheckerVisitor built for it
+     * @return the class files, by binary class name
+     * @throws CompilationException if a class extends String, which the
+     *                              JVM cannot express
+     */
+    public Map<String, byte[]> generate(Program program, SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.hierarchy = symbolTable.getHierarchy();
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        for (ASTNode classNode : program.getClassList()) {
+            Class_ node = (Class_) classNode;
+            if (hierarchy.isSubclass(node.getName(), "String")) {
+                throw new CompilationException("Class " + node.getName()
+                        + " extends String, which cannot be compiled to JVM bytecode.");
+            }
+            classFiles.put(PACKAGE + "." + node.getName(), generateClass(node));
+        }
+        return classFiles;
+    }
+
+    //-------- statements ---------
+
+    public Object visit(ExprStmt node) {
+        code.line(node.getLineNum());
+        compileDiscarding(node.getExpr());
+        return null;
+    }
+
+    public Object visit(DeclStmt node) {
+        code.line(node.getLineNum());
+        node.getInit().accept(this);
+        Symbol local = symbolTable.getSymbol(node.getSymbolId());
+        code.local(isReference(local) ? CodeWriter.ASTORE : CodeWriter.ISTORE,
+                register(local));
+        return null;
+    }
+
+    public Object visit(IfStmt node) {
+        code.line(node.getLineNum());
+        CodeWriter.Label elseLabel = new CodeWriter.Label();
+        node.getPredExpr().accept(this);
+        code.jump(CodeWriter.IFEQ, elseLabel);
+        node.getThenStmt().accept(this);
+        if (node.getElseStmt() == null) {
+            code.place(elseLabel);
+        }
+        else {
+            CodeWriter.Label endLabel = new CodeWriter.Label();
+            if (code.isReachable()) {
+                code.jump(CodeWriter.GOTO, endLabel);
+            }
+            code.place(elseLabel);
+            node.getElseStmt().accept(this);
+            code.place(endLabel);
+        }
+        return null;
+    }
+
+    public Object visit(WhileStmt node) {
+        CodeWriter.Label outerBreak = breakLabel;
+        CodeWriter.Label topLabel = new CodeWriter.Label();
+        breakLabel = new CodeWriter.Label();
+        code.place(topLabel);
+        code.line(node.getLineNum());
+        node.getPredExpr().accept(this);
+        code.jump(CodeWriter.IFEQ, breakLabel);
+        node.getBodyStmt().accept(this);
+        jumpBack(topLabel);
+        code.place(breakLabel);
+        breakLabel = outerBreak;
+        return null;
+    }
+
+    public Object visit(ForStmt node) {
+        CodeWriter.Label outerBreak = breakLabel;
+        CodeWriter.Label topLabel = new CodeWriter.Label();
+        breakLabel = new CodeWriter.Label();
+        code.line(node.getLineNum());
+        if (node.getInitExpr() != null) {
+            compileDiscarding(node.getInitExpr());
+        }
+        code.place(topLabel);
+        if (node.getPredExpr() != null) {
+            code.line(node.getLineNum());
+            node.getPredExpr().accept(this);
+            code.jump(CodeWriter.IFEQ, breakLabel);
+        }
+        node.getBodyStmt().accept(this);
+        if (node.getUpdateExpr() != null && code.isReachable()) {
+            code.line(node.getLineNum());
+            compileDiscarding(node.getUpdateExpr());
+        }
+        jumpBack(topLabel);
+        code.place(breakLabel);
+        breakLabel = outerBreak;
+        return null;
+    }
+
+    public Object visit(BreakStmt node) {
+        code.jump(CodeWriter.GOTO, breakLabel);
+        return null;
+    }
+
+    public Object visit(ReturnStmt node) {
+        code.line(node.getLineNum());
+        if (node.getExpr() == null) {
+            code.op(CodeWriter.RETURN);
+        }
+        else {
+            node.getExpr().accept(this);
+            code.op(isReference(currentMethod) ? CodeWriter.ARETURN : CodeWriter.IRETURN);
+        }
+        return null;
+    }
+
+    //-------- objects and calls ---------
+
+    /**
+     * Calls through super become invokespecial, calls on receivers
+     * compiled to subclasses of BantamObject become invokevirtual, and
+     * other calls become invokestatic on BantamRuntime.
+     * @param node the dispatch expression node
+     * @return
+     */
+    public Object visit(DispatchExpr node) {
+        Symbol method = symbolTable.getSymbol(node.getSymbolId());
+        Expr refExpr = node.getRefExpr();
+        String receiverType = currentClass;
+        if (refExpr == null) {
+            code.local(CodeWriter.ALOAD, 0);
+        }
+        else {
+            refExpr.accept(this);
+            receiverType = isArray(refExpr.getExprType()) ? "Object" : refExpr.getExprType();
+        }
+        for (ASTNode actual : node.getActualList()) {
+            actual.accept(this);
+        }
+        code.line(node.getLineNum());
+        String name = "m_" + method.getName();
+        String descriptor = methodDescriptor(method);
+        if (isSuper(refExpr)) {
+            code.invoke(CodeWriter.INVOKESPECIAL,
+                    superName(hierarchy.getParent(currentClass)), name, descriptor);
+        }
+        else if (isBantamObject(receiverType)) {
+            code.invoke(CodeWriter.INVOKEVIRTUAL, internalName(receiverType), name, descriptor);
+        }
+        else {
+            String owner = method.getOwner().getName();
+            code.invoke(CodeWriter.INVOKESTATIC, RUNTIME, name,
+                    "(" + descriptor(owner) + descriptor.substring(1));
+        }
+        return null;
+    }
+
+    public Object visit(NewExpr node) {
+        String type = node.getType().equals("Object") ? superName("Object")
+                : internalName(node.getType());
+        code.type(CodeWriter.NEW, type);
+        code.op(CodeWriter.DUP);
+        code.invoke(CodeWriter.INVOKESPECIAL, type, "<init>", "()V");
+        return null;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        node.getSize().accept(this);
+        code.line(node.getLineNum());
+        if (Interpreter.isReference(node.getType())) {
+            code.type(CodeWriter.ANEWARRAY, internalName(node.getType()));
+        }
+        else {
+            code.newIntArray();
+        }
+        return null;
+    }
+
+    public Object visit(InstanceofExpr node) {
+        node.getExpr().accept(this);
+        code.type(CodeWriter.INSTANCEOF, typeReference(node.getType()));
+        return null;
+    }
+
+    public Object visit(CastExpr node) {
+        node.getExpr().accept(this);
+        if (!node.getUpCast()) {
+            code.line(node.getLineNum());
+            code.type(CodeWriter.CHECKCAST, typeReference(node.getType()));
+        }
+        return null;
+    }
+
+    //-------- variables ---------
+
+    public Object visit(VarExpr node) {
+        if (node.getSymbolId() >= 0) {
+            load(symbolTable.getSymbol(node.getSymbolId()));
+        }
+        else if (node.getRef() != null) {
+            node.getRef().accept(this);
+            code.line(node.getLineNum());
+            code.arrayLength();
+        }
+        else if (node.getName().equals("null")) {
+            code.op(CodeWriter.ACONST_NULL);
+        }
+        else {
+            code.local(CodeWriter.ALOAD, 0);
+        }
+        return null;
+    }
+
+    public Object visit(AssignExpr node) {
+        Symbol symbol = symbolTable.getSymbol(node.getSymbolId());
+        if (symbol.getKind() == Symbol.Kind.FIELD) {
+            code.local(CodeWriter.ALOAD, 0);
+            node.getExpr().accept(this);
+            code.op(CodeWriter.DUP_X1);
+            field(CodeWriter.PUTFIELD, symbol);
+        }
+        else {
+            node.getExpr().accept(this);
+            code.op(CodeWriter.DUP);
+            code.local(isReference(symbol) ? CodeWriter.ASTORE : CodeWriter.ISTORE,
+                    register(symbol));
+        }
+        return null;
+    }
+
+    public Object visit(ArrayExpr node) {
+        load(symbolTable.getSymbol(node.getSymbolId()));
+        node.getIndex().accept(this);
+        code.line(node.getLineNum());
+        String elementType = node.getExprType();
+        if (Interpreter.isReference(elementType)) {
+            code.op(CodeWriter.AALOAD);
+            if (!elementType.equals("Object")) {
+                code.type(CodeWriter.CHECKCAST, typeReference(elementType));
+            }
+        }
+        else {
+            code.op(CodeWriter.IALOAD);
+        }
+        return null;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        load(symbolTable.getSymbol(node.getSymbolId()));
+        node.getIndex().accept(this);
+        node.getExpr().accept(this);
+        code.line(node.getLineNum());
+        code.op(CodeWriter.DUP_X2);
+        if (Interpreter.isReference(node.getExprType())) {
+            // aastore's ArrayStoreException does not name the element type
+            code.invoke(CodeWriter.INVOKESTATIC, RUNTIME, "arrayStore",
+                    "([Ljava/lang/Object;ILjava/lang/Object;)V");
+        }
+        else {
+            code.op(CodeWriter.IASTORE);
+        }
+        return null;
+    }
+
+    //-------- operators ---------
+
+    public Object visit(BinaryCompEqExpr node) {
+        boolean isRef = Interpreter.isReference(node.getLeftExpr().getExprType());
+        return compare(isRef ? CodeWriter.IF_ACMPEQ : CodeWriter.IF_ICMPEQ, node);
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        boolean isRef = Interpreter.isReference(node.getLeftExpr().getExprType());
+        return compare(isRef ? CodeWriter.IF_ACMPNE : CodeWriter.IF_ICMPNE, node);
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        return compare(CodeWriter.IF_ICMPLT, node);
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        return compare(CodeWriter.IF_ICMPLE, node);
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        return compare(CodeWriter.IF_ICMPGT, node);
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        return compare(CodeWriter.IF_ICMPGE, node);
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        return arithmetic(CodeWriter.IADD, node);
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        return arithmetic(CodeWriter.ISUB, node);
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        return arithmetic(CodeWriter.IMUL, node);
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        return arithmetic(CodeWriter.IDIV, node);
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        return arithmetic(CodeWriter.IREM, node);
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return shortCircuit(CodeWriter.IFEQ, node);
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return shortCircuit(CodeWriter.IFNE, node);
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        node.getExpr().accept(this);
+        code.op(CodeWriter.INEG);
+        return null;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        node.getExpr().accept(this);
+        code.op(CodeWriter.ICONST_1);
+        code.op(CodeWriter.IXOR);
+        return null;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        return step(node, 1);
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        return step(node, -1);
+    }
+
+    public Object visit(ConstIntExpr node) {
+        code.intConstant(node.getIntConstant());
+        return null;
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        code.op(node.getConstant().equals("true") ? CodeWriter.ICONST_1 : CodeWriter.ICONST_0);
+        return null;
+    }
+
+    public Object visit(ConstStringExpr node) {
+        code.stringConstant(Interpreter.unescape(node.getConstant()));
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private byte[] generateClass(Class_ node) {
+        currentClass = node.getName();
+        classWriter = new ClassWriter(internalName(currentClass), superName(node.getParent()));
+        if (node.getFilename() != null) {
+            classWriter.setSourceFile(Paths.get(node.getFilename()).getFileName().toString());
+        }
+
+        // the constructor runs the field initializers after those of the parent
+        code = new CodeWriter(classWriter);
+        code.line(node.getLineNum());
+        code.local(CodeWriter.ALOAD, 0);
+        code.invoke(CodeWriter.INVOKESPECIAL, superName(node.getParent()), "<init>", "()V");
+        for (Symbol field : symbolTable.getFields(currentClass)) {
+            classWriter.addField(ClassWriter.ACC_PUBLIC, field.getName(),
+                    descriptor(field.getType()));
+            Expr init = ((Field) field.getDecl()).getInit();
+            if (init != null) {
+                code.line(field.getDecl().getLineNum());
+                code.local(CodeWriter.ALOAD, 0);
+                init.accept(this);
+                field(CodeWriter.PUTFIELD, field);
+            }
+        }
+        code.op(CodeWriter.RETURN);
+        classWriter.addMethod(ClassWriter.ACC_PUBLIC, "<init>", "()V", code, 1);
+
+        for (Symbol method : symbolTable.getMethods(currentClass)) {
+            currentMethod = method;
+            code = new CodeWriter(classWriter);
+            ((Method) method.getDecl()).getStmtList().accept(this);
+            if (code.isReachable()) {
+                if (method.getType().equals("void")) {
+                    code.op(CodeWriter.RETURN);
+                }
+                else if (isReference(method)) {
+                    code.op(CodeWriter.ACONST_NULL);
+                    code.op(CodeWriter.ARETURN);
+                }
+                else {
+                    code.op(CodeWriter.ICONST_0);
+                    code.op(CodeWriter.IRETURN);
+                }
+            }
+            int maxLocals = 1 + Math.max(method.getFrameSize(), method.getParamTypes().size());
+            classWriter.addMethod(ClassWriter.ACC_PUBLIC, "m_" + method.getName(),
+                    methodDescriptor(method), code, maxLocals);
+        }
+        return classWriter.toByteArray();
+    }
+
+    private void compileDiscarding(Expr expr) {
+        expr.accept(this);
+        if (!"void".equals(expr.getExprType())) {
+            code.op(CodeWriter.POP);
+        }
+    }
+
+    /**
+     * Jumps to the top of a loop, checking for interruption on the way.
+     */
+    private void jumpBack(CodeWriter.Label topLabel) {
+        if (code.isReachable()) {
+            code.invoke(CodeWriter.INVOKESTATIC, RUNTIME, "checkInterrupt", "()V");
+            code.jump(CodeWriter.GOTO, topLabel);
+        }
+    }
+
+    private Object compare(int jump, BinaryExpr node) {
+        CodeWriter.Label trueLabel = new CodeWriter.Label();
+        CodeWriter.Label endLabel = new CodeWriter.Label();
+        node.getLeftExpr().accept(this);
+        node.getRightExpr().accept(this);
+        code.jump(jump, trueLabel);
+        code.op(CodeWriter.ICONST_0);
+        code.jump(CodeWriter.GOTO, endLabel);
+        code.place(trueLabel);
+        code.op(CodeWriter.ICONST_1);
+        code.place(endLabel);
+        return null;
+    }
+
+    private Object arithmetic(int opcode, BinaryExpr node) {
+        node.getLeftExpr().accept(this);
+        node.getRightExpr().accept(this);
+        if (opcode == CodeWriter.IDIV || opcode == CodeWriter.IREM) {
+            code.line(node.getLineNum());
+        }
+        code.op(opcode);
+        return null;
+    }
+
+    private Object shortCircuit(int jump, BinaryExpr node) {
+        CodeWriter.Label endLabel = new CodeWriter.Label();
+        node.getLeftExpr().accept(this);
+        code.op(CodeWriter.DUP);
+        code.jump(jump, endLabel);
+        code.op(CodeWriter.POP);
+        node.getRightExpr().accept(this);
+        code.place(endLabel);
+        return null;
+    }
+
+    /**
+     * Increments or decrements a local, field or array element.
+     */
+    private Object step(UnaryExpr node, int delta) {
+        Expr operand = node.getExpr();
+        int dup = CodeWriter.DUP_X1;
+        if (operand instanceof ArrayExpr) {
+            ArrayExpr arrayExpr = (ArrayExpr) operand;
+            load(symbolTable.getSymbol(arrayExpr.getSymbolId()));
+            arrayExpr.getIndex().accept(this);
+            code.op(CodeWriter.DUP2);
+            code.line(node.getLineNum());
+            code.op(CodeWriter.IALOAD);
+            dup = CodeWriter.DUP_X2;
+        }
+        else {
+            Symbol symbol = symbolTable.getSymbol(((VarExpr) operand).getSymbolId());
+            if (symbol.getKind() != Symbol.Kind.FIELD) {
+                if (node.isPostfix()) {
+                    code.local(CodeWriter.ILOAD, register(symbol));
+                    code.increment(register(symbol), delta);
+                }
+                else {
+                    code.increment(register(symbol), delta);
+                    code.local(CodeWriter.ILOAD, register(symbol));
+                }
+                return null;
+            }
+            code.local(CodeWriter.ALOAD, 0);
+            code.op(CodeWriter.DUP);
+            field(CodeWriter.GETFIELD, symbol);
+        }
+        if (node.isPostfix()) {
+            code.op(dup);
+        }
+        code.intConstant(delta);
+        code.op(CodeWriter.IADD);
+        if (!node.isPostfix()) {
+            code.op(dup);
+        }
+        if (dup == CodeWriter.DUP_X2) {
+            code.op(CodeWriter.IASTORE);
+        }
+        else {
+            field(CodeWriter.PUTFIELD, symbolTable.getSymbol(((VarExpr) operand).getSymbolId()));
+        }
+        return null;
+    }
+
+    private void load(Symbol symbol) {
+        if (symbol.getKind() == Symbol.Kind.FIELD) {
+            code.local(CodeWriter.ALOAD, 0);
+            field(CodeWriter.GETFIELD, symbol);
+        }
+        else {
+            code.local(isReference(symbol) ? CodeWriter.ALOAD : CodeWriter.ILOAD,
+                    register(symbol));
+        }
+    }
+
+    private void field(int opcode, Symbol field) {
+        code.field(opcode, internalName(field.getOwner().getName()), field.getName(),
+                descriptor(field.getType()));
+    }
+
+    /**
+     * The JVM local of a formal or local; local 0 holds this
+     */
+    private static int register(Symbol symbol) {
+        return symbol.getSlot() + 1;
+    }
+
+    private static boolean isReference(Symbol symbol) {
+        return Interpreter.isReference(symbol.getType());
+    }
+
+    private static boolean isArray(String type) {
+        return type.endsWith("[]");
+    }
+
+    private static boolean isSuper(Expr expr) {
+        return expr instanceof VarExpr && ((VarExpr) expr).getRef() == null
+                && ((VarExpr) expr).getName().equals("super");
+    }
+
+    /**
+     * Whether values of a type are instances of BantamObject, so that
+     * methods can be called on them with invokevirtual
+     */
+    private static boolean isBantamObject(String type) {
+        return !isArray(type) && !type.equals("Object") && !type.equals("String");
+    }
+
+    /**
+     * The internal name of the JVM class a Bantam class becomes
+     */
+    private static String internalName(String className) {
+        switch (className) {
+            case "Object":
+                return "java/lang/Object";
+            case "String":
+                return "java/lang/String";
+            case "TextIO":
+            case "Sys":
+                return RUNTIME_PACKAGE + className;
+            default:
+                return PACKAGE + "/" + className;
+        }
+    }
+
+    /**
+     * The internal name of the JVM superclass of a Bantam class's subclasses
+     */
+    private static String superName(String className) {
+        return className.equals("Object") ? RUNTIME_PACKAGE + "BantamObject"
+                : internalName(className);
+    }
+
+    /**
+     * The operand of checkcast and instanceof for a Bantam type
+     */
+    private static String typeReference(String type) {
+        return isArray(type) ? descriptor(type) : internalName(type);
+    }
+
+    private static String descriptor(String type) {
+        switch (type) {
+            case "int":
+                return "I";
+            case "boolean":
+                return "Z";
+            case "void":
+                return "V";
+            default:
+                if (isArray(type)) {
+                    String elementType = type.substring(0, type.length() - 2);
+                    return Interpreter.isReference(elementType) ? "[" + descriptor(elementType)
+                            : "[I";
+                }
+                return "L" + internalName(type) + ";";
+        }
+    }
+
+    private static String methodDescriptor(Symbol method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (String paramType : method.getParamTypes()) {
+            descriptor.append(descriptor(paramType));
+        }
+        return descriptor.append(')').append(descriptor(method.getType())).toString();
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * File: JvmRunner.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.cache.AstCache;
+import proj11HangSlager.bantam.interp.InterpreterException;
+import proj11HangSlager.bantam.interp.RuntimeErrors;
+import proj11HangSlager.bantam.opt.ConstantFoldingVisitor;
+import proj11HangSlager.bantam.opt.MethodInliner;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a Bantam Java program as JVM bytecode: generates a class per
+ * Bantam class, loads them in a fresh BantamClassLoader and calls the
+ * main method of class Main.
+ *
+ * Errors the JVM detects in the running program, such as a division by
+ * zero or an array index out of bounds, are reported as
+ * InterpreterExceptions at the source line found in the stack trace,
+ * with the messages of RuntimeErrors, just as the interpreter reports
+ * them. What went wrong with a null reference is read from the detailed
+ * message of the NullPointerException.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public class JvmRunner {
+
+    private static final Pattern OUT_OF_BOUNDS =
+            Pattern.compile("Index (-?\\d+) out of bounds for length (\\d+)");
+    private static final Pattern BAD_CAST =
+            Pattern.compile("class (\\S+) cannot be cast to class (\\S+)");
+    private static final Pattern NEGATIVE_SIZE = Pattern.compile("(-\\d+)");
+    private static final Pattern NULL_CALL =
+            Pattern.compile("Cannot invoke \"[^\"(]*\\.m_(\\w+)\\(");
+
+    private final Map<String, byte[]> classFiles;
+    private final PrintStream out;
+    private final InputStream in;
+
+    /**
+     * Compiles a program for running.
+     *
+     * @param program     a program without semantic errors
+     * @param symbolTable the symbol table the TypeCheckerVisitor built for it
+     * @param out         the stream the program writes to
+     * @param in          the stream the program reads standard input from
+     * @throws CompilationException if the program cannot be compiled to JVM bytecode
+     */
+    public JvmRunner(Program program, SymbolTable symbolTable, PrintStream out, InputStream in) {
+        this.classFiles = new JvmCodeGenerator().generate(program, symbolTable);
+        this.out = out;
+        this.in = in;
+    }
+
+    /**
+     * @return the generated class files, by binary class name
+     */
+    public Map<String, byte[]> getClassFiles() {
+        return classFiles;
+    }
+
+    /**
+     * Runs the program: creates a Main object and calls its main method.
+     * Output is flushed when the program ends.
+     *
+     * @return the exit status, 0 unless the program called Sys.exit
+     * @throws InterpreterException if the program fails or is interrupted
+     */
+    public int run() {
+        BantamClassLoader loader = new BantamClassLoader(classFiles,
+                JvmRunner.class.getClassLoader());
+        java.lang.reflect.Method main;
+        Class<?> mainClass;
+        try {
+            mainClass = loader.loadClass(JvmCodeGenerator.PACKAGE + ".Main");
+            main = mainClass.getMethod("m_main");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new InterpreterException(0, "There is no Main class with a main() method.");
+        }
+
+        BantamRuntime.setStreams(out, in);
+        try {
+            main.invoke(mainClass.getConstructor().newInstance());
+            return 0;
+        } catch (InvocationTargetException e) {
+            return translate(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated class Main cannot be run", e);
+        } finally {
+            BantamRuntime.clearStreams();
+            out.flush();
+        }
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Turns what the program threw into its exit status or an
+     * InterpreterException.
+     */
+    private static int translate(Throwable thrown) {
+        if (thrown instanceof BantamRuntime.ExitException) {
+            return ((BantamRuntime.ExitException) thrown).status;
+        }
+        String message;
+        if (thrown instanceof BantamRuntime.RuntimeError) {
+            message = thrown.getMessage();
+        }
+        else if (thrown instanceof StackOverflowError) {
+            throw new InterpreterException(0, RuntimeErrors.STACK_OVERFLOW);
+        }
+        else if (thrown instanceof ArithmeticException) {
+            message = RuntimeErrors.DIVISION_BY_ZERO;
+        }
+        else if (thrown instanceof ArrayIndexOutOfBoundsException) {
+            Matcher matcher = OUT_OF_BOUNDS.matcher(String.valueOf(thrown.getMessage()));
+            message = matcher.find() ? RuntimeErrors.indexOutOfBounds(
+                    Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                    : "Array index out of bounds.";
+        }
+        else if (thrown instanceof NegativeArraySizeException) {
+            Matcher matcher = NEGATIVE_SIZE.matcher(String.valueOf(thrown.getMessage()));
+            message = matcher.find()
+                    ? RuntimeErrors.negativeArraySize(Integer.parseInt(matcher.group(1)))
+                    : "An array cannot have a negative size.";
+        }
+        else if (thrown instanceof NullPointerException) {
+            message = nullMessage(String.valueOf(thrown.getMessage()));
+        }
+        else if (thrown instanceof ClassCastException) {
+            Matcher matcher = BAD_CAST.matcher(String.valueOf(thrown.getMessage()));
+            message = matcher.find() ? RuntimeErrors.badCast(
+                    BantamRuntime.bantamName(matcher.group(1)),
+                    BantamRuntime.bantamName(matcher.group(2)))
+                    : "Bad cast.";
+        }
+        else if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        else {
+            throw (java.lang.Error) thrown;
+        }
+        throw new InterpreterException(lineOf(thrown), message);
+    }
+
+    /**
+     * @param detail the detailed message of a NullPointerException, such as
+     *               Cannot invoke "bantam.Dog.m_bark()" because ...
+     * @return the message the interpreter gives for the same error
+     */
+    private static String nullMessage(String detail) {
+        Matcher matcher = NULL_CALL.matcher(detail);
+        if (matcher.find()) {
+            return RuntimeErrors.nullCall(matcher.group(1));
+        }
+        if (detail.startsWith("Cannot read the array length")) {
+            return RuntimeErrors.NULL_ARRAY_LENGTH;
+        }
+        if (detail.startsWith("Cannot load from") || detail.startsWith("Cannot store to")) {
+            return RuntimeErrors.NULL_ARRAY_ELEMENT;
+        }
+        return "A null reference was used.";
+    }
+
+    /**
+     * @return the source line of the innermost generated method in the
+     * stack trace, or 0 if there is none
+     */
+    private static int lineOf(Throwable thrown) {
+        for (StackTraceElement element : thrown.getStackTrace()) {
+            if (element.getClassName().startsWith(JvmCodeGenerator.PACKAGE + ".")) {
+                return Math.max(element.getLineNumber(), 0);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compiles a Bantam Java program to JVM bytecode and runs it from the
+     * command line.
+     *
+     * @param args the file to run, optionally preceded by -d and a
+     *             directory to write the generated class files to
+     */
+    public static void main(String[] args) throws IOException {
+        Path classDir = null;
+        int arg = 0;
+        if (args.length == 3 && args[0].equals("-d")) {
+            classDir = Paths.get(args[1]);
+            arg = 2;
+        }
+        if (args.length != arg + 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.jvm.JvmRunner "
+                    + "[-d dir] file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new AstCache().parse(args[arg], errorHandler);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (errorHandler.errorsFound()) {
+                for (Error error : errorHandler.getErrorList()) {
+                    System.out.println(error);
+                }
+                return;
+            }
+            new ConstantFoldingVisitor().fold(program);
+            if (new MethodInliner(symbolTable).inline(program) > 0) {
+                symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            }
+            JvmRunner runner = new JvmRunner(program, symbolTable, System.out, System.in);
+            if (classDir != null) {
+                for (Map.Entry<String, byte[]> classFile : runner.getClassFiles().entrySet()) {
+                    Path file = classDir.resolve(classFile.getKey().replace('.', '/') + ".class");
+                    Files.createDirectories(file.getParent());
+                    Files.write(file, classFile.getValue());
+                }
+            }
+            System.exit(runner.run());
+        }
+        catch (CompilationException | InterpreterException e) {
+            System.out.flush();
+            for (Error error : errorHandler.getErrorList()) {
+                System.out.println(error);
+            }
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * File: RuntimeErrorCheck.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.interp.InterpreterException;
+import proj11HangSlager.bantam.interp.RuntimeErrors;
+import proj11HangSlager.bantam.opt.ConstantFoldingVisitor;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.vm.BytecodeCompiler;
+import proj11HangSlager.bantam.vm.VirtualMachine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+/**
+ * Runs the same failing programs on the interpreter, the virtual machine
+ * and the JVM backend, and checks that each engine stops at the same
+ * line with the same RuntimeErrors message. Prints a line per program
+ * and engine, and exits with status 1 if any check failed.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class RuntimeErrorCheck {
+
+    /**
+     * The classes of every program; the statement of each case is line 9
+     * of the main method's class
+     */
+    private static final String CLASSES =
+            "class Animal { int legs() { return 4; } }\n"
+            + "class Dog extends Animal { int bark() { return 1; } }\n"
+            + "class Main {\n"
+            + "    Dog dog = null;\n"
+            + "    String string = null;\n"
+            + "    int[] ints = null;\n"
+            + "    Animal[] animals = new Dog[1];\n"
+            + "    void main() {\n"
+            + "        var io = new TextIO();\n";
+    private static final int LINE = 10;
+
+    private static final String[][] CASES = {
+            {"dog.bark();", RuntimeErrors.nullCall("bark")},
+            {"io.putInt(string.length());", RuntimeErrors.nullCall("length")},
+            {"var n = 0 - 3; var a = new int[n];", RuntimeErrors.negativeArraySize(-3)},
+            {"io.putInt(ints.length);", RuntimeErrors.NULL_ARRAY_LENGTH},
+            {"ints[0] = 1;", RuntimeErrors.NULL_ARRAY_ELEMENT},
+            {"var a = new int[2]; a[2] = 1;", RuntimeErrors.indexOutOfBounds(2, 2)},
+            {"var z = 0; io.putInt(5 / z);", RuntimeErrors.DIVISION_BY_ZERO},
+            {"var o = cast(Object, new Animal()); var d = cast(Dog, o);",
+                    RuntimeErrors.badCast("Animal", "Dog")},
+            {"var o = cast(Object, new Animal[1]); var d = cast(Dog[], o);",
+                    RuntimeErrors.badCast("Animal[]", "Dog[]")},
+            {"animals[0] = new Animal();", RuntimeErrors.badArrayStore("Animal", "Dog")},
+            {"io.putString(\"abc\".substring(2, 5));",
+                    RuntimeErrors.substringOutOfBounds(2, 5, 3)},
+            {"var n = io.getInt();", RuntimeErrors.NOT_AN_INT}
+    };
+
+    private static final String[] ENGINES = {"interpreter", "vm", "jvm"};
+
+    /**
+     * Runs the checks from the command line.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        int failures = 0;
+        for (String[] testCase : CASES) {
+            String source = CLASSES + "        " + testCase[0] + "\n    }\n}\n";
+            String expected = new InterpreterException(LINE, testCase[1]).getMessage();
+            for (String engine : ENGINES) {
+                String actual = run(engine, source);
+                boolean passed = expected.equals(actual);
+                System.out.printf("%-4s %-12s %s%n", passed ? "ok" : "FAIL", engine,
+                        testCase[0]);
+                if (!passed) {
+                    System.out.println("     expected: " + expected);
+                    System.out.println("     got:      " + actual);
+                    failures++;
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "All checks passed."
+                : failures + " checks failed.");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Runs a program on an engine, with a line that is not an int as its
+     * input.
+     *
+     * @return the message of the InterpreterException the program failed
+     * with, or a description of what happened instead
+     */
+    private static String run(String engine, String source) {
+        ErrorHandler errorHandler = new ErrorHandler();
+        Program program = new Parser(errorHandler).parse("check.btm",
+                new StringReader(source));
+        SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+        if (errorHandler.errorsFound()) {
+            return "semantic errors: " + errorHandler.getErrorList();
+        }
+        new ConstantFoldingVisitor().fold(program);
+        PrintStream out = new PrintStream(new ByteArrayOutputStream());
+        InputStream in = new ByteArrayInputStream("abc\n".getBytes());
+        try {
+            switch (engine) {
+                case "interpreter":
+                    new Interpreter(program, symbolTable, out, in).run();
+                    break;
+                case "vm":
+                    new VirtualMachine(new BytecodeCompiler().compile(program, symbolTable),
+                            out, in).run();
+                    break;
+                default:
+                    new JvmRunner(program, symbolTable, out, in).run();
+            }
+            return "no error";
+        }
+        catch (InterpreterException e) {
+            return e.getMessage();
+        }
+        catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+}
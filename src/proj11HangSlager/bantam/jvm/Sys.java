@@ -0,0 +1,45 @@
+/*
+ * File: Sys.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import java.util.Random;
+
+/**
+ * The built-in Bantam Java class Sys, as used by generated classes.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public class Sys extends BantamObject {
+
+    private static final Random random = new Random();
+
+    /**
+     * Ends the program.
+     * @param status the exit status
+     */
+    public void m_exit(int status) {
+        throw new BantamRuntime.ExitException(status);
+    }
+
+    /**
+     * @return the time in seconds since the epoch
+     */
+    public int m_time() {
+        return (int) (System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * @return a random non-negative int
+     */
+    public int m_random() {
+        return random.nextInt(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * File: TextIO.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 2, 2019
+ */
+
+package proj11HangSlager.bantam.jvm;
+
+import proj11HangSlager.bantam.interp.RuntimeErrors;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+
+/**
+ * The built-in Bantam Java class TextIO, as used by generated classes.
+ * It reads the standard input and writes the standard output of the
+ * running program until told otherwise.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-2-19
+ */
+public class TextIO extends BantamObject {
+
+    private BufferedReader reader;
+    private PrintWriter writer;
+
+    /**
+     * Creates a TextIO object on the streams of the running program.
+     */
+    public TextIO() {
+        m_readStdin();
+        m_writeStdout();
+    }
+
+    public void m_readStdin() {
+        reader = new BufferedReader(new InputStreamReader(BantamRuntime.getIn()));
+    }
+
+    public void m_readFile(String filename) {
+        try {
+            reader = new BufferedReader(new FileReader(filename));
+        } catch (IOException e) {
+            throw failure("readFile", e);
+        }
+    }
+
+    public void m_writeStdout() {
+        writer = new PrintWriter(BantamRuntime.getOut(), true);
+    }
+
+    public void m_writeStderr() {
+        writer = new PrintWriter(System.err, true);
+    }
+
+    public void m_writeFile(String filename) {
+        try {
+            writer = new PrintWriter(new FileWriter(filename), true);
+        } catch (IOException e) {
+            throw failure("writeFile", e);
+        }
+    }
+
+    public String m_getString() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw failure("getString", e);
+        }
+    }
+
+    public int m_getInt() {
+        String line = m_getString();
+        try {
+            return line == null ? 0 : Integer.parseInt(line.trim());
+        } catch (NumberFormatException e) {
+            throw new BantamRuntime.RuntimeError(RuntimeErrors.NOT_AN_INT);
+        }
+    }
+
+    public TextIO m_putString(String string) {
+        writer.print(string);
+        writer.flush();
+        return this;
+    }
+
+    public TextIO m_putInt(int value) {
+        writer.print(value);
+        writer.flush();
+        return this;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private static BantamRuntime.RuntimeError failure(String methodName, IOException e) {
+        return new BantamRuntime.RuntimeError("TextIO." + methodName + " failed: "
+                + e.getMessage());
+    }
+}
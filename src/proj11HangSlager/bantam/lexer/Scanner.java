@@ -75,30 +75,57 @@ public class Scanner
      */
     public Scanner(Reader reader, ErrorHandler handler) {
         errorHandler = handler;
+        currentChar = ' ';
         sourceFile = new SourceFile(reader);
     }
 
+    /**
+     *
+     * @param reader a Reader of the contents of a file, which need not be saved
+     * @param filename the name of the file, for error messages
+     * @param handler an ErrorHandler
+     */
+    public Scanner(Reader reader, String filename, ErrorHandler handler) {
+        errorHandler = handler;
+        currentChar = ' ';
+        sourceFile = new SourceFile(reader, filename);
+    }
+
 
     /** Each call of this method builds the next Token from the contents
      * of the file being scanned and returns it. When it reaches the end of the
      * file, any calls to scan() result in a Token of kind EOF.
+     * The token records the character offsets in the file where it starts
+     * and ends.
      */
     public Token scan() {
-        Character tempChar = currentChar;
-
-        if (currentChar.equals(SourceFile.eof)) return new Token(Token.Kind.EOF,
-                currentChar.toString(), this.sourceFile.getCurrentLineNumber());
 
         //gets rid of whitespace
-        else {
-            while(currentChar.equals('\t') || currentChar.equals('\r')
-                    || currentChar.equals('\n') || currentChar.equals('\f') || currentChar.equals(' ')) {
+        while(currentChar.equals('\t') || currentChar.equals('\r')
+                || currentChar.equals('\n') || currentChar.equals('\f') || currentChar.equals(' ')) {
 
-                currentChar = this.sourceFile.getNextChar();
-                tempChar = currentChar;
-            }
+            currentChar = this.sourceFile.getNextChar();
         }
 
+        int startOffset = this.sourceFile.getCurrentOffset();
+        Token token = this.scanToken();
+        token.startOffset = startOffset;
+        token.endOffset = this.sourceFile.getCurrentOffset();
+        return token;
+    }
+
+    /**
+     * Builds the token starting at the current character, which is not
+     * whitespace
+     *
+     * @return the token built
+     */
+    private Token scanToken() {
+        Character tempChar = currentChar;
+
+        if (currentChar.equals(SourceFile.eof)) return new Token(Token.Kind.EOF,
+                currentChar.toString(), this.sourceFile.getCurrentLineNumber());
+
 
         switch(tempChar) {
 
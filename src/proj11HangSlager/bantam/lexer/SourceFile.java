@@ -34,6 +34,8 @@ class SourceFile
     private int currentLineNumber; // for bantam.error messages
     private int prevChar;          // the previous character read
     private String filename;       // the file currently being scanned.
+    private int charsRead;         // the number of characters read, for offsets
+    private boolean atEnd;         // whether the end of the file was read
 
     /**
      * creates a new SourceFile object for the file with the given name
@@ -61,12 +63,35 @@ class SourceFile
     }
 
 
+    /**
+     * creates a new SourceFile object reading the contents of a file from
+     * a Reader, such as the unsaved text of an editor
+     *
+     * @param in       the reader of the contents
+     * @param filename the name of the file, for error messages
+     */
+    public SourceFile(Reader in, String filename) {
+        this(in);
+        this.filename = filename;
+    }
+
+
     public int getCurrentLineNumber() {
         return currentLineNumber;
     }
 
     public String getFilename() { return filename; }
 
+    /**
+     * Returns the offset in the file of the character last read, counting
+     * from 0, or the length of the file once its end has been read.
+     *
+     * @return the character offset of the current character
+     */
+    public int getCurrentOffset() {
+        return atEnd ? charsRead : charsRead - 1;
+    }
+
     /**
      * Finds and returns the next character in the source file.
      * If the end of the file has been reached or an exception occurs,
@@ -82,9 +107,13 @@ class SourceFile
 
             if (c == -1) {
                 c = eof;
+                atEnd = true;
             }
-            else if (c == cr || (c == eol && prevChar != cr)) {
-                currentLineNumber++;
+            else {
+                charsRead++;
+                if (c == cr || (c == eol && prevChar != cr)) {
+                    currentLineNumber++;
+                }
             }
             prevChar = c;
             return (char) c;
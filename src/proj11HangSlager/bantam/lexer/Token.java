@@ -23,14 +23,16 @@
      public Kind kind;
      public String spelling; // the actual sequence of chars in the token
      public int position; // the line number where the token was found
+     public int startOffset = -1; // the offset of the first char of the token
+     public int endOffset = -1; // the offset just past the last char of the token
 
      public String getSpelling() {
          return spelling;
      }
 
 
-     //constructor
-     Token(Kind kind, String spelling, int position) {
+     //constructor (public so that cached token streams can be rebuilt)
+     public Token(Kind kind, String spelling, int position) {
          this.spelling = spelling;
          this.position = position;
 
@@ -0,0 +1,398 @@
+/*
+ * File: ConstantFoldingVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * fold constant expressions and prune dead branches in place.
+ *
+ * Operators whose operands are int or boolean constants are replaced by
+ * their value, and algebraic identities such as x + 0, x * 1, !!b and
+ * true && b are simplified. An operand is only dropped (as in x * 0)
+ * when evaluating it can have no effect. If statements with a constant
+ * condition are replaced by the branch that runs, and while and for
+ * loops whose condition is always false are removed; every removal is
+ * reported.
+ *
+ * The program must have been type checked, so that folding cannot hide
+ * type errors; the expressions created carry their types, and the
+ * symbol ids of the surviving nodes stay valid.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class ConstantFoldingVisitor extends RewritingVisitor {
+
+    private List<String> removals;
+    private int numFolded;
+
+    /**
+     * Folds the constants of a program.
+     *
+     * @param program a type checked program; it is modified in place
+     * @return a description of each statement or branch removed
+     */
+    public List<String> fold(Program program) {
+        removals = new ArrayList<>();
+        numFolded = 0;
+        program.accept(this);
+        return removals;
+    }
+
+    /**
+     * @return the number of expressions the last fold simplified
+     */
+    public int getNumFolded() {
+        return numFolded;
+    }
+
+    //-------- statements ---------
+
+    /**
+     * Keeps only the branch that runs if the condition is constant.
+     * @param node the if statement node
+     * @return the statement replacing the node, or null if nothing runs
+     */
+    public Object visit(IfStmt node) {
+        super.visit(node);
+        Boolean pred = booleanValue(node.getPredExpr());
+        if (pred == null) {
+            return node;
+        }
+        if (pred) {
+            if (node.getElseStmt() != null) {
+                report(node, "removed the else branch of an if statement whose condition"
+                        + " is always true");
+            }
+            return unnested(node.getThenStmt());
+        }
+        if (node.getElseStmt() == null) {
+            report(node, "removed an if statement whose condition is always false");
+            return null;
+        }
+        report(node, "removed the then branch of an if statement whose condition"
+                + " is always false");
+        return unnested(node.getElseStmt());
+    }
+
+    public Object visit(WhileStmt node) {
+        super.visit(node);
+        if (Boolean.FALSE.equals(booleanValue(node.getPredExpr()))) {
+            report(node, "removed a while loop whose condition is always false");
+            return null;
+        }
+        return node;
+    }
+
+    public Object visit(ForStmt node) {
+        super.visit(node);
+        if (Boolean.FALSE.equals(booleanValue(node.getPredExpr()))) {
+            report(node, "removed a for loop whose condition is always false");
+            return node.getInitExpr() == null ? null
+                    : new ExprStmt(node.getLineNum(), node.getInitExpr());
+        }
+        return node;
+    }
+
+    //-------- operators ---------
+
+    public Object visit(BinaryArithPlusExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        if (left != null && right != null) {
+            return intConstant(node, left + right);
+        }
+        if (Integer.valueOf(0).equals(left)) {
+            return folded(node.getRightExpr());
+        }
+        if (Integer.valueOf(0).equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        return node;
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        if (left != null && right != null) {
+            return intConstant(node, left - right);
+        }
+        if (Integer.valueOf(0).equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        return node;
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        if (left != null && right != null) {
+            return intConstant(node, left * right);
+        }
+        if (Integer.valueOf(1).equals(left)) {
+            return folded(node.getRightExpr());
+        }
+        if (Integer.valueOf(1).equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        if ((Integer.valueOf(0).equals(left) && isPure(node.getRightExpr()))
+                || (Integer.valueOf(0).equals(right) && isPure(node.getLeftExpr()))) {
+            return intConstant(node, 0);
+        }
+        return node;
+    }
+
+    /**
+     * Division by a constant zero is left for the program to fail on.
+     * @param node the division node
+     * @return the simplified expression
+     */
+    public Object visit(BinaryArithDivideExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        if (left != null && right != null && right != 0) {
+            return intConstant(node, left / right);
+        }
+        if (Integer.valueOf(1).equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        return node;
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        if (left != null && right != null && right != 0) {
+            return intConstant(node, left % right);
+        }
+        if (Integer.valueOf(1).equals(right) && isPure(node.getLeftExpr())) {
+            return intConstant(node, 0);
+        }
+        return node;
+    }
+
+    public Object visit(BinaryCompEqExpr node) {
+        rewriteOperands(node);
+        Boolean equal = equalValues(node.getLeftExpr(), node.getRightExpr());
+        return equal != null ? booleanConstant(node, equal) : node;
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        rewriteOperands(node);
+        Boolean equal = equalValues(node.getLeftExpr(), node.getRightExpr());
+        return equal != null ? booleanConstant(node, !equal) : node;
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        return left != null && right != null ? booleanConstant(node, left < right) : node;
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        return left != null && right != null ? booleanConstant(node, left <= right) : node;
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        return left != null && right != null ? booleanConstant(node, left > right) : node;
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        rewriteOperands(node);
+        Integer left = intValue(node.getLeftExpr());
+        Integer right = intValue(node.getRightExpr());
+        return left != null && right != null ? booleanConstant(node, left >= right) : node;
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        rewriteOperands(node);
+        Boolean left = booleanValue(node.getLeftExpr());
+        Boolean right = booleanValue(node.getRightExpr());
+        if (left != null) {
+            return left ? folded(node.getRightExpr()) : booleanConstant(node, false);
+        }
+        if (Boolean.TRUE.equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        if (Boolean.FALSE.equals(right) && isPure(node.getLeftExpr())) {
+            return booleanConstant(node, false);
+        }
+        return node;
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        rewriteOperands(node);
+        Boolean left = booleanValue(node.getLeftExpr());
+        Boolean right = booleanValue(node.getRightExpr());
+        if (left != null) {
+            return left ? booleanConstant(node, true) : folded(node.getRightExpr());
+        }
+        if (Boolean.FALSE.equals(right)) {
+            return folded(node.getLeftExpr());
+        }
+        if (Boolean.TRUE.equals(right) && isPure(node.getLeftExpr())) {
+            return booleanConstant(node, true);
+        }
+        return node;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        Boolean operand = booleanValue(node.getExpr());
+        if (operand != null) {
+            return booleanConstant(node, !operand);
+        }
+        if (node.getExpr() instanceof UnaryNotExpr) {
+            return folded(((UnaryNotExpr) node.getExpr()).getExpr());
+        }
+        return node;
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        Integer operand = intValue(node.getExpr());
+        if (operand != null) {
+            return intConstant(node, -operand);
+        }
+        if (node.getExpr() instanceof UnaryNegExpr) {
+            return folded(((UnaryNegExpr) node.getExpr()).getExpr());
+        }
+        return node;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Keeps a declaration that replaces an if statement inside a block,
+     * so that its scope does not grow.
+     */
+    private static Stmt unnested(Stmt stmt) {
+        if (!(stmt instanceof DeclStmt)) {
+            return stmt;
+        }
+        StmtList stmtList = new StmtList(stmt.getLineNum());
+        stmtList.addElement(stmt);
+        return new BlockStmt(stmt.getLineNum(), stmtList);
+    }
+
+    private Expr folded(Expr expr) {
+        numFolded++;
+        return expr;
+    }
+
+    private Expr intConstant(Expr node, int value) {
+        ConstIntExpr constant = new ConstIntExpr(node.getLineNum(), String.valueOf(value));
+        constant.setExprType("int");
+        return folded(constant);
+    }
+
+    private Expr booleanConstant(Expr node, boolean value) {
+        ConstBooleanExpr constant = new ConstBooleanExpr(node.getLineNum(),
+                String.valueOf(value));
+        constant.setExprType("boolean");
+        return folded(constant);
+    }
+
+    private static Integer intValue(Expr expr) {
+        return expr instanceof ConstIntExpr ? ((ConstIntExpr) expr).getIntConstant() : null;
+    }
+
+    private static Boolean booleanValue(Expr expr) {
+        return expr instanceof ConstBooleanExpr
+                ? ((ConstBooleanExpr) expr).getConstant().equals("true") : null;
+    }
+
+    /**
+     * Compares two constants. String constants are compared as references,
+     * which are the same for equal literals and differ for different strings;
+     * two literals spelling one string with different escapes are left alone.
+     *
+     * @return whether the constants are equal, or null if that is not known
+     */
+    private static Boolean equalValues(Expr left, Expr right) {
+        if (left instanceof ConstStringExpr && right instanceof ConstStringExpr) {
+            String leftString = ((ConstStringExpr) left).getConstant();
+            String rightString = ((ConstStringExpr) right).getConstant();
+            if (leftString.equals(rightString)) {
+                return true;
+            }
+            return Interpreter.unescape(leftString).equals(Interpreter.unescape(rightString))
+                    ? null : false;
+        }
+        Object leftValue = intValue(left) != null ? intValue(left) : booleanValue(left);
+        Object rightValue = intValue(right) != null ? intValue(right) : booleanValue(right);
+        return leftValue != null && rightValue != null ? leftValue.equals(rightValue) : null;
+    }
+
+    /**
+     * Whether evaluating an expression can neither have an effect nor fail
+     */
+    private static boolean isPure(Expr expr) {
+        return expr instanceof ConstExpr
+                || (expr instanceof VarExpr && ((VarExpr) expr).getRef() == null);
+    }
+
+    private void report(Stmt node, String removal) {
+        removals.add("Line " + node.getLineNum() + ": " + removal + ".");
+    }
+
+    /**
+     * Folds the constants of a Bantam Java program from the command line
+     * and lists what was removed.
+     *
+     * @param args the file to fold
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.opt.ConstantFoldingVisitor"
+                    + " file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[0]);
+            new TypeCheckerVisitor().check(program, errorHandler);
+            if (!errorHandler.errorsFound()) {
+                ConstantFoldingVisitor folder = new ConstantFoldingVisitor();
+                folder.fold(program).forEach(System.out::println);
+                System.out.println(folder.getNumFolded() + " expressions folded.");
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * File: ControlFlowGraph.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The control flow graph of the body of a type checked method.
+ *
+ * There is a node for each simple statement (expression statements,
+ * declarations, returns and breaks), for the condition of each if
+ * statement and loop, and for the init and update expressions of for
+ * loops, plus an entry and an exit node. The branches of a condition
+ * that is a constant are not added, so code after while (true) without
+ * a break is unreachable.
+ *
+ * The local variables and formals of the method are numbered from 0 so
+ * that sets of them are BitSets. Each node records the variables that
+ * it uses before assigning them, the variables it always assigns, and
+ * the variables it may assign (an assignment on the right of && or ||
+ * does not always happen). The entry node assigns the formals.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class ControlFlowGraph {
+
+    /**
+     * A node of the graph
+     */
+    public static final class Node {
+        private final int index;
+        private final ASTNode element;
+        private final List<Node> successors = new ArrayList<>();
+        private final List<Node> predecessors = new ArrayList<>();
+        private final BitSet uses = new BitSet();
+        private final BitSet defs = new BitSet();
+        private final BitSet mayDefs = new BitSet();
+
+        Node(int index, ASTNode element) {
+            this.index = index;
+            this.element = element;
+        }
+
+        /**
+         * @return the index of the node; nodes are numbered in source order
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the statement or expression of the node, or null for the
+         * entry and exit nodes
+         */
+        public ASTNode getElement() {
+            return element;
+        }
+
+        public int getLineNum() {
+            return element == null ? 0 : element.getLineNum();
+        }
+
+        public List<Node> getSuccessors() {
+            return Collections.unmodifiableList(successors);
+        }
+
+        public List<Node> getPredecessors() {
+            return Collections.unmodifiableList(predecessors);
+        }
+
+        /**
+         * @return the variables read before the node assigns them; the set
+         * must not be modified
+         */
+        public BitSet getUses() {
+            return uses;
+        }
+
+        /**
+         * @return the variables the node always assigns; the set must not
+         * be modified
+         */
+        public BitSet getDefs() {
+            return defs;
+        }
+
+        /**
+         * @return the variables the node may assign, a superset of the defs;
+         * the set must not be modified
+         */
+        public BitSet getMayDefs() {
+            return mayDefs;
+        }
+
+        void addSuccessor(Node node) {
+            successors.add(node);
+            node.predecessors.add(this);
+        }
+
+        public String toString() {
+            return element == null ? (index == 0 ? "entry" : "exit")
+                    : "node " + index + " (line " + getLineNum() + ")";
+        }
+    }
+
+    private final Method method;
+    private final List<Node> nodes = new ArrayList<>();
+    private final Node entry;
+    private Node exit;
+    private final List<Symbol> variables = new ArrayList<>();
+    private final Map<Integer, Integer> variableIndexes = new HashMap<>();
+    private final BitSet reachable = new BitSet();
+    private boolean endReachable;
+
+    /**
+     * Builds the control flow graph of a method.
+     *
+     * @param method      a method of a type checked program
+     * @param symbolTable the symbol table of the program
+     * @return the graph
+     */
+    public static ControlFlowGraph build(Method method, SymbolTable symbolTable) {
+        return new ControlFlowGraphBuilder(symbolTable).build(method);
+    }
+
+    ControlFlowGraph(Method method) {
+        this.method = method;
+        this.entry = newNode(null);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the nodes in index order
+     */
+    public List<Node> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public Node getEntry() {
+        return entry;
+    }
+
+    public Node getExit() {
+        return exit;
+    }
+
+    /**
+     * @return the number of local variables and formals used in the method
+     */
+    public int getNumVariables() {
+        return variables.size();
+    }
+
+    /**
+     * @param index the number of a variable
+     * @return the symbol of the variable
+     */
+    public Symbol getVariable(int index) {
+        return variables.get(index);
+    }
+
+    /**
+     * @param symbolId the id of the symbol of a local variable or formal
+     * @return the number of the variable, or -1 if the method does not use it
+     */
+    public int getVariableIndex(int symbolId) {
+        return variableIndexes.getOrDefault(symbolId, -1);
+    }
+
+    /**
+     * @return whether the node can be reached from the entry node
+     */
+    public boolean isReachable(Node node) {
+        return reachable.get(node.index);
+    }
+
+    /**
+     * @return whether the end of the body can be reached, so that the
+     * method may finish without a return statement
+     */
+    public boolean isEndReachable() {
+        return endReachable;
+    }
+
+    //-------- construction, used by ControlFlowGraphBuilder ---------
+
+    Node newNode(ASTNode element) {
+        Node node = new Node(nodes.size(), element);
+        nodes.add(node);
+        return node;
+    }
+
+    void setExit(Node exit) {
+        this.exit = exit;
+    }
+
+    /**
+     * Numbers a variable the first time it is seen. Formals are
+     * assigned by the entry node.
+     */
+    int addVariable(Symbol symbol) {
+        Integer index = variableIndexes.get(symbol.getId());
+        if (index == null) {
+            index = variables.size();
+            variables.add(symbol);
+            variableIndexes.put(symbol.getId(), index);
+            if (symbol.getKind() == Symbol.Kind.FORMAL) {
+                entry.defs.set(index);
+                entry.mayDefs.set(index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Marks the nodes reachable from the entry node, once the graph is
+     * complete, and whether any of the nodes falling off the end of the
+     * body is one of them.
+     */
+    void computeReachable(List<Node> fallingOff) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(entry);
+        reachable.set(entry.index);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            for (Node successor : node.successors) {
+                if (!reachable.get(successor.index)) {
+                    reachable.set(successor.index);
+                    stack.add(successor);
+                }
+            }
+        }
+        for (Node node : fallingOff) {
+            endReachable |= isReachable(node);
+        }
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * @return the first unreachable statement of each unreachable stretch
+     * of code, that is, the unreachable nodes that no earlier unreachable
+     * node flows into
+     */
+    List<Node> getUnreachableStatements() {
+        List<Node> unreachable = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.element == null || isReachable(node)) {
+                continue;
+            }
+            boolean first = true;
+            for (Node predecessor : node.predecessors) {
+                first &= predecessor.index > node.index;
+            }
+            if (first) {
+                unreachable.add(node);
+            }
+        }
+        return unreachable;
+    }
+
+    /**
+     * @return a warning for each stored value that is never read
+     */
+    List<String> getDeadStores(LivenessAnalysis liveness) {
+        List<String> warnings = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.element == null || !isReachable(node)) {
+                continue;
+            }
+            BitSet dead = (BitSet) node.mayDefs.clone();
+            dead.andNot(liveness.getAfter(node));
+            for (int var = dead.nextSetBit(0); var >= 0; var = dead.nextSetBit(var + 1)) {
+                warnings.add("Line " + node.getLineNum() + ": the value stored in "
+                        + variables.get(var).getName() + " is never used.");
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * Prints the unreachable statements and dead stores of the methods of
+     * a Bantam Java program from the command line.
+     *
+     * @param args the file to analyze
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.opt.ControlFlowGraph"
+                    + " file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[0]);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (!errorHandler.errorsFound()) {
+                for (ASTNode classNode : program.getClassList()) {
+                    for (ASTNode member : ((Class_) classNode).getMemberList()) {
+                        if (!(member instanceof Method)) {
+                            continue;
+                        }
+                        ControlFlowGraph cfg = build((Method) member, symbolTable);
+                        for (Node node : cfg.getUnreachableStatements()) {
+                            System.out.println("Line " + node.getLineNum()
+                                    + ": unreachable statement.");
+                        }
+                        LivenessAnalysis liveness = new LivenessAnalysis(cfg);
+                        liveness.solve();
+                        cfg.getDeadStores(liveness).forEach(System.out::println);
+                    }
+                }
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
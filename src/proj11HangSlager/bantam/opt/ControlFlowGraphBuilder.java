@@ -0,0 +1,305 @@
+/*
+ * File: ControlFlowGraphBuilder.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * build the control flow graph of a method.
+ *
+ * The statements are visited in order while keeping the nodes that fall
+ * through to the next statement; the expressions of each node are then
+ * visited in evaluation order to find the variables the node uses and
+ * assigns.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+final class ControlFlowGraphBuilder extends Visitor {
+
+    private final SymbolTable symbolTable;
+    private ControlFlowGraph cfg;
+    private List<ControlFlowGraph.Node> fallThrough;
+    private final Deque<List<ControlFlowGraph.Node>> breaks = new ArrayDeque<>();
+    private final List<ControlFlowGraph.Node> returns = new ArrayList<>();
+    private ControlFlowGraph.Node current;
+    private int conditional;
+
+    ControlFlowGraphBuilder(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    ControlFlowGraph build(Method method) {
+        cfg = new ControlFlowGraph(method);
+        fallThrough = new ArrayList<>();
+        fallThrough.add(cfg.getEntry());
+        returns.clear();
+        method.getStmtList().accept(this);
+        ControlFlowGraph.Node exit = cfg.newNode(null);
+        cfg.setExit(exit);
+        for (ControlFlowGraph.Node node : fallThrough) {
+            node.addSuccessor(exit);
+        }
+        for (ControlFlowGraph.Node node : returns) {
+            node.addSuccessor(exit);
+        }
+        cfg.computeReachable(fallThrough);
+        return cfg;
+    }
+
+    //-------- statements ---------
+
+    public Object visit(ExprStmt node) {
+        addNode(node, node.getExpr());
+        return null;
+    }
+
+    public Object visit(DeclStmt node) {
+        ControlFlowGraph.Node declNode = addNode(node, node.getInit());
+        define(declNode, node.getSymbolId());
+        return null;
+    }
+
+    public Object visit(ReturnStmt node) {
+        returns.add(addNode(node, node.getExpr()));
+        fallThrough = new ArrayList<>();
+        return null;
+    }
+
+    public Object visit(BreakStmt node) {
+        ControlFlowGraph.Node breakNode = addNode(node, null);
+        if (!breaks.isEmpty()) {
+            breaks.peek().add(breakNode);
+        }
+        fallThrough = new ArrayList<>();
+        return null;
+    }
+
+    public Object visit(IfStmt node) {
+        ControlFlowGraph.Node pred = addNode(node.getPredExpr(), node.getPredExpr());
+        Boolean value = constantValue(node.getPredExpr());
+        fallThrough = branch(pred, value, true);
+        node.getThenStmt().accept(this);
+        List<ControlFlowGraph.Node> thenEnd = fallThrough;
+        fallThrough = branch(pred, value, false);
+        if (node.getElseStmt() != null) {
+            node.getElseStmt().accept(this);
+        }
+        fallThrough.addAll(thenEnd);
+        return null;
+    }
+
+    public Object visit(WhileStmt node) {
+        ControlFlowGraph.Node pred = addNode(node.getPredExpr(), node.getPredExpr());
+        Boolean value = constantValue(node.getPredExpr());
+        loop(pred, value, node.getBodyStmt(), null);
+        return null;
+    }
+
+    /**
+     * A loop without a condition has a node for the ForStmt itself, for
+     * the update to jump back to.
+     * @param node the for statement node
+     * @return
+     */
+    public Object visit(ForStmt node) {
+        if (node.getInitExpr() != null) {
+            addNode(node.getInitExpr(), node.getInitExpr());
+        }
+        ControlFlowGraph.Node pred;
+        Boolean value;
+        if (node.getPredExpr() != null) {
+            pred = addNode(node.getPredExpr(), node.getPredExpr());
+            value = constantValue(node.getPredExpr());
+        }
+        else {
+            pred = addNode(node, null);
+            value = true;
+        }
+        loop(pred, value, node.getBodyStmt(), node.getUpdateExpr());
+        return null;
+    }
+
+    //-------- uses and assignments ---------
+
+    public Object visit(VarExpr node) {
+        if (node.getRef() != null) {
+            node.getRef().accept(this);
+        }
+        else {
+            use(node.getSymbolId());
+        }
+        return null;
+    }
+
+    public Object visit(ArrayExpr node) {
+        if (node.getRef() != null) {
+            node.getRef().accept(this);
+        }
+        else {
+            use(node.getSymbolId());
+        }
+        node.getIndex().accept(this);
+        return null;
+    }
+
+    public Object visit(AssignExpr node) {
+        node.getExpr().accept(this);
+        if (node.getRefName() == null) {
+            define(current, node.getSymbolId());
+        }
+        return null;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        if (node.getRefName() == null) {
+            use(node.getSymbolId());
+        }
+        node.getIndex().accept(this);
+        node.getExpr().accept(this);
+        return null;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        return increment(node);
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        return increment(node);
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return shortCircuit(node);
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return shortCircuit(node);
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Adds a node that the statements falling through flow into.
+     *
+     * @param element the statement or expression of the node
+     * @param expr    the expression evaluated by the node, or null
+     * @return the node
+     */
+    private ControlFlowGraph.Node addNode(ASTNode element, Expr expr) {
+        ControlFlowGraph.Node node = cfg.newNode(element);
+        for (ControlFlowGraph.Node previous : fallThrough) {
+            previous.addSuccessor(node);
+        }
+        fallThrough = new ArrayList<>();
+        fallThrough.add(node);
+        if (expr != null) {
+            current = node;
+            expr.accept(this);
+        }
+        return node;
+    }
+
+    /**
+     * @return the nodes flowing into one branch of a condition: none if the
+     * condition is a constant that never takes it
+     */
+    private List<ControlFlowGraph.Node> branch(ControlFlowGraph.Node pred, Boolean value,
+                                               boolean taken) {
+        List<ControlFlowGraph.Node> nodes = new ArrayList<>();
+        if (value == null || value == taken) {
+            nodes.add(pred);
+        }
+        return nodes;
+    }
+
+    /**
+     * Adds the body and update of a loop whose condition node is pred; the
+     * loop is left when the condition is false or by a break.
+     */
+    private void loop(ControlFlowGraph.Node pred, Boolean value, Stmt body, Expr update) {
+        breaks.push(new ArrayList<>());
+        fallThrough = branch(pred, value, true);
+        body.accept(this);
+        if (update != null) {
+            addNode(update, update);
+        }
+        for (ControlFlowGraph.Node node : fallThrough) {
+            node.addSuccessor(pred);
+        }
+        fallThrough = branch(pred, value, false);
+        fallThrough.addAll(breaks.pop());
+    }
+
+    private Object increment(UnaryExpr node) {
+        node.getExpr().accept(this);
+        if (node.getExpr() instanceof VarExpr && ((VarExpr) node.getExpr()).getRef() == null) {
+            define(current, ((VarExpr) node.getExpr()).getSymbolId());
+        }
+        return null;
+    }
+
+    /**
+     * The right operand is evaluated only sometimes, so what it assigns
+     * is only possibly assigned.
+     */
+    private Object shortCircuit(BinaryExpr node) {
+        node.getLeftExpr().accept(this);
+        conditional++;
+        node.getRightExpr().accept(this);
+        conditional--;
+        return null;
+    }
+
+    private void use(int symbolId) {
+        int var = variable(symbolId);
+        if (var >= 0 && !current.getDefs().get(var)) {
+            current.getUses().set(var);
+        }
+    }
+
+    private void define(ControlFlowGraph.Node node, int symbolId) {
+        int var = variable(symbolId);
+        if (var >= 0) {
+            node.getMayDefs().set(var);
+            if (conditional == 0) {
+                node.getDefs().set(var);
+            }
+        }
+    }
+
+    /**
+     * @return the number of a local variable or formal, or -1 for fields
+     * and names that are not variables
+     */
+    private int variable(int symbolId) {
+        if (symbolId < 0) {
+            return -1;
+        }
+        Symbol symbol = symbolTable.getSymbol(symbolId);
+        if (symbol.getKind() != Symbol.Kind.LOCAL && symbol.getKind() != Symbol.Kind.FORMAL) {
+            return -1;
+        }
+        return cfg.addVariable(symbol);
+    }
+
+    private static Boolean constantValue(Expr expr) {
+        return expr instanceof ConstBooleanExpr
+                ? ((ConstBooleanExpr) expr).getConstant().equals("true") : null;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * File: DataflowAnalysis.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A dataflow analysis over a control flow graph whose facts are sets of
+ * small ints, kept as BitSets.
+ *
+ * The analysis is solved with a worklist of node positions, itself a
+ * BitSet. Nodes are ordered in reverse postorder for a forward analysis
+ * and in postorder for a backward one, and the worklist is swept in that
+ * order, so a graph without loops is solved in a single sweep and each
+ * loop adds about one more sweep for each level of nesting.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public abstract class DataflowAnalysis {
+
+    protected final ControlFlowGraph cfg;
+    private final boolean forward;
+    private final BitSet[] before;
+    private final BitSet[] after;
+    private int numVisits;
+
+    /**
+     * @param cfg     the graph to analyze
+     * @param forward whether facts flow along the edges, rather than against them
+     */
+    protected DataflowAnalysis(ControlFlowGraph cfg, boolean forward) {
+        this.cfg = cfg;
+        this.forward = forward;
+        this.before = new BitSet[cfg.getNodes().size()];
+        this.after = new BitSet[cfg.getNodes().size()];
+    }
+
+    /**
+     * @return the facts flowing into the entry node of a forward analysis, or
+     * out of the exit node of a backward one
+     */
+    protected abstract BitSet boundary();
+
+    /**
+     * @return the facts that the other nodes start with: the empty set
+     * for a union and the full set for an intersection
+     */
+    protected abstract BitSet initial();
+
+    /**
+     * @return whether facts that meet are joined by union, rather than
+     * by intersection
+     */
+    protected abstract boolean isUnion();
+
+    /**
+     * Computes the facts leaving a node from those entering it, in the
+     * direction of the analysis.
+     *
+     * @param node   the node
+     * @param input  the facts entering the node; must not be modified
+     * @param output an empty set to store the facts leaving the node in
+     */
+    protected abstract void transfer(ControlFlowGraph.Node node, BitSet input, BitSet output);
+
+    /**
+     * Solves the analysis.
+     *
+     * @return this analysis
+     */
+    public DataflowAnalysis solve() {
+        List<ControlFlowGraph.Node> nodes = cfg.getNodes();
+        int[] order = order();
+        int[] position = new int[nodes.size()];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        BitSet[] input = forward ? before : after;
+        BitSet[] output = forward ? after : before;
+        for (int i = 0; i < nodes.size(); i++) {
+            output[i] = initial();
+        }
+        ControlFlowGraph.Node start = forward ? cfg.getEntry() : cfg.getExit();
+
+        BitSet pending = new BitSet();
+        pending.set(0, order.length);
+        int next = 0;
+        while (next >= 0) {
+            pending.clear(next);
+            ControlFlowGraph.Node node = nodes.get(order[next]);
+            numVisits++;
+            List<ControlFlowGraph.Node> sources = forward ? node.getPredecessors()
+                    : node.getSuccessors();
+            BitSet in;
+            if (node == start) {
+                in = boundary();
+            }
+            else if (sources.isEmpty()) {
+                in = initial();
+            }
+            else {
+                in = (BitSet) output[sources.get(0).getIndex()].clone();
+                for (int i = 1; i < sources.size(); i++) {
+                    if (isUnion()) {
+                        in.or(output[sources.get(i).getIndex()]);
+                    }
+                    else {
+                        in.and(output[sources.get(i).getIndex()]);
+                    }
+                }
+            }
+            input[node.getIndex()] = in;
+            BitSet out = new BitSet();
+            transfer(node, in, out);
+            if (!out.equals(output[node.getIndex()])) {
+                output[node.getIndex()] = out;
+                for (ControlFlowGraph.Node target : forward ? node.getSuccessors()
+                        : node.getPredecessors()) {
+                    pending.set(position[target.getIndex()]);
+                }
+            }
+            next = pending.nextSetBit(next + 1);
+            if (next < 0) {
+                next = pending.nextSetBit(0);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the facts that hold just before the node runs
+     */
+    public BitSet getBefore(ControlFlowGraph.Node node) {
+        return before[node.getIndex()];
+    }
+
+    /**
+     * @return the facts that hold just after the node runs
+     */
+    public BitSet getAfter(ControlFlowGraph.Node node) {
+        return after[node.getIndex()];
+    }
+
+    /**
+     * @return the number of times a node was visited while solving
+     */
+    public int getNumVisits() {
+        return numVisits;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * @return the node indexes in the order to visit them: reverse postorder
+     * from the entry node for a forward analysis, postorder for a backward
+     * one; the nodes unreachable from the entry node are ordered as well
+     */
+    private int[] order() {
+        List<ControlFlowGraph.Node> nodes = cfg.getNodes();
+        int[] postorder = new int[nodes.size()];
+        int count = 0;
+        boolean[] visited = new boolean[nodes.size()];
+        int[] stack = new int[nodes.size()];
+        int[] nextSuccessor = new int[nodes.size()];
+        for (int root = 0; root < nodes.size(); root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int depth = 0;
+            stack[depth++] = root;
+            visited[root] = true;
+            while (depth > 0) {
+                ControlFlowGraph.Node node = nodes.get(stack[depth - 1]);
+                List<ControlFlowGraph.Node> successors = node.getSuccessors();
+                int i = nextSuccessor[node.getIndex()]++;
+                if (i < successors.size()) {
+                    int successor = successors.get(i).getIndex();
+                    if (!visited[successor]) {
+                        visited[successor] = true;
+                        stack[depth++] = successor;
+                    }
+                }
+                else {
+                    postorder[count++] = node.getIndex();
+                    depth--;
+                }
+            }
+        }
+        if (!forward) {
+            return postorder;
+        }
+        int[] reversed = new int[count];
+        for (int i = 0; i < count; i++) {
+            reversed[i] = postorder[count - 1 - i];
+        }
+        return reversed;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * File: DefiniteAssignment.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import java.util.BitSet;
+
+/**
+ * Finds the variables that are assigned on every path from the entry of
+ * a control flow graph to each node.
+ *
+ * The facts are variable numbers of the graph. Nodes that cannot be reached
+ * have every variable assigned.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class DefiniteAssignment extends DataflowAnalysis {
+
+    /**
+     * @param cfg the graph to analyze
+     */
+    public DefiniteAssignment(ControlFlowGraph cfg) {
+        super(cfg, true);
+    }
+
+    protected BitSet boundary() {
+        return new BitSet();
+    }
+
+    protected BitSet initial() {
+        BitSet all = new BitSet();
+        all.set(0, cfg.getNumVariables());
+        return all;
+    }
+
+    protected boolean isUnion() {
+        return false;
+    }
+
+    protected void transfer(ControlFlowGraph.Node node, BitSet input, BitSet output) {
+        output.or(input);
+        output.or(node.getDefs());
+    }
+
+    /**
+     * @return whether the variable is assigned on every path to the node
+     */
+    public boolean isAssignedBefore(ControlFlowGraph.Node node, int var) {
+        return getBefore(node).get(var);
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * File: EscapeAnalysis.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * find the objects and arrays created with new that never leave the
+ * method creating them. Such an object could be kept in the frame of
+ * the method, or replaced by its fields or elements.
+ *
+ * The analysis is flow-insensitive. For each local variable and formal,
+ * it finds the allocations (the new expressions of the method) whose
+ * result the variable may hold. An allocation escapes if its result may
+ * be returned, passed to a method, stored in a field or an array
+ * element, or if creating the object runs a field initializer that
+ * could hand this to another method. Reading the length or the elements
+ * of an array, comparing with == or !=, instanceof and casts do not make
+ * it escape.
+ *
+ * Calling a method on an allocation makes it escape only if the method
+ * may leak this. Each method that the call may run, the one the static
+ * type of the receiver inherits and the overrides in its subclasses, is
+ * analyzed once with this as an allocation of its own; it leaks this if
+ * that allocation escapes. Built-in methods leak this, except the
+ * methods of Object, which only read or copy it.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class EscapeAnalysis extends Visitor {
+
+    /**
+     * The allocations and variables whose values an expression may have
+     */
+    private static final class Values {
+        private final BitSet sites = new BitSet();
+        private final BitSet variables = new BitSet();
+    }
+
+    private final SymbolTable symbolTable;
+    private final Map<String, Boolean> safeInits;
+    private final Map<Symbol, Boolean> thisLeaks;
+    private String currentClass;
+    private int thisSite = -1;
+
+    private final List<Expr> sites = new ArrayList<>();
+    private final Map<Integer, Integer> variables = new HashMap<>();
+    private final List<BitSet> pointsTo = new ArrayList<>();
+    private final List<int[]> copies = new ArrayList<>();
+    private final BitSet escaping = new BitSet();
+    private final List<Values> escapingValues = new ArrayList<>();
+
+    /**
+     * @param symbolTable the symbol table of the type checked program
+     */
+    public EscapeAnalysis(SymbolTable symbolTable) {
+        this(symbolTable, new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * An analysis sharing what is known about classes and methods with
+     * the analysis that needs to know whether a method leaks this
+     */
+    private EscapeAnalysis(SymbolTable symbolTable, Map<String, Boolean> safeInits,
+                           Map<Symbol, Boolean> thisLeaks) {
+        this.symbolTable = symbolTable;
+        this.safeInits = safeInits;
+        this.thisLeaks = thisLeaks;
+    }
+
+    /**
+     * Finds the allocations of every method of a program that do not escape.
+     *
+     * @param program the type checked program
+     * @return a description of each allocation that does not escape
+     */
+    public List<String> analyze(Program program) {
+        List<String> local = new ArrayList<>();
+        for (ASTNode classNode : program.getClassList()) {
+            for (ASTNode member : ((Class_) classNode).getMemberList()) {
+                if (member instanceof Method) {
+                    String className = ((Class_) classNode).getName();
+                    for (Expr site : analyze((Method) member, className)) {
+                        local.add("Line " + site.getLineNum() + ": the " + describe(site)
+                                + " created in " + ((Class_) classNode).getName() + "."
+                                + ((Method) member).getName() + " does not escape.");
+                    }
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Finds the allocations of a method that do not escape.
+     *
+     * @param method    a method of the type checked program
+     * @param className the class declaring the method
+     * @return the NewExpr and NewArrayExpr nodes that do not escape
+     */
+    public List<Expr> analyze(Method method, String className) {
+        solve(method, className, false);
+        List<Expr> local = new ArrayList<>();
+        for (int i = 0; i < sites.size(); i++) {
+            if (!escaping.get(i)) {
+                local.add(sites.get(i));
+            }
+        }
+        return local;
+    }
+
+    //-------- statements ---------
+
+    public Object visit(DeclStmt node) {
+        assign(node.getSymbolId(), (Values) node.getInit().accept(this));
+        return null;
+    }
+
+    public Object visit(ReturnStmt node) {
+        if (node.getExpr() != null) {
+            escape((Values) node.getExpr().accept(this));
+        }
+        return null;
+    }
+
+    //-------- expressions ---------
+
+    public Object visit(NewExpr node) {
+        int site = addSite(node);
+        if (!hasSafeInit(node.getType())) {
+            escaping.set(site);
+        }
+        return values(site);
+    }
+
+    public Object visit(NewArrayExpr node) {
+        node.getSize().accept(this);
+        return values(addSite(node));
+    }
+
+    public Object visit(VarExpr node) {
+        if (node.getRef() != null) {
+            node.getRef().accept(this);
+            return null;
+        }
+        if (node.getSymbolId() < 0) {
+            // this, super or null
+            return node.getName().equals("null") ? null : thisValues();
+        }
+        int var = variable(node.getSymbolId());
+        if (var < 0) {
+            return null;
+        }
+        Values values = new Values();
+        values.variables.set(var);
+        return values;
+    }
+
+    public Object visit(AssignExpr node) {
+        Values values = (Values) node.getExpr().accept(this);
+        if (node.getRefName() == null && variable(node.getSymbolId()) >= 0) {
+            assign(node.getSymbolId(), values);
+        }
+        else {
+            escape(values);
+        }
+        return values;
+    }
+
+    public Object visit(ArrayExpr node) {
+        if (node.getRef() != null) {
+            node.getRef().accept(this);
+        }
+        node.getIndex().accept(this);
+        return null;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        node.getIndex().accept(this);
+        Values values = (Values) node.getExpr().accept(this);
+        escape(values);
+        return values;
+    }
+
+    public Object visit(CastExpr node) {
+        return node.getExpr().accept(this);
+    }
+
+    /**
+     * The arguments escape, and so does the object called on if a method
+     * the call may run leaks this. The methods of arrays are the built-in
+     * ones of Object.
+     * @param node the dispatch node
+     * @return null, as the result is not tracked
+     */
+    public Object visit(DispatchExpr node) {
+        Expr ref = node.getRefExpr();
+        Values receiver = ref == null ? thisValues() : (Values) ref.accept(this);
+        boolean isArray = ref != null && ref.getExprType() != null
+                && ref.getExprType().endsWith("[]");
+        if (!isArray && mayLeakThis(ref, node.getMethodName())) {
+            escape(receiver);
+        }
+        for (ASTNode actual : node.getActualList()) {
+            escape((Values) actual.accept(this));
+        }
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Finds the allocations of a method that may escape. If thisIsSite,
+     * this is taken as an allocation too, the first one.
+     */
+    private void solve(Method method, String className, boolean thisIsSite) {
+        sites.clear();
+        variables.clear();
+        pointsTo.clear();
+        copies.clear();
+        escaping.clear();
+        escapingValues.clear();
+        currentClass = className;
+        thisSite = thisIsSite ? addSite(null) : -1;
+        method.getStmtList().accept(this);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int[] copy : copies) {
+                BitSet target = pointsTo.get(copy[0]);
+                int before = target.cardinality();
+                target.or(pointsTo.get(copy[1]));
+                changed |= target.cardinality() != before;
+            }
+        }
+        for (Values values : escapingValues) {
+            escaping.or(values.sites);
+            for (int var = values.variables.nextSetBit(0); var >= 0;
+                 var = values.variables.nextSetBit(var + 1)) {
+                escaping.or(pointsTo.get(var));
+            }
+        }
+    }
+
+    /**
+     * @return whether any method a call may run leaks this; ref is the
+     * receiver of the call, null for this
+     */
+    private boolean mayLeakThis(Expr ref, String methodName) {
+        if (ref instanceof VarExpr && ((VarExpr) ref).getRef() == null
+                && ((VarExpr) ref).getName().equals("super")) {
+            return leaksThis(symbolTable.lookupMethod(symbolTable.getParent(currentClass),
+                    methodName));
+        }
+        String className = ref == null ? currentClass : ref.getExprType();
+        if (className == null || leaksThis(symbolTable.lookupMethod(className, methodName))) {
+            return true;
+        }
+        ClassHierarchy hierarchy = symbolTable.getHierarchy();
+        for (String subclass : hierarchy.getClassNames()) {
+            if (subclass.equals(className) || !hierarchy.isSubclass(subclass, className)) {
+                continue;
+            }
+            for (Symbol method : symbolTable.getMethods(subclass)) {
+                if (method.getName().equals(methodName) && leaksThis(method)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether a method may hand this to something outliving the call
+     */
+    private boolean leaksThis(Symbol method) {
+        if (method == null) {
+            return true;
+        }
+        Boolean leaks = thisLeaks.get(method);
+        if (leaks != null) {
+            return leaks;
+        }
+        if (method.getDecl() == null) {
+            leaks = !method.getOwner().getName().equals("Object");
+        }
+        else {
+            // a method calling itself on this is taken as leaking it while
+            // its body is analyzed
+            thisLeaks.put(method, true);
+            EscapeAnalysis analysis = new EscapeAnalysis(symbolTable, safeInits, thisLeaks);
+            analysis.solve((Method) method.getDecl(), method.getOwner().getName(), true);
+            leaks = analysis.escaping.get(analysis.thisSite);
+        }
+        thisLeaks.put(method, leaks);
+        return leaks;
+    }
+
+    private Values thisValues() {
+        return thisSite < 0 ? null : values(thisSite);
+    }
+
+    private int addSite(Expr node) {
+        sites.add(node);
+        return sites.size() - 1;
+    }
+
+    private static Values values(int site) {
+        Values values = new Values();
+        values.sites.set(site);
+        return values;
+    }
+
+    /**
+     * @return the number of a local variable or formal, or -1 for other symbols
+     */
+    private int variable(int symbolId) {
+        if (symbolId < 0) {
+            return -1;
+        }
+        Symbol.Kind kind = symbolTable.getSymbol(symbolId).getKind();
+        if (kind != Symbol.Kind.LOCAL && kind != Symbol.Kind.FORMAL) {
+            return -1;
+        }
+        return variables.computeIfAbsent(symbolId, id -> {
+            pointsTo.add(new BitSet());
+            return pointsTo.size() - 1;
+        });
+    }
+
+    /**
+     * Records that a variable may hold the values of an expression.
+     */
+    private void assign(int symbolId, Values values) {
+        int var = variable(symbolId);
+        if (var < 0 || values == null) {
+            return;
+        }
+        pointsTo.get(var).or(values.sites);
+        for (int source = values.variables.nextSetBit(0); source >= 0;
+             source = values.variables.nextSetBit(source + 1)) {
+            copies.add(new int[] {var, source});
+        }
+    }
+
+    private void escape(Values values) {
+        if (values != null) {
+            escapingValues.add(values);
+        }
+    }
+
+    /**
+     * @return whether creating an object of the class runs only field
+     * initializers that cannot hand the object to a method
+     */
+    private boolean hasSafeInit(String className) {
+        Boolean safe = safeInits.get(className);
+        if (safe != null) {
+            return safe;
+        }
+        // a class whose initializers create objects of the class itself
+        // is taken as unsafe while its initializers are checked
+        safeInits.put(className, false);
+        safe = true;
+        for (String cls = className; cls != null && safe; cls = symbolTable.getParent(cls)) {
+            Class_ classNode = symbolTable.getClassNode(cls);
+            if (classNode == null) {
+                continue;
+            }
+            for (ASTNode member : classNode.getMemberList()) {
+                Expr init = member instanceof Field ? ((Field) member).getInit() : null;
+                if (init != null && !(init instanceof ConstExpr) && !isNull(init)
+                        && !(init instanceof NewExpr && hasSafeInit(((NewExpr) init).getType()))
+                        && !(init instanceof NewArrayExpr
+                        && ((NewArrayExpr) init).getSize() instanceof ConstExpr)) {
+                    safe = false;
+                }
+            }
+        }
+        safeInits.put(className, safe);
+        return safe;
+    }
+
+    private static boolean isNull(Expr expr) {
+        return expr instanceof VarExpr && ((VarExpr) expr).getRef() == null
+                && ((VarExpr) expr).getName().equals("null");
+    }
+
+    private static String describe(Expr site) {
+        return site instanceof NewExpr ? ((NewExpr) site).getType() + " object"
+                : ((NewArrayExpr) site).getType() + " array";
+    }
+
+    /**
+     * Lists the allocations of a Bantam Java program that do not escape,
+     * from the command line.
+     *
+     * @param args the file to analyze
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.opt.EscapeAnalysis"
+                    + " file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[0]);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (!errorHandler.errorsFound()) {
+                new EscapeAnalysis(symbolTable).analyze(program).forEach(System.out::println);
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * File: InliningCopier.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * copy the body of a method so that it can replace a call of the method
+ * in another method of the same object.
+ *
+ * Each visit returns a copy of the node. In the copy, the formals are
+ * renamed or replaced by the arguments of the call, the locals are given
+ * names that cannot clash with the caller's, and fields are read and
+ * written through this, so that a local of the caller cannot hide them.
+ * The copy fails if the body cannot be moved: if it returns, if a name
+ * means another field in the caller's class, if it uses super from
+ * another class, or if it assigns a formal that is replaced.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+final class InliningCopier extends Visitor {
+
+    private final SymbolTable symbolTable;
+    private final String callerClass;
+    private final boolean sameClass;
+    private final String suffix;
+    private final Map<String, Expr> replacedFormals = new HashMap<>();
+    private final Map<String, String> renamedFormals = new HashMap<>();
+    private final Map<Integer, String> renamedLocals = new HashMap<>();
+    private boolean failed;
+    private int size;
+
+    /**
+     * @param symbolTable the symbol table of the program
+     * @param callerClass the class of the method the copy goes into
+     * @param calleeClass the class of the method copied
+     * @param suffix      the text appended to the names of the locals copied;
+     *                    it must make them unlike any name in the program
+     */
+    InliningCopier(SymbolTable symbolTable, String callerClass, String calleeClass,
+                   String suffix) {
+        this.symbolTable = symbolTable;
+        this.callerClass = callerClass;
+        this.sameClass = callerClass.equals(calleeClass);
+        this.suffix = suffix;
+    }
+
+    /**
+     * Replaces a formal by an expression, which is copied at each use.
+     * The expression must be a constant or a variable without a reference.
+     */
+    void replaceFormal(String formal, Expr expr) {
+        replacedFormals.put(formal, expr);
+    }
+
+    /**
+     * Renames a formal, which the caller declares as a local.
+     */
+    void renameFormal(String formal, String name) {
+        renamedFormals.put(formal, name);
+    }
+
+    boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of nodes copied so far
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the expression, or null for null
+     */
+    Expr copy(Expr expr) {
+        return expr == null ? null : (Expr) expr.accept(this);
+    }
+
+    /**
+     * @return a copy of the statement
+     */
+    Stmt copy(Stmt stmt) {
+        return (Stmt) stmt.accept(this);
+    }
+
+    //-------- statements ---------
+
+    public Object visit(StmtList node) {
+        StmtList copy = new StmtList(node.getLineNum());
+        for (ASTNode stmt : node) {
+            copy.addElement(copy((Stmt) stmt));
+        }
+        return copy;
+    }
+
+    public Object visit(ExprStmt node) {
+        return counted(new ExprStmt(node.getLineNum(), copy(node.getExpr())));
+    }
+
+    public Object visit(DeclStmt node) {
+        Expr init = copy(node.getInit());
+        String name = node.getName() + suffix;
+        renamedLocals.put(node.getSymbolId(), name);
+        return counted(new DeclStmt(node.getLineNum(), name, init));
+    }
+
+    public Object visit(IfStmt node) {
+        return counted(new IfStmt(node.getLineNum(), copy(node.getPredExpr()),
+                copy(node.getThenStmt()),
+                node.getElseStmt() == null ? null : copy(node.getElseStmt())));
+    }
+
+    public Object visit(WhileStmt node) {
+        return counted(new WhileStmt(node.getLineNum(), copy(node.getPredExpr()),
+                copy(node.getBodyStmt())));
+    }
+
+    public Object visit(ForStmt node) {
+        return counted(new ForStmt(node.getLineNum(), copy(node.getInitExpr()),
+                copy(node.getPredExpr()), copy(node.getUpdateExpr()),
+                copy(node.getBodyStmt())));
+    }
+
+    public Object visit(BreakStmt node) {
+        return counted(new BreakStmt(node.getLineNum()));
+    }
+
+    /**
+     * A return cannot be copied into another method.
+     * @param node the return statement node
+     * @return
+     */
+    public Object visit(ReturnStmt node) {
+        failed = true;
+        return counted(new ReturnStmt(node.getLineNum(), copy(node.getExpr())));
+    }
+
+    public Object visit(BlockStmt node) {
+        return counted(new BlockStmt(node.getLineNum(),
+                (StmtList) node.getStmtList().accept(this)));
+    }
+
+    //-------- expressions ---------
+
+    public Object visit(DispatchExpr node) {
+        ExprList actuals = new ExprList(node.getLineNum());
+        for (ASTNode actual : node.getActualList()) {
+            actuals.addElement(copy((Expr) actual));
+        }
+        return copied(node, new DispatchExpr(node.getLineNum(), copy(node.getRefExpr()),
+                node.getMethodName(), actuals));
+    }
+
+    public Object visit(NewExpr node) {
+        return copied(node, new NewExpr(node.getLineNum(), node.getType()));
+    }
+
+    public Object visit(NewArrayExpr node) {
+        return copied(node, new NewArrayExpr(node.getLineNum(), node.getType(),
+                copy(node.getSize())));
+    }
+
+    public Object visit(InstanceofExpr node) {
+        return copied(node, new InstanceofExpr(node.getLineNum(), copy(node.getExpr()),
+                node.getType()));
+    }
+
+    public Object visit(CastExpr node) {
+        return copied(node, new CastExpr(node.getLineNum(), node.getType(),
+                copy(node.getExpr())));
+    }
+
+    public Object visit(VarExpr node) {
+        if (node.getRef() != null) {
+            Expr ref = copy(node.getRef());
+            checkField(node.getSymbolId());
+            return copied(node, new VarExpr(node.getLineNum(), ref, node.getName()));
+        }
+        Symbol symbol = symbolOf(node.getSymbolId());
+        if (symbol == null) {
+            failed |= node.getName().equals("super") && !sameClass;
+            return copied(node, new VarExpr(node.getLineNum(), null, node.getName()));
+        }
+        if (symbol.getKind() == Symbol.Kind.FIELD) {
+            checkField(node.getSymbolId());
+            return copied(node, new VarExpr(node.getLineNum(), self(node), node.getName()));
+        }
+        Expr replacement = replacedFormals.get(node.getName());
+        if (symbol.getKind() == Symbol.Kind.FORMAL && replacement != null) {
+            return copied(node, (Expr) replacement.accept(new InliningCopier(symbolTable,
+                    callerClass, callerClass, "")));
+        }
+        return copied(node, new VarExpr(node.getLineNum(), null, variableName(node.getSymbolId(),
+                node.getName())));
+    }
+
+    public Object visit(AssignExpr node) {
+        Expr expr = copy(node.getExpr());
+        String refName = node.getRefName();
+        String name = node.getName();
+        if (isField(node.getSymbolId())) {
+            checkField(node.getSymbolId());
+            failed |= "super".equals(refName) && !sameClass;
+            refName = refName == null ? "this" : refName;
+        }
+        else {
+            name = assignedName(node.getSymbolId(), name);
+        }
+        return copied(node, new AssignExpr(node.getLineNum(), refName, name, expr));
+    }
+
+    public Object visit(ArrayExpr node) {
+        Expr ref = copy(node.getRef());
+        String name = node.getName();
+        if (isField(node.getSymbolId())) {
+            checkField(node.getSymbolId());
+            ref = ref == null ? self(node) : ref;
+        }
+        else {
+            name = arrayName(node.getSymbolId(), name);
+        }
+        return copied(node, new ArrayExpr(node.getLineNum(), ref, name, copy(node.getIndex())));
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        String refName = node.getRefName();
+        String name = node.getName();
+        if (isField(node.getSymbolId())) {
+            checkField(node.getSymbolId());
+            failed |= "super".equals(refName) && !sameClass;
+            refName = refName == null ? "this" : refName;
+        }
+        else {
+            name = arrayName(node.getSymbolId(), name);
+        }
+        return copied(node, new ArrayAssignExpr(node.getLineNum(), refName, name,
+                copy(node.getIndex()), copy(node.getExpr())));
+    }
+
+    public Object visit(BinaryCompEqExpr node) {
+        return copied(node, new BinaryCompEqExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        return copied(node, new BinaryCompNeExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        return copied(node, new BinaryCompLtExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        return copied(node, new BinaryCompLeqExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        return copied(node, new BinaryCompGtExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        return copied(node, new BinaryCompGeqExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        return copied(node, new BinaryArithPlusExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        return copied(node, new BinaryArithMinusExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        return copied(node, new BinaryArithTimesExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        return copied(node, new BinaryArithDivideExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        return copied(node, new BinaryArithModulusExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return copied(node, new BinaryLogicAndExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return copied(node, new BinaryLogicOrExpr(node.getLineNum(),
+                copy(node.getLeftExpr()), copy(node.getRightExpr())));
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        return copied(node, new UnaryNegExpr(node.getLineNum(), copy(node.getExpr())));
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        return copied(node, new UnaryNotExpr(node.getLineNum(), copy(node.getExpr())));
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        checkNotReplaced(node.getExpr());
+        return copied(node, new UnaryIncrExpr(node.getLineNum(), copy(node.getExpr()),
+                node.isPostfix()));
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        checkNotReplaced(node.getExpr());
+        return copied(node, new UnaryDecrExpr(node.getLineNum(), copy(node.getExpr()),
+                node.isPostfix()));
+    }
+
+    public Object visit(ConstIntExpr node) {
+        return copied(node, new ConstIntExpr(node.getLineNum(), node.getConstant()));
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        return copied(node, new ConstBooleanExpr(node.getLineNum(), node.getConstant()));
+    }
+
+    public Object visit(ConstStringExpr node) {
+        return copied(node, new ConstStringExpr(node.getLineNum(), node.getConstant()));
+    }
+
+    //-------- auxiliary methods ---------
+
+    private Stmt counted(Stmt copy) {
+        size++;
+        return copy;
+    }
+
+    private Expr copied(Expr node, Expr copy) {
+        copy.setExprType(node.getExprType());
+        size++;
+        return copy;
+    }
+
+    private Expr self(Expr node) {
+        VarExpr self = new VarExpr(node.getLineNum(), null, "this");
+        self.setExprType(callerClass);
+        return self;
+    }
+
+    private Symbol symbolOf(int symbolId) {
+        return symbolId < 0 ? null : symbolTable.getSymbol(symbolId);
+    }
+
+    private boolean isField(int symbolId) {
+        Symbol symbol = symbolOf(symbolId);
+        return symbol != null && symbol.getKind() == Symbol.Kind.FIELD;
+    }
+
+    /**
+     * Fails if the field has another meaning in the caller's class.
+     */
+    private void checkField(int symbolId) {
+        Symbol field = symbolOf(symbolId);
+        if (field != null && field.getKind() == Symbol.Kind.FIELD) {
+            failed |= symbolTable.lookupField(callerClass, field.getName()) != field;
+        }
+    }
+
+    /**
+     * @return the name of a formal or local in the copy
+     */
+    private String variableName(int symbolId, String name) {
+        Symbol symbol = symbolOf(symbolId);
+        if (symbol != null && symbol.getKind() == Symbol.Kind.FORMAL) {
+            return renamedFormals.getOrDefault(name, name);
+        }
+        return renamedLocals.getOrDefault(symbolId, name);
+    }
+
+    private String assignedName(int symbolId, String name) {
+        Symbol symbol = symbolOf(symbolId);
+        failed |= symbol != null && symbol.getKind() == Symbol.Kind.FORMAL
+                && replacedFormals.containsKey(name);
+        return variableName(symbolId, name);
+    }
+
+    /**
+     * @return the name of an array formal or local in the copy; a formal
+     * replaced by a variable takes the variable's name
+     */
+    private String arrayName(int symbolId, String name) {
+        Symbol symbol = symbolOf(symbolId);
+        Expr replacement = replacedFormals.get(name);
+        if (symbol != null && symbol.getKind() == Symbol.Kind.FORMAL && replacement != null) {
+            if (replacement instanceof VarExpr && ((VarExpr) replacement).getSymbolId() >= 0) {
+                return ((VarExpr) replacement).getName();
+            }
+            failed = true;
+            return name;
+        }
+        return variableName(symbolId, name);
+    }
+
+    private void checkNotReplaced(Expr operand) {
+        if (operand instanceof VarExpr && ((VarExpr) operand).getRef() == null) {
+            assignedName(((VarExpr) operand).getSymbolId(), ((VarExpr) operand).getName());
+        }
+    }
+}
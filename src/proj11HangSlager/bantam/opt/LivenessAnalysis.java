@@ -0,0 +1,57 @@
+/*
+ * File: LivenessAnalysis.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import java.util.BitSet;
+
+/**
+ * Finds the variables that are live at each node of a control flow graph:
+ * those whose current value may still be read.
+ *
+ * The facts are variable numbers of the graph. A value stored in a variable
+ * that is not live after the store is never used.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class LivenessAnalysis extends DataflowAnalysis {
+
+    /**
+     * @param cfg the graph to analyze
+     */
+    public LivenessAnalysis(ControlFlowGraph cfg) {
+        super(cfg, false);
+    }
+
+    protected BitSet boundary() {
+        return new BitSet();
+    }
+
+    protected BitSet initial() {
+        return new BitSet();
+    }
+
+    protected boolean isUnion() {
+        return true;
+    }
+
+    protected void transfer(ControlFlowGraph.Node node, BitSet input, BitSet output) {
+        output.or(input);
+        output.andNot(node.getDefs());
+        output.or(node.getUses());
+    }
+
+    /**
+     * @return whether the variable is live just after the node runs
+     */
+    public boolean isLiveAfter(ControlFlowGraph.Node node, int var) {
+        return getAfter(node).get(var);
+    }
+}
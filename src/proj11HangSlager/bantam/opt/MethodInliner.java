@@ -0,0 +1,315 @@
+/*
+ * File: MethodInliner.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * inline calls of small methods that have a single implementation.
+ *
+ * Only calls on this (written or implied) and on super are inlined, since
+ * the inlined code reads the fields of the object running it. A call on
+ * this is inlined if no subclass of the caller's class overrides the
+ * method, which the class hierarchy tells; a call on super always has a
+ * single target. A method is small if its copy has at most a budget of
+ * AST nodes, and it is never inlined into itself.
+ *
+ * A method whose body is just "return e;" is inlined anywhere as e, with
+ * its formals replaced by the arguments, if the arguments are constants
+ * or variables. A call that is a whole statement is replaced by a block
+ * declaring each formal as a renamed local initialized by its argument,
+ * followed by the body, if the body returns nowhere but at its end.
+ *
+ * The program must have been type checked, and must be type checked again
+ * after inlining, which resolves the copied names in their new methods.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class MethodInliner extends RewritingVisitor {
+
+    /**
+     * The default budget: the most nodes a method inlined may have
+     */
+    public static final int DEFAULT_BUDGET = 20;
+
+    private static final AtomicInteger copies = new AtomicInteger();
+
+    private final SymbolTable symbolTable;
+    private final ClassHierarchy hierarchy;
+    private final int budget;
+    private final Map<String, Boolean> overridden = new HashMap<>();
+    private String currentClass;
+    private Symbol currentMethod;
+    private int numInlined;
+
+    /**
+     * @param symbolTable the symbol table of the type checked program
+     */
+    public MethodInliner(SymbolTable symbolTable) {
+        this(symbolTable, DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param symbolTable the symbol table of the type checked program
+     * @param budget      the most AST nodes a method inlined may have
+     */
+    public MethodInliner(SymbolTable symbolTable, int budget) {
+        this.symbolTable = symbolTable;
+        this.hierarchy = symbolTable.getHierarchy();
+        this.budget = budget;
+    }
+
+    /**
+     * Inlines the calls of the methods of a program.
+     *
+     * @param program the type checked program; it is modified in place
+     * @return the number of calls inlined
+     */
+    public int inline(Program program) {
+        numInlined = 0;
+        for (ASTNode classNode : program.getClassList()) {
+            currentClass = ((Class_) classNode).getName();
+            for (ASTNode member : ((Class_) classNode).getMemberList()) {
+                if (member instanceof Method) {
+                    currentMethod = symbolTable.lookupMethod(currentClass,
+                            ((Method) member).getName());
+                    ((Method) member).getStmtList().accept(this);
+                }
+            }
+        }
+        return numInlined;
+    }
+
+    public Object visit(Field node) {
+        return null;
+    }
+
+    /**
+     * Replaces a call that is a whole statement by a block running the
+     * body of the method called.
+     * @param node the expression statement node
+     * @return the block, or the statement itself
+     */
+    public Object visit(ExprStmt node) {
+        if (!(node.getExpr() instanceof DispatchExpr)) {
+            return super.visit(node);
+        }
+        DispatchExpr call = (DispatchExpr) node.getExpr();
+        super.visit(call);
+        Symbol method = target(call);
+        Stmt block = method == null ? null : inlineStatement(call, method);
+        if (block != null) {
+            numInlined++;
+            return block;
+        }
+        node.setExpr(inlineExpression(call));
+        return node;
+    }
+
+    public Object visit(DispatchExpr node) {
+        super.visit(node);
+        return inlineExpression(node);
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * @return the expression replacing a call, which is the call itself if
+     * it cannot be inlined
+     */
+    private Expr inlineExpression(DispatchExpr call) {
+        Symbol method = target(call);
+        if (method == null) {
+            return call;
+        }
+        Method decl = (Method) method.getDecl();
+        StmtList body = decl.getStmtList();
+        if (body.getSize() != 1 || !(body.get(0) instanceof ReturnStmt)) {
+            return call;
+        }
+        Expr result = ((ReturnStmt) body.get(0)).getExpr();
+        if (result == null || !method.getType().equals(result.getExprType())) {
+            return call;
+        }
+        InliningCopier copier = new InliningCopier(symbolTable, currentClass,
+                method.getOwner().getName(), suffix());
+        for (int i = 0; i < call.getActualList().getSize(); i++) {
+            Expr actual = (Expr) call.getActualList().get(i);
+            if (!isVariableOrConstant(actual)) {
+                return call;
+            }
+            copier.replaceFormal(((Formal) decl.getFormalList().get(i)).getName(), actual);
+        }
+        Expr copy = copier.copy(result);
+        if (copier.hasFailed() || copier.getSize() > budget) {
+            return call;
+        }
+        numInlined++;
+        return copy;
+    }
+
+    /**
+     * @return the block replacing a call that is a whole statement, or null
+     * if the call cannot be inlined that way
+     */
+    private Stmt inlineStatement(DispatchExpr call, Symbol method) {
+        Method decl = (Method) method.getDecl();
+        int line = call.getLineNum();
+        String suffix = suffix();
+        InliningCopier copier = new InliningCopier(symbolTable, currentClass,
+                method.getOwner().getName(), suffix);
+        StmtList block = new StmtList(line);
+        List<String> paramTypes = method.getParamTypes();
+        for (int i = 0; i < call.getActualList().getSize(); i++) {
+            Expr actual = (Expr) call.getActualList().get(i);
+            if (!paramTypes.get(i).equals(actual.getExprType())) {
+                return null;
+            }
+            String formal = ((Formal) decl.getFormalList().get(i)).getName();
+            String name = formal + suffix;
+            copier.renameFormal(formal, name);
+            block.addElement(new DeclStmt(line, name, actual));
+        }
+        StmtList body = decl.getStmtList();
+        for (int i = 0; i < body.getSize(); i++) {
+            Stmt stmt = (Stmt) body.get(i);
+            if (i == body.getSize() - 1 && stmt instanceof ReturnStmt) {
+                Expr result = ((ReturnStmt) stmt).getExpr();
+                if (result != null && !isVariableOrConstant(result)) {
+                    block.addElement(new ExprStmt(stmt.getLineNum(), copier.copy(result)));
+                }
+            }
+            else {
+                block.addElement(copier.copy(stmt));
+            }
+        }
+        if (copier.hasFailed() || copier.getSize() > budget) {
+            return null;
+        }
+        return new BlockStmt(line, block);
+    }
+
+    /**
+     * @return the method a call runs if it can be inlined, or null
+     */
+    private Symbol target(DispatchExpr call) {
+        Expr ref = call.getRefExpr();
+        boolean isSuper = isSelf(ref, "super");
+        if (call.getSymbolId() < 0 || !(ref == null || isSelf(ref, "this") || isSuper)) {
+            return null;
+        }
+        Symbol method = symbolTable.getSymbol(call.getSymbolId());
+        if (method.getDecl() == null || method == currentMethod) {
+            return null;
+        }
+        if (!isSuper && isOverridden(method)) {
+            return null;
+        }
+        return method;
+    }
+
+    /**
+     * @return whether a subclass of the current class, or the class itself,
+     * runs another implementation of the method
+     */
+    private boolean isOverridden(Symbol method) {
+        return overridden.computeIfAbsent(currentClass + "." + method.getName(), key -> {
+            for (String className : hierarchy.getClassNames()) {
+                if (hierarchy.isSubclass(className, currentClass)
+                        && symbolTable.lookupMethod(className, method.getName()) != method) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static boolean isSelf(Expr ref, String name) {
+        return ref instanceof VarExpr && ((VarExpr) ref).getRef() == null
+                && ((VarExpr) ref).getName().equals(name);
+    }
+
+    /**
+     * @return whether an expression is a constant or a local variable, formal,
+     * this or null, which can be evaluated any number of times, in any order
+     */
+    private boolean isVariableOrConstant(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            return true;
+        }
+        if (!(expr instanceof VarExpr) || ((VarExpr) expr).getRef() != null) {
+            return false;
+        }
+        VarExpr var = (VarExpr) expr;
+        if (var.getSymbolId() < 0) {
+            return !var.getName().equals("super");
+        }
+        Symbol.Kind kind = symbolTable.getSymbol(var.getSymbolId()).getKind();
+        return kind == Symbol.Kind.LOCAL || kind == Symbol.Kind.FORMAL;
+    }
+
+    /**
+     * @return a suffix that makes the names of one inlined copy unique, even
+     * if a program is inlined more than once; a $ cannot appear in a Bantam
+     * Java identifier
+     */
+    private static String suffix() {
+        return "$" + copies.incrementAndGet();
+    }
+
+    /**
+     * Inlines the calls of a Bantam Java program from the command line,
+     * and checks the result.
+     *
+     * @param args [-budget n] and the file to inline
+     */
+    public static void main(String[] args) {
+        int budget = DEFAULT_BUDGET;
+        if (args.length == 3 && args[0].equals("-budget")) {
+            budget = Integer.parseInt(args[1]);
+        }
+        else if (args.length != 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.opt.MethodInliner"
+                    + " [-budget n] file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[args.length - 1]);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (!errorHandler.errorsFound()) {
+                int numInlined = new MethodInliner(symbolTable, budget).inline(program);
+                System.out.println(numInlined + " calls inlined.");
+                new TypeCheckerVisitor().check(program, errorHandler);
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * File: ReachabilityAnalysis.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * find the methods, fields and classes of a program that Main.main can
+ * never reach, and to strip them from the program.
+ *
+ * Only the methods reachable from Main.main are visited. A call x.m()
+ * where x has static type T can run m of every instantiated class that
+ * is T or a subclass of T, so the classes created with new and the
+ * calls seen so far are both recorded, and each new class or call adds
+ * the methods it makes reachable. Creating an object also runs the field
+ * initializers of its class and its superclasses. The method a call
+ * resolves to in the type checker is always kept, so that the stripped
+ * program still type checks.
+ *
+ * A class is kept if it is instantiated, used as a type by the reachable
+ * code, owns a reachable method, or is the superclass of a kept class.
+ * The field initializers of a kept class are kept too, even if the class
+ * is never instantiated, so they are visited like reachable code until
+ * no more classes are kept.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class ReachabilityAnalysis extends Visitor {
+
+    private final SymbolTable symbolTable;
+    private final ClassHierarchy hierarchy;
+
+    private final Set<String> instantiated = new LinkedHashSet<>();
+    private final Set<String> initialized = new HashSet<>();
+    private final Map<String, Set<String>> callSites = new HashMap<>();
+    private final Set<Integer> reachableMethods = new HashSet<>();
+    private final Set<Integer> usedFields = new HashSet<>();
+    private final Set<String> usedTypes = new HashSet<>();
+    private final Set<String> liveClasses = new HashSet<>();
+    private final Deque<Symbol> methodWorklist = new ArrayDeque<>();
+    private final Deque<String> initWorklist = new ArrayDeque<>();
+    private String currentClass;
+
+    /**
+     * @param symbolTable the symbol table of the type checked program
+     */
+    public ReachabilityAnalysis(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.hierarchy = symbolTable.getHierarchy();
+    }
+
+    /**
+     * Finds what Main.main can reach.
+     *
+     * @param program the type checked program
+     * @return a description of each class, method and field that is never
+     * used, in source order
+     */
+    public List<String> analyze(Program program) {
+        instantiated.clear();
+        initialized.clear();
+        callSites.clear();
+        reachableMethods.clear();
+        usedFields.clear();
+        usedTypes.clear();
+        liveClasses.clear();
+
+        instantiate("Main");
+        addMethod(symbolTable.lookupMethod("Main", "main"));
+        do {
+            visitWorklists();
+            findLiveClasses();
+        } while (initializeLiveClasses());
+
+        List<String> unused = new ArrayList<>();
+        for (ASTNode classNode : program.getClassList()) {
+            Class_ class_ = (Class_) classNode;
+            if (!liveClasses.contains(class_.getName())) {
+                unused.add("Line " + class_.getLineNum() + ": class " + class_.getName()
+                        + " is never used.");
+                continue;
+            }
+            for (ASTNode member : class_.getMemberList()) {
+                if (member instanceof Method && !isReachable(class_, (Method) member)) {
+                    unused.add("Line " + member.getLineNum() + ": method " + class_.getName()
+                            + "." + ((Method) member).getName() + " is never called.");
+                }
+                else if (member instanceof Field && !isUsed(class_, (Field) member)) {
+                    unused.add("Line " + member.getLineNum() + ": field " + class_.getName()
+                            + "." + ((Field) member).getName() + " is never used.");
+                }
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Removes the classes, methods and fields found unused by the last
+     * analyze. A field whose initializer could have an effect is kept.
+     * The symbol table no longer matches the program afterwards, so the
+     * program must be type checked again before it is used.
+     *
+     * @param program the program last analyzed
+     * @return the number of declarations removed
+     */
+    public int strip(Program program) {
+        int removed = 0;
+        ClassList classList = program.getClassList();
+        for (int i = 0; i < classList.getSize(); i++) {
+            Class_ class_ = (Class_) classList.get(i);
+            if (!liveClasses.contains(class_.getName())) {
+                classList.remove(i--);
+                removed++;
+                continue;
+            }
+            MemberList memberList = class_.getMemberList();
+            for (int j = 0; j < memberList.getSize(); j++) {
+                ASTNode member = memberList.get(j);
+                boolean unused = member instanceof Method
+                        ? !isReachable(class_, (Method) member)
+                        : !isUsed(class_, (Field) member) && isPure(((Field) member).getInit());
+                if (unused) {
+                    memberList.remove(j--);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    //-------- reachable code ---------
+
+    public Object visit(DispatchExpr node) {
+        super.visit(node);
+        Expr ref = node.getRefExpr();
+        Symbol target = node.getSymbolId() < 0 ? null : symbolTable.getSymbol(node.getSymbolId());
+        addMethod(target);
+        if (ref instanceof VarExpr && ((VarExpr) ref).getRef() == null
+                && ((VarExpr) ref).getName().equals("super")) {
+            return null;
+        }
+        String type = ref == null ? currentClass : ref.getExprType();
+        if (type != null && !type.endsWith("[]")) {
+            addCallSite(type, node.getMethodName());
+        }
+        return null;
+    }
+
+    public Object visit(NewExpr node) {
+        instantiate(node.getType());
+        return null;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        useType(node.getType());
+        return super.visit(node);
+    }
+
+    public Object visit(CastExpr node) {
+        useType(node.getType());
+        return super.visit(node);
+    }
+
+    public Object visit(InstanceofExpr node) {
+        useType(node.getType());
+        return super.visit(node);
+    }
+
+    public Object visit(DeclStmt node) {
+        useType(node.getType());
+        return super.visit(node);
+    }
+
+    public Object visit(VarExpr node) {
+        useField(node.getSymbolId());
+        return super.visit(node);
+    }
+
+    public Object visit(AssignExpr node) {
+        useField(node.getSymbolId());
+        return super.visit(node);
+    }
+
+    public Object visit(ArrayExpr node) {
+        useField(node.getSymbolId());
+        return super.visit(node);
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        useField(node.getSymbolId());
+        return super.visit(node);
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Visits the queued field initializers and reachable methods until
+     * none are left.
+     */
+    private void visitWorklists() {
+        while (!methodWorklist.isEmpty() || !initWorklist.isEmpty()) {
+            if (!initWorklist.isEmpty()) {
+                currentClass = initWorklist.pop();
+                for (ASTNode member : symbolTable.getClassNode(currentClass).getMemberList()) {
+                    if (member instanceof Field && ((Field) member).getInit() != null) {
+                        Field field = (Field) member;
+                        // strip keeps a field whose initializer has an effect,
+                        // so its type is kept with it
+                        if (!isPure(field.getInit())) {
+                            useType(field.getType());
+                        }
+                        field.getInit().accept(this);
+                    }
+                }
+            }
+            else {
+                Symbol method = methodWorklist.pop();
+                currentClass = method.getOwner().getName();
+                ((Method) method.getDecl()).getStmtList().accept(this);
+            }
+        }
+    }
+
+    /**
+     * Queues the field initializers of the kept classes not yet visited.
+     *
+     * @return whether any were queued
+     */
+    private boolean initializeLiveClasses() {
+        boolean queued = false;
+        for (String className : liveClasses) {
+            if (symbolTable.getClassNode(className) != null && initialized.add(className)) {
+                initWorklist.add(className);
+                queued = true;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Records that objects of a class are created, which runs the field
+     * initializers of the class and its superclasses and makes the
+     * methods the class gives to the calls seen so far reachable.
+     */
+    private void instantiate(String className) {
+        if (!hierarchy.contains(className) || !instantiated.add(className)) {
+            return;
+        }
+        useType(className);
+        for (String name = className; name != null && symbolTable.getClassNode(name) != null;
+             name = hierarchy.getParent(name)) {
+            if (initialized.add(name)) {
+                initWorklist.add(name);
+            }
+        }
+        for (Map.Entry<String, Set<String>> calls : callSites.entrySet()) {
+            for (String type : calls.getValue()) {
+                if (hierarchy.isSubclass(className, type)) {
+                    addMethod(symbolTable.lookupMethod(className, calls.getKey()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a call of a method through a reference of a static type.
+     */
+    private void addCallSite(String type, String methodName) {
+        if (!callSites.computeIfAbsent(methodName, name -> new HashSet<>()).add(type)) {
+            return;
+        }
+        for (String className : instantiated) {
+            if (hierarchy.isSubclass(className, type)) {
+                addMethod(symbolTable.lookupMethod(className, methodName));
+            }
+        }
+    }
+
+    private void addMethod(Symbol method) {
+        if (method == null || method.getDecl() == null || !reachableMethods.add(method.getId())) {
+            return;
+        }
+        methodWorklist.add(method);
+        useType(method.getType());
+        method.getParamTypes().forEach(this::useType);
+    }
+
+    private void useField(int symbolId) {
+        if (symbolId < 0) {
+            return;
+        }
+        Symbol symbol = symbolTable.getSymbol(symbolId);
+        if (symbol.getKind() == Symbol.Kind.FIELD && usedFields.add(symbolId)) {
+            useType(symbol.getType());
+        }
+    }
+
+    private void useType(String type) {
+        if (type != null) {
+            usedTypes.add(type.endsWith("[]") ? type.substring(0, type.length() - 2) : type);
+        }
+    }
+
+    /**
+     * Keeps the classes used as types or owning a reachable method, and
+     * their superclasses.
+     */
+    private void findLiveClasses() {
+        Set<String> roots = new HashSet<>(usedTypes);
+        for (int id : reachableMethods) {
+            roots.add(symbolTable.getSymbol(id).getOwner().getName());
+        }
+        for (String className : roots) {
+            for (String name = className; name != null && hierarchy.contains(name);
+                 name = hierarchy.getParent(name)) {
+                if (!liveClasses.add(name)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isReachable(Class_ class_, Method method) {
+        Symbol symbol = symbolTable.lookupMethod(class_.getName(), method.getName());
+        return symbol != null && reachableMethods.contains(symbol.getId());
+    }
+
+    private boolean isUsed(Class_ class_, Field field) {
+        for (Symbol symbol : symbolTable.getFields(class_.getName())) {
+            if (symbol.getDecl() == field) {
+                return usedFields.contains(symbol.getId());
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPure(Expr init) {
+        return init == null || init instanceof ConstExpr;
+    }
+
+    /**
+     * Lists the unused declarations of a Bantam Java program from the
+     * command line, and with -strip counts those that can be removed.
+     *
+     * @param args [-strip] and the file to analyze
+     */
+    public static void main(String[] args) {
+        boolean strip = args.length == 2 && args[0].equals("-strip");
+        if (args.length != 1 && !strip) {
+            System.out.println("Usage: java proj11HangSlager.bantam.opt.ReachabilityAnalysis"
+                    + " [-strip] file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[args.length - 1]);
+            SymbolTable symbolTable = new TypeCheckerVisitor().check(program, errorHandler);
+            if (!errorHandler.errorsFound()) {
+                ReachabilityAnalysis analysis = new ReachabilityAnalysis(symbolTable);
+                analysis.analyze(program).forEach(System.out::println);
+                if (strip) {
+                    System.out.println(analysis.strip(program) + " declarations removed.");
+                    new TypeCheckerVisitor().check(program, errorHandler);
+                }
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * File: ReachingDefinitions.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds the definitions that reach each node of a control flow graph:
+ * the assignments whose value a variable may still hold.
+ *
+ * A definition is a node together with a variable the node may assign,
+ * and the facts are definition numbers. A node that always assigns a
+ * variable kills the other definitions of the variable.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class ReachingDefinitions extends DataflowAnalysis {
+
+    private final List<ControlFlowGraph.Node> definitionNodes = new ArrayList<>();
+    private final List<Integer> definitionVariables = new ArrayList<>();
+    private final BitSet[] generated;
+    private final BitSet[] definitionsOf;
+
+    /**
+     * @param cfg the graph to analyze
+     */
+    public ReachingDefinitions(ControlFlowGraph cfg) {
+        super(cfg, true);
+        generated = new BitSet[cfg.getNodes().size()];
+        definitionsOf = new BitSet[cfg.getNumVariables()];
+        for (int var = 0; var < definitionsOf.length; var++) {
+            definitionsOf[var] = new BitSet();
+        }
+        for (ControlFlowGraph.Node node : cfg.getNodes()) {
+            BitSet defs = node.getMayDefs();
+            generated[node.getIndex()] = new BitSet();
+            for (int var = defs.nextSetBit(0); var >= 0; var = defs.nextSetBit(var + 1)) {
+                int definition = definitionNodes.size();
+                definitionNodes.add(node);
+                definitionVariables.add(var);
+                generated[node.getIndex()].set(definition);
+                definitionsOf[var].set(definition);
+            }
+        }
+    }
+
+    protected BitSet boundary() {
+        return new BitSet();
+    }
+
+    protected BitSet initial() {
+        return new BitSet();
+    }
+
+    protected boolean isUnion() {
+        return true;
+    }
+
+    protected void transfer(ControlFlowGraph.Node node, BitSet input, BitSet output) {
+        output.or(input);
+        BitSet defs = node.getDefs();
+        for (int var = defs.nextSetBit(0); var >= 0; var = defs.nextSetBit(var + 1)) {
+            output.andNot(definitionsOf[var]);
+        }
+        output.or(generated[node.getIndex()]);
+    }
+
+    public int getNumDefinitions() {
+        return definitionNodes.size();
+    }
+
+    /**
+     * @return the node of a definition
+     */
+    public ControlFlowGraph.Node getDefinitionNode(int definition) {
+        return definitionNodes.get(definition);
+    }
+
+    /**
+     * @return the variable number of a definition
+     */
+    public int getDefinitionVariable(int definition) {
+        return definitionVariables.get(definition);
+    }
+
+    /**
+     * @return the definitions of a variable that reach a node
+     */
+    public BitSet getReachingDefinitions(ControlFlowGraph.Node node, int var) {
+        BitSet reaching = (BitSet) getBefore(node).clone();
+        reaching.and(definitionsOf[var]);
+        return reaching;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * File: RewritingVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.opt;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * rewrite the statements and expressions of a program in place.
+ *
+ * Visiting a statement returns the statement replacing it, or null to
+ * remove it, and visiting an expression returns the expression replacing
+ * it. The visits of this class only rewrite the children of each node
+ * and return the node itself, so a subclass overrides the visits of the
+ * nodes it transforms.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public abstract class RewritingVisitor extends Visitor {
+
+    public Object visit(Field node) {
+        node.setInit(rewrite(node.getInit()));
+        return null;
+    }
+
+    //-------- statements ---------
+
+    /**
+     * Replaces each statement by its rewritten form and drops the
+     * statements removed.
+     * @param node the statement list node
+     * @return
+     */
+    public Object visit(StmtList node) {
+        for (int i = 0; i < node.getSize(); i++) {
+            Stmt stmt = (Stmt) node.get(i).accept(this);
+            if (stmt == null) {
+                node.remove(i--);
+            }
+            else {
+                node.set(i, stmt);
+            }
+        }
+        return null;
+    }
+
+    public Object visit(ExprStmt node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(DeclStmt node) {
+        node.setInit(rewrite(node.getInit()));
+        return node;
+    }
+
+    public Object visit(IfStmt node) {
+        node.setPredExpr(rewrite(node.getPredExpr()));
+        node.setThenStmt(rewriteBody(node.getThenStmt()));
+        if (node.getElseStmt() != null) {
+            node.setElseStmt((Stmt) node.getElseStmt().accept(this));
+        }
+        return node;
+    }
+
+    public Object visit(WhileStmt node) {
+        node.setPredExpr(rewrite(node.getPredExpr()));
+        node.setBodyStmt(rewriteBody(node.getBodyStmt()));
+        return node;
+    }
+
+    public Object visit(ForStmt node) {
+        node.setInitExpr(rewrite(node.getInitExpr()));
+        node.setPredExpr(rewrite(node.getPredExpr()));
+        node.setUpdateExpr(rewrite(node.getUpdateExpr()));
+        node.setBodyStmt(rewriteBody(node.getBodyStmt()));
+        return node;
+    }
+
+    public Object visit(BreakStmt node) {
+        return node;
+    }
+
+    public Object visit(ReturnStmt node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(BlockStmt node) {
+        node.getStmtList().accept(this);
+        return node;
+    }
+
+    //-------- expressions ---------
+
+    public Object visit(DispatchExpr node) {
+        node.setRefExpr(rewrite(node.getRefExpr()));
+        ExprList actuals = node.getActualList();
+        for (int i = 0; i < actuals.getSize(); i++) {
+            actuals.set(i, rewrite((Expr) actuals.get(i)));
+        }
+        return node;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        node.setSize(rewrite(node.getSize()));
+        return node;
+    }
+
+    public Object visit(InstanceofExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(CastExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(AssignExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(ArrayExpr node) {
+        node.setIndex(rewrite(node.getIndex()));
+        return node;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        node.setIndex(rewrite(node.getIndex()));
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(BinaryCompEqExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return rewriteOperands(node);
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        node.setExpr(rewrite(node.getExpr()));
+        return node;
+    }
+
+    /**
+     * The operand of ++ is a variable or an array element, which is not
+     * replaced; only the index of an element is rewritten.
+     * @param node the increment node
+     * @return
+     */
+    public Object visit(UnaryIncrExpr node) {
+        node.getExpr().accept(this);
+        return node;
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        node.getExpr().accept(this);
+        return node;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * @return the rewritten expression, which may be the expression itself
+     */
+    protected Expr rewrite(Expr expr) {
+        if (expr == null) {
+            return null;
+        }
+        Object result = expr.accept(this);
+        return result == null ? expr : (Expr) result;
+    }
+
+    /**
+     * Rewrites both operands of a binary expression.
+     *
+     * @return the expression itself
+     */
+    protected Expr rewriteOperands(BinaryExpr node) {
+        node.setLeftExpr(rewrite(node.getLeftExpr()));
+        node.setRightExpr(rewrite(node.getRightExpr()));
+        return node;
+    }
+
+    /**
+     * Rewrites the body of an if statement or loop, which is replaced
+     * by an empty block if it is removed.
+     */
+    protected Stmt rewriteBody(Stmt body) {
+        Stmt result = (Stmt) body.accept(this);
+        return result != null ? result : new BlockStmt(body.getLineNum(),
+                new StmtList(body.getLineNum()));
+    }
+}
@@ -48,6 +48,9 @@ import proj11HangSlager.bantam.util.CompilationException;
 import proj11HangSlager.bantam.util.Error;
 import proj11HangSlager.bantam.util.ErrorHandler;
 
+import java.io.Reader;
+import java.util.List;
+
 import static proj11HangSlager.bantam.lexer.Token.Kind.*;
 
 
@@ -56,6 +59,8 @@ public class Parser {
     private Scanner scanner;
     private Token currentToken;
     private ErrorHandler errorHandler;
+    private List<Token> tokenLog;
+    private int previousEnd; // the end offset of the last token consumed
 
 
     // constructor
@@ -80,11 +85,36 @@ public class Parser {
 
     // unconditionally fetch the next token
     private void advance() {
+        if (currentToken != null) {
+            previousEnd = currentToken.endOffset;
+        }
         do {
             currentToken = scanner.scan();
+            if (tokenLog != null) {
+                tokenLog.add(currentToken);
+            }
         } while (currentToken.kind == COMMENT);
     }
 
+    /**
+     * Records every token scanned by subsequent parses (comments included)
+     * into the given list, so callers can keep the token stream without
+     * scanning the file a second time.
+     *
+     * @param tokenLog the list to append tokens to, or null to stop recording
+     */
+    public void setTokenLog(List<Token> tokenLog) {
+        this.tokenLog = tokenLog;
+    }
+
+
+    // sets the character offsets of a node to run from startOffset to the
+    // end of the last token consumed, and returns the node
+    private <T extends ASTNode> T span(T node, int startOffset) {
+        node.setOffsets(startOffset, Math.max(startOffset, previousEnd));
+        return node;
+    }
+
 
     //----------------------------------
     //register a SyntaxError and throw a CompilationException to exit from parsing
@@ -110,6 +140,26 @@ public class Parser {
 
         //set up scanner
         scanner = new Scanner(filename, errorHandler);
+        currentToken = null;
+
+        // start scanning and parsing
+        advance();
+        return parseProgram();
+    }
+
+    /**
+     * parse the contents of a file read from a Reader, such as the unsaved
+     * text of an editor, and return the root node of the AST
+     *
+     * @param filename The name of the file, for error messages
+     * @param reader   The reader of the contents of the file
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(String filename, Reader reader) {
+
+        //set up scanner
+        scanner = new Scanner(reader, filename, errorHandler);
+        currentToken = null;
 
         // start scanning and parsing
         advance();
@@ -124,14 +174,16 @@ public class Parser {
     private Program parseProgram() {
 
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         ClassList clist = new ClassList(position);
 
         while (currentToken.kind != EOF) {
             Class_ aClass = parseClass();
             clist.addElement(aClass);
         }
+        span(clist, start);
 
-        return new Program(position, clist);
+        return span(new Program(position, clist), start);
     }
 
     //-----------------------------
@@ -142,6 +194,7 @@ public class Parser {
 
         Class_ aClass;
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         advanceIfMatches(CLASS);
         Token className = currentToken;
@@ -155,6 +208,7 @@ public class Parser {
             parentName = "Object";
         }
 
+        int membersStart = currentToken.startOffset;
         MemberList memberList = new MemberList(currentToken.position);
         advanceIfMatches(LCURLY);
         while (currentToken.kind != RCURLY && currentToken.kind != EOF) {
@@ -162,9 +216,10 @@ public class Parser {
             memberList.addElement(member);
         }
         advanceIfMatches(RCURLY);
+        span(memberList, membersStart);
 
-        aClass = new Class_(position, scanner.getFilename(), className.spelling,
-                parentName, memberList);
+        aClass = span(new Class_(position, scanner.getFilename(), className.spelling,
+                parentName, memberList), start);
         return aClass;
     }
 
@@ -180,6 +235,7 @@ public class Parser {
 
     private Member parseMember() {
         Method method;
+        int start = currentToken.startOffset;
         String type = parseType();
 
         String id = parseIdentifier();
@@ -192,7 +248,7 @@ public class Parser {
             FormalList parameters = parseParameters();
             advanceIfMatches(RPAREN);
             stmt = (BlockStmt) parseBlock();
-            method = new Method(position, type, id, parameters, stmt.getStmtList());
+            method = span(new Method(position, type, id, parameters, stmt.getStmtList()), start);
             return method;
         }
 
@@ -205,7 +261,7 @@ public class Parser {
             }
             advanceIfMatches(SEMICOLON);
 
-            return new Field(position, type, id, init);
+            return span(new Field(position, type, id, init), start);
         }
 
     }
@@ -251,6 +307,7 @@ public class Parser {
     //<WhileStmt>::= WHILE ( <Expression> ) <Stmt>
     private Stmt parseWhile() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         advance(); // past "while"
         advanceIfMatches(LPAREN);
@@ -258,13 +315,14 @@ public class Parser {
         advanceIfMatches(RPAREN);
         Stmt execution = parseStatement();
 
-        return new WhileStmt(position, expression, execution);
+        return span(new WhileStmt(position, expression, execution), start);
     }
 
 
     //<ReturnStmt>::= RETURN <Expression> ; | RETURN ;
     private Stmt parseReturn() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr expr = null;
 
         advance(); // accept the RETURN token
@@ -274,25 +332,27 @@ public class Parser {
         }
         advanceIfMatches(SEMICOLON);
 
-        return new ReturnStmt(position, expr);
+        return span(new ReturnStmt(position, expr), start);
     }
 
 
     //<BreakStmt>::= BREAK ;
     private Stmt parseBreak() {
+        int start = currentToken.startOffset;
         Stmt stmt = new BreakStmt(currentToken.position);
         advance();
         advanceIfMatches(SEMICOLON);
-        return stmt;
+        return span(stmt, start);
     }
 
 
     //<ExpressionStmt>::= <Expression> ;
     private ExprStmt parseExpressionStmt() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr expr = parseExpression();
         advanceIfMatches(SEMICOLON);
-        return new ExprStmt(position, expr);
+        return span(new ExprStmt(position, expr), start);
     }
 
 
@@ -301,6 +361,7 @@ public class Parser {
     private Stmt parseDeclStmt() {
 
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Stmt stmt;
         advance(); // the keyword var
 
@@ -311,7 +372,7 @@ public class Parser {
         stmt = new DeclStmt(position, id, value);
         advanceIfMatches(SEMICOLON);
 
-        return stmt;
+        return span(stmt, start);
     }
 
 
@@ -322,6 +383,7 @@ public class Parser {
     private Stmt parseFor() {
 
         int position = currentToken.position;
+        int startOffset = currentToken.startOffset;
         Expr start = null;
         Expr terminate = null;
         Expr increment = null;
@@ -348,7 +410,7 @@ public class Parser {
 
         execute = parseStatement();
 
-        return new ForStmt(position, start, terminate, increment, execute);
+        return span(new ForStmt(position, start, terminate, increment, execute), startOffset);
     }
 
 
@@ -357,6 +419,7 @@ public class Parser {
     private Stmt parseBlock() {
 
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         StmtList stmtList = new StmtList(position);
         advanceIfMatches(LCURLY);
 
@@ -364,8 +427,9 @@ public class Parser {
             stmtList.addElement(parseStatement());
         }
         advanceIfMatches(RCURLY);
+        span(stmtList, start);
 
-        return new BlockStmt(position, stmtList);
+        return span(new BlockStmt(position, stmtList), start);
     }
 
 
@@ -373,6 +437,7 @@ public class Parser {
     private Stmt parseIf() {
 
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr condition;
         Stmt thenStmt;
         Stmt elseStmt = null;
@@ -388,7 +453,7 @@ public class Parser {
             elseStmt = parseStatement();
         }
 
-        return new IfStmt(position, condition, thenStmt, elseStmt);
+        return span(new IfStmt(position, condition, thenStmt, elseStmt), start);
     }
 
 
@@ -401,6 +466,7 @@ public class Parser {
     private Expr parseExpression() {
         Expr left;
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         left = parseOrExpr();
         if (currentToken.kind == ASSIGN && left instanceof VarExpr) {
@@ -410,7 +476,7 @@ public class Parser {
             String lhsName = lhs.getName();
             String lhsRef = (lhs.getRef() == null ? null :
                     ((VarExpr) lhs.getRef()).getName());
-            left = new AssignExpr(position, lhsRef, lhsName, right);
+            left = span(new AssignExpr(position, lhsRef, lhsName, right), start);
         }
         else if (currentToken.kind == ASSIGN && left instanceof ArrayExpr) {
             advance();
@@ -420,7 +486,7 @@ public class Parser {
             String lhsRef = (lhs.getRef() == null ? null :
                     ((VarExpr) lhs.getRef()).getName());
             Expr index = lhs.getIndex();
-            left = new ArrayAssignExpr(position, lhsRef, lhsName, index, right);
+            left = span(new ArrayAssignExpr(position, lhsRef, lhsName, index, right), start);
         }
 
         return left;
@@ -431,13 +497,14 @@ public class Parser {
     //<LogicalORRest>::= || <LogicalAND> <LogicalORRest> | EMPTY
     private Expr parseOrExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left;
 
         left = parseAndExpr();
         while (currentToken.spelling.equals("||")) {
             advance();
             Expr right = parseAndExpr();
-            left = new BinaryLogicOrExpr(position, left, right);
+            left = span(new BinaryLogicOrExpr(position, left, right), start);
         }
 
         return left;
@@ -448,11 +515,12 @@ public class Parser {
     //<LogicalANDRest>::= && <ComparisonExpr> <LogicalANDRest> | EMPTY
     private Expr parseAndExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left = parseComparisonExpr();
         while (currentToken.spelling.equals("&&")) {
             advance();
             Expr right = parseComparisonExpr();
-            left = new BinaryLogicAndExpr(position, left, right);
+            left = span(new BinaryLogicAndExpr(position, left, right), start);
         }
 
         return left;
@@ -464,17 +532,18 @@ public class Parser {
     //<EqualOrNotEqual>::=   == | !=
     private Expr parseComparisonExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left = parseRelationalExpr();
 
         if (currentToken.spelling.equals("==")) {
             advance();
             Expr right = parseRelationalExpr();
-            left = new BinaryCompEqExpr(position, left, right);
+            left = span(new BinaryCompEqExpr(position, left, right), start);
         }
         else if (currentToken.spelling.equals("!=")) {
             advance();
             Expr right = parseRelationalExpr();
-            left = new BinaryCompNeExpr(position, left, right);
+            left = span(new BinaryCompNeExpr(position, left, right), start);
         }
 
         return left;
@@ -485,6 +554,7 @@ public class Parser {
     //<ComparisonOp>::= < | > | <= | >= | INSTANCEOF
     private Expr parseRelationalExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left, right;
 
         left = parseAddExpr();
@@ -492,23 +562,23 @@ public class Parser {
             case "<":
                 advance();
                 right = parseAddExpr();
-                return new BinaryCompLtExpr(position, left, right);
+                return span(new BinaryCompLtExpr(position, left, right), start);
             case "<=":
                 advance();
                 right = parseAddExpr();
-                return new BinaryCompLeqExpr(position, left, right);
+                return span(new BinaryCompLeqExpr(position, left, right), start);
             case ">":
                 advance();
                 right = parseAddExpr();
-                return new BinaryCompGtExpr(position, left, right);
+                return span(new BinaryCompGtExpr(position, left, right), start);
             case ">=":
                 advance();
                 right = parseAddExpr();
-                return new BinaryCompGeqExpr(position, left, right);
+                return span(new BinaryCompGeqExpr(position, left, right), start);
             case "instanceof":
                 advance();
                 String type = parseType();
-                return new InstanceofExpr(position, left, type);
+                return span(new InstanceofExpr(position, left, type), start);
         }
 
         return left;
@@ -519,18 +589,19 @@ public class Parser {
     //<MoreMult>::= + <MultExpr> <MoreMult> | - <MultiExpr> <MoreMult> | EMPTY
     private Expr parseAddExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left = parseMultExpr();
 
         while (currentToken.kind == PLUSMINUS) {
             if (currentToken.spelling.equals("+")) {
                 advance();
                 Expr right = parseMultExpr();
-                left = new BinaryArithPlusExpr(position, left, right);
+                left = span(new BinaryArithPlusExpr(position, left, right), start);
             }
             else {
                 advance();
                 Expr right = parseMultExpr();
-                left = new BinaryArithMinusExpr(position, left, right);
+                left = span(new BinaryArithMinusExpr(position, left, right), start);
             }
         }
 
@@ -545,6 +616,7 @@ public class Parser {
     //             EMPTY
     private Expr parseMultExpr() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Expr left, right;
 
 
@@ -554,17 +626,17 @@ public class Parser {
                 case "/":
                     advance();
                     right = parseNewCastOrUnary();
-                    left = new BinaryArithDivideExpr(position, left, right);
+                    left = span(new BinaryArithDivideExpr(position, left, right), start);
                     break;
                 case "*":
                     advance();
                     right = parseNewCastOrUnary();
-                    left = new BinaryArithTimesExpr(position, left, right);
+                    left = span(new BinaryArithTimesExpr(position, left, right), start);
                     break;
                 case "%":
                     advance();
                     right = parseNewCastOrUnary();
-                    left = new BinaryArithModulusExpr(position, left, right);
+                    left = span(new BinaryArithModulusExpr(position, left, right), start);
                     break;
             }
         }
@@ -594,19 +666,20 @@ public class Parser {
     //<NewExpression>::= NEW <Identifier>() | NEW <Identifier> [ <Expression> ]
     private Expr parseNew() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         advance();
 
         String type = parseIdentifier();
         if (currentToken.kind == LPAREN) {
             advance();
             advanceIfMatches(RPAREN);
-            return new NewExpr(position, type);
+            return span(new NewExpr(position, type), start);
         }
         else {
             advanceIfMatches(LBRACKET);
             Expr sizeExpr = parseExpression();
             advanceIfMatches(RBRACKET);
-            return new NewArrayExpr(position, type, sizeExpr);
+            return span(new NewArrayExpr(position, type, sizeExpr), start);
         }
     }
 
@@ -616,6 +689,7 @@ public class Parser {
 
         Expr castExpression;
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         advance();
 
         advanceIfMatches(LPAREN);
@@ -624,7 +698,7 @@ public class Parser {
         Expr expression = parseExpression();
         advanceIfMatches(RPAREN);
 
-        castExpression = new CastExpr(position, type, expression);
+        castExpression = span(new CastExpr(position, type, expression), start);
         return castExpression;
     }
 
@@ -633,23 +707,24 @@ public class Parser {
     //<PrefixOp>::= - | ! | ++ | --
     private Expr parseUnaryPrefix() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         Token.Kind kind = currentToken.kind;
 
         if (currentToken.spelling.equals("-") || kind == UNARYDECR || kind == UNARYINCR || kind == UNARYNOT) {
             advance();
             Expr expr = parseUnaryPrefix();
             if (kind == PLUSMINUS) {
-                return new UnaryNegExpr(position, expr);
+                return span(new UnaryNegExpr(position, expr), start);
             }
             else if (kind == UNARYDECR) {
-                return new UnaryDecrExpr(position, expr, false);
+                return span(new UnaryDecrExpr(position, expr, false), start);
             }
             else if (kind == UNARYINCR) {
-                return new UnaryIncrExpr(position, expr, false);
+                return span(new UnaryIncrExpr(position, expr, false), start);
             }
             else // kind == UNARYNOT
             {
-                return new UnaryNotExpr(position, expr);
+                return span(new UnaryNotExpr(position, expr), start);
             }
         }
         else {
@@ -665,14 +740,15 @@ public class Parser {
 
         Expr unary;
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         unary = parsePrimary();
         if (currentToken.kind == UNARYINCR) {
-            unary = new UnaryIncrExpr(position, unary, true);
             advance();
+            unary = span(new UnaryIncrExpr(position, unary, true), start);
         }
         else if (currentToken.kind == UNARYDECR) {
-            unary = new UnaryDecrExpr(position, unary, true);
             advance();
+            unary = span(new UnaryDecrExpr(position, unary, true), start);
         }
 
         return unary;
@@ -693,6 +769,7 @@ public class Parser {
         Expr tempPrimExpr=null;
         String id;
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         if(currentToken.kind.equals(INTCONST)){
             return parseIntConst();
@@ -708,6 +785,7 @@ public class Parser {
         }
 
         else if(currentToken.kind.equals(LPAREN)){
+            advance();
             tempPrimExpr = parseExpression();
             advanceIfMatches(RPAREN);
         }
@@ -717,19 +795,21 @@ public class Parser {
             id = parseIdentifier();
 
             if(currentToken.kind.equals(LPAREN)){
+                advance();
                 ExprList args = parseArguments();
                 advanceIfMatches(RPAREN);
-                tempPrimExpr = new DispatchExpr(position,null,id, args );
+                tempPrimExpr = span(new DispatchExpr(position,null,id, args ), start);
 
             }
             else if(currentToken.kind.equals(LBRACKET)){
+                advance();
                 Expr expr = parseExpression();
                 advanceIfMatches(RBRACKET);
-                tempPrimExpr = new ArrayExpr(position,null,id, expr);
+                tempPrimExpr = span(new ArrayExpr(position,null,id, expr), start);
             }
             else{
 
-                tempPrimExpr = new VarExpr(position,null, id);
+                tempPrimExpr = span(new VarExpr(position,null, id), start);
             }
 
         }
@@ -740,18 +820,20 @@ public class Parser {
             id = parseIdentifier();
 
             if(currentToken.kind.equals(LPAREN)){
+                advance();
                 ExprList args = parseArguments();
                 advanceIfMatches(RPAREN);
-                tempPrimExpr = new DispatchExpr(position,tempPrimExpr,id, args );
+                tempPrimExpr = span(new DispatchExpr(position,tempPrimExpr,id, args ), start);
 
             }
             else if(currentToken.kind.equals(LBRACKET)){
+                advance();
                 Expr expr = parseExpression();
                 advanceIfMatches(RBRACKET);
-                tempPrimExpr = new ArrayExpr(position,tempPrimExpr,id, expr);
+                tempPrimExpr = span(new ArrayExpr(position,tempPrimExpr,id, expr), start);
             }
             else{
-                tempPrimExpr = new VarExpr(position,tempPrimExpr, id);
+                tempPrimExpr = span(new VarExpr(position,tempPrimExpr, id), start);
             }
 
 
@@ -765,11 +847,12 @@ public class Parser {
     //<MoreArgs> ::= EMPTY | , <Expression> <MoreArgs>
     private ExprList parseArguments() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         ExprList ar = new ExprList(position);
 
         if (currentToken.kind == RPAREN) {
-            return ar;
+            return span(ar, start);
         }
         else {
             ar.addElement(parseExpression());
@@ -779,7 +862,7 @@ public class Parser {
             }
         }
 
-        return ar;
+        return span(ar, start);
     }
 
 
@@ -788,11 +871,12 @@ public class Parser {
     //<MoreFormals> ::= EMPTY | , <Formal> <MoreFormals
     private FormalList parseParameters() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
 
         FormalList parameters = new FormalList(position);
 
         if (currentToken.kind == RPAREN) {
-            return parameters;
+            return span(parameters, start);
         }
         else {
             parameters.addElement(parseFormal());
@@ -802,13 +886,14 @@ public class Parser {
             }
         }
 
-        return parameters;
+        return span(parameters, start);
     }
 
 
     //<Formal> ::= <Type> <Identifier>
     private Formal parseFormal() {
-        return new Formal(currentToken.position, parseType(), parseIdentifier());
+        int start = currentToken.startOffset;
+        return span(new Formal(currentToken.position, parseType(), parseIdentifier()), start);
     }
 
 
@@ -847,26 +932,29 @@ public class Parser {
 
     private ConstStringExpr parseStringConst() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         String spelling = currentToken.spelling;
         advanceIfMatches(STRCONST);
-        return new ConstStringExpr(position, spelling);
+        return span(new ConstStringExpr(position, spelling), start);
     }
 
 
     private ConstIntExpr parseIntConst() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         String spelling = currentToken.spelling;
         advanceIfMatches(INTCONST);
 
-        return new ConstIntExpr(position, spelling);
+        return span(new ConstIntExpr(position, spelling), start);
     }
 
 
     private ConstBooleanExpr parseBoolean() {
         int position = currentToken.position;
+        int start = currentToken.startOffset;
         String spelling = currentToken.spelling;
         advanceIfMatches(BOOLEAN);
-        return new ConstBooleanExpr(position, spelling);
+        return span(new ConstBooleanExpr(position, spelling), start);
     }
 
 
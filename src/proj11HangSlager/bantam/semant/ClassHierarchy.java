@@ -0,0 +1,271 @@
+/*
+ * File: ClassHierarchy.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 26, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.ASTNode;
+import proj11HangSlager.bantam.ast.ClassList;
+import proj11HangSlager.bantam.ast.Class_;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The inheritance tree of a program's classes, rooted at Object.
+ *
+ * Building the tree reports classes that extend an unknown class and
+ * classes that are part of an inheritance cycle; both are then treated
+ * as direct subclasses of Object so later passes always see a tree.
+ *
+ * Every class is numbered in a pre-order and a post-order walk of the
+ * tree. A class is a subclass of another exactly when its pre-order
+ * number is not smaller and its post-order number is not larger, so
+ * subtype tests are two integer comparisons regardless of how deep the
+ * hierarchy is.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-26-19
+ */
+public class ClassHierarchy {
+
+    /**
+     * The built-in classes and their parents
+     */
+    private static final String[][] BUILT_INS = {
+            {"Object", null}, {"String", "Object"}, {"TextIO", "Object"}, {"Sys", "Object"}
+    };
+
+    private Map<String, Integer> ids = new HashMap<>();
+    private List<String> names = new ArrayList<>();
+    private List<Class_> nodes = new ArrayList<>();
+    private int[] parents;
+    private int[] preOrder;
+    private int[] postOrder;
+    private int[] depths;
+    private int[][] children;
+    private boolean hasCycles = false;
+
+    /**
+     * Builds the hierarchy of the built-in classes and the given classes.
+     * If a class is defined more than once its first definition is used.
+     *
+     * @param classList    the classes of a program
+     * @param errorHandler the handler semantic errors are reported to
+     */
+    public ClassHierarchy(ClassList classList, ErrorHandler errorHandler) {
+        for (String[] builtIn : BUILT_INS) {
+            addClass(builtIn[0], null);
+        }
+        for (ASTNode node : classList) {
+            Class_ aClass = (Class_) node;
+            if (!ids.containsKey(aClass.getName())) {
+                addClass(aClass.getName(), aClass);
+            }
+        }
+
+        int numClasses = names.size();
+        parents = new int[numClasses];
+        parents[0] = -1;
+        for (int id = 1; id < numClasses; id++) {
+            String parent = nodes.get(id) == null ? BUILT_INS[id][1] : nodes.get(id).getParent();
+            Integer parentId = ids.get(parent);
+            if (parentId == null) {
+                error(errorHandler, nodes.get(id), "Class " + names.get(id)
+                        + " extends unknown class " + parent + ".");
+                parentId = 0;
+            }
+            parents[id] = parentId;
+        }
+        breakCycles(errorHandler);
+        number();
+    }
+
+    /**
+     * @param className a name
+     * @return whether the hierarchy contains a class of that name
+     */
+    public boolean contains(String className) {
+        return className != null && ids.containsKey(className);
+    }
+
+    /**
+     * @return the number of classes, built-in classes included
+     */
+    public int getNumClasses() {
+        return names.size();
+    }
+
+    /**
+     * @return whether some classes had to be detached from an inheritance cycle
+     */
+    public boolean hasCycles() {
+        return hasCycles;
+    }
+
+    /**
+     * @param className a class name
+     * @return the name of its parent in the (cycle free) hierarchy,
+     * or null for Object and unknown classes
+     */
+    public String getParent(String className) {
+        Integer id = ids.get(className);
+        return id == null || parents[id] < 0 ? null : names.get(parents[id]);
+    }
+
+    /**
+     * @param className a class name
+     * @return the names of its direct subclasses
+     */
+    public List<String> getChildren(String className) {
+        Integer id = ids.get(className);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        List<String> childNames = new ArrayList<>(children[id].length);
+        for (int child : children[id]) {
+            childNames.add(names.get(child));
+        }
+        return childNames;
+    }
+
+    /**
+     * @param className a class name
+     * @return the number of ancestors of the class (0 for Object),
+     * or -1 for unknown classes
+     */
+    public int getDepth(String className) {
+        Integer id = ids.get(className);
+        return id == null ? -1 : depths[id];
+    }
+
+    /**
+     * @return the names of all classes, each before its subclasses
+     */
+    public List<String> getClassNames() {
+        String[] ordered = new String[names.size()];
+        for (int id = 0; id < ordered.length; id++) {
+            ordered[preOrder[id]] = names.get(id);
+        }
+        return Arrays.asList(ordered);
+    }
+
+    /**
+     * Tests whether one class is the same as or a subclass of another.
+     *
+     * @param subClass   the name of the candidate subclass
+     * @param superClass the name of the candidate superclass
+     * @return false if either class is unknown
+     */
+    public boolean isSubclass(String subClass, String superClass) {
+        Integer sub = ids.get(subClass);
+        Integer sup = ids.get(superClass);
+        return sub != null && sup != null
+                && preOrder[sup] <= preOrder[sub] && postOrder[sub] <= postOrder[sup];
+    }
+
+    //-------- auxiliary methods ---------
+
+    private void addClass(String name, Class_ node) {
+        ids.put(name, names.size());
+        names.add(name);
+        nodes.add(node);
+    }
+
+    /**
+     * Follows the parent links from every class, marking the classes on
+     * the current path; reaching a marked class means the path closed a
+     * cycle, and every class on it is moved under Object.
+     */
+    private void breakCycles(ErrorHandler errorHandler) {
+        int numClasses = names.size();
+        // 0 = not seen, 1 = on the current path, 2 = known to reach Object
+        byte[] state = new byte[numClasses];
+        int[] path = new int[numClasses];
+        state[0] = 2;
+        for (int start = 1; start < numClasses; start++) {
+            int length = 0;
+            int id = start;
+            while (state[id] == 0) {
+                state[id] = 1;
+                path[length++] = id;
+                id = parents[id];
+            }
+            if (state[id] == 1) {
+                hasCycles = true;
+                int cycleStart = id;
+                do {
+                    int next = parents[id];
+                    error(errorHandler, nodes.get(id), "Class " + names.get(id)
+                            + " is part of an inheritance cycle.");
+                    parents[id] = 0;
+                    id = next;
+                } while (id != cycleStart);
+            }
+            while (length > 0) {
+                state[path[--length]] = 2;
+            }
+        }
+    }
+
+    /**
+     * Builds the child arrays and numbers the tree with an explicit
+     * stack, so deep hierarchies cannot overflow the call stack.
+     */
+    private void number() {
+        int numClasses = names.size();
+        int[] numChildren = new int[numClasses];
+        for (int id = 1; id < numClasses; id++) {
+            numChildren[parents[id]]++;
+        }
+        children = new int[numClasses][];
+        for (int id = 0; id < numClasses; id++) {
+            children[id] = new int[numChildren[id]];
+            numChildren[id] = 0;
+        }
+        for (int id = 1; id < numClasses; id++) {
+            int parent = parents[id];
+            children[parent][numChildren[parent]++] = id;
+        }
+
+        preOrder = new int[numClasses];
+        postOrder = new int[numClasses];
+        depths = new int[numClasses];
+        int[] stack = new int[numClasses];
+        int[] nextChild = new int[numClasses];
+        int top = 0;
+        int pre = 0;
+        int post = 0;
+        stack[top++] = 0;
+        preOrder[0] = pre++;
+        while (top > 0) {
+            int id = stack[top - 1];
+            if (nextChild[id] < children[id].length) {
+                int child = children[id][nextChild[id]++];
+                depths[child] = depths[id] + 1;
+                preOrder[child] = pre++;
+                stack[top++] = child;
+            }
+            else {
+                postOrder[id] = post++;
+                top--;
+            }
+        }
+    }
+
+    private static void error(ErrorHandler errorHandler, Class_ node, String message) {
+        errorHandler.register(Error.Kind.SEMANT_ERROR, node.getFilename(),
+                node.getLineNum(), message);
+    }
+}
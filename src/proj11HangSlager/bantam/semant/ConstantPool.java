@@ -0,0 +1,118 @@
+/*
+ * File: ConstantPool.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 22, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.ConstStringExpr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A deduplicated pool of the string constants of a program.
+ *
+ * Every distinct literal value gets a compact int id; ids are assigned
+ * in order of first occurrence, so they are stable for a given program.
+ * The pool can be read as a value-to-id map or as an id-indexed array,
+ * and it remembers every ConstStringExpr that uses each id so that code
+ * generators can look up the id of a node in constant time.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-22-19
+ */
+public class ConstantPool {
+
+    private Map<String, Integer> ids = new HashMap<>();
+    private List<String> constants = new ArrayList<>();
+    private List<List<ConstStringExpr>> useSites = new ArrayList<>();
+    private Map<ConstStringExpr, Integer> nodeIds = new IdentityHashMap<>();
+
+    /**
+     * Adds a use of a string constant to the pool.
+     *
+     * @param node the string constant expression
+     * @return the id of its value
+     */
+    public int add(ConstStringExpr node) {
+        String value = node.getConstant();
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = constants.size();
+            ids.put(value, id);
+            constants.add(value);
+            useSites.add(new ArrayList<>());
+        }
+        useSites.get(id).add(node);
+        nodeIds.put(node, id);
+        return id;
+    }
+
+    /**
+     * @return the number of distinct constants
+     */
+    public int size() {
+        return constants.size();
+    }
+
+    /**
+     * @param value a constant value, including its quotes
+     * @return the id of the value, or -1 if it is not in the pool
+     */
+    public int getId(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param node a string constant expression added to this pool
+     * @return the id of its value, or -1 if the node was never added
+     */
+    public int getId(ConstStringExpr node) {
+        Integer id = nodeIds.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id a constant id
+     * @return the value with that id
+     */
+    public String getConstant(int id) {
+        return constants.get(id);
+    }
+
+    /**
+     * @param id a constant id
+     * @return every expression using the value with that id, in program order
+     */
+    public List<ConstStringExpr> getUseSites(int id) {
+        return Collections.unmodifiableList(useSites.get(id));
+    }
+
+    /**
+     * @return an unmodifiable view of the value-to-id map
+     */
+    public Map<String, Integer> getIds() {
+        return Collections.unmodifiableMap(ids);
+    }
+
+    /**
+     * @return a new array holding the value of each id at that index
+     */
+    public String[] toArray() {
+        return constants.toArray(new String[0]);
+    }
+
+    public String toString() {
+        return constants.toString();
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * File: NameResolutionVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 25, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.function.IntConsumer;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * visit every node of a program AST and resolve every name
+ * it uses to a symbol in a SymbolTable.
+ *
+ * Formals and locals live in a ScopeTable whose scopes follow
+ * blocks, if branches and loop bodies. Unqualified names are looked
+ * up among the locals first and then among the fields of the current
+ * class and its ancestors; "this." and "super." names only among the
+ * fields. Method calls are resolved against the static class of their
+ * receiver when it can be determined from names alone.
+ *
+ * The id of each resolved symbol is stored in the VarExpr, AssignExpr,
+ * ArrayExpr, ArrayAssignExpr, DispatchExpr or DeclStmt that uses it,
+ * so later passes never look a name up again. Locals are also given
+ * frame slots, which are reused once a local goes out of scope; a
+ * method's frame size is the number of formals plus the most locals
+ * live at once. Undeclared variables are reported as semantic errors.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-25-19
+ */
+public class NameResolutionVisitor extends Visitor {
+
+    private SymbolTable symbolTable;
+    private ErrorHandler errorHandler;
+    private ScopeTable locals = new ScopeTable();
+    private Class_ currentClass;
+    private Symbol currentMethod;
+    private int nextSlot;
+    private int maxSlot;
+
+    /**
+     * Builds the symbol table of a program and resolves all names in it.
+     *
+     * @param ast          the program
+     * @param errorHandler the handler semantic errors are reported to
+     * @return the symbol table the symbol ids in the AST refer to
+     */
+    public SymbolTable resolve(Program ast, ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+        symbolTable = new SymbolTable(ast, errorHandler);
+        ast.accept(this);
+        return symbolTable;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a class node.
+     *
+     * @param node the class node
+     * @return
+     */
+    public Object visit(Class_ node) {
+        if (symbolTable.getClassNode(node.getName()) != node) {
+            // a duplicate definition, already reported
+            return null;
+        }
+        currentClass = node;
+        super.visit(node);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a Method node.
+     *
+     * The formals take the first frame slots, in order.
+     *
+     * @param node the method node
+     * @return
+     */
+    public Object visit(Method node) {
+        currentMethod = null;
+        for (Symbol method : symbolTable.getMethods(currentClass.getName())) {
+            if (method.getDecl() == node) {
+                currentMethod = method;
+            }
+        }
+        if (currentMethod == null) {
+            // a duplicate definition, already reported
+            return null;
+        }
+        locals.clear();
+        locals.enterScope();
+        nextSlot = maxSlot = 0;
+        for (ASTNode child : node.getFormalList()) {
+            Formal formal = (Formal) child;
+            Symbol symbol = symbolTable.newSymbol(Symbol.Kind.FORMAL, formal.getName(),
+                    formal.getType(), currentMethod, formal);
+            if (!locals.add(symbol)) {
+                error(formal.getLineNum(), "Formal " + formal.getName()
+                        + " is already defined in method " + node.getName() + ".");
+            }
+            symbol.setSlot(nextSlot++);
+        }
+        maxSlot = nextSlot;
+        node.getStmtList().accept(this);
+        locals.exitScope();
+        currentMethod.setFrameSize(maxSlot);
+        currentMethod = null;
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a declaration statement node.
+     *
+     * The initializer is resolved before the new local is in scope.
+     * The local's type is the static type of its initializer, if known.
+     *
+     * @param node the declaration statement node
+     * @return
+     */
+    public Object visit(DeclStmt node) {
+        node.getInit().accept(this);
+        String type = node.getType() != null ? node.getType() : staticTypeOf(node.getInit());
+        Symbol symbol = symbolTable.newSymbol(Symbol.Kind.LOCAL, node.getName(), type,
+                currentMethod, node);
+        if (!locals.add(symbol)) {
+            error(node.getLineNum(), "Variable " + node.getName() + " is already defined.");
+        }
+        symbol.setSlot(nextSlot++);
+        maxSlot = Math.max(maxSlot, nextSlot);
+        node.setSymbolId(symbol.getId());
+        return null;
+    }
+
+    /**
+     * Locals declared in a block go out of scope at its end.
+     * @param node the block statement node
+     * @return
+     */
+    public Object visit(BlockStmt node) {
+        visitScoped(node);
+        return null;
+    }
+
+    /**
+     * The branches of an if statement are separate scopes.
+     * @param node the if statement node
+     * @return
+     */
+    public Object visit(IfStmt node) {
+        node.getPredExpr().accept(this);
+        visitScoped(node.getThenStmt());
+        if (node.getElseStmt() != null) {
+            visitScoped(node.getElseStmt());
+        }
+        return null;
+    }
+
+    /**
+     * The body of a while loop is a separate scope.
+     * @param node the while statement node
+     * @return
+     */
+    public Object visit(WhileStmt node) {
+        node.getPredExpr().accept(this);
+        visitScoped(node.getBodyStmt());
+        return null;
+    }
+
+    /**
+     * The body of a for loop is a separate scope.
+     * @param node the for statement node
+     * @return
+     */
+    public Object visit(ForStmt node) {
+        if (node.getInitExpr() != null) {
+            node.getInitExpr().accept(this);
+        }
+        if (node.getPredExpr() != null) {
+            node.getPredExpr().accept(this);
+        }
+        if (node.getUpdateExpr() != null) {
+            node.getUpdateExpr().accept(this);
+        }
+        visitScoped(node.getBodyStmt());
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a variable expression node.
+     *
+     * "this", "super" and "null" name no symbol, and neither does
+     * the length of an array ("a.length").
+     *
+     * @param node the variable expression node
+     * @return
+     */
+    public Object visit(VarExpr node) {
+        Expr ref = node.getRef();
+        if (ref == null) {
+            String name = node.getName();
+            if (!name.equals("this") && !name.equals("super") && !name.equals("null")) {
+                resolveVariable(node.getLineNum(), null, name, node::setSymbolId);
+            }
+        }
+        else if (isThisOrSuper(ref)) {
+            resolveVariable(node.getLineNum(), ((VarExpr) ref).getName(), node.getName(),
+                    node::setSymbolId);
+        }
+        else {
+            ref.accept(this);
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an array expression node.
+     *
+     * @param node the array expression node
+     * @return
+     */
+    public Object visit(ArrayExpr node) {
+        Expr ref = node.getRef();
+        String refName = isThisOrSuper(ref) ? ((VarExpr) ref).getName() : null;
+        resolveVariable(node.getLineNum(), refName, node.getName(), node::setSymbolId);
+        node.getIndex().accept(this);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an assignment expression node.
+     *
+     * @param node the assignment expression node
+     * @return
+     */
+    public Object visit(AssignExpr node) {
+        node.getExpr().accept(this);
+        resolveVariable(node.getLineNum(), node.getRefName(), node.getName(),
+                node::setSymbolId);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an array assignment expression node.
+     *
+     * @param node the array assignment expression node
+     * @return
+     */
+    public Object visit(ArrayAssignExpr node) {
+        node.getIndex().accept(this);
+        node.getExpr().accept(this);
+        resolveVariable(node.getLineNum(), node.getRefName(), node.getName(),
+                node::setSymbolId);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a dispatch expression node.
+     *
+     * The method is looked up in the static class of the receiver;
+     * calls on receivers whose class is not known from names alone,
+     * and calls of undefined methods, are left for the type checker.
+     *
+     * @param node the dispatch expression node
+     * @return
+     */
+    public Object visit(DispatchExpr node) {
+        super.visit(node);
+        String className = staticTypeOf(node.getRefExpr());
+        if (className == null || !symbolTable.isClass(className)) {
+            return null;
+        }
+        Symbol method = symbolTable.lookupMethod(className, node.getMethodName());
+        if (method != null) {
+            node.setSymbolId(method.getId());
+        }
+        return null;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Visits a statement and then drops the locals it declared,
+     * freeing their slots for reuse.
+     */
+    private void visitScoped(Stmt stmt) {
+        int slotBefore = nextSlot;
+        locals.enterScope();
+        if (stmt instanceof BlockStmt) {
+            ((BlockStmt) stmt).getStmtList().accept(this);
+        }
+        else {
+            stmt.accept(this);
+        }
+        locals.exitScope();
+        nextSlot = slotBefore;
+    }
+
+    /**
+     * Resolves a (possibly "this." or "super." qualified) variable name
+     * and passes the id of its symbol on.
+     */
+    private void resolveVariable(int lineNum, String refName, String name,
+                                 IntConsumer setSymbolId) {
+        Symbol symbol = null;
+        if (refName == null) {
+            symbol = locals.lookup(name);
+            if (symbol == null) {
+                symbol = symbolTable.lookupField(currentClass.getName(), name);
+            }
+        }
+        else if (refName.equals("this")) {
+            symbol = symbolTable.lookupField(currentClass.getName(), name);
+        }
+        else if (refName.equals("super")) {
+            symbol = symbolTable.lookupField(symbolTable.getParent(currentClass.getName()), name);
+        }
+        if (symbol == null) {
+            error(lineNum, "Variable " + (refName == null ? "" : refName + ".") + name
+                    + " is not declared.");
+        }
+        else {
+            setSymbolId.accept(symbol.getId());
+        }
+    }
+
+    /**
+     * Determines the type of an expression without type checking.
+     *
+     * @param expr a receiver expression, null for an implicit "this"
+     * @return the type name, or null if it cannot be determined from names alone
+     */
+    private String staticTypeOf(Expr expr) {
+        if (expr == null) {
+            return currentClass.getName();
+        }
+        if (expr instanceof VarExpr) {
+            VarExpr varExpr = (VarExpr) expr;
+            if (varExpr.getRef() == null && varExpr.getName().equals("this")) {
+                return currentClass.getName();
+            }
+            if (varExpr.getRef() == null && varExpr.getName().equals("super")) {
+                return symbolTable.getParent(currentClass.getName());
+            }
+            return varExpr.getSymbolId() < 0 ? null
+                    : symbolTable.getSymbol(varExpr.getSymbolId()).getType();
+        }
+        if (expr instanceof NewExpr) {
+            return ((NewExpr) expr).getType();
+        }
+        if (expr instanceof CastExpr) {
+            return ((CastExpr) expr).getType();
+        }
+        if (expr instanceof ConstStringExpr) {
+            return "String";
+        }
+        if (expr instanceof DispatchExpr) {
+            DispatchExpr dispatchExpr = (DispatchExpr) expr;
+            return dispatchExpr.getSymbolId() < 0 ? null
+                    : symbolTable.getSymbol(dispatchExpr.getSymbolId()).getType();
+        }
+        return null;
+    }
+
+    private static boolean isThisOrSuper(Expr expr) {
+        if (!(expr instanceof VarExpr) || ((VarExpr) expr).getRef() != null) {
+            return false;
+        }
+        String name = ((VarExpr) expr).getName();
+        return name.equals("this") || name.equals("super");
+    }
+
+    private void error(int lineNum, String message) {
+        errorHandler.register(Error.Kind.SEMANT_ERROR, currentClass.getFilename(), lineNum, message);
+    }
+}
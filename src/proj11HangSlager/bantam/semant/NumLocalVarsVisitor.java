@@ -8,101 +8,221 @@
 
 package proj11HangSlager.bantam.semant;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 import proj11HangSlager.bantam.ast.*;
-import proj11HangSlager.bantam.visitor.Visitor;
+import proj11HangSlager.bantam.visitor.ParallelVisitor;
 
 /**
  * This Visitor class uses the Visitor pattern to
  * visit every node of a program AST, but specifically captures
  * the number of local variables in every method.
  *
+ * Each method is counted in a single pass that also tracks
+ * which locals are in scope, so besides the number of declared
+ * locals it reports the maximum number of locals that are live
+ * at the same time -- the number of local slots a stack frame
+ * for the method needs. Formal parameters are not counted.
+ *
+ * The methods of the program are visited in parallel and the
+ * per-method results are merged into a single map keyed by
+ * "ClassName.methodName".
  *
  * @author  Jackie Hang, Kyle Slager
- * @version 1.0
+ * @version 2.0
  * @since   2-13-19
  */
-public class NumLocalVarsVisitor extends Visitor{
+public class NumLocalVarsVisitor extends ParallelVisitor<Map<String,NumLocalVarsVisitor.LocalVars>> {
+
+    /**
+     * The local variable counts of one method
+     */
+    public static class LocalVars {
+        private final int numDeclared;
+        private final int maxLive;
+
+        LocalVars(int numDeclared, int maxLive) {
+            this.numDeclared = numDeclared;
+            this.maxLive = maxLive;
+        }
+
+        /**
+         * @return the number of local variables declared in the method
+         */
+        public int getNumDeclared() {
+            return numDeclared;
+        }
 
-    private ArrayList<Integer> numVars = new ArrayList<>();
-    private ArrayList<String> methodNames = new ArrayList<>();
-    private int numCurVars = 0;
+        /**
+         * @return the maximum number of locals in scope at the same time
+         */
+        public int getMaxLive() {
+            return maxLive;
+        }
+
+        public String toString() {
+            return numDeclared + " (max " + maxLive + " live)";
+        }
+    }
+
+    private Map<String,LocalVars> localVarsMap = new HashMap<>();
+    private int numDeclared = 0;
+    private int numLive = 0;
+    private int maxLive = 0;
+
+    /**
+     * Creates a map of every method and its local variable counts.
+     *
+     * @param ast
+     * @return Map<String, LocalVars> keyed by "ClassName.methodName"
+     */
+    public Map<String,LocalVars> getLocalVars(Program ast){
+        return traverse(ast);
+    }
 
     /**
      * Creates a map of every method and the number of
      * local variables in them.
      *
      * @param ast
-     * @return Map<String, Integer>
+     * @return Map<String, Integer> keyed by "ClassName.methodName"
      */
     public Map<String,Integer> getNumLocalVars(Program ast){
-        Map<String,Integer> numVarsMap = new HashMap<String,Integer>();
-        ast.accept(this);
-        for(int i = 0; i < numVars.size(); i++){
-            numVarsMap.put(methodNames.get(i).substring(4), numVars.get(i));
-        }
+        Map<String,Integer> numVarsMap = new HashMap<>();
+        getLocalVars(ast).forEach((method, vars) -> numVarsMap.put(method, vars.getNumDeclared()));
         return numVarsMap;
     }
 
     /**
-     * Overrides the visit method of the visitor
-     * that takes in a Class node.
-     *
-     * Ensures that all method names have a single class
-     * attached to it.
+     * Creates a map of every method and the maximum number of
+     * local variables live at once, for sizing its stack frame.
      *
-     * @param node the class node
-     * @return
+     * @param ast
+     * @return Map<String, Integer> keyed by "ClassName.methodName"
      */
-    public Object visit(Class_ node){
-        super.visit(node);
-        for(int i = 0; i < methodNames.size(); i++){
-            if(!methodNames.get(i).contains("%%%%")) {
-                methodNames.set(i, "%%%%" + node.getName() + "." + methodNames.get(i));
-            }
-        }
-        return null;
+    public Map<String,Integer> getMaxLiveLocalVars(Program ast){
+        Map<String,Integer> maxLiveMap = new HashMap<>();
+        getLocalVars(ast).forEach((method, vars) -> maxLiveMap.put(method, vars.getMaxLive()));
+        return maxLiveMap;
     }
 
     /**
      * Overrides the visit method of the visitor
      * that takes in a Method node.
      *
-     * Adds all the method names to a map.
+     * Records the local variable counts of the method
+     * under its class-qualified name.
      *
      * @param node the method node
      * @return
      */
     public Object visit(Method node){
+        numDeclared = numLive = maxLive = 0;
         super.visit(node);
-        methodNames.add(node.getName());
-        numVars.add(numCurVars);
-        numCurVars = 0;
+        localVarsMap.put(getCurrentClass().getName() + "." + node.getName(),
+                new LocalVars(numDeclared, maxLive));
         return null;
     }
 
     /**
      * Overrides the visit method of the visitor
-     * that takes in a Method node.
+     * that takes in a declaration statement node.
      *
-     * Increments the counter for every local var found
-     * in a method
+     * Counts the declared variable, which stays live
+     * until the end of the enclosing scope.
      * @param node the declaration statement node
      * @return
      */
     public Object visit(DeclStmt node){
-        numCurVars++;
+        node.getInit().accept(this);
+        numDeclared++;
+        numLive++;
+        maxLive = Math.max(maxLive, numLive);
         return null;
+    }
 
+    /**
+     * Locals declared in a block go out of scope at its end.
+     * @param node the block statement node
+     * @return
+     */
+    public Object visit(BlockStmt node){
+        visitScoped(node);
+        return null;
     }
 
+    /**
+     * The branches of an if statement are separate scopes.
+     * @param node the if statement node
+     * @return
+     */
+    public Object visit(IfStmt node){
+        node.getPredExpr().accept(this);
+        visitScoped(node.getThenStmt());
+        if (node.getElseStmt() != null) {
+            visitScoped(node.getElseStmt());
+        }
+        return null;
+    }
 
+    /**
+     * The body of a while loop is a separate scope.
+     * @param node the while statement node
+     * @return
+     */
+    public Object visit(WhileStmt node){
+        node.getPredExpr().accept(this);
+        visitScoped(node.getBodyStmt());
+        return null;
+    }
 
+    /**
+     * The body of a for loop is a separate scope.
+     * @param node the for statement node
+     * @return
+     */
+    public Object visit(ForStmt node){
+        if (node.getInitExpr() != null) {
+            node.getInitExpr().accept(this);
+        }
+        if (node.getPredExpr() != null) {
+            node.getPredExpr().accept(this);
+        }
+        if (node.getUpdateExpr() != null) {
+            node.getUpdateExpr().accept(this);
+        }
+        visitScoped(node.getBodyStmt());
+        return null;
+    }
 
-}
+    /**
+     * Visits a statement and then drops the locals it declared.
+     */
+    private void visitScoped(Stmt stmt){
+        int liveBefore = numLive;
+        if (stmt instanceof BlockStmt) {
+            ((BlockStmt) stmt).getStmtList().accept(this);
+        }
+        else {
+            stmt.accept(this);
+        }
+        numLive = liveBefore;
+    }
 
+    protected ParallelVisitor<Map<String,LocalVars>> newWorker() {
+        return new NumLocalVarsVisitor();
+    }
 
+    protected Map<String,LocalVars> getResult() {
+        return localVarsMap;
+    }
 
+    protected Map<String,LocalVars> combine(Map<String,LocalVars> first,
+                                            Map<String,LocalVars> second) {
+        // every worker owns its map, so the earlier one can simply absorb the later
+        first.putAll(second);
+        return first;
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * File: ScopeTable.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 25, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import java.util.Arrays;
+
+/**
+ * A table of nested scopes mapping names to symbols.
+ *
+ * All scopes share one open-addressing hash table whose slots hold the
+ * innermost visible symbol for each name; a symbol that hides another
+ * keeps a link to it. Entering a scope only records the length of an
+ * undo log, and leaving it pops the symbols added since, restoring the
+ * names they shadowed. Lookups are a single probe sequence no matter how
+ * deeply scopes are nested, and push/pop cost is proportional only to the
+ * number of names declared in the scope.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-25-19
+ */
+class ScopeTable {
+
+    private String[] keys = new String[16];
+    private Symbol[] values = new Symbol[16];
+    private int numKeys = 0;
+
+    private Symbol[] log = new Symbol[16];
+    private int logSize = 0;
+    private int[] marks = new int[8];
+    private int depth = 0;
+
+    /**
+     * Opens a new innermost scope.
+     */
+    void enterScope() {
+        if (depth == marks.length) {
+            marks = Arrays.copyOf(marks, depth * 2);
+        }
+        marks[depth++] = logSize;
+    }
+
+    /**
+     * Closes the innermost scope, removing every symbol added in it.
+     */
+    void exitScope() {
+        int mark = marks[--depth];
+        while (logSize > mark) {
+            Symbol symbol = log[--logSize];
+            log[logSize] = null;
+            values[indexOf(symbol.getName())] = symbol.shadowed;
+            symbol.shadowed = null;
+        }
+    }
+
+    /**
+     * Adds a symbol to the innermost scope.
+     *
+     * @param symbol the symbol to add
+     * @return false (leaving the table unchanged) if the innermost scope
+     * already declares the name
+     */
+    boolean add(Symbol symbol) {
+        int index = indexOf(symbol.getName());
+        Symbol current = values[index];
+        if (current != null && current.scopeDepth == depth) {
+            return false;
+        }
+        symbol.shadowed = current;
+        symbol.scopeDepth = depth;
+        log(symbol);
+        values[index] = symbol;
+        if (keys[index] == null) {
+            keys[index] = symbol.getName();
+            if (++numKeys * 2 > keys.length) {
+                grow();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param name a name
+     * @return the innermost symbol with that name, or null if there is none
+     */
+    Symbol lookup(String name) {
+        return values[indexOf(name)];
+    }
+
+    /**
+     * Removes every symbol and scope.
+     */
+    void clear() {
+        while (depth > 0) {
+            exitScope();
+        }
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        numKeys = 0;
+        logSize = 0;
+    }
+
+    private void log(Symbol symbol) {
+        if (logSize == log.length) {
+            log = Arrays.copyOf(log, logSize * 2);
+        }
+        log[logSize++] = symbol;
+    }
+
+    /**
+     * Linear probing; names are never removed from the key array (a popped
+     * name just maps to null), so no tombstones are needed.
+     */
+    private int indexOf(String name) {
+        int mask = keys.length - 1;
+        int hash = name.hashCode() * 0x9E3779B9;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (keys[index] != null && !keys[index].equals(name)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        Symbol[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new Symbol[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -8,10 +8,11 @@
 
 package proj11HangSlager.bantam.semant;
 import proj11HangSlager.bantam.ast.*;
-import proj11HangSlager.bantam.visitor.Visitor;
+import proj11HangSlager.bantam.visitor.ParallelVisitor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -19,32 +20,52 @@ import java.util.Map;
  * This class uses the Visitor pattern to traverse
  * a Program AST.
  *
- * Returns a Map of all the String constants in
- * the program and a unique identifier as
- * its key.
+ * Builds the ConstantPool of the program, in which every
+ * distinct string constant gets one id, and returns a Map
+ * of all the String constants in the program and a unique
+ * identifier as its key.
+ *
+ * The members of the program are visited in parallel;
+ * the constants found by each worker are concatenated in
+ * program order, so the ids are the same as for a
+ * sequential traversal.
  *
  * @author  Jackie Hang, Kyle Slager
- * @version 1.0
+ * @version 2.0
  * @since   2-13-19
  */
 
-public class StringConstantsVisitor extends Visitor {
+public class StringConstantsVisitor extends ParallelVisitor<List<ConstStringExpr>> {
+
+    private ArrayList<ConstStringExpr> stringList = new ArrayList<>();
 
-    private ArrayList<String> stringList = new ArrayList<>();
+    /**
+     * Builds the deduplicated pool of the string
+     * constants of a program
+     * @param ast
+     * @return the constant pool
+     */
+    public ConstantPool getConstantPool(Program ast) {
+        ConstantPool pool = new ConstantPool();
+        for (ConstStringExpr node : traverse(ast)) {
+            pool.add(node);
+        }
+        return pool;
+    }
 
     /**
-     * Creates a unique key for every string
+     * Creates a unique key for every distinct string
      * constant and adds to a Map
      * @param ast
      * @return Map of string constants
      */
     public Map<String, String> getStringConstants(Program ast) {
         Map<String,String> stringMap = new HashMap<String,String>();
-        ast.accept(this);
-        int stringNum = stringList.size();
+        ConstantPool pool = getConstantPool(ast);
+        int stringNum = pool.size();
         for(int i = 0; i < stringNum; i++){
             String strConstName = "StringConst_" + Integer.toString(i);
-            stringMap.put(strConstName, stringList.get(i));
+            stringMap.put(strConstName, pool.getConstant(i));
         }
         return stringMap;
     }
@@ -59,7 +80,22 @@ public class StringConstantsVisitor extends Visitor {
      * @return
      */
     public Object visit(ConstStringExpr node){
-        stringList.add(node.getConstant());
+        stringList.add(node);
         return null;
     }
+
+    protected ParallelVisitor<List<ConstStringExpr>> newWorker() {
+        return new StringConstantsVisitor();
+    }
+
+    protected List<ConstStringExpr> getResult() {
+        return stringList;
+    }
+
+    protected List<ConstStringExpr> combine(List<ConstStringExpr> first,
+                                            List<ConstStringExpr> second) {
+        // every worker owns its list, so the earlier one can simply absorb the later
+        first.addAll(second);
+        return first;
+    }
 }
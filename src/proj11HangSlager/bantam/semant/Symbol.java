@@ -0,0 +1,154 @@
+/*
+ * File: Symbol.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 25, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.ASTNode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named entity of a program: a class, a field, a method, a formal
+ * parameter or a local variable.
+ *
+ * Every symbol has an id that is unique within its SymbolTable, so
+ * later passes can refer to a symbol by a plain int. Fields, formals
+ * and locals also have a slot: the index of the field in an object
+ * (inherited fields first) or of the variable in a stack frame.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-25-19
+ */
+public class Symbol {
+
+    public enum Kind
+    { CLASS, FIELD, METHOD, FORMAL, LOCAL }
+
+    private final int id;
+    private final Kind kind;
+    private final String name;
+    private String type;
+    private final Symbol owner;
+    private final ASTNode decl;
+    private List<String> paramTypes = Collections.emptyList();
+    private int slot = -1;
+    private int frameSize = 0;
+
+    /**
+     * The symbol with the same name that this one shadows in a ScopeTable
+     */
+    Symbol shadowed;
+
+    /**
+     * The scope depth at which this symbol was added to a ScopeTable
+     */
+    int scopeDepth;
+
+    /**
+     * Symbol constructor
+     *
+     * @param id    the id of the symbol
+     * @param kind  the kind of entity named
+     * @param name  the name of the entity
+     * @param type  the declared type (the return type for methods, the parent for classes)
+     * @param owner the class (for members) or method (for variables) declaring it
+     * @param decl  the declaring AST node, or null for built-in entities
+     */
+    Symbol(int id, Kind kind, String name, String type, Symbol owner, ASTNode decl) {
+        this.id = id;
+        this.kind = kind;
+        this.name = name;
+        this.type = type;
+        this.owner = owner;
+        this.decl = decl;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the declared type: the variable type for fields, formals and
+     * locals, the return type for methods and the parent name for classes.
+     * Locals declared with var have no type until type checking.
+     *
+     * @return the type, or null if not yet known
+     */
+    public String getType() {
+        return type;
+    }
+
+    void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the class symbol for members, the method symbol for variables,
+     * and null for classes
+     */
+    public Symbol getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the declaring AST node, or null for built-in entities
+     */
+    public ASTNode getDecl() {
+        return decl;
+    }
+
+    /**
+     * @return the parameter types of a method (empty for other symbols)
+     */
+    public List<String> getParamTypes() {
+        return paramTypes;
+    }
+
+    void setParamTypes(List<String> paramTypes) {
+        this.paramTypes = Collections.unmodifiableList(paramTypes);
+    }
+
+    /**
+     * @return the object slot of a field or the frame slot of a variable,
+     * or -1 for classes and methods
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * @return the number of frame slots (formals plus the most locals
+     * live at once) that a method needs
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    void setFrameSize(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
+    public String toString() {
+        String qualified = owner == null ? name : owner.getName() + "." + name;
+        return kind.name().toLowerCase() + " " + qualified + "#" + id;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * File: SymbolTable.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 25, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The symbols of a program: its classes (including the built-in classes
+ * Object, String, TextIO and Sys), their fields and methods, and the
+ * formals and locals added by NameResolutionVisitor.
+ *
+ * Each class has its own field and method ScopeTable; lookups that miss
+ * in a class continue in its parent. Every symbol can also be fetched by
+ * its id in constant time.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-25-19
+ */
+public class SymbolTable {
+
+    /**
+     * The built-in classes, each as {name, parent, method...} where a
+     * method is written "name:returnType:paramType..."
+     */
+    private static final String[][] BUILT_INS = {
+            {"Object", null, "clone:Object", "equals:boolean:Object", "toString:String"},
+            {"String", "Object", "length:int", "equals:boolean:Object", "toString:String",
+                    "substring:String:int:int", "concat:String:String"},
+            {"TextIO", "Object", "readStdin:void", "readFile:void:String", "writeStdout:void",
+                    "writeStderr:void", "writeFile:void:String", "getString:String",
+                    "getInt:int", "putString:TextIO:String", "putInt:TextIO:int"},
+            {"Sys", "Object", "exit:void:int", "time:int", "random:int"}
+    };
+
+    /**
+     * Everything known about one class
+     */
+    private static class ClassEntry {
+        Symbol symbol;
+        Class_ node;
+        ScopeTable fields = new ScopeTable();
+        ScopeTable methods = new ScopeTable();
+        List<Symbol> ownFields = new ArrayList<>();
+        List<Symbol> ownMethods = new ArrayList<>();
+        int numFields = -1;
+    }
+
+    private List<Symbol> symbols = new ArrayList<>();
+    private Map<String, ClassEntry> classes = new LinkedHashMap<>();
+    private ClassHierarchy hierarchy;
+    private ErrorHandler errorHandler;
+
+    /**
+     * Collects the classes and members of a program. Duplicate classes
+     * and members are reported as semantic errors, as are unknown parent
+     * classes and inheritance cycles by the ClassHierarchy.
+     *
+     * @param program      the program
+     * @param errorHandler the handler errors are reported to
+     */
+    public SymbolTable(Program program, ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+        addBuiltIns();
+        for (ASTNode node : program.getClassList()) {
+            addClass((Class_) node);
+        }
+        hierarchy = new ClassHierarchy(program.getClassList(), errorHandler);
+        for (ClassEntry entry : classes.values()) {
+            // unknown parents and cycles have been replaced by Object
+            entry.symbol.setType(hierarchy.getParent(entry.symbol.getName()));
+        }
+        for (String name : classes.keySet()) {
+            assignFieldSlots(name);
+        }
+    }
+
+    /**
+     * @param id a symbol id
+     * @return the symbol with that id
+     */
+    public Symbol getSymbol(int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * @return the number of symbols (ids run from 0 to this value - 1)
+     */
+    public int getNumSymbols() {
+        return symbols.size();
+    }
+
+    /**
+     * @return the names of all classes, built-in classes first
+     */
+    public Collection<String> getClassNames() {
+        return Collections.unmodifiableCollection(classes.keySet());
+    }
+
+    /**
+     * @param className a name
+     * @return whether a class of that name exists
+     */
+    public boolean isClass(String className) {
+        return className != null && classes.containsKey(className);
+    }
+
+    /**
+     * @param className a class name
+     * @return the class symbol, or null if there is no such class
+     */
+    public Symbol getClassSymbol(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? null : entry.symbol;
+    }
+
+    /**
+     * @param className a class name
+     * @return the declaring node, or null for built-in or unknown classes
+     */
+    public Class_ getClassNode(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? null : entry.node;
+    }
+
+    /**
+     * @param className a class name
+     * @return the name of its parent, or null for Object and unknown classes
+     */
+    public String getParent(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? null : entry.symbol.getType();
+    }
+
+    /**
+     * @return the inheritance tree of the classes
+     */
+    public ClassHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Finds a field declared in a class or inherited by it.
+     *
+     * @param className the class to start the search in
+     * @param name      the field name
+     * @return the field symbol, or null if there is none
+     */
+    public Symbol lookupField(String className, String name) {
+        for (ClassEntry entry = classes.get(className); entry != null;
+             entry = classes.get(entry.symbol.getType())) {
+            Symbol field = entry.fields.lookup(name);
+            if (field != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a method declared in a class or inherited by it.
+     *
+     * @param className the class to start the search in
+     * @param name      the method name
+     * @return the most derived method symbol, or null if there is none
+     */
+    public Symbol lookupMethod(String className, String name) {
+        for (ClassEntry entry = classes.get(className); entry != null;
+             entry = classes.get(entry.symbol.getType())) {
+            Symbol method = entry.methods.lookup(name);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param className a class name
+     * @return the fields declared by the class itself, in declaration order
+     */
+    public List<Symbol> getFields(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? Collections.emptyList()
+                : Collections.unmodifiableList(entry.ownFields);
+    }
+
+    /**
+     * @param className a class name
+     * @return the methods declared by the class itself, in declaration order
+     */
+    public List<Symbol> getMethods(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? Collections.emptyList()
+                : Collections.unmodifiableList(entry.ownMethods);
+    }
+
+    /**
+     * @param className a class name
+     * @return the number of field slots of an object of the class,
+     * inherited fields included
+     */
+    public int getNumFields(String className) {
+        ClassEntry entry = classes.get(className);
+        return entry == null ? 0 : entry.numFields;
+    }
+
+    /**
+     * Creates a symbol with the next free id. Symbols are only created
+     * while the table is built and resolved, which is single-threaded.
+     */
+    Symbol newSymbol(Symbol.Kind kind, String name, String type, Symbol owner, ASTNode decl) {
+        Symbol symbol = new Symbol(symbols.size(), kind, name, type, owner, decl);
+        symbols.add(symbol);
+        return symbol;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private void addBuiltIns() {
+        for (String[] builtIn : BUILT_INS) {
+            ClassEntry entry = new ClassEntry();
+            entry.symbol = newSymbol(Symbol.Kind.CLASS, builtIn[0], builtIn[1], null, null);
+            for (int i = 2; i < builtIn.length; i++) {
+                String[] signature = builtIn[i].split(":");
+                Symbol method = newSymbol(Symbol.Kind.METHOD, signature[0], signature[1],
+                        entry.symbol, null);
+                List<String> paramTypes = new ArrayList<>();
+                for (int p = 2; p < signature.length; p++) {
+                    paramTypes.add(signature[p]);
+                }
+                method.setParamTypes(paramTypes);
+                entry.methods.add(method);
+                entry.ownMethods.add(method);
+            }
+            classes.put(builtIn[0], entry);
+        }
+    }
+
+    private void addClass(Class_ node) {
+        if (classes.containsKey(node.getName())) {
+            error(node, node.getLineNum(), "Class " + node.getName() + " is already defined.");
+            return;
+        }
+        ClassEntry entry = new ClassEntry();
+        entry.node = node;
+        entry.symbol = newSymbol(Symbol.Kind.CLASS, node.getName(), node.getParent(), null, node);
+        classes.put(node.getName(), entry);
+
+        for (ASTNode member : node.getMemberList()) {
+            if (member instanceof Field) {
+                Field field = (Field) member;
+                Symbol symbol = newSymbol(Symbol.Kind.FIELD, field.getName(), field.getType(),
+                        entry.symbol, field);
+                if (entry.fields.add(symbol)) {
+                    entry.ownFields.add(symbol);
+                }
+                else {
+                    error(node, field.getLineNum(), "Field " + field.getName() + " is already defined in class "
+                            + node.getName() + ".");
+                }
+            }
+            else {
+                Method method = (Method) member;
+                Symbol symbol = newSymbol(Symbol.Kind.METHOD, method.getName(),
+                        method.getReturnType(), entry.symbol, method);
+                List<String> paramTypes = new ArrayList<>();
+                for (ASTNode formal : method.getFormalList()) {
+                    paramTypes.add(((Formal) formal).getType());
+                }
+                symbol.setParamTypes(paramTypes);
+                if (entry.methods.add(symbol)) {
+                    entry.ownMethods.add(symbol);
+                }
+                else {
+                    error(node, method.getLineNum(), "Method " + method.getName() + " is already defined in class "
+                            + node.getName() + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the fields of a class after those of its ancestors.
+     *
+     * @return the number of field slots of the class
+     */
+    private int assignFieldSlots(String className) {
+        ClassEntry entry = classes.get(className);
+        if (entry == null) {
+            return 0;
+        }
+        if (entry.numFields >= 0) {
+            return entry.numFields;
+        }
+        int slot = assignFieldSlots(entry.symbol.getType());
+        for (Symbol field : entry.ownFields) {
+            field.setSlot(slot++);
+        }
+        entry.numFields = slot;
+        return slot;
+    }
+
+    private void error(Class_ node, int lineNum, String message) {
+        errorHandler.register(Error.Kind.SEMANT_ERROR, node.getFilename(), lineNum, message);
+    }
+}
@@ -0,0 +1,779 @@
+/*
+ * File: TypeCheckerVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 27, 2019
+ */
+
+package proj11HangSlager.bantam.semant;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.opt.ControlFlowGraph;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+import proj11HangSlager.bantam.visitor.ParallelVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * visit every node of a program AST and check that it is
+ * well typed.
+ *
+ * The class and member signatures are collected first, sequentially,
+ * by NameResolutionVisitor. After that every field initializer and
+ * method body can be checked on its own, so the members are checked
+ * in parallel; each worker keeps its errors in a list of its own and
+ * the lists are merged in program order before they are reported.
+ *
+ * Every expression gets its type (getExprType), every local its
+ * declared type, and every call the id of the method it invokes.
+ * An expression whose type cannot be determined gets the type null,
+ * which is accepted everywhere so that one mistake is reported once.
+ * The end of the body of a method that returns a value must not be
+ * reachable, which the ControlFlowGraph of the body tells.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-27-19
+ */
+public class TypeCheckerVisitor extends ParallelVisitor<List<Error>> {
+
+    private SymbolTable symbolTable;
+    private ClassHierarchy hierarchy;
+    private List<Error> errors = new ArrayList<>();
+    private Symbol currentMethod;
+    private int loopDepth;
+
+    /**
+     * Creates a type checker.
+     */
+    public TypeCheckerVisitor() {
+    }
+
+    private TypeCheckerVisitor(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.hierarchy = symbolTable.getHierarchy();
+    }
+
+    /**
+     * Resolves the names of a program and checks its types on the common pool.
+     *
+     * @param ast          the program
+     * @param errorHandler the handler semantic errors are reported to
+     * @return the symbol table of the program
+     */
+    public SymbolTable check(Program ast, ErrorHandler errorHandler) {
+        return check(ast, errorHandler, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Resolves the names of a program and checks its types on the given pool.
+     *
+     * @param ast          the program
+     * @param errorHandler the handler semantic errors are reported to
+     * @param pool         the pool the members are checked on
+     * @return the symbol table of the program
+     */
+    public SymbolTable check(Program ast, ErrorHandler errorHandler, ForkJoinPool pool) {
+        symbolTable = new NameResolutionVisitor().resolve(ast, errorHandler);
+        hierarchy = symbolTable.getHierarchy();
+        for (Error error : traverse(ast, pool)) {
+            errorHandler.register(error.getKind(), error.getFilename(),
+                    error.getLineNum(), error.getMessage());
+        }
+        return symbolTable;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a field node.
+     *
+     * @param node the field node
+     * @return
+     */
+    public Object visit(Field node) {
+        if (!isCurrentClassDefinition()) {
+            return null;
+        }
+        checkType(node.getType(), node.getLineNum());
+        if (node.getInit() != null) {
+            String initType = typeOf(node.getInit());
+            checkConforms(initType, node.getType(), node.getLineNum(),
+                    "The initial value of field " + node.getName());
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a Method node.
+     *
+     * @param node the method node
+     * @return
+     */
+    public Object visit(Method node) {
+        if (!isCurrentClassDefinition()) {
+            return null;
+        }
+        currentMethod = null;
+        for (Symbol method : symbolTable.getMethods(getCurrentClass().getName())) {
+            if (method.getDecl() == node) {
+                currentMethod = method;
+            }
+        }
+        if (currentMethod == null) {
+            // a duplicate definition, already reported
+            return null;
+        }
+        if (!node.getReturnType().equals("void")) {
+            checkType(node.getReturnType(), node.getLineNum());
+        }
+        checkOverride(node);
+        for (ASTNode child : node.getFormalList()) {
+            Formal formal = (Formal) child;
+            checkType(formal.getType(), formal.getLineNum());
+        }
+        loopDepth = 0;
+        node.getStmtList().accept(this);
+        if (!node.getReturnType().equals("void")
+                && ControlFlowGraph.build(node, symbolTable).isEndReachable()) {
+            error(node.getLineNum(), "Method " + node.getName() + " may not return a value.");
+        }
+        currentMethod = null;
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a declaration statement node.
+     *
+     * The type of the local is the type of its initializer.
+     *
+     * @param node the declaration statement node
+     * @return
+     */
+    public Object visit(DeclStmt node) {
+        String type = typeOf(node.getInit());
+        if ("null".equals(type) || "void".equals(type)) {
+            error(node.getLineNum(), "The type of variable " + node.getName()
+                    + " cannot be inferred from a " + type + " value.");
+            type = null;
+        }
+        node.setType(type);
+        if (node.getSymbolId() >= 0) {
+            symbolTable.getSymbol(node.getSymbolId()).setType(type);
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an if statement node.
+     *
+     * @param node the if statement node
+     * @return
+     */
+    public Object visit(IfStmt node) {
+        checkBoolean(node.getPredExpr(), "an if");
+        node.getThenStmt().accept(this);
+        if (node.getElseStmt() != null) {
+            node.getElseStmt().accept(this);
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a while statement node.
+     *
+     * @param node the while statement node
+     * @return
+     */
+    public Object visit(WhileStmt node) {
+        checkBoolean(node.getPredExpr(), "a while");
+        loopDepth++;
+        node.getBodyStmt().accept(this);
+        loopDepth--;
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a for statement node.
+     *
+     * @param node the for statement node
+     * @return
+     */
+    public Object visit(ForStmt node) {
+        if (node.getInitExpr() != null) {
+            node.getInitExpr().accept(this);
+        }
+        if (node.getPredExpr() != null) {
+            checkBoolean(node.getPredExpr(), "a for");
+        }
+        if (node.getUpdateExpr() != null) {
+            node.getUpdateExpr().accept(this);
+        }
+        loopDepth++;
+        node.getBodyStmt().accept(this);
+        loopDepth--;
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a break statement node.
+     *
+     * @param node the break statement node
+     * @return
+     */
+    public Object visit(BreakStmt node) {
+        if (loopDepth == 0) {
+            error(node.getLineNum(), "A break statement must be inside a loop.");
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a return statement node.
+     *
+     * @param node the return statement node
+     * @return
+     */
+    public Object visit(ReturnStmt node) {
+        String returnType = currentMethod.getType();
+        if (node.getExpr() == null) {
+            if (!returnType.equals("void")) {
+                error(node.getLineNum(), "Method " + currentMethod.getName()
+                        + " must return a value of type " + returnType + ".");
+            }
+        }
+        else if (returnType.equals("void")) {
+            node.getExpr().accept(this);
+            error(node.getLineNum(), "Method " + currentMethod.getName()
+                    + " is void and cannot return a value.");
+        }
+        else {
+            checkConforms(typeOf(node.getExpr()), returnType, node.getLineNum(),
+                    "The return value");
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a dispatch expression node.
+     *
+     * @param node the dispatch expression node
+     * @return
+     */
+    public Object visit(DispatchExpr node) {
+        String receiverType = node.getRefExpr() == null ? getCurrentClass().getName()
+                : typeOf(node.getRefExpr());
+        List<String> argTypes = new ArrayList<>();
+        for (ASTNode actual : node.getActualList()) {
+            argTypes.add(typeOf((Expr) actual));
+        }
+        node.setExprType(null);
+        if (receiverType == null) {
+            return null;
+        }
+        if (receiverType.endsWith("[]")) {
+            receiverType = "Object";
+        }
+        if (!hierarchy.contains(receiverType)) {
+            error(node.getLineNum(), "Method " + node.getMethodName()
+                    + " cannot be called on a value of type " + receiverType + ".");
+            return null;
+        }
+        Symbol method = symbolTable.lookupMethod(receiverType, node.getMethodName());
+        if (method == null) {
+            error(node.getLineNum(), "Method " + node.getMethodName()
+                    + " is not defined in class " + receiverType + ".");
+            return null;
+        }
+        node.setSymbolId(method.getId());
+        List<String> paramTypes = method.getParamTypes();
+        if (paramTypes.size() != argTypes.size()) {
+            error(node.getLineNum(), "Method " + node.getMethodName() + " takes "
+                    + paramTypes.size() + " argument(s) but is given " + argTypes.size() + ".");
+        }
+        else {
+            for (int i = 0; i < argTypes.size(); i++) {
+                checkConforms(argTypes.get(i), paramTypes.get(i), node.getLineNum(),
+                        "Argument " + (i + 1) + " of " + node.getMethodName());
+            }
+        }
+        node.setExprType(method.getType());
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a new expression node.
+     *
+     * @param node the new expression node
+     * @return
+     */
+    public Object visit(NewExpr node) {
+        if (hierarchy.contains(node.getType())) {
+            node.setExprType(node.getType());
+        }
+        else {
+            error(node.getLineNum(), "Class " + node.getType() + " is not defined.");
+            node.setExprType(null);
+        }
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a new array expression node.
+     *
+     * @param node the new array expression node
+     * @return
+     */
+    public Object visit(NewArrayExpr node) {
+        checkInt(node.getSize(), "The size of an array");
+        node.setExprType(checkType(node.getType(), node.getLineNum()) && !isArray(node.getType())
+                ? node.getType() + "[]" : null);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an instanceof expression node.
+     *
+     * Marks checks that always succeed (other than for null).
+     *
+     * @param node the instanceof expression node
+     * @return
+     */
+    public Object visit(InstanceofExpr node) {
+        String exprType = typeOf(node.getExpr());
+        if (checkType(node.getType(), node.getLineNum()) && exprType != null) {
+            if (!isReference(exprType) || !isReference(node.getType())) {
+                error(node.getLineNum(), "The instanceof operator needs object types.");
+            }
+            else if (conforms(exprType, node.getType())) {
+                node.setUpCheck(true);
+            }
+            else if (!conforms(node.getType(), exprType)) {
+                error(node.getLineNum(), "A " + exprType + " can never be an instance of "
+                        + node.getType() + ".");
+            }
+        }
+        node.setExprType("boolean");
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a cast expression node.
+     *
+     * Marks casts that always succeed.
+     *
+     * @param node the cast expression node
+     * @return
+     */
+    public Object visit(CastExpr node) {
+        String exprType = typeOf(node.getExpr());
+        if (checkType(node.getType(), node.getLineNum()) && exprType != null) {
+            if (!isReference(exprType) || !isReference(node.getType())) {
+                error(node.getLineNum(), "Only objects can be cast.");
+            }
+            else if (conforms(exprType, node.getType())) {
+                node.setUpCast(true);
+            }
+            else if (!conforms(node.getType(), exprType)) {
+                error(node.getLineNum(), "A " + exprType + " cannot be cast to "
+                        + node.getType() + ".");
+            }
+        }
+        node.setExprType(node.getType());
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an assignment expression node.
+     *
+     * @param node the assignment expression node
+     * @return
+     */
+    public Object visit(AssignExpr node) {
+        String valueType = typeOf(node.getExpr());
+        String varType = typeOfSymbol(node.getSymbolId());
+        checkConforms(valueType, varType, node.getLineNum(),
+                "The value assigned to " + node.getName());
+        node.setExprType(varType);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an array assignment expression node.
+     *
+     * @param node the array assignment expression node
+     * @return
+     */
+    public Object visit(ArrayAssignExpr node) {
+        checkInt(node.getIndex(), "An array index");
+        String valueType = typeOf(node.getExpr());
+        String elementType = elementType(typeOfSymbol(node.getSymbolId()),
+                node.getName(), node.getLineNum());
+        checkConforms(valueType, elementType, node.getLineNum(),
+                "The value assigned to an element of " + node.getName());
+        node.setExprType(elementType);
+        return null;
+    }
+
+    // the operators are checked against the operand and result types they declare
+
+    public Object visit(BinaryCompEqExpr node) {
+        checkEquality(node);
+        return null;
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        checkEquality(node);
+        return null;
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        checkBinary(node);
+        return null;
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        checkUnary(node);
+        return null;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        checkUnary(node);
+        return null;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        checkVariable(node);
+        checkUnary(node);
+        return null;
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        checkVariable(node);
+        checkUnary(node);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in a variable expression node.
+     *
+     * Through a reference other than this or super
+     * only the length of an array can be read.
+     *
+     * @param node the variable expression node
+     * @return
+     */
+    public Object visit(VarExpr node) {
+        Expr ref = node.getRef();
+        String type = null;
+        if (ref == null && node.getName().equals("this")) {
+            type = getCurrentClass().getName();
+        }
+        else if (ref == null && node.getName().equals("super")) {
+            type = hierarchy.getParent(getCurrentClass().getName());
+        }
+        else if (ref == null && node.getName().equals("null")) {
+            type = "null";
+        }
+        else if (ref == null || isThisOrSuper(ref)) {
+            type = typeOfSymbol(node.getSymbolId());
+        }
+        else {
+            String refType = typeOf(ref);
+            if (refType != null) {
+                if (isArray(refType) && node.getName().equals("length")) {
+                    type = "int";
+                }
+                else {
+                    error(node.getLineNum(), "Only the length of an array can be read"
+                            + " through a reference; " + node.getName() + " cannot.");
+                }
+            }
+        }
+        node.setExprType(type);
+        return null;
+    }
+
+    /**
+     * Overrides the visit method of the visitor
+     * that takes in an array expression node.
+     *
+     * @param node the array expression node
+     * @return
+     */
+    public Object visit(ArrayExpr node) {
+        checkInt(node.getIndex(), "An array index");
+        node.setExprType(elementType(typeOfSymbol(node.getSymbolId()),
+                node.getName(), node.getLineNum()));
+        return null;
+    }
+
+    // constants have the type of their kind
+
+    public Object visit(ConstIntExpr node) {
+        node.setExprType("int");
+        return null;
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        node.setExprType("boolean");
+        return null;
+    }
+
+    public Object visit(ConstStringExpr node) {
+        node.setExprType("String");
+        return null;
+    }
+
+    protected ParallelVisitor<List<Error>> newWorker() {
+        return new TypeCheckerVisitor(symbolTable);
+    }
+
+    protected List<Error> getResult() {
+        return errors;
+    }
+
+    protected List<Error> combine(List<Error> first, List<Error> second) {
+        first.addAll(second);
+        return first;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Duplicate class definitions are reported by the SymbolTable
+     * and not checked any further.
+     */
+    private boolean isCurrentClassDefinition() {
+        return symbolTable.getClassNode(getCurrentClass().getName()) == getCurrentClass();
+    }
+
+    /**
+     * An overriding method must have the signature of the method it overrides.
+     */
+    private void checkOverride(Method node) {
+        String parent = hierarchy.getParent(getCurrentClass().getName());
+        Symbol overridden = parent == null ? null
+                : symbolTable.lookupMethod(parent, node.getName());
+        if (overridden != null && (!overridden.getType().equals(currentMethod.getType())
+                || !overridden.getParamTypes().equals(currentMethod.getParamTypes()))) {
+            error(node.getLineNum(), "Method " + node.getName()
+                    + " overrides a method of " + overridden.getOwner().getName()
+                    + " with a different signature.");
+        }
+    }
+
+    private String typeOf(Expr expr) {
+        expr.accept(this);
+        return expr.getExprType();
+    }
+
+    private String typeOfSymbol(int symbolId) {
+        return symbolId < 0 ? null : symbolTable.getSymbol(symbolId).getType();
+    }
+
+    private String elementType(String arrayType, String name, int lineNum) {
+        if (arrayType == null) {
+            return null;
+        }
+        if (!isArray(arrayType)) {
+            error(lineNum, name + " is not an array.");
+            return null;
+        }
+        return arrayType.substring(0, arrayType.length() - 2);
+    }
+
+    private void checkBinary(BinaryExpr node) {
+        String operandType = node.getOperandType();
+        checkOperand(node.getLeftExpr(), operandType, node.getOpName());
+        checkOperand(node.getRightExpr(), operandType, node.getOpName());
+        node.setExprType(node.getOpType());
+    }
+
+    private void checkUnary(UnaryExpr node) {
+        checkOperand(node.getExpr(), node.getOperandType(), node.getOpName());
+        node.setExprType(node.getOpType());
+    }
+
+    private void checkOperand(Expr operand, String operandType, String opName) {
+        String type = typeOf(operand);
+        if (type != null && !type.equals(operandType)) {
+            error(operand.getLineNum(), "The operands of " + opName + " must be of type "
+                    + operandType + ", not " + type + ".");
+        }
+    }
+
+    /**
+     * Values can be compared for equality if both are ints, both are
+     * booleans, or both are objects of which one conforms to the other.
+     */
+    private void checkEquality(BinaryExpr node) {
+        String left = typeOf(node.getLeftExpr());
+        String right = typeOf(node.getRightExpr());
+        if (left != null && right != null && !left.equals(right)
+                && !(isReference(left) && isReference(right)
+                     && (conforms(left, right) || conforms(right, left)))) {
+            error(node.getLineNum(), "A " + left + " cannot be compared with a "
+                    + right + " using " + node.getOpName() + ".");
+        }
+        node.setExprType(node.getOpType());
+    }
+
+    /**
+     * Only variables and array elements can be incremented or decremented.
+     */
+    private void checkVariable(UnaryExpr node) {
+        Expr operand = node.getExpr();
+        boolean isVariable = operand instanceof ArrayExpr
+                || (operand instanceof VarExpr && ((VarExpr) operand).getSymbolId() >= 0);
+        if (!isVariable) {
+            error(node.getLineNum(), "The operand of " + node.getOpName()
+                    + " must be a variable.");
+        }
+    }
+
+    private void checkBoolean(Expr pred, String stmtName) {
+        String type = typeOf(pred);
+        if (type != null && !type.equals("boolean")) {
+            error(pred.getLineNum(), "The condition of " + stmtName
+                    + " statement must be a boolean, not " + type + ".");
+        }
+    }
+
+    private void checkInt(Expr expr, String what) {
+        String type = typeOf(expr);
+        if (type != null && !type.equals("int")) {
+            error(expr.getLineNum(), what + " must be an int, not " + type + ".");
+        }
+    }
+
+    private void checkConforms(String type, String expected, int lineNum, String what) {
+        if (!conforms(type, expected)) {
+            error(lineNum, what + " has type " + type + " but " + expected + " is expected.");
+        }
+    }
+
+    /**
+     * @return whether the type names int, boolean, a class or an array of one of those
+     */
+    private boolean checkType(String type, int lineNum) {
+        String base = isArray(type) ? type.substring(0, type.length() - 2) : type;
+        if (base.equals("int") || base.equals("boolean") || hierarchy.contains(base)) {
+            return true;
+        }
+        error(lineNum, "Type " + type + " is not defined.");
+        return false;
+    }
+
+    /**
+     * Tests whether a value of one type can be used where another is expected.
+     * Unknown (null) types conform to everything.
+     */
+    private boolean conforms(String type, String expected) {
+        if (type == null || expected == null || type.equals(expected)) {
+            return true;
+        }
+        if (type.equals("null")) {
+            return isReference(expected);
+        }
+        if (isArray(type)) {
+            if (expected.equals("Object")) {
+                return true;
+            }
+            String element = type.substring(0, type.length() - 2);
+            return isArray(expected) && hierarchy.contains(element)
+                    && hierarchy.isSubclass(element, expected.substring(0, expected.length() - 2));
+        }
+        return hierarchy.isSubclass(type, expected);
+    }
+
+    private boolean isReference(String type) {
+        return type.equals("null") || isArray(type) || hierarchy.contains(type);
+    }
+
+    private static boolean isArray(String type) {
+        return type.endsWith("[]");
+    }
+
+    private static boolean isThisOrSuper(Expr expr) {
+        if (!(expr instanceof VarExpr) || ((VarExpr) expr).getRef() != null) {
+            return false;
+        }
+        String name = ((VarExpr) expr).getName();
+        return name.equals("this") || name.equals("super");
+    }
+
+    private void error(int lineNum, String message) {
+        errors.add(new Error(Error.Kind.SEMANT_ERROR, getCurrentClass().getFilename(),
+                lineNum, message));
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * File: BuchheimLayoutVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import proj11HangSlager.bantam.ast.Program;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * lay out the DrawingTree of an AST in time linear in its number of
+ * nodes, with the algorithm of Buchheim, Juenger and Leipert ("Improving
+ * Walker's Algorithm to Run in Linear Time", 2002).
+ *
+ * The tree is built as by LayoutVisitor, but no contours are merged while
+ * visiting. Once the whole Program is built, a first postorder walk gives
+ * each node a position relative to its siblings, moving a subtree right
+ * just enough to clear its left neighbours level by level; the threads
+ * and the shifts spread over the subtrees between two conflicting ones
+ * keep this linear. A second walk sums the relative positions. The
+ * offsets of the nodes are then set so that DrawingTree.position places
+ * them as usual.
+ *
+ * The working values of the nodes are kept in arrays indexed by a number
+ * given to each node, and the walks are loops over the numbers instead of
+ * recursions over objects made for each node. The children of a node are
+ * numbered together, after it, when a depth-first walk reaches it, so
+ * siblings have consecutive numbers while the walks still visit the
+ * nodes in about the order they were created in memory. The arrays are
+ * kept for the next layout, and the leaves get no contours, so a layout
+ * allocates little besides the DrawingTree itself.
+ *
+ * The time of LayoutVisitor grows with the depth of the subtrees whose
+ * contours are merged, so this layout bounds the time of trees whose deep
+ * subtrees sit side by side. On the shapes of real programs the contours
+ * are as fast or faster, as LayoutBenchmark shows, which is why Drawer
+ * keeps them as its default.
+ *
+ * The nodes are kept apart only level by level, so a node never tucks
+ * under the edge of a neighbour as it can with the contours of
+ * LayoutVisitor, and wide trees come out somewhat wider.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class BuchheimLayoutVisitor extends LayoutVisitor
+{
+    private static final int NONE = -1;
+
+    // the nodes by number
+    private DrawingTree[] trees = new DrawingTree[0];
+    private int size;
+
+    // the working values of the nodes, by number
+    private int[] parent = new int[0], firstChild = new int[0], numChildren = new int[0],
+            thread = new int[0], ancestor = new int[0], width = new int[0], stack = new int[0];
+    private double[] prelim = new double[0], mod = new double[0], change = new double[0],
+            shift = new double[0], x = new double[0];
+
+    public BuchheimLayoutVisitor(FontMetrics fontMetrics)
+    {
+        super(fontMetrics);
+    }
+
+    public BuchheimLayoutVisitor(TextMeasurer measurer)
+    {
+        super(measurer);
+    }
+
+    public Object visit(Program node)
+    {
+        DrawingTree dt = (DrawingTree) super.visit(node);
+        layout(dt);
+        return dt;
+    }
+
+    /**
+     * Sets the offsets of the nodes of a tree, whose captions and sizes
+     * are known, so that DrawingTree.position places the root at the
+     * point given and its descendants below it.
+     *
+     * @param root the root of the tree
+     */
+    public void layout(DrawingTree root)
+    {
+        number(root);
+        firstWalk();
+        secondWalk();
+        setOffsets();
+        root.offset.x = 0;
+        root.offset.y = 0;
+        Arrays.fill(trees, 0, size, null);
+    }
+
+    /**
+     * The leaves need no contours, as none are merged.
+     */
+    protected DrawingTree layoutNullary(String name)
+    {
+        return layoutCaption(name);
+    }
+
+    /**
+     * The contours of the children are not needed.
+     */
+    protected void arrange(DrawingTree dt)
+    {
+    }
+
+    //-------- auxilliary methods ---------
+
+    /**
+     * Numbers the nodes and resets their working values. The stack holds
+     * the numbered nodes whose children are not numbered yet.
+     */
+    private void number(DrawingTree root)
+    {
+        size = 0;
+        add(root, NONE);
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int v = stack[--top];
+            DrawingTree[] children = trees[v].children;
+            firstChild[v] = size;
+            numChildren[v] = children == null ? 0 : children.length;
+            for (int i = 0; i < numChildren[v]; i++)
+                add(children[i], v);
+            for (int w = size - 1; w >= firstChild[v]; w--)
+                stack[top++] = w;
+        }
+    }
+
+    private void add(DrawingTree tree, int parentNumber)
+    {
+        if (size == trees.length)
+            grow(Math.max(2 * size, 256));
+        trees[size] = tree;
+        width[size] = tree.width;
+        parent[size] = parentNumber;
+        thread[size] = NONE;
+        ancestor[size] = size;
+        prelim[size] = 0;
+        mod[size] = 0;
+        change[size] = 0;
+        shift[size] = 0;
+        size++;
+    }
+
+    private void grow(int capacity)
+    {
+        trees = Arrays.copyOf(trees, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        numChildren = Arrays.copyOf(numChildren, capacity);
+        thread = Arrays.copyOf(thread, capacity);
+        ancestor = Arrays.copyOf(ancestor, capacity);
+        width = Arrays.copyOf(width, capacity);
+        stack = Arrays.copyOf(stack, capacity);
+        prelim = Arrays.copyOf(prelim, capacity);
+        mod = Arrays.copyOf(mod, capacity);
+        change = Arrays.copyOf(change, capacity);
+        shift = Arrays.copyOf(shift, capacity);
+        x = new double[capacity];
+    }
+
+    /**
+     * Places the children of each node, after the children of all the
+     * nodes numbered after it. The midpoint of a node's children is kept
+     * in its prelim until its own place among its siblings is known.
+     */
+    private void firstWalk()
+    {
+        for (int v = size - 1; v >= 0; v--) {
+            if (numChildren[v] == 0)
+                continue;
+            int first = firstChild[v];
+            int last = first + numChildren[v] - 1;
+            int defaultAncestor = first;
+            for (int w = first; w <= last; w++) {
+                if (w > first) {
+                    double midpoint = prelim[w];
+                    prelim[w] = prelim[w - 1] + distance(w - 1, w);
+                    if (numChildren[w] > 0)
+                        mod[w] = prelim[w] - midpoint;
+                }
+                defaultAncestor = apportion(w, first, defaultAncestor);
+            }
+            executeShifts(first, last);
+            prelim[v] = (prelim[first] + prelim[last]) / 2;
+        }
+    }
+
+    /**
+     * Moves the subtree of v right of the subtrees of its left siblings,
+     * comparing the right contour of those (vim, vom) with the left
+     * contour of v's (vip, vop) one level at a time.
+     */
+    private int apportion(int v, int first, int defaultAncestor)
+    {
+        if (v == first)
+            return defaultAncestor;
+
+        int vip = v, vop = v, vim = v - 1, vom = first;
+        double sip = mod[vip], sop = mod[vop], sim = mod[vim], som = mod[vom];
+        while (nextRight(vim) != NONE && nextLeft(vip) != NONE) {
+            vim = nextRight(vim);
+            vip = nextLeft(vip);
+            vom = nextLeft(vom);
+            vop = nextRight(vop);
+            ancestor[vop] = v;
+            double gap = (prelim[vim] + sim) - (prelim[vip] + sip) + distance(vim, vip);
+            if (gap > 0) {
+                moveSubtree(ancestor(vim, v, defaultAncestor), v, gap);
+                sip += gap;
+                sop += gap;
+            }
+            sim += mod[vim];
+            sip += mod[vip];
+            som += mod[vom];
+            sop += mod[vop];
+        }
+        if (nextRight(vim) != NONE && nextRight(vop) == NONE) {
+            thread[vop] = nextRight(vim);
+            mod[vop] += sim - sop;
+        }
+        if (nextLeft(vip) != NONE && nextLeft(vom) == NONE) {
+            thread[vom] = nextLeft(vip);
+            mod[vom] += sip - som;
+            defaultAncestor = v;
+        }
+        return defaultAncestor;
+    }
+
+    private int nextLeft(int v)
+    {
+        return numChildren[v] > 0 ? firstChild[v] : thread[v];
+    }
+
+    private int nextRight(int v)
+    {
+        return numChildren[v] > 0 ? firstChild[v] + numChildren[v] - 1 : thread[v];
+    }
+
+    /**
+     * Siblings are numbered consecutively, so wp - wm is the number of
+     * subtrees the shift is spread over.
+     */
+    private void moveSubtree(int wm, int wp, double gap)
+    {
+        int subtrees = wp - wm;
+        change[wp] -= gap / subtrees;
+        shift[wp] += gap;
+        change[wm] += gap / subtrees;
+        prelim[wp] += gap;
+        mod[wp] += gap;
+    }
+
+    private void executeShifts(int first, int last)
+    {
+        double totalShift = 0, totalChange = 0;
+        for (int w = last; w >= first; w--) {
+            prelim[w] += totalShift;
+            mod[w] += totalShift;
+            totalChange += change[w];
+            totalShift += shift[w] + totalChange;
+        }
+    }
+
+    private int ancestor(int vim, int v, int defaultAncestor)
+    {
+        return parent[ancestor[vim]] == parent[v] ? ancestor[vim] : defaultAncestor;
+    }
+
+    /**
+     * Sums the relative positions from the root down. Before a node is
+     * reached, its x holds the sum of the mods of its ancestors.
+     */
+    private void secondWalk()
+    {
+        x[0] = -prelim[0];
+        for (int v = 0; v < size; v++) {
+            double m = x[v];
+            x[v] = prelim[v] + m;
+            for (int i = 0; i < numChildren[v]; i++)
+                x[firstChild[v] + i] = m + mod[v];
+        }
+    }
+
+    /**
+     * @return the least distance between the centers of two neighbours
+     */
+    private double distance(int left, int right)
+    {
+        return (width[left] + width[right]) / 2.0 + 2 * BORDER;
+    }
+
+    /**
+     * Turns the centers found into the offsets DrawingTree.position uses:
+     * the first child is placed from the left of its parent, and each
+     * other child from the left of its left sibling.
+     */
+    private void setOffsets()
+    {
+        for (int v = 0; v < size; v++) {
+            for (int i = 0; i < numChildren[v]; i++) {
+                int child = firstChild[v] + i;
+                int from = i == 0 ? v : child - 1;
+                trees[child].offset.x = left(child) - left(from);
+                trees[child].offset.y = i == 0 ? PARENT_SEP + trees[v].height : 0;
+            }
+        }
+    }
+
+    private int left(int v)
+    {
+        return (int) Math.round(x[v] - width[v] / 2.0);
+    }
+}
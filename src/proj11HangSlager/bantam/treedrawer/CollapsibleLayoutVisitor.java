@@ -0,0 +1,240 @@
+/*
+ * File: CollapsibleLayoutVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import proj11HangSlager.bantam.ast.ASTNode;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * lay out the DrawingTree of an AST whose subtrees start collapsed, and
+ * to lay out a subtree only once it is expanded.
+ *
+ * Only the nodes down to a depth are visited at first. A node below it
+ * that has children is drawn as a leaf with COLLAPSED after its caption,
+ * and the AST nodes of its children are kept until it is expanded. So the
+ * cost of the layout, and the size of the drawing, depend on what is
+ * shown and not on the size of the AST.
+ *
+ * Expanding or collapsing a node lays out again only the contours of the
+ * node and of its ancestors, merging the contours already found for the
+ * subtrees beside them. Merging contours changes them, so the contours
+ * of the children of a node are copied before they are merged.
+ *
+ * The caption of each AST node is kept once built, and the caption of a
+ * collapsed node once added its mark, so expanding and collapsing
+ * nodes again builds no strings.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class CollapsibleLayoutVisitor extends LayoutVisitor
+{
+    /**
+     * The mark after the caption of a collapsed node
+     */
+    public static final String COLLAPSED = " +";
+
+    /**
+     * The default depth shown at first: the program, its classes and
+     * their member lists
+     */
+    public static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * The caption and the AST nodes of the children of a node that has
+     * children, whether it is collapsed or not
+     */
+    private static final class Hidden
+    {
+        final String name;
+        final ASTNode[] childNodes;
+
+        Hidden(String name, ASTNode[] childNodes)
+        {
+            this.name = name;
+            this.childNodes = childNodes;
+        }
+    }
+
+    private final Map<DrawingTree, Hidden> parents = new IdentityHashMap<>();
+    private final Map<ASTNode, String> captions = new IdentityHashMap<>();
+    private final Map<String, String> collapsedCaptions = new HashMap<>();
+    private int depth;
+    private int maxDepth;
+
+    public CollapsibleLayoutVisitor(FontMetrics fontMetrics)
+    {
+        this(fontMetrics, DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param fontMetrics the metrics of the font of the captions
+     * @param maxDepth    the number of levels of the tree shown at first
+     */
+    public CollapsibleLayoutVisitor(FontMetrics fontMetrics, int maxDepth)
+    {
+        super(fontMetrics);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param measurer measures the captions
+     * @param maxDepth the number of levels of the tree shown at first
+     */
+    public CollapsibleLayoutVisitor(TextMeasurer measurer, int maxDepth)
+    {
+        super(measurer);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param node a node of a drawing made by this visitor
+     * @return whether the node has children that are hidden
+     */
+    public boolean isCollapsed(DrawingTree node)
+    {
+        return parents.containsKey(node) && node.children == null;
+    }
+
+    /**
+     * Shows the children of a collapsed node, and lays out the tree again.
+     * @param node  a collapsed node of a drawing made by this visitor
+     * @param whole whether to expand the whole subtree, or only show
+     *              the children, collapsed
+     * @return whether the node was collapsed
+     */
+    public boolean expand(DrawingTree node, boolean whole)
+    {
+        if (!isCollapsed(node))
+            return false;
+        Hidden hidden = parents.get(node);
+        int oldDepth = depth, oldMaxDepth = maxDepth;
+        depth = 1;
+        maxDepth = whole ? Integer.MAX_VALUE : 1;
+        DrawingTree[] childTrees = new DrawingTree[hidden.childNodes.length];
+        for (int i = 0; i < childTrees.length; i++)
+            childTrees[i] = layoutTree(hidden.childNodes[i]);
+        depth = oldDepth;
+        maxDepth = oldMaxDepth;
+
+        setCaption(node, layoutCaption(hidden.name));
+        node.setChildren(childTrees);
+        relayout(node);
+        return true;
+    }
+
+    /**
+     * Hides the children of a node, and lays out the tree again.
+     * @param node a node with children of a drawing made by this visitor
+     * @return whether the node was expanded
+     */
+    public boolean collapse(DrawingTree node)
+    {
+        Hidden hidden = parents.get(node);
+        if (hidden == null || node.children == null)
+            return false;
+        for (DrawingTree child : node.children)
+            forget(child);
+        node.children = null;
+        DrawingTree leaf = layoutNullary(collapsedCaption(hidden.name));
+        setCaption(node, leaf);
+        node.contour = leaf.contour;
+        if (node.parent != null)
+            relayout(node.parent);
+        return true;
+    }
+
+    /**
+     * Collapses the nodes below the depth reached.
+     */
+    protected DrawingTree layoutChildren(String name, ASTNode[] childNodes)
+    {
+        DrawingTree dt;
+        if (depth >= maxDepth) {
+            dt = layoutNullary(collapsedCaption(name));
+        } else {
+            depth++;
+            dt = super.layoutChildren(name, childNodes);
+            depth--;
+        }
+        parents.put(dt, new Hidden(name, childNodes));
+        return dt;
+    }
+
+    /**
+     * Merges copies of the contours of the children, so that they can be
+     * merged again when a sibling changes.
+     */
+    protected void arrange(DrawingTree dt)
+    {
+        Polygon[] contours = new Polygon[dt.children.length];
+        for (int i = 0; i < dt.children.length; i++) {
+            contours[i] = dt.children[i].contour;
+            dt.children[i].contour = contours[i].copy();
+        }
+        super.arrange(dt);
+        for (int i = 0; i < dt.children.length; i++)
+            dt.children[i].contour = contours[i];
+    }
+
+    /**
+     * Keeps the caption of each AST node, which is laid out again each
+     * time an ancestor is expanded.
+     */
+    protected <T extends ASTNode> String caption(T node, Function<T, String> text)
+    {
+        String caption = captions.get(node);
+        if (caption == null) {
+            caption = text.apply(node);
+            captions.put(node, caption);
+        }
+        return caption;
+    }
+
+    //-------- auxilliary methods ---------
+
+    private String collapsedCaption(String name)
+    {
+        return collapsedCaptions.computeIfAbsent(name, n -> n + COLLAPSED);
+    }
+
+    /**
+     * Arranges the children of a node, and of each of its ancestors.
+     */
+    private void relayout(DrawingTree node)
+    {
+        for (DrawingTree dt = node; dt != null; dt = dt.parent)
+            arrange(dt);
+    }
+
+    private void setCaption(DrawingTree node, DrawingTree caption)
+    {
+        node.caption = caption.caption;
+        node.width = caption.width;
+        node.height = caption.height;
+    }
+
+    /**
+     * Drops what is kept for the nodes of a subtree being collapsed.
+     */
+    private void forget(DrawingTree node)
+    {
+        if (parents.remove(node) != null && node.children != null) {
+            for (DrawingTree child : node.children)
+                forget(child);
+        }
+    }
+}
@@ -18,12 +18,49 @@
 package proj11HangSlager.bantam.treedrawer;
 
 import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
 
+import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.ExecutionException;
 
 public class Drawer
 {
 
+    private boolean linearLayout = false;
+    private boolean collapsible = true;
+
+    /**
+     * Chooses the layout of the drawings: the contours of LayoutVisitor,
+     * the default, or the linear time BuchheimLayoutVisitor. The contours
+     * are as fast or faster on the shapes of real programs, as LayoutBenchmark
+     * shows; the linear layout only bounds the time of trees whose deep
+     * subtrees sit side by side.
+     * @param linearLayout whether to use the linear time layout
+     */
+    public void setLinearLayout(boolean linearLayout)
+    {
+        this.linearLayout = linearLayout;
+    }
+
+    /**
+     * Chooses whether the subtrees of the drawings start collapsed, the
+     * default, and are laid out as they are clicked open. A click on a
+     * collapsed node shows its children, a shift-click its whole subtree,
+     * and a click on an open node hides its children. The linear time
+     * layout always draws the whole tree.
+     * @param collapsible whether the subtrees start collapsed
+     */
+    public void setCollapsible(boolean collapsible)
+    {
+        this.collapsible = collapsible;
+    }
+
     /**
      * Displays a Swing window with a drawing of the AST
      * @param sourceName the name of the file containing the program parsed into the AST
@@ -33,18 +70,96 @@ public class Drawer
     {
         DrawerPanel panel = new DrawerPanel();
         DrawerFrame frame = new DrawerFrame(sourceName, panel);
+        // a closed window is never shown again, and the last one closed
+        // lets a program run from main exit
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 
         Font font = new Font("SansSerif", Font.PLAIN, 12);
         frame.setFont(font);
 
-        FontMetrics fontMetrics = frame.getFontMetrics(font);
+        TextMeasurer measurer = new FontMetricsMeasurer(frame.getFontMetrics(font));
+
+        proj11HangSlager.bantam.treedrawer.LayoutVisitor layout;
+        if (linearLayout)
+            layout = new BuchheimLayoutVisitor(measurer);
+        else if (collapsible)
+            layout = new CollapsibleLayoutVisitor(measurer, CollapsibleLayoutVisitor.DEFAULT_DEPTH);
+        else
+            layout = new LayoutVisitor(measurer);
+
+        if (layout instanceof CollapsibleLayoutVisitor) {
+            CollapsibleLayoutVisitor viewer = (CollapsibleLayoutVisitor) layout;
+            panel.addMouseListener(new MouseAdapter()
+            {
+                public void mouseClicked(MouseEvent e)
+                {
+                    DrawingTree node = panel.nodeAt(e.getPoint());
+                    if (node != null && (viewer.expand(node, e.isShiftDown())
+                            || viewer.collapse(node)))
+                        panel.relayout(node);
+                }
+            });
+        }
 
-        proj11HangSlager.bantam.treedrawer.LayoutVisitor layout = new LayoutVisitor(fontMetrics);
-        proj11HangSlager.bantam.treedrawer.DrawingTree theDrawing = (DrawingTree) AST.accept(layout);
-        theDrawing.position(new Point(2048, 10));
-        panel.setDrawing(theDrawing);
+        // the layout measures its captions without AWT, so it runs on a
+        // worker thread while the empty window is shown
+        new SwingWorker<DrawingTree, Void>()
+        {
+            protected DrawingTree doInBackground()
+            {
+                DrawingTree theDrawing = layout.layoutTree(AST);
+                theDrawing.position(new Point(0, 0));
+                return theDrawing;
+            }
+
+            protected void done()
+            {
+                try {
+                    panel.setDrawing(get());
+                    frame.validate();
+                    panel.scrollToRoot();
+                } catch (InterruptedException | ExecutionException e) {
+                    frame.setTitle(frame.getTitle() + " (layout failed: " + e.getMessage() + ")");
+                }
+            }
+        }.execute();
 
         frame.setVisible(true);
     }
 
+    /**
+     * Parses a Bantam Java file and shows the drawing of its AST. The
+     * subtrees start collapsed unless -full is given, and -linear lays
+     * out the whole tree with BuchheimLayoutVisitor.
+     *
+     * Usage: Drawer [-linear | -full] file.btm
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args)
+    {
+        boolean linear = args.length == 2 && args[0].equals("-linear");
+        boolean full = args.length == 2 && args[0].equals("-full");
+        if (args.length != 1 && !linear && !full) {
+            System.out.println("Usage: java proj11HangSlager.bantam.treedrawer.Drawer"
+                    + " [-linear | -full] file.btm");
+            return;
+        }
+        String filename = args[args.length - 1];
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(filename);
+            Drawer drawer = new Drawer();
+            drawer.setLinearLayout(linear);
+            drawer.setCollapsible(!full);
+            SwingUtilities.invokeLater(() -> drawer.draw(filename, program));
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+
 }
@@ -31,7 +31,6 @@ class DrawerFrame extends JFrame
         setLocation(screenWidth / 4, screenHeight / 4);
         Container contentPane = getContentPane();
         contentPane.add(new JScrollPane(panel));
-        panel.scrollRectToVisible(new Rectangle(2048-screenWidth/4,0,10,10));
 
         // uncomment the following code if you want the program to quit
         //          when the drawing window is closed.
@@ -16,30 +16,175 @@ package proj11HangSlager.bantam.treedrawer;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseWheelEvent;
 
 class DrawerPanel extends JPanel
 {
+    private final int MARGIN = 10;
+    private final double MIN_ZOOM = 0.01;
+    private final double MAX_ZOOM = 4;
+    private final double ZOOM_STEP = 1.25;
+
     private DrawingTree drawingTree;
+    private DrawingIndex drawingIndex;
+    private Rectangle bounds = new Rectangle();
+    private double zoom = 1;
 
     public DrawerPanel()
     {
-        setPreferredSize(new Dimension(4096, 4096));
+        // the wheel zooms with the control key held, and scrolls otherwise
+        addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                setZoom(zoom * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()),
+                        e.getPoint());
+            } else {
+                Container scrollPane =
+                        SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+                if (scrollPane != null) {
+                    scrollPane.dispatchEvent(
+                            SwingUtilities.convertMouseEvent(this, e, scrollPane));
+                }
+            }
+        });
+        updateSize();
     }
 
+    /**
+     * Shows a positioned drawing. The canvas is sized to the drawing,
+     * wherever it was positioned.
+     */
     public void setDrawing(DrawingTree drawingTree)
     {
         this.drawingTree = drawingTree;
+        this.drawingIndex = drawingTree == null ? null : new DrawingIndex(drawingTree);
+        this.bounds = drawingIndex == null ? new Rectangle() : drawingIndex.getBounds();
+        updateSize();
+    }
+
+    public double getZoom()
+    {
+        return zoom;
+    }
+
+    /**
+     * Scales the drawing, keeping the point of the drawing under the
+     * anchor where it is in the scroll pane.
+     * @param zoom   the new scale, which is kept between MIN_ZOOM and MAX_ZOOM
+     * @param anchor a point of this panel
+     */
+    public void setZoom(double zoom, Point anchor)
+    {
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        double ratio = zoom / this.zoom;
+        this.zoom = zoom;
+        updateSize();
+        moveView((int) Math.round(anchor.x * ratio) - anchor.x,
+                (int) Math.round(anchor.y * ratio) - anchor.y);
+    }
+
+    /**
+     * Positions the drawing again after nodes were added or removed,
+     * keeping a node where it is in the scroll pane.
+     * @param anchor a node of the drawing
+     */
+    public void relayout(DrawingTree anchor)
+    {
+        Point before = toPanel(anchor.pos.x, anchor.pos.y);
+        drawingTree.position(new Point(0, 0));
+        setDrawing(drawingTree);
+        Point after = toPanel(anchor.pos.x, anchor.pos.y);
+        moveView(after.x - before.x, after.y - before.y);
+    }
+
+    /**
+     * @param point a point of this panel
+     * @return the node whose box contains the point, or null
+     */
+    public DrawingTree nodeAt(Point point)
+    {
+        if (drawingIndex == null) {
+            return null;
+        }
+        int x = (int) Math.floor(point.x / zoom) + bounds.x - MARGIN;
+        int y = (int) Math.floor(point.y / zoom) + bounds.y - MARGIN;
+        for (DrawingTree node : drawingIndex.query(new Rectangle(x, y, 1, 1))) {
+            if (new Rectangle(node.pos.x, node.pos.y, node.width, node.height).contains(x, y)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Scrolls so that the root of the drawing is at the top center of
+     * the visible part of the panel.
+     */
+    public void scrollToRoot()
+    {
+        if (drawingTree == null) {
+            return;
+        }
+        Point root = toPanel(drawingTree.pos.x + drawingTree.width / 2, drawingTree.pos.y);
+        Rectangle visible = getVisibleRect();
+        scrollRectToVisible(new Rectangle(root.x - visible.width / 2, 0,
+                visible.width, visible.height));
     }
 
     public void paintComponent(Graphics g)
     {
         super.paintComponent(g);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(getSize());
+        }
         g.setColor(getBackground());
-        Dimension d = getSize();
-        g.fillRect(0, 0, d.width, d.height);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
 
-        if (drawingTree != null) {
-            drawingTree.paint(g);
+        // only the nodes in the clip, usually the visible part of the
+        // scroll pane, are painted
+        if (drawingIndex != null) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.scale(zoom, zoom);
+            g2.translate(MARGIN - bounds.x, MARGIN - bounds.y);
+            drawingIndex.paint(g2, g2.getClipBounds(), zoom);
+            g2.dispose();
         }
     }
-}
\ No newline at end of file
+
+    //-------- auxilliary methods ---------
+
+    private void updateSize()
+    {
+        setPreferredSize(new Dimension(
+                (int) Math.ceil((bounds.width + 2 * MARGIN) * zoom),
+                (int) Math.ceil((bounds.height + 2 * MARGIN) * zoom)));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Scrolls the scroll pane showing this panel, once it has taken the
+     * new size of the panel.
+     */
+    private void moveView(int dx, int dy)
+    {
+        Container parent = getParent();
+        if (!(parent instanceof JViewport)) {
+            return;
+        }
+        JViewport viewport = (JViewport) parent;
+        viewport.validate();
+        Point view = viewport.getViewPosition();
+        Dimension extent = viewport.getExtentSize();
+        Dimension size = getPreferredSize();
+        viewport.setViewPosition(new Point(
+                Math.max(0, Math.min(view.x + dx, size.width - extent.width)),
+                Math.max(0, Math.min(view.y + dy, size.height - extent.height))));
+    }
+
+    private Point toPanel(int x, int y)
+    {
+        return new Point((int) Math.round((x - bounds.x + MARGIN) * zoom),
+                (int) Math.round((y - bounds.y + MARGIN) * zoom));
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * File: DrawingExporter.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.parser.Parser;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.stream.IntStream;
+
+/**
+ * Renders the drawing of an AST to PNG or SVG files without opening a
+ * window, so that it runs on a headless machine, such as a build server.
+ *
+ * A PNG drawing is cut into square tiles of TILE_SIZE pixels, which are
+ * painted in parallel on the common fork/join pool, each painting only
+ * the nodes a DrawingIndex finds in it. A drawing of at most MAX_PIXELS
+ * pixels is written as one image whose tiles share its pixels; a larger
+ * one is written as one image per tile, named after its row and column,
+ * so that no image is ever larger than a tile.
+ *
+ * An SVG drawing is written to the file as the tree is walked, edges
+ * first, so nothing but the tree itself is kept in memory.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class DrawingExporter
+{
+    /**
+     * The width and height of a tile, in pixels
+     */
+    public static final int TILE_SIZE = 2048;
+
+    /**
+     * The most pixels of a drawing written as a single PNG image
+     */
+    public static final long MAX_PIXELS = 8192L * 8192L;
+
+    private final int MARGIN = 10;
+    private final Font font = new Font("SansSerif", Font.PLAIN, 12);
+    private final Color background = new Color(238, 238, 238);
+    private final Color nodeColor = new Color(250, 220, 100);
+
+    /**
+     * @return the metrics of the font the captions are painted in, which
+     * the layout must use
+     */
+    public FontMetrics getFontMetrics()
+    {
+        Graphics graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getGraphics();
+        FontMetrics fontMetrics = graphics.getFontMetrics(font);
+        graphics.dispose();
+        return fontMetrics;
+    }
+
+    /**
+     * Writes a positioned drawing as PNG, in one file if it is small
+     * enough, or else as the files base_row_column.png of its tiles.
+     *
+     * @param drawing the root of the drawing
+     * @param file    the file to write, which should end in .png
+     * @return the number of files written
+     * @throws IOException if a file cannot be written
+     */
+    public int writePng(DrawingTree drawing, File file) throws IOException
+    {
+        DrawingIndex index = new DrawingIndex(drawing);
+        Rectangle bounds = index.getBounds();
+        int width = bounds.width + 2 * MARGIN;
+        int height = bounds.height + 2 * MARGIN;
+        int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        try {
+            if ((long) width * height <= MAX_PIXELS) {
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                IntStream.range(0, columns * rows).parallel().forEach(tile -> {
+                    Rectangle rect = tile(tile, columns, width, height);
+                    paint(index, bounds, image.getSubimage(rect.x, rect.y, rect.width,
+                            rect.height), rect);
+                });
+                ImageIO.write(image, "png", file);
+                return 1;
+            }
+
+            String base = file.getPath().replaceFirst("\\.png$", "");
+            IntStream.range(0, columns * rows).parallel().forEach(tile -> {
+                Rectangle rect = tile(tile, columns, width, height);
+                BufferedImage image = new BufferedImage(rect.width, rect.height,
+                        BufferedImage.TYPE_INT_RGB);
+                paint(index, bounds, image, rect);
+                try {
+                    ImageIO.write(image, "png", new File(base + "_" + (tile / columns)
+                            + "_" + (tile % columns) + ".png"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return columns * rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams a positioned drawing to a file as SVG.
+     *
+     * @param drawing the root of the drawing
+     * @param file    the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSvg(DrawingTree drawing, File file) throws IOException
+    {
+        Rectangle bounds = bounds(drawing);
+        int dx = MARGIN - bounds.x, dy = MARGIN - bounds.y;
+        FontMetrics fontMetrics = getFontMetrics();
+        try (Writer out = new BufferedWriter(new FileWriter(file))) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\""
+                    + (bounds.width + 2 * MARGIN) + "\" height=\""
+                    + (bounds.height + 2 * MARGIN) + "\">\n");
+            out.write("<rect width=\"100%\" height=\"100%\" fill=\"" + hex(background)
+                    + "\"/>\n");
+
+            out.write("<g stroke=\"black\">\n");
+            Deque<DrawingTree> stack = new ArrayDeque<>();
+            stack.push(drawing);
+            while (!stack.isEmpty()) {
+                DrawingTree node = pushChildren(stack, stack.pop());
+                if (node.parent != null) {
+                    out.write("<line x1=\"" + (node.pos.x + node.width / 2 + dx)
+                            + "\" y1=\"" + (node.pos.y + dy)
+                            + "\" x2=\"" + (node.parent.pos.x + node.parent.width / 2 + dx)
+                            + "\" y2=\"" + (node.parent.pos.y + node.parent.height + dy)
+                            + "\"/>\n");
+                }
+            }
+            out.write("</g>\n");
+
+            out.write("<g font-family=\"SansSerif\" font-size=\"" + font.getSize() + "\">\n");
+            stack.push(drawing);
+            while (!stack.isEmpty()) {
+                DrawingTree node = pushChildren(stack, stack.pop());
+                int x = node.pos.x + dx, y = node.pos.y + dy;
+                out.write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + (node.width - 1)
+                        + "\" height=\"" + (node.height - 1) + "\" fill=\"" + hex(nodeColor)
+                        + "\" stroke=\"black\"/>");
+                out.write("<text x=\"" + (x + 2) + "\" y=\""
+                        + (y + (node.height + fontMetrics.getAscent()
+                        - fontMetrics.getDescent()) / 2)
+                        + "\">" + escape(node.caption) + "</text>\n");
+            }
+            out.write("</g>\n</svg>\n");
+        }
+    }
+
+    //-------- auxilliary methods ---------
+
+    /**
+     * @return the rectangle of the image a tile covers
+     */
+    private Rectangle tile(int tile, int columns, int width, int height)
+    {
+        int x = tile % columns * TILE_SIZE, y = tile / columns * TILE_SIZE;
+        return new Rectangle(x, y, Math.min(TILE_SIZE, width - x),
+                Math.min(TILE_SIZE, height - y));
+    }
+
+    /**
+     * Paints the part of a drawing one tile of the image covers.
+     */
+    private void paint(DrawingIndex index, Rectangle bounds, BufferedImage tile, Rectangle rect)
+    {
+        Graphics2D graphics = tile.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, rect.width, rect.height);
+        graphics.setFont(font);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.translate(MARGIN - bounds.x - rect.x, MARGIN - bounds.y - rect.y);
+        index.paint(graphics, new Rectangle(rect.x + bounds.x - MARGIN,
+                rect.y + bounds.y - MARGIN, rect.width, rect.height));
+        graphics.dispose();
+    }
+
+    /**
+     * Pushes the children of a node so that they are popped in order.
+     *
+     * @return the node
+     */
+    private static DrawingTree pushChildren(Deque<DrawingTree> stack, DrawingTree node)
+    {
+        if (node.children != null) {
+            for (int i = node.children.length - 1; i >= 0; i--)
+                stack.push(node.children[i]);
+        }
+        return node;
+    }
+
+    /**
+     * @return the smallest rectangle containing every node of a drawing
+     */
+    private static Rectangle bounds(DrawingTree drawing)
+    {
+        Rectangle bounds = new Rectangle(drawing.pos.x, drawing.pos.y, drawing.width,
+                drawing.height);
+        Deque<DrawingTree> stack = new ArrayDeque<>();
+        stack.push(drawing);
+        while (!stack.isEmpty()) {
+            DrawingTree node = pushChildren(stack, stack.pop());
+            bounds.add(new Rectangle(node.pos.x, node.pos.y, node.width, node.height));
+        }
+        return bounds;
+    }
+
+    private static String hex(Color color)
+    {
+        return String.format("#%06x", color.getRGB() & 0xffffff);
+    }
+
+    private static String escape(String text)
+    {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                case '"': escaped.append("&quot;"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Draws the AST of a Bantam Java program into a PNG or SVG file from
+     * the command line, with no display needed.
+     *
+     * @param args [-linear] and the file to draw and the file to write,
+     *             whose extension, .png or .svg, chooses the format
+     */
+    public static void main(String[] args)
+    {
+        boolean linear = args.length == 3 && args[0].equals("-linear");
+        if ((args.length != 2 && !linear)
+                || !args[args.length - 1].matches(".*\\.(png|svg)")) {
+            System.out.println("Usage: java proj11HangSlager.bantam.treedrawer.DrawingExporter"
+                    + " [-linear] file.btm out.png|out.svg");
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            Program program = new Parser(errorHandler).parse(args[args.length - 2]);
+            DrawingExporter exporter = new DrawingExporter();
+            LayoutVisitor layout = linear ? new BuchheimLayoutVisitor(exporter.getFontMetrics())
+                    : new LayoutVisitor(exporter.getFontMetrics());
+            DrawingTree drawing = layout.layoutTree(program);
+            drawing.position(new Point(0, 0));
+            File out = new File(args[args.length - 1]);
+            if (out.getName().endsWith(".svg")) {
+                exporter.writeSvg(drawing, out);
+                System.out.println("Wrote " + out);
+            } else {
+                System.out.println("Wrote " + exporter.writePng(drawing, out) + " PNG files.");
+            }
+        }
+        catch (CompilationException e) {
+            System.out.println(e.getMessage());
+        }
+        catch (IOException e) {
+            System.out.println("Cannot write " + args[args.length - 1] + ": " + e.getMessage());
+        }
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error);
+        }
+    }
+}
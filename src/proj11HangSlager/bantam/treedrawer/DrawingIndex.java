@@ -0,0 +1,304 @@
+/*
+ * File: DrawingIndex.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A uniform grid over the nodes of a positioned DrawingTree, which finds
+ * the nodes a rectangle of the drawing intersects without visiting the
+ * whole tree.
+ *
+ * Each node is entered in every cell its area overlaps. The area of a
+ * node is its box together with the edge joining it to its parent, so
+ * a rectangle crossed only by an edge still finds the node drawing it.
+ * The index must be built again whenever the tree is positioned again.
+ *
+ * The nodes are numbered in preorder, so the subtree of a node is a run
+ * of numbers, and the index also keeps the bounds of each subtree. When
+ * the drawing is scaled down, a subtree too small to read is painted as
+ * one summary box in place of its nodes. The level of detail is chosen
+ * here, and a Painter draws it with AWT or any other toolkit.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class DrawingIndex
+{
+    /**
+     * The least width and height of a cell, a little more than a typical node
+     */
+    static final int CELL_SIZE = 128;
+
+    /**
+     * The least scale at which the captions are painted
+     */
+    static final double CAPTION_SCALE = 0.5;
+
+    /**
+     * The width or height on the screen, in pixels, under which a subtree
+     * is painted as a summary box
+     */
+    static final int SUMMARY_SIZE = 24;
+
+    private static final int[] NO_NODES = new int[0];
+    private final Color summaryColor = new Color(200, 160, 60);
+
+    private final List<DrawingTree> nodes = new ArrayList<>();
+    private final List<Rectangle> subtreeBounds = new ArrayList<>();
+    private final List<Integer> subtreeEnds = new ArrayList<>();
+    private final Rectangle bounds;
+    private final int cellSize, columns, rows;
+    private final int[][] cells;
+
+    /**
+     * @param root the root of a positioned drawing
+     */
+    public DrawingIndex(DrawingTree root)
+    {
+        collect(root);
+        bounds = subtreeBounds.get(0);
+
+        // the grid never has many more cells than nodes, however sparse
+        // the drawing is
+        double area = (double) (bounds.width + 1) * (bounds.height + 1);
+        cellSize = Math.max(CELL_SIZE, (int) Math.ceil(Math.sqrt(area / (4 * nodes.size()))));
+        columns = bounds.width / cellSize + 1;
+        rows = bounds.height / cellSize + 1;
+        int[] sizes = new int[columns * rows];
+        for (DrawingTree node : nodes)
+            forEachCell(area(node), cell -> sizes[cell]++);
+        cells = new int[sizes.length][];
+        for (int cell = 0; cell < sizes.length; cell++) {
+            cells[cell] = sizes[cell] == 0 ? NO_NODES : new int[sizes[cell]];
+            sizes[cell] = 0;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            int index = i;
+            forEachCell(area(nodes.get(i)), cell -> cells[cell][sizes[cell]++] = index);
+        }
+    }
+
+    /**
+     * @return the smallest rectangle containing every node and edge
+     */
+    public Rectangle getBounds()
+    {
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * @return the number of nodes of the drawing
+     */
+    public int size()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * Finds the nodes whose box or edge to their parent may intersect a
+     * rectangle, each once, in the order of a preorder walk of the tree.
+     *
+     * @param rect a rectangle of the drawing, such as the clip of a paint
+     * @return the nodes found
+     */
+    public List<DrawingTree> query(Rectangle rect)
+    {
+        List<DrawingTree> found = new ArrayList<>();
+        BitSet seen = new BitSet(nodes.size());
+        forEachCell(rect, cell -> {
+            for (int index : cells[cell])
+                if (!seen.get(index) && area(nodes.get(index)).intersects(rect))
+                    seen.set(index);
+        });
+        for (int index = seen.nextSetBit(0); index >= 0; index = seen.nextSetBit(index + 1))
+            found.add(nodes.get(index));
+        return found;
+    }
+
+    /**
+     * Paints the edges, then the boxes, of the nodes a rectangle may
+     * intersect. Painting the edges first keeps every caption readable.
+     *
+     * @param graphics the graphics to paint on
+     * @param rect     the rectangle to repaint
+     */
+    public void paint(Graphics graphics, Rectangle rect)
+    {
+        List<DrawingTree> visible = query(rect);
+        graphics.setColor(Color.black);
+        for (DrawingTree node : visible)
+            node.paintEdge(graphics);
+        for (DrawingTree node : visible)
+            node.paintNode(graphics);
+    }
+
+    /**
+     * Paints the parts of a drawing on what it is drawn on, so that any
+     * toolkit can show a drawing at a scale the way paint does.
+     */
+    public interface Painter
+    {
+        /**
+         * Paints the edge from a node to its parent, if it has one.
+         */
+        void paintEdge(DrawingTree node);
+
+        /**
+         * Paints the box of a node, and its caption if it is readable.
+         */
+        void paintNode(DrawingTree node, boolean caption);
+
+        /**
+         * Paints a box covering a subtree too small to show its nodes.
+         */
+        void paintSummary(Rectangle subtree);
+    }
+
+    /**
+     * Paints the part of the drawing in a rectangle at a scale. At full
+     * scale or more this is the same as paint(graphics, rect). Below it,
+     * the captions are left out once they are too small to read, and a
+     * subtree smaller than SUMMARY_SIZE pixels is painted as a summary
+     * box covering it.
+     *
+     * @param graphics the graphics to paint on, already scaled
+     * @param rect     the rectangle to repaint, in the coordinates of the drawing
+     * @param scale    the number of pixels to a unit of the drawing
+     */
+    public void paint(Graphics graphics, Rectangle rect, double scale)
+    {
+        if (scale >= 1) {
+            paint(graphics, rect);
+            return;
+        }
+        paint(new Painter()
+        {
+            public void paintEdge(DrawingTree node)
+            {
+                graphics.setColor(Color.black);
+                node.paintEdge(graphics);
+            }
+
+            public void paintNode(DrawingTree node, boolean caption)
+            {
+                if (caption)
+                    node.paintNode(graphics);
+                else
+                    node.paintBox(graphics);
+            }
+
+            public void paintSummary(Rectangle subtree)
+            {
+                DrawingIndex.this.paintSummary(graphics, subtree);
+            }
+        }, rect, scale);
+    }
+
+    /**
+     * Paints the part of the drawing in a rectangle at a scale, as
+     * paint(graphics, rect, scale) does, with a painter.
+     *
+     * @param painter paints each part
+     * @param rect    the rectangle to repaint, in the coordinates of the drawing
+     * @param scale   the number of pixels to a unit of the drawing
+     */
+    public void paint(Painter painter, Rectangle rect, double scale)
+    {
+        if (scale >= 1) {
+            List<DrawingTree> visible = query(rect);
+            for (DrawingTree node : visible)
+                painter.paintEdge(node);
+            for (DrawingTree node : visible)
+                painter.paintNode(node, true);
+            return;
+        }
+        boolean captions = scale >= CAPTION_SCALE;
+        int i = 0;
+        while (i < nodes.size()) {
+            Rectangle subtree = subtreeBounds.get(i);
+            int end = subtreeEnds.get(i);
+            if (!subtree.intersects(rect) && !area(nodes.get(i)).intersects(rect)) {
+                i = end;
+                continue;
+            }
+            DrawingTree node = nodes.get(i);
+            painter.paintEdge(node);
+            if (end > i + 1 && Math.max(subtree.width, subtree.height) * scale < SUMMARY_SIZE) {
+                painter.paintSummary(subtree);
+                i = end;
+            } else {
+                painter.paintNode(node, captions);
+                i++;
+            }
+        }
+    }
+
+    //-------- auxilliary methods ---------
+
+    /**
+     * Numbers the nodes of a subtree in preorder.
+     *
+     * @return the bounds of the subtree
+     */
+    private Rectangle collect(DrawingTree node)
+    {
+        int index = nodes.size();
+        nodes.add(node);
+        Rectangle extent = new Rectangle(node.pos.x, node.pos.y, node.width, node.height);
+        subtreeBounds.add(extent);
+        subtreeEnds.add(index);
+        if (node.children != null) {
+            for (int i = 0; i < node.children.length; i++)
+                extent.add(collect(node.children[i]));
+        }
+        subtreeEnds.set(index, nodes.size());
+        return extent;
+    }
+
+    /**
+     * @return the box of a node together with the edge to its parent
+     */
+    private static Rectangle area(DrawingTree node)
+    {
+        Rectangle area = new Rectangle(node.pos.x, node.pos.y, node.width, node.height);
+        if (node.parent != null)
+            area.add(new Point(node.parent.pos.x + node.parent.width / 2,
+                    node.parent.pos.y + node.parent.height));
+        return area;
+    }
+
+    private void paintSummary(Graphics graphics, Rectangle subtree)
+    {
+        graphics.setColor(summaryColor);
+        graphics.fillRect(subtree.x, subtree.y, subtree.width, subtree.height);
+        graphics.setColor(Color.black);
+        graphics.drawRect(subtree.x, subtree.y, subtree.width - 1, subtree.height - 1);
+    }
+
+    private interface CellAction
+    {
+        void apply(int cell);
+    }
+
+    private void forEachCell(Rectangle rect, CellAction action)
+    {
+        int left = Math.max(0, (rect.x - bounds.x) / cellSize);
+        int top = Math.max(0, (rect.y - bounds.y) / cellSize);
+        int right = Math.min(columns - 1, (rect.x + rect.width - bounds.x) / cellSize);
+        int bottom = Math.min(rows - 1, (rect.y + rect.height - bounds.y) / cellSize);
+        for (int row = top; row <= bottom; row++)
+            for (int column = left; column <= right; column++)
+                action.apply(row * columns + column);
+    }
+}
@@ -14,6 +14,8 @@
 
 package proj11HangSlager.bantam.treedrawer;
 
+import proj11HangSlager.bantam.ast.ASTNode;
+
 import java.awt.*;
 
 public class DrawingTree
@@ -25,6 +27,7 @@ public class DrawingTree
     Polygon contour;
     DrawingTree parent;
     DrawingTree[] children;
+    ASTNode node;
 
     public DrawingTree(String caption, int width, int height)
     {
@@ -38,6 +41,53 @@ public class DrawingTree
         this.contour = new Polygon();
     }
 
+    public String getCaption()
+    {
+        return caption;
+    }
+
+    public int getX()
+    {
+        return pos.x;
+    }
+
+    public int getY()
+    {
+        return pos.y;
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    public DrawingTree getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * @return the children shown, none if this node is a leaf or collapsed
+     */
+    public DrawingTree[] getChildren()
+    {
+        return children == null ? new DrawingTree[0] : children.clone();
+    }
+
+    /**
+     * @return the AST node this node shows, or null if it was not laid
+     * out by LayoutVisitor.layoutTree
+     */
+    public ASTNode getNode()
+    {
+        return node;
+    }
+
     public void setChildren(DrawingTree[] children)
     {
         this.children = children;
@@ -51,12 +101,7 @@ public class DrawingTree
 
     public void paint(Graphics graphics)
     {
-        graphics.setColor(nodeColor);
-        graphics.fillRect(pos.x, pos.y, width, height);
-        graphics.setColor(Color.black);
-        graphics.drawRect(pos.x, pos.y, width - 1, height - 1);
-        graphics.drawString(caption, pos.x + 2,
-                pos.y + (height + FIXED_FONT_HEIGHT) / 2);
+        paintNode(graphics);
 
         if (children != null) {
             for (int i = 0; i < children.length; i++) {
@@ -64,6 +109,35 @@ public class DrawingTree
             }
         }
 
+        paintEdge(graphics);
+    }
+
+    /**
+     * Paints the box and caption of this node only, leaving the color black.
+     */
+    void paintNode(Graphics graphics)
+    {
+        paintBox(graphics);
+        graphics.drawString(caption, pos.x + 2,
+                pos.y + (height + FIXED_FONT_HEIGHT) / 2);
+    }
+
+    /**
+     * Paints the box of this node without its caption, leaving the color black.
+     */
+    void paintBox(Graphics graphics)
+    {
+        graphics.setColor(nodeColor);
+        graphics.fillRect(pos.x, pos.y, width, height);
+        graphics.setColor(Color.black);
+        graphics.drawRect(pos.x, pos.y, width - 1, height - 1);
+    }
+
+    /**
+     * Paints the edge from this node to its parent, in the current color.
+     */
+    void paintEdge(Graphics graphics)
+    {
         if (parent != null) {
             graphics.drawLine(pos.x + width / 2, pos.y,
                     parent.pos.x + parent.width / 2,
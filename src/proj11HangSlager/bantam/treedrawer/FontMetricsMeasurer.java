@@ -0,0 +1,49 @@
+/*
+ * File: FontMetricsMeasurer.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures captions with the FontMetrics of an AWT font, remembering the
+ * width of each caption measured. Most captions of an AST, such as
+ * StmtList or VarExpr i, occur many times, so most are measured once.
+ * The cache can be shared by layouts running on several threads.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class FontMetricsMeasurer implements TextMeasurer
+{
+    private final FontMetrics fontMetrics;
+    private final int height;
+    private final Map<String, Integer> widths = new ConcurrentHashMap<>();
+
+    /**
+     * @param fontMetrics the metrics of the font of the captions
+     */
+    public FontMetricsMeasurer(FontMetrics fontMetrics)
+    {
+        this.fontMetrics = fontMetrics;
+        this.height = fontMetrics.getHeight();
+    }
+
+    public int stringWidth(String text)
+    {
+        return widths.computeIfAbsent(text, fontMetrics::stringWidth);
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * File: LayoutBenchmark.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+import proj11HangSlager.bantam.ast.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Compares the time LayoutVisitor and BuchheimLayoutVisitor take to lay
+ * out large synthetic ASTs, and the width of the drawings they produce.
+ *
+ * Three shapes of program are generated: one method with a very long
+ * statement list, many classes of a few methods each, and a method whose
+ * statements are nested ifs. Each layout is run a few times first so
+ * that the times measured are of compiled code, and the median of many
+ * runs is reported, as single runs vary a lot with garbage collection.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public class LayoutBenchmark
+{
+    private static final int WARMUP = 10;
+    private static final int RUNS = 21;
+
+    /**
+     * Runs the benchmark from the command line.
+     *
+     * @param args [size], the number of statements of each program;
+     *             the default is 5000
+     */
+    public static void main(String[] args)
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        FontMetrics fontMetrics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+                .getGraphics().getFontMetrics(new Font("SansSerif", Font.PLAIN, 12));
+
+        Program[] programs = {wideProgram(size), manyClasses(size), nestedProgram(size)};
+        String[] names = {"long statement list", "many classes", "nested ifs"};
+        System.out.printf("%-20s %8s %12s %10s %12s %10s%n", "program", "nodes",
+                "contour ms", "width", "linear ms", "width");
+        for (int i = 0; i < programs.length; i++) {
+            LayoutVisitor contour = new LayoutVisitor(fontMetrics);
+            LayoutVisitor linear = new BuchheimLayoutVisitor(fontMetrics);
+            Rectangle contourBounds = bounds(programs[i], contour);
+            Rectangle linearBounds = bounds(programs[i], linear);
+            System.out.printf("%-20s %8d %12.1f %10d %12.1f %10d%n", names[i],
+                    new DrawingIndex(layout(programs[i], linear)).size(),
+                    time(programs[i], contour), contourBounds.width,
+                    time(programs[i], linear), linearBounds.width);
+        }
+    }
+
+    //-------- auxilliary methods ---------
+
+    private static DrawingTree layout(Program program, LayoutVisitor layout)
+    {
+        DrawingTree drawing = (DrawingTree) program.accept(layout);
+        drawing.position(new Point(0, 0));
+        return drawing;
+    }
+
+    private static Rectangle bounds(Program program, LayoutVisitor layout)
+    {
+        return new DrawingIndex(layout(program, layout)).getBounds();
+    }
+
+    /**
+     * @return the median time of a layout, in milliseconds
+     */
+    private static double time(Program program, LayoutVisitor layout)
+    {
+        for (int i = 0; i < WARMUP; i++)
+            layout(program, layout);
+        double[] times = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            layout(program, layout);
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    /**
+     * @return x = x + i * (x - i); as a statement
+     */
+    private static Stmt assignment(int i)
+    {
+        Expr product = new BinaryArithTimesExpr(i, new ConstIntExpr(i, "" + i),
+                new BinaryArithMinusExpr(i, new VarExpr(i, null, "x"),
+                        new ConstIntExpr(i, "" + i)));
+        return new ExprStmt(i, new AssignExpr(i, null, "x",
+                new BinaryArithPlusExpr(i, new VarExpr(i, null, "x"), product)));
+    }
+
+    private static Method method(String name, StmtList body)
+    {
+        return new Method(0, "void", name, new FormalList(0), body);
+    }
+
+    private static Program program(ClassList classes)
+    {
+        return new Program(0, classes);
+    }
+
+    private static Class_ class_(String name, Method... methods)
+    {
+        MemberList members = new MemberList(0);
+        for (Method method : methods)
+            members.addElement(method);
+        return new Class_(0, "Synthetic.btm", name, "Object", members);
+    }
+
+    private static Program wideProgram(int size)
+    {
+        StmtList body = new StmtList(0);
+        for (int i = 0; i < size; i++)
+            body.addElement(assignment(i));
+        ClassList classes = new ClassList(0);
+        classes.addElement(class_("Main", method("main", body)));
+        return program(classes);
+    }
+
+    private static Program manyClasses(int size)
+    {
+        ClassList classes = new ClassList(0);
+        for (int c = 0; c < size / 12; c++) {
+            Method[] methods = new Method[3];
+            for (int m = 0; m < methods.length; m++) {
+                StmtList body = new StmtList(0);
+                for (int i = 0; i < 4; i++)
+                    body.addElement(assignment(i));
+                methods[m] = method("m" + m, body);
+            }
+            classes.addElement(class_("C" + c, methods));
+        }
+        return program(classes);
+    }
+
+    private static Program nestedProgram(int size)
+    {
+        // ifs of two statements nested 50 deep, repeated until the size
+        StmtList body = new StmtList(0);
+        for (int done = 0; done < size; ) {
+            Stmt stmt = assignment(done++);
+            for (int depth = 0; depth < 50 && done < size; depth++) {
+                StmtList block = new StmtList(done);
+                block.addElement(assignment(done++));
+                block.addElement(stmt);
+                stmt = new IfStmt(done, new VarExpr(done, null, "b"),
+                        new BlockStmt(done, block), null);
+            }
+            body.addElement(stmt);
+        }
+        ClassList classes = new ClassList(0);
+        classes.addElement(class_("Main", method("main", body)));
+        return program(classes);
+    }
+}
@@ -22,18 +22,48 @@ import proj11HangSlager.bantam.ast.*;
 import proj11HangSlager.bantam.visitor.Visitor;
 
 import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 
 public class LayoutVisitor extends Visitor
 {
 
-    private final int BORDER = 5;
-    private final int PARENT_SEP = 30;
+    protected final int BORDER = 5;
+    protected final int PARENT_SEP = 30;
 
-    private FontMetrics fontMetrics;
+    private TextMeasurer measurer;
+
+    // one copy of each caption, shared by the nodes showing it
+    private final Map<String, String> captions = new HashMap<>();
+    private final Map<String, String> emptyCaptions = new HashMap<>();
 
     public LayoutVisitor(FontMetrics fontMetrics)
     {
-        this.fontMetrics = fontMetrics;
+        this(new FontMetricsMeasurer(fontMetrics));
+    }
+
+    /**
+     * @param measurer measures the captions; the layout uses nothing else
+     *                 of AWT, so it may run on any thread
+     */
+    public LayoutVisitor(TextMeasurer measurer)
+    {
+        this.measurer = measurer;
+    }
+
+
+    /**
+     * Lays out the subtree of an AST node, each node of the drawing
+     * keeping the AST node it shows.
+     * @param node the root of the subtree, usually a Program
+     * @return the drawing of the subtree
+     */
+    public DrawingTree layoutTree(ASTNode node)
+    {
+        DrawingTree dt = (DrawingTree) node.accept(this);
+        dt.node = node;
+        return dt;
     }
 
 
@@ -46,7 +76,7 @@ public class LayoutVisitor extends Visitor
 
     public Object visit(Class_ node)
     {
-        return layoutUnary("Class " + node.getName(), node.getMemberList());
+        return layoutUnary(caption(node, n -> "Class " + n.getName()), node.getMemberList());
     }
 
     public Object visit(MemberList node) {
@@ -55,16 +85,16 @@ public class LayoutVisitor extends Visitor
 
     public Object visit(Field node)
     {
+        String name = caption(node, n -> "Field " + n.getName() + ":" + n.getType());
         if(node.getInit() == null)
-            return layoutNullary("Field " + node.getName() + ":" + node.getType());
+            return layoutNullary(name);
         else
-            return layoutUnary("Field " + node.getName() + ":" + node.getType(),
-                    node.getInit());
+            return layoutUnary(name, node.getInit());
     }
 
     public Object visit(Method node)
     {
-        return layoutBinary("Method " + node.getName() + ":" + node.getReturnType(),
+        return layoutBinary(caption(node, n -> "Method " + n.getName() + ":" + n.getReturnType()),
                 node.getFormalList(), node.getStmtList());
     }
 
@@ -77,7 +107,7 @@ public class LayoutVisitor extends Visitor
     }
 
     public Object visit(Formal node) {
-        return layoutNullary("Formal " + node.getName()+ ":" + node.getType());
+        return layoutNullary(caption(node, n -> "Formal " + n.getName()+ ":" + n.getType()));
     }
 
     // Statements
@@ -96,7 +126,7 @@ public class LayoutVisitor extends Visitor
 
     public Object visit(DeclStmt node)
     {
-            return layoutUnary("Var Decl " + node.getName(),
+            return layoutUnary(caption(node, n -> "Var Decl " + n.getName()),
                     node.getInit());
     }
 
@@ -141,38 +171,37 @@ public class LayoutVisitor extends Visitor
     }
 
     public Object visit(AssignExpr node) {
-        return layoutUnary("Assign " + (node.getRefName() != null ?
-                node.getRefName() + "." : "") + node.getName(), node.getExpr());
+        return layoutUnary(caption(node, n -> "Assign " + (n.getRefName() != null ?
+                n.getRefName() + "." : "") + n.getName()), node.getExpr());
     }
 
     public Object visit(InstanceofExpr node) {
-        return layoutUnary("Instanceof " + node.getType(), node.getExpr());
+        return layoutUnary(caption(node, n -> "Instanceof " + n.getType()), node.getExpr());
     }
 
     public Object visit(NewArrayExpr node) {
-        return layoutUnary("new " + node.getType() + "[]", node.getSize());
+        return layoutUnary(caption(node, n -> "new " + n.getType() + "[]"), node.getSize());
     }
 
     public Object visit(NewExpr node) {
-        return layoutNullary("New " + node.getType());
+        return layoutNullary(caption(node, n -> "New " + n.getType()));
     }
 
     public Object visit(DispatchExpr node) {
+        String name = caption(node, n -> "Dispatch " + n.getMethodName());
         if(node.getRefExpr() == null)
-            return layoutUnary("Dispatch "+node.getMethodName(),
-                    node.getActualList());
+            return layoutUnary(name, node.getActualList());
         else
-            return layoutBinary("Dispatch " + node.getMethodName(),
-                    node.getRefExpr(), node.getActualList());
+            return layoutBinary(name, node.getRefExpr(), node.getActualList());
     }
 
     public Object visit(CastExpr node) {
-        return layoutUnary("cast to " + node.getType(), node.getExpr());
+        return layoutUnary(caption(node, n -> "cast to " + n.getType()), node.getExpr());
     }
 
     public Object visit(ArrayAssignExpr node) {
-        return layoutBinary("Assign " + (node.getRefName() == null ? "" : node.getRefName() + ".")
-                + node.getName(), node.getIndex(), node.getExpr());
+        return layoutBinary(caption(node, n -> "Assign " + (n.getRefName() == null ? ""
+                : n.getRefName() + ".") + n.getName()), node.getIndex(), node.getExpr());
     }
 
     // Binary expressions
@@ -240,50 +269,69 @@ public class LayoutVisitor extends Visitor
     }
 
     public Object visit(UnaryIncrExpr node) {
-        return layoutUnary((node.isPostfix()?"Post":"Pre")+"++", node.getExpr());
+        return layoutUnary(node.isPostfix()?"Post++":"Pre++", node.getExpr());
     }
 
     public Object visit(UnaryDecrExpr node) {
-        return layoutUnary((node.isPostfix()?"Post":"Pre")+"--", node.getExpr());
+        return layoutUnary(node.isPostfix()?"Post--":"Pre--", node.getExpr());
     }
 
     public Object visit(ArrayExpr node) {
+        String name = caption(node, n -> "ArrayExpr " + n.getName());
         if(node.getRef()!=null)
-            return layoutBinary("ArrayExpr " + node.getName(),node.getRef(),node.getIndex());
+            return layoutBinary(name,node.getRef(),node.getIndex());
         else
-            return layoutUnary("ArrayExpr " + node.getName(),node.getIndex());
+            return layoutUnary(name,node.getIndex());
     }
 
     public Object visit(ConstIntExpr node) {
-        return layoutNullary("Int:" + node.getConstant());
+        return layoutNullary(caption(node, n -> "Int:" + n.getConstant()));
     }
 
     public Object visit(ConstBooleanExpr node) {
-        return layoutNullary("Bool:" + node.getConstant());
+        return layoutNullary(caption(node, n -> "Bool:" + n.getConstant()));
     }
 
     public Object visit(ConstStringExpr node) {
-        return layoutNullary("Str:" + node.getConstant());
+        return layoutNullary(caption(node, n -> "Str:" + n.getConstant()));
     }
 
     public Object visit(VarExpr node) {
+        String name = caption(node, n -> "VarExpr " + n.getName());
         if(node.getRef() == null)
-            return layoutNullary("VarExpr " + node.getName());
+            return layoutNullary(name);
         else
-            return layoutUnary("VarExpr " + node.getName(),node.getRef());
+            return layoutUnary(name,node.getRef());
     }
 
 
 
     //-------- auxilliary methods ---------
-    private DrawingTree layoutCaption(String name)
+
+    /**
+     * Builds the caption of an AST node from its parts. The contours are
+     * laid out once, so the caption is built each time; a layout that
+     * visits the same nodes again may keep the captions it built.
+     * @param node the AST node
+     * @param text builds the caption of the node
+     * @return the caption
+     */
+    protected <T extends ASTNode> String caption(T node, Function<T, String> text)
     {
-        int w = fontMetrics.stringWidth(name) + 14;
-        int h = fontMetrics.getHeight() + 4;
-        return new DrawingTree(name, w, h);
+        return text.apply(node);
     }
 
-    private DrawingTree layoutNullary(String name)
+    protected DrawingTree layoutCaption(String name)
+    {
+        String caption = captions.putIfAbsent(name, name);
+        if (caption == null)
+            caption = name;
+        int w = measurer.stringWidth(caption) + 14;
+        int h = measurer.getHeight() + 4;
+        return new DrawingTree(caption, w, h);
+    }
+
+    protected DrawingTree layoutNullary(String name)
     {
         DrawingTree dt = layoutCaption(name);
         dt.contour.upper_tail = new Polyline(0, dt.height + 2 * BORDER, null);
@@ -295,79 +343,72 @@ public class LayoutVisitor extends Visitor
 
     private DrawingTree layoutUnary(String name, ASTNode child1)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        dt.setChildren(new DrawingTree[]{d1});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1});
     }
 
     private DrawingTree layoutBinary(String name, ASTNode child1, ASTNode child2)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2});
     }
 
     private DrawingTree layoutTernary(String name, ASTNode child1, ASTNode child2,
                                       ASTNode child3)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3});
     }
 
     private DrawingTree layoutQuaternary(String name, ASTNode child1, ASTNode child2,
                                          ASTNode child3, ASTNode child4)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        DrawingTree d4 = (DrawingTree) child4.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3, d4});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3, child4});
     }
 
     private DrawingTree layoutQuintenary(String name, ASTNode child1, ASTNode child2,
                                          ASTNode child3, ASTNode child4, ASTNode child5)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        DrawingTree d4 = (DrawingTree) child4.accept(this);
-        DrawingTree d5 = (DrawingTree) child5.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3, d4, d5});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3, child4, child5});
     }
 
     private DrawingTree layoutNary(String name, ListNode childNodes)
     {
         if(childNodes.getSize() == 0)
-            return layoutNullary("Empty" + name);
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree[] childTrees = new DrawingTree[childNodes.getSize()];
+            return layoutNullary(emptyCaptions.computeIfAbsent(name, n -> "Empty" + n));
+        ASTNode[] children = new ASTNode[childNodes.getSize()];
         int i = 0;
 
         for(ASTNode childNode : childNodes) {
-            childTrees[i] = (DrawingTree) childNode.accept(this);
+            children[i] = childNode;
             i++;
         }
+        return layoutChildren(name, children);
+    }
+
+    /**
+     * Lays out a node with children, and their subtrees.
+     * @param name       the caption of the node
+     * @param childNodes the AST nodes of the children, at least one
+     * @return the drawing of the subtree
+     */
+    protected DrawingTree layoutChildren(String name, ASTNode[] childNodes)
+    {
+        DrawingTree dt = layoutCaption(name);
+        DrawingTree[] childTrees = new DrawingTree[childNodes.length];
+        for (int i = 0; i < childNodes.length; i++)
+            childTrees[i] = layoutTree(childNodes[i]);
         dt.setChildren(childTrees);
-        attachParent(dt, join(dt));
+        arrange(dt);
         return dt;
     }
 
+    /**
+     * Places the children of a node, whose subtrees are already laid out,
+     * below it by merging their contours.
+     */
+    protected void arrange(DrawingTree dt)
+    {
+        attachParent(dt, join(dt));
+    }
+
     private void attachParent(DrawingTree dt, int w)
     {
         int y = PARENT_SEP;
@@ -18,4 +18,39 @@ class Polygon
 {
     Polyline lower_head, lower_tail;
     Polyline upper_head, upper_tail;
+
+    /**
+     * Copies the lines of this contour, which merging it into another
+     * one changes.
+     */
+    Polygon copy()
+    {
+        Polygon copy = new Polygon();
+        copy.upper_head = copyLine(upper_head);
+        copy.upper_tail = last(copy.upper_head);
+        copy.lower_head = copyLine(lower_head);
+        copy.lower_tail = last(copy.lower_head);
+        return copy;
+    }
+
+    private static Polyline copyLine(Polyline line)
+    {
+        Polyline head = null, tail = null;
+        for (; line != null; line = line.link) {
+            Polyline copy = new Polyline(line.dx, line.dy, null);
+            if (tail == null)
+                head = copy;
+            else
+                tail.link = copy;
+            tail = copy;
+        }
+        return head;
+    }
+
+    private static Polyline last(Polyline line)
+    {
+        while (line != null && line.link != null)
+            line = line.link;
+        return line;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+/*
+ * File: TextMeasurer.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 3, 2019
+ */
+
+package proj11HangSlager.bantam.treedrawer;
+
+/**
+ * Measures the captions of a drawing for its layout. The layout depends
+ * only on this interface, not on a font of AWT, so it can be computed on
+ * any thread, ahead of the window that shows it, or with measurements
+ * from another toolkit.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-3-19
+ */
+public interface TextMeasurer
+{
+    /**
+     * @param text a caption
+     * @return the width of the caption, in pixels
+     */
+    int stringWidth(String text);
+
+    /**
+     * @return the height of a line of text, in pixels
+     */
+    int getHeight();
+}
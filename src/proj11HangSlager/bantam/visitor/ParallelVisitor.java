@@ -0,0 +1,163 @@
+/*
+ * File: ParallelVisitor.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: February 21, 2019
+ */
+
+package proj11HangSlager.bantam.visitor;
+
+import proj11HangSlager.bantam.ast.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Abstract visitor class for analyses that are independent per class
+ * member. traverse() forks over the elements of the ClassList and of each
+ * MemberList, visits every member with its own worker (a fresh visitor
+ * created by newWorker()) and merges the workers' results with combine().
+ *
+ * Subclasses override the visit methods exactly as for a sequential
+ * Visitor, but must keep all their state in instance fields of the worker
+ * and must not rely on visit(Program), visit(ClassList), visit(Class_) or
+ * visit(MemberList) being called: the traversal visits members directly.
+ * The class enclosing the member being visited is available through
+ * getCurrentClass().
+ *
+ * @param <R> the type of the analysis result
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   2-21-19
+ */
+public abstract class ParallelVisitor<R> extends Visitor {
+
+    /**
+     * Members visited by one worker without forking further; forking
+     * for every tiny getter costs more than it saves
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private Class_ currentClass;
+
+    /**
+     * Creates a new, empty worker of the same analysis.
+     *
+     * @return a visitor whose getResult() is the identity of combine()
+     */
+    protected abstract ParallelVisitor<R> newWorker();
+
+    /**
+     * @return the result accumulated by this worker so far
+     */
+    protected abstract R getResult();
+
+    /**
+     * Merges the results of two workers. The combiner must be associative;
+     * first always covers members that precede those of second in the
+     * program, so order-sensitive analyses get deterministic results.
+     *
+     * @param first  the result for the earlier members
+     * @param second the result for the later members
+     * @return the merged result
+     */
+    protected abstract R combine(R first, R second);
+
+    /**
+     * @return the class containing the member currently being visited
+     */
+    protected Class_ getCurrentClass() {
+        return currentClass;
+    }
+
+    /**
+     * Visits every member of the program in parallel on the common pool.
+     *
+     * @param ast the program to analyze
+     * @return the combined result of all workers
+     */
+    public R traverse(Program ast) {
+        return traverse(ast, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Visits every member of the program in parallel on the given pool.
+     *
+     * @param ast  the program to analyze
+     * @param pool the pool to run the workers on
+     * @return the combined result of all workers
+     */
+    public R traverse(Program ast, ForkJoinPool pool) {
+        ClassList classes = ast.getClassList();
+        return pool.invoke(new ClassTask(classes, 0, classes.getSize()));
+    }
+
+    /**
+     * Visits the members in [from, to) of a class with a single worker.
+     */
+    private R visitMembers(Class_ owner, int from, int to) {
+        ParallelVisitor<R> worker = newWorker();
+        worker.currentClass = owner;
+        MemberList members = owner.getMemberList();
+        for (int i = from; i < to; i++) {
+            members.get(i).accept(worker);
+        }
+        return worker.getResult();
+    }
+
+    /**
+     * Forks over a range of the class list, splitting it in halves.
+     */
+    private class ClassTask extends RecursiveTask<R> {
+        private final ClassList classes;
+        private final int from, to;
+
+        ClassTask(ClassList classes, int from, int to) {
+            this.classes = classes;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected R compute() {
+            if (to - from == 0) {
+                return newWorker().getResult();
+            }
+            if (to - from == 1) {
+                Class_ owner = (Class_) classes.get(from);
+                return new MemberTask(owner, 0, owner.getMemberList().getSize()).compute();
+            }
+            int mid = (from + to) >>> 1;
+            ClassTask right = new ClassTask(classes, mid, to);
+            right.fork();
+            R left = new ClassTask(classes, from, mid).compute();
+            return combine(left, right.join());
+        }
+    }
+
+    /**
+     * Forks over a range of the member list of one class.
+     */
+    private class MemberTask extends RecursiveTask<R> {
+        private final Class_ owner;
+        private final int from, to;
+
+        MemberTask(Class_ owner, int from, int to) {
+            this.owner = owner;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected R compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return visitMembers(owner, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            MemberTask right = new MemberTask(owner, mid, to);
+            right.fork();
+            R left = new MemberTask(owner, from, mid).compute();
+            return combine(left, right.join());
+        }
+    }
+}
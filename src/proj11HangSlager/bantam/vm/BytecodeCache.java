@@ -0,0 +1,141 @@
+/*
+ * File: BytecodeCache.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 1, 2019
+ */
+
+package proj11HangSlager.bantam.vm;
+
+import proj11HangSlager.bantam.ast.Program;
+import proj11HangSlager.bantam.cache.AstCache;
+import proj11HangSlager.bantam.cache.CacheFiles;
+import proj11HangSlager.bantam.opt.ConstantFoldingVisitor;
+import proj11HangSlager.bantam.opt.MethodInliner;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.semant.TypeCheckerVisitor;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A persistent on-disk cache of compiled programs.
+ *
+ * The first time a file is compiled its bytecode is written to the cache
+ * directory, tagged with a SHA-256 hash of the source text. Later loads
+ * of an unchanged file read the bytecode back, skipping scanning, parsing,
+ * type checking and compiling altogether. Files with errors are never
+ * cached, so their errors are reported again on every run.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-1-19
+ */
+public class BytecodeCache {
+
+    /**
+     * The directory used when no cache directory is given
+     */
+    public static final String DEFAULT_CACHE_DIR = ".bantam-cache";
+
+    private CacheFiles cacheFiles;
+    private AstCache astCache;
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Creates a cache that stores its files in the given directory,
+     * creating the directory on the first write if necessary.
+     *
+     * @param cacheDir the directory holding the cache files
+     */
+    public BytecodeCache(Path cacheDir) {
+        this.cacheFiles = new CacheFiles(cacheDir, "bbc");
+        this.astCache = new AstCache(cacheDir);
+    }
+
+    /**
+     * Returns the bytecode of the given file, from the cache if the file is
+     * unchanged since it was cached and by compiling it otherwise.
+     *
+     * @param filename     the name of the Bantam Java file
+     * @param errorHandler the handler that compilation errors are reported to
+     * @return the bytecode, or null if the file has errors
+     * @throws CompilationException if the file cannot be read or parsed
+     */
+    public BytecodeProgram load(String filename, ErrorHandler errorHandler) {
+        byte[] hash = CacheFiles.hashSource(filename);
+        BytecodeProgram program = readCacheFile(filename, hash);
+        if (program != null) {
+            hits++;
+            return program;
+        }
+        misses++;
+        Program ast = astCache.parse(filename, errorHandler);
+        SymbolTable symbolTable = new TypeCheckerVisitor().check(ast, errorHandler);
+        if (errorHandler.errorsFound()) {
+            return null;
+        }
+        new ConstantFoldingVisitor().fold(ast);
+        if (new MethodInliner(symbolTable).inline(ast) > 0) {
+            symbolTable = new TypeCheckerVisitor().check(ast, errorHandler);
+        }
+        BytecodeProgram compiled = new BytecodeCompiler().compile(ast, symbolTable);
+        cacheFiles.store(filename, file -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            compiled.write(out, hash);
+            out.flush();
+        });
+        return compiled;
+    }
+
+    /**
+     * @return the number of loads answered from the cache
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of loads that had to compile the source
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Reads the cache file of the given source, if there is one whose header
+     * matches the current format version and source hash.
+     *
+     * @return the cached program, or null on a cache miss
+     */
+    private BytecodeProgram readCacheFile(String filename, byte[] hash) {
+        Path cacheFile = cacheFiles.fileFor(filename);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != BytecodeProgram.MAGIC
+                    || in.readShort() != BytecodeProgram.VERSION) {
+                return null;
+            }
+            byte[] cachedHash = new byte[CacheFiles.HASH_LENGTH];
+            in.readFully(cachedHash);
+            return Arrays.equals(hash, cachedHash) ? BytecodeProgram.read(in) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
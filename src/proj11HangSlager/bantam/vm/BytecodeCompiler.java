@@ -0,0 +1,676 @@
+/*
+ * File: BytecodeCompiler.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 1, 2019
+ */
+
+package proj11HangSlager.bantam.vm;
+
+import proj11HangSlager.bantam.ast.*;
+import proj11HangSlager.bantam.interp.Interpreter;
+import proj11HangSlager.bantam.semant.ClassHierarchy;
+import proj11HangSlager.bantam.semant.Symbol;
+import proj11HangSlager.bantam.semant.SymbolTable;
+import proj11HangSlager.bantam.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This Visitor class uses the Visitor pattern to
+ * lower a type checked program to a BytecodeProgram.
+ *
+ * Each expression visit emits the code computing the expression and
+ * returns the number of the register holding its value. Formals and
+ * locals live in fixed registers derived from the frame slots of their
+ * symbols, so reading one emits no code at all; fields are read and
+ * written through their field slots. Temporaries are numbered after
+ * the locals and are reused from one statement to the next.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-1-19
+ */
+public class BytecodeCompiler extends Visitor {
+
+    private SymbolTable symbolTable;
+    private ClassHierarchy hierarchy;
+    private BytecodeProgram program;
+    private Map<String, Integer> classIndexes = new HashMap<>();
+    private Map<String, Integer> selectorIndexes = new HashMap<>();
+    private Map<String, Integer> stringIndexes = new HashMap<>();
+    private Map<Symbol, Integer> methodIndexes = new IdentityHashMap<>();
+
+    // the method being compiled
+    private Symbol currentMethod;
+    private int[] code = new int[256];
+    private int codeLength;
+    private int tempBase;
+    private int nextTemp;
+    private int numRegisters;
+    private List<Integer> breakJumps;
+
+    /**
+     * Lowers a program to bytecode.
+     *
+     * @param ast         a program without semantic errors
+     * @param symbolTable the symbol table the TypeCheckerVisitor built for it
+     * @return the bytecode of the program
+     */
+    public BytecodeProgram compile(Program ast, SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.hierarchy = symbolTable.getHierarchy();
+        program = new BytecodeProgram();
+
+        List<String> classNames = hierarchy.getClassNames();
+        for (String className : classNames) {
+            BytecodeProgram.ClassInfo classInfo = new BytecodeProgram.ClassInfo();
+            classInfo.name = className;
+            String parent = hierarchy.getParent(className);
+            classInfo.parent = parent == null ? -1 : classIndexes.get(parent);
+            classInfo.subtreeEnd = program.classes.size();
+            classInfo.numFields = symbolTable.getNumFields(className);
+            classIndexes.put(className, program.classes.size());
+            program.classes.add(classInfo);
+            for (Symbol method : symbolTable.getMethods(className)) {
+                if (!selectorIndexes.containsKey(method.getName())) {
+                    selectorIndexes.put(method.getName(), program.selectors.size());
+                    program.selectors.add(method.getName());
+                }
+            }
+        }
+
+        // parents come first, so subtree ends can be propagated backwards
+        for (int i = program.classes.size() - 1; i > 0; i--) {
+            BytecodeProgram.ClassInfo classInfo = program.classes.get(i);
+            BytecodeProgram.ClassInfo parent = program.classes.get(classInfo.parent);
+            parent.subtreeEnd = Math.max(parent.subtreeEnd, classInfo.subtreeEnd);
+        }
+
+        for (String className : classNames) {
+            declareMethods(className);
+        }
+        for (String className : classNames) {
+            compileClass(className);
+        }
+
+        Integer main = classIndexes.get("Main");
+        if (main != null && selectorIndexes.containsKey("main")) {
+            program.mainClass = main;
+            program.mainMethod = program.classes.get(main).vtable[selectorIndexes.get("main")];
+        }
+        return program;
+    }
+
+    //-------- statements ---------
+
+    /**
+     * Temporaries are reused from one statement to the next.
+     * @param node the statement list node
+     * @return
+     */
+    public Object visit(StmtList node) {
+        for (ASTNode stmt : node) {
+            nextTemp = tempBase;
+            stmt.accept(this);
+        }
+        return null;
+    }
+
+    public Object visit(DeclStmt node) {
+        Symbol local = symbolTable.getSymbol(node.getSymbolId());
+        int value = compile(node.getInit());
+        emitMove(Interpreter.isReference(local.getType()), register(local), value);
+        return null;
+    }
+
+    public Object visit(IfStmt node) {
+        int pred = compile(node.getPredExpr());
+        int toElse = emitJump(Opcode.JZ, pred);
+        node.getThenStmt().accept(this);
+        if (node.getElseStmt() == null) {
+            patch(toElse);
+        }
+        else {
+            int toEnd = emitJump(Opcode.JMP, -1);
+            patch(toElse);
+            node.getElseStmt().accept(this);
+            patch(toEnd);
+        }
+        return null;
+    }
+
+    public Object visit(WhileStmt node) {
+        List<Integer> outerBreaks = breakJumps;
+        breakJumps = new ArrayList<>();
+        int top = codeLength;
+        nextTemp = tempBase;
+        int toEnd = emitJump(Opcode.JZ, compile(node.getPredExpr()));
+        node.getBodyStmt().accept(this);
+        emit(Opcode.JMP, top);
+        patch(toEnd);
+        breakJumps.forEach(this::patch);
+        breakJumps = outerBreaks;
+        return null;
+    }
+
+    public Object visit(ForStmt node) {
+        List<Integer> outerBreaks = breakJumps;
+        breakJumps = new ArrayList<>();
+        if (node.getInitExpr() != null) {
+            compile(node.getInitExpr());
+        }
+        int top = codeLength;
+        int toEnd = -1;
+        if (node.getPredExpr() != null) {
+            nextTemp = tempBase;
+            toEnd = emitJump(Opcode.JZ, compile(node.getPredExpr()));
+        }
+        node.getBodyStmt().accept(this);
+        if (node.getUpdateExpr() != null) {
+            nextTemp = tempBase;
+            compile(node.getUpdateExpr());
+        }
+        emit(Opcode.JMP, top);
+        if (toEnd >= 0) {
+            patch(toEnd);
+        }
+        breakJumps.forEach(this::patch);
+        breakJumps = outerBreaks;
+        return null;
+    }
+
+    public Object visit(BreakStmt node) {
+        breakJumps.add(emitJump(Opcode.JMP, -1));
+        return null;
+    }
+
+    public Object visit(ReturnStmt node) {
+        if (node.getExpr() == null) {
+            emit(Opcode.RETURN);
+        }
+        else {
+            int value = compile(node.getExpr());
+            emit(Interpreter.isReference(currentMethod.getType())
+                    ? Opcode.RRETURN : Opcode.IRETURN, value);
+        }
+        return null;
+    }
+
+    //-------- objects and calls ---------
+
+    /**
+     * The receiver and the arguments are placed in consecutive registers,
+     * which become the first registers of the callee's frame.
+     * @param node the dispatch expression node
+     * @return
+     */
+    public Object visit(DispatchExpr node) {
+        Symbol method = symbolTable.getSymbol(node.getSymbolId());
+        int count = 1 + node.getActualList().getSize();
+        int first = newTemps(count);
+        emitMove(true, first, node.getRefExpr() == null ? 0 : compile(node.getRefExpr()));
+        int arg = first + 1;
+        for (ASTNode actual : node.getActualList()) {
+            emitMove(Interpreter.isReference(method.getParamTypes().get(arg - first - 1)), arg,
+                    compile((Expr) actual));
+            arg++;
+        }
+        int result = newTemp();
+        if (isSuper(node.getRefExpr())) {
+            emit(Opcode.INVOKESPECIAL, result, methodIndexes.get(method), first, count,
+                    node.getLineNum());
+        }
+        else {
+            emit(Opcode.INVOKEVIRTUAL, result, selectorIndexes.get(node.getMethodName()),
+                    first, count, node.getLineNum());
+        }
+        return result;
+    }
+
+    public Object visit(NewExpr node) {
+        int result = newTemp();
+        emit(Opcode.NEW, result, classIndexes.get(node.getType()));
+        return result;
+    }
+
+    public Object visit(NewArrayExpr node) {
+        int size = compile(node.getSize());
+        int result = newTemp();
+        emit(Opcode.NEWARRAY, result, size, typeOperand(node.getType() + "[]"), node.getLineNum());
+        return result;
+    }
+
+    public Object visit(InstanceofExpr node) {
+        int value = compile(node.getExpr());
+        int result = newTemp();
+        emit(Opcode.INSTANCEOF, result, value, typeOperand(node.getType()));
+        return result;
+    }
+
+    public Object visit(CastExpr node) {
+        int value = compile(node.getExpr());
+        if (!node.getUpCast()) {
+            emit(Opcode.CHECKCAST, value, typeOperand(node.getType()), node.getLineNum());
+        }
+        return value;
+    }
+
+    //-------- variables ---------
+
+    public Object visit(VarExpr node) {
+        if (node.getSymbolId() >= 0) {
+            return load(symbolTable.getSymbol(node.getSymbolId()));
+        }
+        if (node.getRef() == null) {
+            if (!node.getName().equals("null")) {
+                return 0;
+            }
+            int result = newTemp();
+            emit(Opcode.NULL, result);
+            return result;
+        }
+        int array = compile(node.getRef());
+        int result = newTemp();
+        emit(Opcode.ARRAYLENGTH, result, array, node.getLineNum());
+        return result;
+    }
+
+    public Object visit(AssignExpr node) {
+        int value = compile(node.getExpr());
+        return store(symbolTable.getSymbol(node.getSymbolId()), value);
+    }
+
+    public Object visit(ArrayExpr node) {
+        Symbol symbol = symbolTable.getSymbol(node.getSymbolId());
+        int array = stable(load(symbol), true, node.getIndex());
+        int index = compile(node.getIndex());
+        int result = newTemp();
+        emit(Interpreter.isReference(node.getExprType()) ? Opcode.RALOAD : Opcode.IALOAD,
+                result, array, index, node.getLineNum());
+        return result;
+    }
+
+    public Object visit(ArrayAssignExpr node) {
+        Symbol symbol = symbolTable.getSymbol(node.getSymbolId());
+        int array = stable(load(symbol), true, node.getIndex());
+        int index = stable(compile(node.getIndex()), false, node.getExpr());
+        int value = compile(node.getExpr());
+        emit(Interpreter.isReference(node.getExprType()) ? Opcode.RASTORE : Opcode.IASTORE,
+                array, index, value, node.getLineNum());
+        return value;
+    }
+
+    //-------- operators ---------
+
+    public Object visit(BinaryCompEqExpr node) {
+        boolean isRef = Interpreter.isReference(node.getLeftExpr().getExprType());
+        return binary(isRef ? Opcode.REQ : Opcode.IEQ, node);
+    }
+
+    public Object visit(BinaryCompNeExpr node) {
+        boolean isRef = Interpreter.isReference(node.getLeftExpr().getExprType());
+        return binary(isRef ? Opcode.RNE : Opcode.INE, node);
+    }
+
+    public Object visit(BinaryCompLtExpr node) {
+        return binary(Opcode.ILT, node);
+    }
+
+    public Object visit(BinaryCompLeqExpr node) {
+        return binary(Opcode.ILE, node);
+    }
+
+    public Object visit(BinaryCompGtExpr node) {
+        return binary(Opcode.IGT, node);
+    }
+
+    public Object visit(BinaryCompGeqExpr node) {
+        return binary(Opcode.IGE, node);
+    }
+
+    public Object visit(BinaryArithPlusExpr node) {
+        return binary(Opcode.IADD, node);
+    }
+
+    public Object visit(BinaryArithMinusExpr node) {
+        return binary(Opcode.ISUB, node);
+    }
+
+    public Object visit(BinaryArithTimesExpr node) {
+        return binary(Opcode.IMUL, node);
+    }
+
+    public Object visit(BinaryArithDivideExpr node) {
+        return binary(Opcode.IDIV, node);
+    }
+
+    public Object visit(BinaryArithModulusExpr node) {
+        return binary(Opcode.IREM, node);
+    }
+
+    public Object visit(BinaryLogicAndExpr node) {
+        return shortCircuit(Opcode.JZ, node);
+    }
+
+    public Object visit(BinaryLogicOrExpr node) {
+        return shortCircuit(Opcode.JNZ, node);
+    }
+
+    public Object visit(UnaryNegExpr node) {
+        int operand = compile(node.getExpr());
+        int result = newTemp();
+        emit(Opcode.INEG, result, operand);
+        return result;
+    }
+
+    public Object visit(UnaryNotExpr node) {
+        int operand = compile(node.getExpr());
+        int result = newTemp();
+        emit(Opcode.INOT, result, operand);
+        return result;
+    }
+
+    public Object visit(UnaryIncrExpr node) {
+        return step(node, 1);
+    }
+
+    public Object visit(UnaryDecrExpr node) {
+        return step(node, -1);
+    }
+
+    public Object visit(ConstIntExpr node) {
+        int result = newTemp();
+        emit(Opcode.ICONST, result, node.getIntConstant());
+        return result;
+    }
+
+    public Object visit(ConstBooleanExpr node) {
+        int result = newTemp();
+        emit(Opcode.ICONST, result, node.getConstant().equals("true") ? 1 : 0);
+        return result;
+    }
+
+    public Object visit(ConstStringExpr node) {
+        String value = Interpreter.unescape(node.getConstant());
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = program.strings.size();
+            program.strings.add(value);
+            stringIndexes.put(value, index);
+        }
+        int result = newTemp();
+        emit(Opcode.SCONST, result, index);
+        return result;
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Numbers the methods a class declares and builds its method table
+     * from that of its parent.
+     */
+    private void declareMethods(String className) {
+        BytecodeProgram.ClassInfo classInfo = program.classes.get(classIndexes.get(className));
+        classInfo.vtable = new int[selectorIndexes.size()];
+        Arrays.fill(classInfo.vtable, -1);
+        if (classInfo.parent >= 0) {
+            int[] inherited = program.classes.get(classInfo.parent).vtable;
+            System.arraycopy(inherited, 0, classInfo.vtable, 0, inherited.length);
+        }
+        for (Symbol method : symbolTable.getMethods(className)) {
+            BytecodeProgram.MethodInfo methodInfo = new BytecodeProgram.MethodInfo();
+            methodInfo.name = method.getName();
+            methodInfo.owner = classIndexes.get(className);
+            methodInfo.numArgs = method.getParamTypes().size();
+            methodInfo.frameSize = 1 + methodInfo.numArgs;
+            if (method.getDecl() == null) {
+                methodInfo.builtIn = className + "." + method.getName();
+            }
+            methodIndexes.put(method, program.methods.size());
+            classInfo.vtable[selectorIndexes.get(method.getName())] = program.methods.size();
+            program.methods.add(methodInfo);
+        }
+    }
+
+    /**
+     * Compiles the field initializers and the methods of a class.
+     */
+    private void compileClass(String className) {
+        Class_ node = symbolTable.getClassNode(className);
+        BytecodeProgram.ClassInfo classInfo = program.classes.get(classIndexes.get(className));
+        int parentInit = classInfo.parent < 0 ? -1
+                : program.classes.get(classInfo.parent).initMethod;
+        if (node == null) {
+            classInfo.initMethod = parentInit;
+            return;
+        }
+
+        boolean hasInits = false;
+        for (Symbol field : symbolTable.getFields(className)) {
+            hasInits |= ((Field) field.getDecl()).getInit() != null;
+        }
+        if (!hasInits) {
+            classInfo.initMethod = parentInit;
+        }
+        else {
+            startMethod(null, 0);
+            if (parentInit >= 0) {
+                emit(Opcode.INVOKESPECIAL, newTemp(), parentInit, 0, 1, node.getLineNum());
+            }
+            for (Symbol field : symbolTable.getFields(className)) {
+                Expr init = ((Field) field.getDecl()).getInit();
+                if (init != null) {
+                    nextTemp = tempBase;
+                    store(field, compile(init));
+                }
+            }
+            emit(Opcode.RETURN);
+            BytecodeProgram.MethodInfo initMethod = new BytecodeProgram.MethodInfo();
+            initMethod.name = "<init>";
+            initMethod.owner = classIndexes.get(className);
+            finishMethod(initMethod);
+            classInfo.initMethod = program.methods.size();
+            program.methods.add(initMethod);
+        }
+
+        for (Symbol method : symbolTable.getMethods(className)) {
+            startMethod(method, method.getFrameSize());
+            ((Method) method.getDecl()).getStmtList().accept(this);
+            emit(Opcode.RETURN);
+            finishMethod(program.methods.get(methodIndexes.get(method)));
+        }
+    }
+
+    private void startMethod(Symbol method, int numSlots) {
+        currentMethod = method;
+        codeLength = 0;
+        tempBase = nextTemp = numRegisters = 1 + numSlots;
+        breakJumps = null;
+    }
+
+    private void finishMethod(BytecodeProgram.MethodInfo methodInfo) {
+        methodInfo.frameSize = numRegisters;
+        methodInfo.code = Arrays.copyOf(code, codeLength);
+    }
+
+    private int compile(Expr expr) {
+        return (Integer) expr.accept(this);
+    }
+
+    private int newTemp() {
+        return newTemps(1);
+    }
+
+    private int newTemps(int count) {
+        int first = nextTemp;
+        nextTemp += count;
+        numRegisters = Math.max(numRegisters, nextTemp);
+        return first;
+    }
+
+    /**
+     * The register of a formal or local; register 0 holds this
+     */
+    private static int register(Symbol symbol) {
+        return symbol.getSlot() + 1;
+    }
+
+    /**
+     * @return the register holding the value of a variable
+     */
+    private int load(Symbol symbol) {
+        if (symbol.getKind() != Symbol.Kind.FIELD) {
+            return register(symbol);
+        }
+        int result = newTemp();
+        emit(Interpreter.isReference(symbol.getType()) ? Opcode.RGETF : Opcode.IGETF,
+                result, 0, symbol.getSlot());
+        return result;
+    }
+
+    /**
+     * @return the register holding the value assigned
+     */
+    private int store(Symbol symbol, int value) {
+        boolean isRef = Interpreter.isReference(symbol.getType());
+        if (symbol.getKind() != Symbol.Kind.FIELD) {
+            emitMove(isRef, register(symbol), value);
+            return register(symbol);
+        }
+        emit(isRef ? Opcode.RPUTF : Opcode.IPUTF, 0, symbol.getSlot(), value);
+        return value;
+    }
+
+    /**
+     * Copies the value of a variable's register to a temporary if the
+     * expression evaluated next could assign to the variable.
+     */
+    private int stable(int register, boolean isRef, Expr next) {
+        if (register >= tempBase || next instanceof ConstExpr
+                || (next instanceof VarExpr && ((VarExpr) next).getRef() == null)) {
+            return register;
+        }
+        int copy = newTemp();
+        emitMove(isRef, copy, register);
+        return copy;
+    }
+
+    private int binary(int opcode, BinaryExpr node) {
+        boolean isRef = opcode == Opcode.REQ || opcode == Opcode.RNE;
+        int left = stable(compile(node.getLeftExpr()), isRef, node.getRightExpr());
+        int right = compile(node.getRightExpr());
+        int result = newTemp();
+        if (opcode == Opcode.IDIV || opcode == Opcode.IREM) {
+            emit(opcode, result, left, right, node.getLineNum());
+        }
+        else {
+            emit(opcode, result, left, right);
+        }
+        return result;
+    }
+
+    private int shortCircuit(int jump, BinaryExpr node) {
+        int result = newTemp();
+        emit(Opcode.IMOV, result, compile(node.getLeftExpr()));
+        int toEnd = emitJump(jump, result);
+        emit(Opcode.IMOV, result, compile(node.getRightExpr()));
+        patch(toEnd);
+        return result;
+    }
+
+    /**
+     * Increments or decrements a local, field or array element.
+     */
+    private int step(UnaryExpr node, int delta) {
+        Expr operand = node.getExpr();
+        if (operand instanceof VarExpr) {
+            Symbol symbol = symbolTable.getSymbol(((VarExpr) operand).getSymbolId());
+            if (symbol.getKind() != Symbol.Kind.FIELD) {
+                int register = register(symbol);
+                int old = register;
+                if (node.isPostfix()) {
+                    old = newTemp();
+                    emit(Opcode.IMOV, old, register);
+                }
+                emit(Opcode.IINC, register, delta);
+                return old;
+            }
+            int value = load(symbol);
+            int updated = addConstant(value, delta);
+            emit(Opcode.IPUTF, 0, symbol.getSlot(), updated);
+            return node.isPostfix() ? value : updated;
+        }
+        ArrayExpr arrayExpr = (ArrayExpr) operand;
+        int array = stable(load(symbolTable.getSymbol(arrayExpr.getSymbolId())), true,
+                arrayExpr.getIndex());
+        int index = compile(arrayExpr.getIndex());
+        int value = newTemp();
+        emit(Opcode.IALOAD, value, array, index, node.getLineNum());
+        int updated = addConstant(value, delta);
+        emit(Opcode.IASTORE, array, index, updated, node.getLineNum());
+        return node.isPostfix() ? value : updated;
+    }
+
+    private int addConstant(int register, int constant) {
+        int constantRegister = newTemp();
+        emit(Opcode.ICONST, constantRegister, constant);
+        int result = newTemp();
+        emit(Opcode.IADD, result, register, constantRegister);
+        return result;
+    }
+
+    private int typeOperand(String type) {
+        if (type.endsWith("[]")) {
+            String elementType = type.substring(0, type.length() - 2);
+            return Interpreter.isReference(elementType)
+                    ? Opcode.arrayOf(classIndexes.get(elementType)) : Opcode.INT_ARRAY;
+        }
+        return classIndexes.get(type);
+    }
+
+    private void emitMove(boolean isRef, int destination, int source) {
+        if (destination != source) {
+            emit(isRef ? Opcode.RMOV : Opcode.IMOV, destination, source);
+        }
+    }
+
+    /**
+     * Emits a jump and returns the index of its target operand.
+     */
+    private int emitJump(int opcode, int register) {
+        if (opcode == Opcode.JMP) {
+            emit(opcode, -1);
+        }
+        else {
+            emit(opcode, register, -1);
+        }
+        return codeLength - 1;
+    }
+
+    /**
+     * Points a jump emitted earlier at the current end of the code.
+     */
+    private void patch(int operandIndex) {
+        code[operandIndex] = codeLength;
+    }
+
+    private void emit(int... words) {
+        if (codeLength + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, codeLength + words.length));
+        }
+        System.arraycopy(words, 0, code, codeLength, words.length);
+        codeLength += words.length;
+    }
+
+    private static boolean isSuper(Expr expr) {
+        return expr instanceof VarExpr && ((VarExpr) expr).getRef() == null
+                && ((VarExpr) expr).getName().equals("super");
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * File: BytecodeProgram.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 1, 2019
+ */
+
+package proj11HangSlager.bantam.vm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Bantam Java program lowered to bytecode: a constant pool of strings,
+ * the method selectors, the classes with their virtual method tables and
+ * the methods with their code.
+ *
+ * Classes are numbered so that every class comes before its subclasses
+ * and the subclasses of a class are numbered consecutively; a class is a
+ * subclass of another when its number lies between the other's number
+ * and the other's subtreeEnd.
+ *
+ * A program can be written to and read back from a stream, which is the
+ * format of the bytecode cache.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-1-19
+ */
+public class BytecodeProgram {
+
+    /**
+     * "BBC1" - identifies bytecode files
+     */
+    static final int MAGIC = 0x42424331;
+
+    /**
+     * Bumped whenever the instruction set or the file layout changes
+     */
+    static final short VERSION = 2;
+
+    /**
+     * A class: its parent, field count, initializer and method table
+     */
+    static class ClassInfo {
+        String name;
+        int parent = -1;
+        int subtreeEnd;
+        int numFields;
+
+        /**
+         * The method running the field initializers (those of the
+         * ancestors first), or -1 if no field is initialized
+         */
+        int initMethod = -1;
+
+        /**
+         * The method run for each selector, or -1 if the class has none
+         */
+        int[] vtable;
+    }
+
+    /**
+     * A method: its code, or the built-in it stands for
+     */
+    static class MethodInfo {
+        String name;
+        int owner;
+        String builtIn;
+        int numArgs;
+
+        /**
+         * The number of registers, this and the formals included
+         */
+        int frameSize;
+        int[] code;
+    }
+
+    final List<String> strings = new ArrayList<>();
+    final List<String> selectors = new ArrayList<>();
+    final List<ClassInfo> classes = new ArrayList<>();
+    final List<MethodInfo> methods = new ArrayList<>();
+    int mainClass = -1;
+    int mainMethod = -1;
+
+    /**
+     * @return the number of instructions of all methods together
+     */
+    public int getCodeSize() {
+        int size = 0;
+        for (MethodInfo method : methods) {
+            if (method.code != null) {
+                for (int pc = 0; pc < method.code.length;
+                     pc += 1 + Opcode.getNumOperands(method.code[pc])) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Lists the code of every method, one instruction per line.
+     *
+     * @return the listing
+     */
+    public String disassemble() {
+        StringBuilder listing = new StringBuilder();
+        for (MethodInfo method : methods) {
+            if (method.code == null) {
+                continue;
+            }
+            listing.append(classes.get(method.owner).name).append('.').append(method.name)
+                    .append(" (").append(method.frameSize).append(" registers)\n");
+            int[] code = method.code;
+            for (int pc = 0; pc < code.length; pc += 1 + Opcode.getNumOperands(code[pc])) {
+                listing.append(String.format("%6d  %-14s", pc, Opcode.getName(code[pc])));
+                for (int i = 1; i <= Opcode.getNumOperands(code[pc]); i++) {
+                    listing.append(' ').append(code[pc + i]);
+                }
+                listing.append('\n');
+            }
+        }
+        return listing.toString();
+    }
+
+    /**
+     * Writes the program, preceded by a header holding the hash of its source.
+     *
+     * @param out        the stream to write to
+     * @param sourceHash the hash identifying the source the program was compiled from
+     * @throws IOException if writing fails
+     */
+    void write(DataOutputStream out, byte[] sourceHash) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.write(sourceHash);
+        writeStrings(out, strings);
+        writeStrings(out, selectors);
+        out.writeInt(classes.size());
+        for (ClassInfo classInfo : classes) {
+            out.writeUTF(classInfo.name);
+            out.writeInt(classInfo.parent);
+            out.writeInt(classInfo.subtreeEnd);
+            out.writeInt(classInfo.numFields);
+            out.writeInt(classInfo.initMethod);
+            writeInts(out, classInfo.vtable);
+        }
+        out.writeInt(methods.size());
+        for (MethodInfo method : methods) {
+            out.writeUTF(method.name);
+            out.writeInt(method.owner);
+            out.writeUTF(method.builtIn == null ? "" : method.builtIn);
+            out.writeInt(method.numArgs);
+            out.writeInt(method.frameSize);
+            writeInts(out, method.code == null ? new int[0] : method.code);
+        }
+        out.writeInt(mainClass);
+        out.writeInt(mainMethod);
+    }
+
+    /**
+     * Reads a program written by write, after its header has been checked.
+     *
+     * @param in the stream positioned after the header
+     * @return the program
+     * @throws IOException if reading fails
+     */
+    static BytecodeProgram read(DataInputStream in) throws IOException {
+        BytecodeProgram program = new BytecodeProgram();
+        readStrings(in, program.strings);
+        readStrings(in, program.selectors);
+        int numClasses = in.readInt();
+        for (int i = 0; i < numClasses; i++) {
+            ClassInfo classInfo = new ClassInfo();
+            classInfo.name = in.readUTF();
+            classInfo.parent = in.readInt();
+            classInfo.subtreeEnd = in.readInt();
+            classInfo.numFields = in.readInt();
+            classInfo.initMethod = in.readInt();
+            classInfo.vtable = readInts(in);
+            program.classes.add(classInfo);
+        }
+        int numMethods = in.readInt();
+        for (int i = 0; i < numMethods; i++) {
+            MethodInfo method = new MethodInfo();
+            method.name = in.readUTF();
+            method.owner = in.readInt();
+            String builtIn = in.readUTF();
+            method.builtIn = builtIn.isEmpty() ? null : builtIn;
+            method.numArgs = in.readInt();
+            method.frameSize = in.readInt();
+            int[] code = readInts(in);
+            method.code = method.builtIn == null ? code : null;
+            program.methods.add(method);
+        }
+        program.mainClass = in.readInt();
+        program.mainMethod = in.readInt();
+        return program;
+    }
+
+    //-------- auxiliary methods ---------
+
+    private static void writeStrings(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String string : list) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static void readStrings(DataInputStream in, List<String> list) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            list.add(in.readUTF());
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * File: Opcode.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 1, 2019
+ */
+
+package proj11HangSlager.bantam.vm;
+
+/**
+ * The instructions of the Bantam virtual machine.
+ *
+ * An instruction is an opcode followed by its operands, all stored as
+ * ints in a method's code array. Operands named d, s, a, b, o and arr
+ * are register numbers; every register of a frame can hold an int (or
+ * boolean as 0/1) and a reference, and the opcode says which is meant.
+ * Register 0 holds this, the formals and locals follow in the order of
+ * their slots, and the compiler's temporaries come last. Jump targets
+ * are code indexes, and "line" operands are source lines for runtime
+ * error messages.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-1-19
+ */
+final class Opcode {
+
+    static final int ICONST = 0;        // d value
+    static final int SCONST = 1;        // d stringIndex
+    static final int NULL = 2;          // d
+    static final int IMOV = 3;          // d s
+    static final int RMOV = 4;          // d s
+    static final int IADD = 5;          // d a b
+    static final int ISUB = 6;          // d a b
+    static final int IMUL = 7;          // d a b
+    static final int IDIV = 8;          // d a b line
+    static final int IREM = 9;          // d a b line
+    static final int INEG = 10;         // d a
+    static final int INOT = 11;         // d a
+    static final int IEQ = 12;          // d a b
+    static final int INE = 13;          // d a b
+    static final int ILT = 14;          // d a b
+    static final int ILE = 15;          // d a b
+    static final int IGT = 16;          // d a b
+    static final int IGE = 17;          // d a b
+    static final int REQ = 18;          // d a b
+    static final int RNE = 19;          // d a b
+    static final int IINC = 20;         // d delta
+    static final int JMP = 21;          // target
+    static final int JZ = 22;           // a target
+    static final int JNZ = 23;          // a target
+    static final int IGETF = 24;        // d o slot
+    static final int RGETF = 25;        // d o slot
+    static final int IPUTF = 26;        // o slot s
+    static final int RPUTF = 27;        // o slot s
+    static final int NEW = 28;          // d classIndex
+    static final int NEWARRAY = 29;     // d size type line
+    static final int IALOAD = 30;       // d arr index line
+    static final int RALOAD = 31;       // d arr index line
+    static final int IASTORE = 32;      // arr index s line
+    static final int RASTORE = 33;      // arr index s line
+    static final int ARRAYLENGTH = 34;  // d arr line
+    static final int INSTANCEOF = 35;   // d s type
+    static final int CHECKCAST = 36;    // s type line
+    static final int INVOKEVIRTUAL = 37; // d selector first count line
+    static final int INVOKESPECIAL = 38; // d methodIndex first count line
+    static final int RETURN = 39;       //
+    static final int IRETURN = 40;      // s
+    static final int RRETURN = 41;      // s
+
+    /**
+     * The type operand of NEWARRAY, INSTANCEOF and CHECKCAST for an int or
+     * boolean array; a class is its index and an array of a class is
+     * arrayOf(the index)
+     */
+    static final int INT_ARRAY = -1;
+
+    private static final String[] NAMES = {
+            "iconst", "sconst", "null", "imov", "rmov", "iadd", "isub", "imul", "idiv",
+            "irem", "ineg", "inot", "ieq", "ine", "ilt", "ile", "igt", "ige", "req", "rne",
+            "iinc", "jmp", "jz", "jnz", "igetf", "rgetf", "iputf", "rputf", "new",
+            "newarray", "iaload", "raload", "iastore", "rastore", "arraylength",
+            "instanceof", "checkcast", "invokevirtual", "invokespecial", "return",
+            "ireturn", "rreturn"
+    };
+
+    private static final int[] NUM_OPERANDS = {
+            2, 2, 1, 2, 2, 3, 3, 3, 4, 4, 2, 2, 3, 3, 3, 3, 3, 3, 3, 3,
+            2, 1, 2, 2, 3, 3, 3, 3, 2, 4, 4, 4, 4, 4, 3, 3, 3, 5, 5, 0, 1, 1
+    };
+
+    private Opcode() {
+    }
+
+    /**
+     * @param elementClass the index of a class
+     * @return the type operand for an array of the class
+     */
+    static int arrayOf(int elementClass) {
+        return -2 - elementClass;
+    }
+
+    /**
+     * @param arrayType the type operand of an array of a class
+     * @return the index of the class
+     */
+    static int elementOf(int arrayType) {
+        return -2 - arrayType;
+    }
+
+    /**
+     * @param opcode an opcode
+     * @return its mnemonic
+     */
+    static String getName(int opcode) {
+        return NAMES[opcode];
+    }
+
+    /**
+     * @param opcode an opcode
+     * @return the number of operands following it
+     */
+    static int getNumOperands(int opcode) {
+        return NUM_OPERANDS[opcode];
+    }
+}
@@ -0,0 +1,723 @@
+/*
+ * File: VirtualMachine.java
+ * Names: Jackie Hang, Kyle Slager
+ * Class: CS361
+ * Project 11
+ * Date: March 1, 2019
+ */
+
+package proj11HangSlager.bantam.vm;
+
+import proj11HangSlager.bantam.interp.InterpreterException;
+import proj11HangSlager.bantam.interp.RuntimeErrors;
+import proj11HangSlager.bantam.util.CompilationException;
+import proj11HangSlager.bantam.util.Error;
+import proj11HangSlager.bantam.util.ErrorHandler;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs a BytecodeProgram, starting with the main method of class Main.
+ *
+ * The registers of all active calls live in one int array and one
+ * Object array; a frame is a window of them starting at its base, and
+ * a call places the callee's frame right after the caller's, so the
+ * consecutive argument registers of a call need only be copied over.
+ * Methods are run by a single switch over their opcodes, and built-in
+ * methods are mapped to small ids once, when the program is loaded.
+ *
+ * A running program can be stopped by interrupting its thread; the
+ * interruption is noticed at the next backward jump.
+ *
+ * @author  Jackie Hang, Kyle Slager
+ * @version 1.0
+ * @since   3-1-19
+ */
+public class VirtualMachine {
+
+    private static final String[] BUILT_INS = {
+            "Object.clone", "Object.equals", "Object.toString", "String.length",
+            "String.equals", "String.toString", "String.substring", "String.concat",
+            "Sys.exit", "Sys.time", "Sys.random", "TextIO.readStdin", "TextIO.readFile",
+            "TextIO.writeStdout", "TextIO.writeStderr", "TextIO.writeFile",
+            "TextIO.getString", "TextIO.getInt", "TextIO.putString", "TextIO.putInt"
+    };
+
+    private final BytecodeProgram.ClassInfo[] classes;
+    private final BytecodeProgram.MethodInfo[] methods;
+    private final int[][] codes;
+    private final int[] frameSizes;
+    private final int[] builtIns;
+    private final String[] strings;
+    private final String[] selectors;
+    private final int objectClass;
+    private final int stringClass;
+    private final int textIOClass;
+    private final int mainClass;
+    private final int mainMethod;
+    private final PrintStream out;
+    private final InputStream in;
+    private final Random random = new Random();
+
+    // the registers of all active frames
+    private int[] ints = new int[1024];
+    private Object[] refs = new Object[1024];
+
+    // the result of the last call
+    private int intResult;
+    private Object refResult;
+
+    /**
+     * Prepares a program for running.
+     *
+     * @param program the program
+     * @param out     the stream the program writes to
+     * @param in      the stream the program reads standard input from
+     */
+    public VirtualMachine(BytecodeProgram program, PrintStream out, InputStream in) {
+        this.out = out;
+        this.in = in;
+        classes = program.classes.toArray(new BytecodeProgram.ClassInfo[0]);
+        methods = program.methods.toArray(new BytecodeProgram.MethodInfo[0]);
+        strings = program.strings.toArray(new String[0]);
+        selectors = program.selectors.toArray(new String[0]);
+        codes = new int[methods.length][];
+        frameSizes = new int[methods.length];
+        builtIns = new int[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            codes[i] = methods[i].code;
+            frameSizes[i] = methods[i].frameSize;
+            builtIns[i] = Arrays.asList(BUILT_INS).indexOf(methods[i].builtIn);
+        }
+        objectClass = indexOf("Object");
+        stringClass = indexOf("String");
+        textIOClass = indexOf("TextIO");
+        mainClass = program.mainClass;
+        mainMethod = program.mainMethod;
+    }
+
+    /**
+     * Runs the program: creates a Main object and calls its main method.
+     * Output is flushed when the program ends.
+     *
+     * @return the exit status, 0 unless the program called Sys.exit
+     * @throws InterpreterException if the program fails or is interrupted
+     */
+    public int run() {
+        if (mainMethod < 0 || codes[mainMethod] == null || methods[mainMethod].numArgs > 0) {
+            throw new InterpreterException(0, RuntimeErrors.NO_MAIN);
+        }
+        try {
+            refs[0] = instantiate(mainClass, 0);
+            execute(mainMethod, 0);
+            return 0;
+        }
+        catch (ExitException e) {
+            return e.status;
+        }
+        catch (StackOverflowError e) {
+            throw new InterpreterException(0, RuntimeErrors.STACK_OVERFLOW);
+        }
+        finally {
+            out.flush();
+        }
+    }
+
+    //-------- auxiliary methods ---------
+
+    /**
+     * Runs a method whose frame starts at base, with this and the
+     * arguments already in place, and leaves its result in intResult
+     * or refResult.
+     */
+    private void execute(int methodIndex, int base) {
+        int[] code = codes[methodIndex];
+        int top = base + frameSizes[methodIndex];
+        ensureCapacity(top);
+        int[] I = ints;
+        Object[] R = refs;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case Opcode.ICONST:
+                    I[base + code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                    break;
+                case Opcode.SCONST:
+                    R[base + code[pc + 1]] = strings[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.NULL:
+                    R[base + code[pc + 1]] = null;
+                    pc += 2;
+                    break;
+                case Opcode.IMOV:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.RMOV:
+                    R[base + code[pc + 1]] = R[base + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.IADD:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]] + I[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.ISUB:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]] - I[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.IMUL:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]] * I[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.IDIV:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]]
+                            / checkDivisor(I[base + code[pc + 3]], code[pc + 4]);
+                    pc += 5;
+                    break;
+                case Opcode.IREM:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]]
+                            % checkDivisor(I[base + code[pc + 3]], code[pc + 4]);
+                    pc += 5;
+                    break;
+                case Opcode.INEG:
+                    I[base + code[pc + 1]] = -I[base + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.INOT:
+                    I[base + code[pc + 1]] = I[base + code[pc + 2]] ^ 1;
+                    pc += 3;
+                    break;
+                case Opcode.IEQ:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] == I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.INE:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] != I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.ILT:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] < I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.ILE:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] <= I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.IGT:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] > I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.IGE:
+                    I[base + code[pc + 1]] =
+                            I[base + code[pc + 2]] >= I[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.REQ:
+                    I[base + code[pc + 1]] =
+                            R[base + code[pc + 2]] == R[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.RNE:
+                    I[base + code[pc + 1]] =
+                            R[base + code[pc + 2]] != R[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.IINC:
+                    I[base + code[pc + 1]] += code[pc + 2];
+                    pc += 3;
+                    break;
+                case Opcode.JMP:
+                    pc = jump(pc, code[pc + 1]);
+                    break;
+                case Opcode.JZ:
+                    pc = I[base + code[pc + 1]] == 0 ? jump(pc, code[pc + 2]) : pc + 3;
+                    break;
+                case Opcode.JNZ:
+                    pc = I[base + code[pc + 1]] != 0 ? jump(pc, code[pc + 2]) : pc + 3;
+                    break;
+                case Opcode.IGETF:
+                    I[base + code[pc + 1]] = ((VMObject) R[base + code[pc + 2]]).ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.RGETF:
+                    R[base + code[pc + 1]] = ((VMObject) R[base + code[pc + 2]]).refs[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.IPUTF:
+                    ((VMObject) R[base + code[pc + 1]]).ints[code[pc + 2]] = I[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.RPUTF:
+                    ((VMObject) R[base + code[pc + 1]]).refs[code[pc + 2]] = R[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.NEW: {
+                    Object object = instantiate(code[pc + 2], top);
+                    I = ints;
+                    R = refs;
+                    R[base + code[pc + 1]] = object;
+                    pc += 3;
+                    break;
+                }
+                case Opcode.NEWARRAY: {
+                    int size = I[base + code[pc + 2]];
+                    if (size < 0) {
+                        throw new InterpreterException(code[pc + 4],
+                                RuntimeErrors.negativeArraySize(size));
+                    }
+                    R[base + code[pc + 1]] = code[pc + 3] == Opcode.INT_ARRAY ? new int[size]
+                            : new VMArray(Opcode.elementOf(code[pc + 3]), size);
+                    pc += 5;
+                    break;
+                }
+                case Opcode.IALOAD: {
+                    int[] array = (int[]) checkArray(R[base + code[pc + 2]], code[pc + 4]);
+                    int index = checkIndex(array.length, I[base + code[pc + 3]], code[pc + 4]);
+                    I[base + code[pc + 1]] = array[index];
+                    pc += 5;
+                    break;
+                }
+                case Opcode.RALOAD: {
+                    VMArray array = (VMArray) checkArray(R[base + code[pc + 2]], code[pc + 4]);
+                    int index = checkIndex(array.elements.length, I[base + code[pc + 3]],
+                            code[pc + 4]);
+                    R[base + code[pc + 1]] = array.elements[index];
+                    pc += 5;
+                    break;
+                }
+                case Opcode.IASTORE: {
+                    int[] array = (int[]) checkArray(R[base + code[pc + 1]], code[pc + 4]);
+                    int index = checkIndex(array.length, I[base + code[pc + 2]], code[pc + 4]);
+                    array[index] = I[base + code[pc + 3]];
+                    pc += 5;
+                    break;
+                }
+                case Opcode.RASTORE: {
+                    VMArray array = (VMArray) checkArray(R[base + code[pc + 1]], code[pc + 4]);
+                    int index = checkIndex(array.elements.length, I[base + code[pc + 2]],
+                            code[pc + 4]);
+                    Object value = R[base + code[pc + 3]];
+                    if (value != null && !isInstance(value, array.elementClass)) {
+                        throw new InterpreterException(code[pc + 4], RuntimeErrors.badArrayStore(
+                                typeName(value), classes[array.elementClass].name));
+                    }
+                    array.elements[index] = value;
+                    pc += 5;
+                    break;
+                }
+                case Opcode.ARRAYLENGTH: {
+                    Object array = R[base + code[pc + 2]];
+                    if (array == null) {
+                        throw new InterpreterException(code[pc + 3],
+                                RuntimeErrors.NULL_ARRAY_LENGTH);
+                    }
+                    I[base + code[pc + 1]] = array instanceof int[]
+                            ? ((int[]) array).length : ((VMArray) array).elements.length;
+                    pc += 4;
+                    break;
+                }
+                case Opcode.INSTANCEOF:
+                    I[base + code[pc + 1]] = isInstance(R[base + code[pc + 2]], code[pc + 3]) ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.CHECKCAST: {
+                    Object value = R[base + code[pc + 1]];
+                    if (value != null && !isInstance(value, code[pc + 2])) {
+                        throw new InterpreterException(code[pc + 3],
+                                RuntimeErrors.badCast(typeName(value), typeName(code[pc + 2])));
+                    }
+                    pc += 4;
+                    break;
+                }
+                case Opcode.INVOKEVIRTUAL:
+                case Opcode.INVOKESPECIAL: {
+                    int first = base + code[pc + 3];
+                    Object receiver = R[first];
+                    if (receiver == null) {
+                        throw new InterpreterException(code[pc + 5], RuntimeErrors.nullCall(
+                                code[pc] == Opcode.INVOKESPECIAL ? methods[code[pc + 2]].name
+                                        : selectors[code[pc + 2]]));
+                    }
+                    int callee = code[pc] == Opcode.INVOKESPECIAL ? code[pc + 2]
+                            : classes[classOf(receiver)].vtable[code[pc + 2]];
+                    if (callee < 0) {
+                        // only a receiver that passed a wrong check could lack the method
+                        throw new InterpreterException(code[pc + 5], RuntimeErrors.undefinedMethod(
+                                selectors[code[pc + 2]], classes[classOf(receiver)].name));
+                    }
+                    if (builtIns[callee] >= 0) {
+                        invokeBuiltIn(builtIns[callee], receiver, first, code[pc + 5]);
+                    }
+                    else {
+                        ensureCapacity(top + code[pc + 4]);
+                        I = ints;
+                        R = refs;
+                        System.arraycopy(I, first, I, top, code[pc + 4]);
+                        System.arraycopy(R, first, R, top, code[pc + 4]);
+                        execute(callee, top);
+                        I = ints;
+                        R = refs;
+                    }
+                    I[base + code[pc + 1]] = intResult;
+                    R[base + code[pc + 1]] = refResult;
+                    refResult = null;
+                    pc += 6;
+                    break;
+                }
+                case Opcode.RETURN:
+                    return;
+                case Opcode.IRETURN:
+                    intResult = I[base + code[pc + 1]];
+                    return;
+                case Opcode.RRETURN:
+                    refResult = R[base + code[pc + 1]];
+                    return;
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    /**
+     * Checks for interruption when jumping backwards, so that every loop
+     * can be stopped.
+     */
+    private int jump(int pc, int target) {
+        if (target < pc && Thread.interrupted()) {
+            throw new InterpreterException(0, RuntimeErrors.STOPPED);
+        }
+        return target;
+    }
+
+    /**
+     * Creates an object and runs the initializer of its class, in a frame
+     * starting at base.
+     */
+    private Object instantiate(int classIndex, int base) {
+        BytecodeProgram.ClassInfo classInfo = classes[classIndex];
+        VMObject object = new VMObject(classIndex, classInfo.numFields);
+        if (classIndex == textIOClass) {
+            object.peer = new TextIOPeer(in, out);
+        }
+        if (classInfo.initMethod >= 0) {
+            ensureCapacity(base + 1);
+            refs[base] = object;
+            execute(classInfo.initMethod, base);
+        }
+        return object;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > ints.length) {
+            int length = Math.max(size, ints.length * 2);
+            ints = Arrays.copyOf(ints, length);
+            refs = Arrays.copyOf(refs, length);
+        }
+    }
+
+    private int classOf(Object value) {
+        if (value instanceof VMObject) {
+            return ((VMObject) value).classIndex;
+        }
+        return value instanceof String ? stringClass : objectClass;
+    }
+
+    private boolean isInstance(Object value, int type) {
+        if (type == Opcode.INT_ARRAY) {
+            return value instanceof int[];
+        }
+        if (type < 0) {
+            // arrays are covariant, like in the type checker
+            return value instanceof VMArray
+                    && isSubclass(((VMArray) value).elementClass, Opcode.elementOf(type));
+        }
+        return value != null && isSubclass(classOf(value), type);
+    }
+
+    private boolean isSubclass(int classIndex, int ancestor) {
+        return classIndex >= ancestor && classIndex <= classes[ancestor].subtreeEnd;
+    }
+
+    private String typeName(Object value) {
+        if (value instanceof int[]) {
+            return "int[]";
+        }
+        return value instanceof VMArray ? classes[((VMArray) value).elementClass].name + "[]"
+                : classes[classOf(value)].name;
+    }
+
+    private String typeName(int type) {
+        if (type == Opcode.INT_ARRAY) {
+            return "int[]";
+        }
+        return type < 0 ? classes[Opcode.elementOf(type)].name + "[]" : classes[type].name;
+    }
+
+    private int indexOf(String className) {
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i].name.equals(className)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object checkArray(Object array, int lineNum) {
+        if (array == null) {
+            throw new InterpreterException(lineNum, RuntimeErrors.NULL_ARRAY_ELEMENT);
+        }
+        return array;
+    }
+
+    private static int checkIndex(int length, int index, int lineNum) {
+        if (index < 0 || index >= length) {
+            throw new InterpreterException(lineNum,
+                    RuntimeErrors.indexOutOfBounds(index, length));
+        }
+        return index;
+    }
+
+    private static int checkDivisor(int divisor, int lineNum) {
+        if (divisor == 0) {
+            throw new InterpreterException(lineNum, RuntimeErrors.DIVISION_BY_ZERO);
+        }
+        return divisor;
+    }
+
+    /**
+     * Runs a method of a built-in class whose receiver is in register
+     * first and whose arguments follow it.
+     */
+    private void invokeBuiltIn(int builtIn, Object receiver, int first, int lineNum) {
+        int[] I = ints;
+        Object[] R = refs;
+        switch (builtIn) {
+            case 0:     // Object.clone
+                if (receiver instanceof VMObject) {
+                    refResult = new VMObject((VMObject) receiver);
+                }
+                else {
+                    refResult = receiver instanceof int[] ? ((int[]) receiver).clone()
+                            : new VMArray((VMArray) receiver);
+                }
+                break;
+            case 1:     // Object.equals
+                intResult = receiver == R[first + 1] ? 1 : 0;
+                break;
+            case 2:     // Object.toString
+                refResult = receiver instanceof String ? receiver : typeName(receiver) + "@"
+                        + Integer.toHexString(System.identityHashCode(receiver));
+                break;
+            case 3:     // String.length
+                intResult = ((String) receiver).length();
+                break;
+            case 4:     // String.equals
+                intResult = receiver.equals(R[first + 1]) ? 1 : 0;
+                break;
+            case 5:     // String.toString
+                refResult = receiver;
+                break;
+            case 6: {   // String.substring
+                String string = (String) receiver;
+                int begin = I[first + 1];
+                int end = I[first + 2];
+                if (begin < 0 || begin > end || end > string.length()) {
+                    throw new InterpreterException(lineNum,
+                            RuntimeErrors.substringOutOfBounds(begin, end, string.length()));
+                }
+                refResult = string.substring(begin, end);
+                break;
+            }
+            case 7:     // String.concat
+                refResult = receiver + String.valueOf(R[first + 1]);
+                break;
+            case 8:     // Sys.exit
+                throw new ExitException(I[first + 1]);
+            case 9:     // Sys.time
+                intResult = (int) (System.currentTimeMillis() / 1000);
+                break;
+            case 10:    // Sys.random
+                intResult = random.nextInt(Integer.MAX_VALUE);
+                break;
+            default:
+                invokeTextIO(builtIn, (VMObject) receiver, first, lineNum);
+        }
+    }
+
+    private void invokeTextIO(int builtIn, VMObject textIO, int first, int lineNum) {
+        TextIOPeer peer = (TextIOPeer) textIO.peer;
+        Object argument = refs[first + 1];
+        try {
+            switch (builtIn) {
+                case 11:    // TextIO.readStdin
+                    peer.reader = new BufferedReader(new InputStreamReader(in));
+                    break;
+                case 12:    // TextIO.readFile
+                    peer.reader = new BufferedReader(new FileReader((String) argument));
+                    break;
+                case 13:    // TextIO.writeStdout
+                    peer.writer = new PrintWriter(out, true);
+                    break;
+                case 14:    // TextIO.writeStderr
+                    peer.writer = new PrintWriter(System.err, true);
+                    break;
+                case 15:    // TextIO.writeFile
+                    peer.writer = new PrintWriter(new FileWriter((String) argument), true);
+                    break;
+                case 16:    // TextIO.getString
+                    refResult = peer.reader.readLine();
+                    break;
+                case 17: {  // TextIO.getInt
+                    String line = peer.reader.readLine();
+                    intResult = line == null ? 0 : Integer.parseInt(line.trim());
+                    break;
+                }
+                case 18:    // TextIO.putString
+                    peer.writer.print(argument);
+                    peer.writer.flush();
+                    refResult = textIO;
+                    break;
+                case 19:    // TextIO.putInt
+                    peer.writer.print(ints[first + 1]);
+                    peer.writer.flush();
+                    refResult = textIO;
+                    break;
+                default:
+                    throw new InterpreterException(lineNum, "Unknown built-in method.");
+            }
+        }
+        catch (IOException e) {
+            throw new InterpreterException(lineNum, BUILT_INS[builtIn] + " failed: "
+                    + e.getMessage());
+        }
+        catch (NumberFormatException e) {
+            throw new InterpreterException(lineNum, RuntimeErrors.NOT_AN_INT);
+        }
+    }
+
+    /**
+     * An object: the index of its class and its fields
+     */
+    private static class VMObject {
+        final int classIndex;
+        final int[] ints;
+        final Object[] refs;
+        Object peer;
+
+        VMObject(int classIndex, int numFields) {
+            this.classIndex = classIndex;
+            ints = new int[numFields];
+            refs = new Object[numFields];
+        }
+
+        VMObject(VMObject original) {
+            classIndex = original.classIndex;
+            ints = original.ints.clone();
+            refs = original.refs.clone();
+            peer = original.peer;
+        }
+    }
+
+    /**
+     * An array of references: the index of the class of its elements and
+     * the elements
+     */
+    private static class VMArray {
+        final int elementClass;
+        final Object[] elements;
+
+        VMArray(int elementClass, int length) {
+            this.elementClass = elementClass;
+            elements = new Object[length];
+        }
+
+        VMArray(VMArray original) {
+            elementClass = original.elementClass;
+            elements = original.elements.clone();
+        }
+    }
+
+    /**
+     * The streams of a TextIO object; it reads standard input and writes
+     * standard output until told otherwise
+     */
+    private static class TextIOPeer {
+        BufferedReader reader;
+        PrintWriter writer;
+
+        TextIOPeer(InputStream in, PrintStream out) {
+            reader = new BufferedReader(new InputStreamReader(in));
+            writer = new PrintWriter(out, true);
+        }
+    }
+
+    /**
+     * Thrown by Sys.exit to unwind the running program
+     */
+    private static class ExitException extends RuntimeException {
+        final int status;
+
+        ExitException(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Compiles a Bantam Java program to bytecode, or takes the bytecode
+     * from the cache if the program has not changed, and runs it.
+     *
+     * @param args the file to run, optionally preceded by -cache and the
+     *             cache directory
+     */
+    public static void main(String[] args) {
+        String cacheDir = BytecodeCache.DEFAULT_CACHE_DIR;
+        int arg = 0;
+        if (args.length == 3 && args[0].equals("-cache")) {
+            cacheDir = args[1];
+            arg = 2;
+        }
+        if (args.length != arg + 1) {
+            System.out.println("Usage: java proj11HangSlager.bantam.vm.VirtualMachine "
+                    + "[-cache dir] file.btm");
+            return;
+        }
+        ErrorHandler errorHandler = new ErrorHandler();
+        try {
+            BytecodeProgram program = new BytecodeCache(Paths.get(cacheDir)).load(args[arg], errorHandler);
+            if (errorHandler.errorsFound()) {
+                for (Error error : errorHandler.getErrorList()) {
+                    System.out.println(error);
+                }
+                return;
+            }
+            VirtualMachine machine = new VirtualMachine(program, System.out, System.in);
+            System.exit(machine.run());
+        }
+        catch (CompilationException | InterpreterException e) {
+            System.out.flush();
+            for (Error error : errorHandler.getErrorList()) {
+                System.out.println(error);
+            }
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}